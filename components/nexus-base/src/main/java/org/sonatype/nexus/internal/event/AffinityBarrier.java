@@ -85,12 +85,31 @@ class AffinityBarrier
    * Executes the asynchronous event delivery, registering a new party to track when it's done.
    */
   public void execute(final Runnable command) {
+    execute(command, executor);
+  }
+
+  /**
+   * Executes the asynchronous event delivery on the given executor, registering a new party to track when it's done.
+   * The party is also deregistered if the executor discards the delivery, so the next posting isn't held back.
+   *
+   * @since 3.next
+   */
+  public void execute(final Runnable command, final Executor deliveryExecutor) {
     register();
-    executor.execute(() -> {
-      try {
-        command.run();
+    deliveryExecutor.execute(new SubscriberQueueExecutor.Discardable()
+    {
+      @Override
+      public void run() {
+        try {
+          command.run();
+        }
+        finally {
+          arriveAndDeregister();
+        }
       }
-      finally {
+
+      @Override
+      public void discard() {
         arriveAndDeregister();
       }
     });
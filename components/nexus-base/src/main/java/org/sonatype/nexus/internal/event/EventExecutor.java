@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.internal.event;
 
+import java.util.Locale;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -31,14 +32,17 @@ import org.sonatype.goodies.lifecycle.LifecycleSupport;
 import org.sonatype.nexus.common.app.ManagedLifecycle;
 import org.sonatype.nexus.common.event.EventAware.Asynchronous;
 import org.sonatype.nexus.common.event.WithAffinity;
+import org.sonatype.nexus.internal.event.SubscriberQueueExecutor.Overflow;
 import org.sonatype.nexus.thread.NexusExecutorService;
 import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.MoreExecutors.newSequentialExecutor;
@@ -57,6 +61,10 @@ import static org.sonatype.nexus.internal.event.EventManagerImpl.HOST_THREAD_POO
  * and subscribers will again be called directly by the originating thread. This avoids
  * asynchronous subscribers from having services disappear beneath them.
  *
+ * Deliveries can optionally be routed through bounded per-subscriber queues which apply
+ * back-pressure to posting threads and expose per-subscriber metrics. Subscribers then
+ * dispatch through their own {@link #forSubscriber executor}.
+ *
  * @since 3.2
  */
 @Named
@@ -81,26 +89,78 @@ class EventExecutor
 
   private final boolean fairThreading;
 
+  private final boolean subscriberQueues;
+
+  private final int subscriberQueueThreads;
+
+  private final int subscriberQueueCapacity;
+
+  private final int subscriberQueueConcurrency;
+
+  private final Overflow subscriberQueueOverflow;
+
+  @Nullable
+  private MetricRegistry metricRegistry;
+
   private NexusExecutorService eventProcessor;
 
+  @Nullable
+  private SubscriberQueueExecutor subscriberProcessor;
+
   private NexusExecutorService affinityProcessor;
 
   private LoadingCache<String, AffinityBarrier> affinityBarriers;
 
   private volatile boolean asyncProcessing;
 
+  public EventExecutor(final boolean affinityEnabled,
+                       final int affinityCacheSize,
+                       final Time affinityTimeout,
+                       final boolean singleCoordinator,
+                       final boolean fairThreading)
+  {
+    this(affinityEnabled, affinityCacheSize, affinityTimeout, singleCoordinator, fairThreading,
+        false, 100, 1000, 4, "block");
+  }
+
+  /**
+   * @since 3.next
+   */
   @Inject
   public EventExecutor(@Named("${nexus.event.affinityEnabled:-true}") final boolean affinityEnabled,
                        @Named("${nexus.event.affinityCacheSize:-1000}") final int affinityCacheSize,
                        @Named("${nexus.event.affinityTimeout:-1s}") final Time affinityTimeout,
                        @Named("${nexus.event.singleCoordinator:-false}") final boolean singleCoordinator,
-                       @Named("${nexus.event.fairThreading:-false}") final boolean fairThreading)
+                       @Named("${nexus.event.fairThreading:-false}") final boolean fairThreading,
+                       @Named("${nexus.event.subscriberQueues:-false}") final boolean subscriberQueues,
+                       @Named("${nexus.event.subscriberQueueThreads:-100}") final int subscriberQueueThreads,
+                       @Named("${nexus.event.subscriberQueueCapacity:-1000}") final int subscriberQueueCapacity,
+                       @Named("${nexus.event.subscriberQueueConcurrency:-4}") final int subscriberQueueConcurrency,
+                       @Named("${nexus.event.subscriberQueueOverflow:-block}") final String subscriberQueueOverflow)
   {
+    checkArgument(subscriberQueueThreads > 0, "Must use a positive number of subscriber queue threads");
+    checkArgument(subscriberQueueCapacity > 0, "Must use a positive subscriber queue capacity");
+    checkArgument(subscriberQueueConcurrency > 0, "Must use a positive subscriber queue concurrency");
     this.affinityEnabled = affinityEnabled;
     this.affinityCacheSize = affinityCacheSize;
     this.affinityTimeout = checkNotNull(affinityTimeout);
     this.singleCoordinator = singleCoordinator;
     this.fairThreading = fairThreading;
+    this.subscriberQueues = subscriberQueues;
+    this.subscriberQueueThreads = subscriberQueueThreads;
+    this.subscriberQueueCapacity = subscriberQueueCapacity;
+    this.subscriberQueueConcurrency = subscriberQueueConcurrency;
+    this.subscriberQueueOverflow = Overflow.valueOf(subscriberQueueOverflow.toUpperCase(Locale.ENGLISH));
+  }
+
+  /**
+   * Used to track queue depth, wait time and processing time per subscriber.
+   *
+   * @since 3.next
+   */
+  @Inject
+  public void setMetricRegistry(final MetricRegistry metricRegistry) {
+    this.metricRegistry = metricRegistry;
   }
 
   /**
@@ -121,6 +181,12 @@ class EventExecutor
 
     eventProcessor = NexusExecutorService.forCurrentSubject(threadPool);
 
+    if (subscriberQueues) {
+      // bounded per-subscriber queues, deliveries apply back-pressure instead of running on the posting thread
+      subscriberProcessor = new SubscriberQueueExecutor(subscriberQueueThreads, subscriberQueueCapacity,
+          subscriberQueueConcurrency, subscriberQueueOverflow, metricRegistry);
+    }
+
     if (affinityEnabled) {
 
       Supplier<Executor> coordinator;
@@ -160,6 +226,10 @@ class EventExecutor
     if (asyncProcessing) {
       shutdown(affinityProcessor);
       shutdown(eventProcessor);
+      if (subscriberProcessor != null) {
+        subscriberProcessor.shutdown();
+        subscriberProcessor = null;
+      }
       asyncProcessing = false;
     }
   }
@@ -170,7 +240,8 @@ class EventExecutor
   @VisibleForTesting
   boolean isCalmPeriod() {
     if (asyncProcessing) {
-      return isCalmPeriod(affinityProcessor) && isCalmPeriod(eventProcessor);
+      return isCalmPeriod(affinityProcessor) && isCalmPeriod(eventProcessor)
+          && (subscriberProcessor == null || subscriberProcessor.isCalm());
     }
     else {
       return true; // single-threaded mode is always calm
@@ -203,19 +274,59 @@ class EventExecutor
     }
   }
 
+  /**
+   * Are asynchronous deliveries routed through bounded per-subscriber queues?
+   *
+   * @since 3.next
+   */
+  public boolean isSubscriberQueuesEnabled() {
+    return subscriberQueues;
+  }
+
+  /**
+   * Returns an {@link Executor} for asynchronous delivery of events to the given subscriber, which uses the
+   * subscriber's own queue when {@link #isSubscriberQueuesEnabled subscriber queues} are enabled.
+   *
+   * @since 3.next
+   */
+  public Executor forSubscriber(final Object subscriber) {
+    checkNotNull(subscriber);
+    return command -> execute(command, subscriber);
+  }
+
+  /**
+   * Releases the queue and metrics held for the given subscriber, if any.
+   *
+   * @since 3.next
+   */
+  public void releaseSubscriber(final Object subscriber) {
+    SubscriberQueueExecutor queues = subscriberProcessor;
+    if (queues != null) {
+      queues.release(subscriber);
+    }
+  }
+
   /**
    * Executes asynchronous delivery of an event to a particular subscriber, tracking it as necessary.
    */
   @Override
   public void execute(final Runnable deliverEventToSubscriber) {
+    execute(deliverEventToSubscriber, null);
+  }
+
+  private void execute(final Runnable deliverEventToSubscriber, @Nullable final Object subscriber) {
     if (asyncProcessing) {
       Runnable command = inheritIsReplicating(deliverEventToSubscriber);
+      SubscriberQueueExecutor queues = subscriberProcessor;
+      Executor deliveryExecutor = queues != null && subscriber != null ? queues.forSubscriber(subscriber)
+          : eventProcessor;
       AffinityBarrier barrier = affinityEnabled ? AffinityBarrier.current() : null;
       if (barrier != null) {
-        barrier.execute(command); // tracks each event delivery to help with coordination of the next posting request
+        // tracks each event delivery to help with coordination of the next posting request
+        barrier.execute(command, deliveryExecutor);
       }
       else {
-        eventProcessor.execute(command);
+        deliveryExecutor.execute(command);
       }
     }
     else {
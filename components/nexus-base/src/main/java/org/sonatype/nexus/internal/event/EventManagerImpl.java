@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.internal.event;
 
+import java.util.concurrent.ConcurrentMap;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -27,6 +29,7 @@ import org.sonatype.nexus.jmx.reflect.ManagedAttribute;
 import org.sonatype.nexus.jmx.reflect.ManagedObject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
 import com.google.common.eventbus.EventBus;
 import com.google.inject.Key;
 import org.eclipse.sisu.BeanEntry;
@@ -60,6 +63,9 @@ public class EventManagerImpl
 
   private final EventBus asyncBus;
 
+  // weak keys are compared by identity, so each subscriber instance gets its own bus
+  private final ConcurrentMap<Object, EventBus> subscriberBuses = new MapMaker().weakKeys().makeMap();
+
   @Inject
   public EventManagerImpl(final BeanLocator beanLocator, final EventExecutor eventExecutor)
   {
@@ -97,7 +103,13 @@ public class EventManagerImpl
   public void register(final Object object) {
     boolean async = object instanceof Asynchronous;
 
-    if (async) {
+    if (async && eventExecutor.isSubscriberQueuesEnabled()) {
+      // dedicated bus per subscriber so its deliveries can be queued against it without inspecting Guava internals
+      subscriberBuses.computeIfAbsent(object,
+          subscriber -> reentrantAsyncEventBus("nexus.async", eventExecutor.forSubscriber(subscriber)))
+          .register(object);
+    }
+    else if (async) {
       asyncBus.register(object);
     }
     else {
@@ -111,7 +123,12 @@ public class EventManagerImpl
   public void unregister(final Object object) {
     boolean async = object instanceof Asynchronous;
 
-    if (async) {
+    EventBus subscriberBus = async ? subscriberBuses.remove(object) : null;
+    if (subscriberBus != null) {
+      subscriberBus.unregister(object);
+      eventExecutor.releaseSubscriber(object);
+    }
+    else if (async) {
       asyncBus.unregister(object);
     }
     else {
@@ -129,14 +146,23 @@ public class EventManagerImpl
     if (isAffinityEnabled() && event instanceof WithAffinity) {
       String affinity = ((WithAffinity) event).getAffinity();
       if (affinity != null) {
-        eventExecutor.executeWithAffinity(affinity, () -> asyncBus.post(event));
+        eventExecutor.executeWithAffinity(affinity, () -> postAsync(event));
       }
       else {
         // unexpected state, fall back to previous behaviour
         log.warn("Event {} requested 'null' affinity", event);
-        asyncBus.post(event);
+        postAsync(event);
       }
     }
+    else {
+      postAsync(event);
+    }
+  }
+
+  private void postAsync(final Object event) {
+    if (eventExecutor.isSubscriberQueuesEnabled()) {
+      subscriberBuses.values().forEach(bus -> bus.post(event));
+    }
     else {
       asyncBus.post(event);
     }
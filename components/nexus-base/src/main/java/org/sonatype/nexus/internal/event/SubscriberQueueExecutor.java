@@ -0,0 +1,413 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.event;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.MapMaker;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Arrays.asList;
+
+/**
+ * Queues event deliveries per subscriber instance, in bounded queues, before running them on a shared pool of
+ * worker threads. Each subscriber gets its own {@link Executor} from {@link #forSubscriber}.
+ *
+ * Workers take one delivery at a time from each subscriber with pending deliveries in turn, so a busy subscriber
+ * cannot starve the others. Subscribers with any {@link Subscribe} method that is not marked with
+ * {@link AllowConcurrentEvents} are drained by one worker at a time.
+ *
+ * Queue depth, wait time, processing time and dropped deliveries are tracked per subscriber instance.
+ *
+ * @since 3.next
+ */
+class SubscriberQueueExecutor
+{
+  /**
+   * What to do with a new delivery when the subscriber's queue is full.
+   */
+  enum Overflow
+  {
+    /**
+     * Block the posting thread until there is room in the queue.
+     */
+    BLOCK,
+
+    /**
+     * Discard the delivery and count it as dropped.
+     */
+    DROP
+  }
+
+  /**
+   * Command that needs to know when it was discarded by an overflowing queue, because it will never be run.
+   */
+  interface Discardable
+      extends Runnable
+  {
+    void discard();
+  }
+
+  private static final Logger log = LoggerFactory.getLogger(SubscriberQueueExecutor.class);
+
+  private static final String METRIC_PREFIX = EventExecutor.class.getName();
+
+  private static final ThreadLocal<Boolean> IS_WORKER = new ThreadLocal<>();
+
+  /**
+   * Keep draining (on the calling thread) after the worker pool is shutdown.
+   */
+  private static final RejectedExecutionHandler CALLER_RUNS_FAILSAFE = (command, executor) -> command.run();
+
+  private final int capacity;
+
+  private final int concurrency;
+
+  private final Overflow overflow;
+
+  private final ThreadPoolExecutor workers;
+
+  // weak keys are compared by identity, so each subscriber instance gets its own queue
+  private final ConcurrentMap<Object, SubscriberQueue> subscriberQueues = new MapMaker().weakKeys().makeMap();
+
+  private final AtomicLong subscriberSequence = new AtomicLong();
+
+  @Nullable
+  private final MetricRegistry metricRegistry;
+
+  SubscriberQueueExecutor(final int threads,
+                          final int capacity,
+                          final int concurrency,
+                          final Overflow overflow,
+                          @Nullable final MetricRegistry metricRegistry)
+  {
+    checkArgument(threads > 0, "Must use a positive number of threads");
+    checkArgument(capacity > 0, "Must use a positive queue capacity");
+    checkArgument(concurrency > 0, "Must use a positive concurrency");
+    this.capacity = capacity;
+    this.concurrency = concurrency;
+    this.overflow = checkNotNull(overflow);
+    this.metricRegistry = metricRegistry;
+
+    this.workers = new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), // holds at most one entry per active drainer
+        new NexusThreadFactory("event", "event-subscriber"),
+        CALLER_RUNS_FAILSAFE
+    );
+  }
+
+  /**
+   * Queues the delivery of an event to the given subscriber.
+   */
+  void execute(final Object subscriber, final Runnable deliverEventToSubscriber) {
+    queue(subscriber).enqueue(new Delivery(deliverEventToSubscriber));
+  }
+
+  /**
+   * Returns an {@link Executor} that queues deliveries for the given subscriber.
+   */
+  Executor forSubscriber(final Object subscriber) {
+    checkNotNull(subscriber);
+    return command -> execute(subscriber, command);
+  }
+
+  /**
+   * Forgets the given subscriber and removes its metrics; deliveries already queued for it will still run.
+   */
+  void release(final Object subscriber) {
+    SubscriberQueue queue = subscriberQueues.remove(subscriber);
+    if (queue != null && metricRegistry != null) {
+      String prefix = queue.metricPrefix();
+      metricRegistry.removeMatching((name, metric) -> name.startsWith(prefix + "."));
+    }
+  }
+
+  private SubscriberQueue queue(final Object subscriber) {
+    return subscriberQueues.computeIfAbsent(subscriber, s -> new SubscriberQueue(
+        s.getClass().getName() + '-' + subscriberSequence.incrementAndGet(),
+        allowsConcurrentEvents(s.getClass()) ? concurrency : 1));
+  }
+
+  /**
+   * Guava serializes calls to any {@link Subscribe} method not marked with {@link AllowConcurrentEvents}, so such
+   * subscribers are given a single drainer rather than blocking several workers on the same monitor.
+   */
+  private static boolean allowsConcurrentEvents(final Class<?> subscriberType) {
+    // like Guava, only the most specific annotated declaration of each method counts
+    Set<List<Object>> seen = new HashSet<>();
+    for (Class<?> type : TypeToken.of(subscriberType).getTypes().rawTypes()) {
+      for (Method method : type.getDeclaredMethods()) {
+        if (method.isAnnotationPresent(Subscribe.class) && !method.isSynthetic()
+            && seen.add(asList(method.getName(), asList(method.getParameterTypes())))
+            && !method.isAnnotationPresent(AllowConcurrentEvents.class)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return {@code true} if there are no queued or running deliveries
+   */
+  boolean isCalm() {
+    return workers.getQueue().isEmpty() && workers.getActiveCount() == 0
+        && subscriberQueues.values().stream().allMatch(SubscriberQueue::isEmpty);
+  }
+
+  /**
+   * @return number of deliveries waiting for the given subscriber
+   */
+  int getQueueDepth(final Object subscriber) {
+    SubscriberQueue queue = subscriberQueues.get(subscriber);
+    return queue != null ? queue.deliveries.size() : 0;
+  }
+
+  /**
+   * @return name used for the given subscriber's metrics, {@code null} if it has no queue
+   */
+  @Nullable
+  String getSubscriberName(final Object subscriber) {
+    SubscriberQueue queue = subscriberQueues.get(subscriber);
+    return queue != null ? queue.subscriberName : null;
+  }
+
+  /**
+   * Stops the workers once all queued deliveries have run, and removes the subscriber metrics.
+   */
+  void shutdown() {
+    workers.shutdown();
+    try {
+      workers.awaitTermination(5L, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e) {
+      log.debug("Interrupted while waiting for termination", e);
+    }
+    if (metricRegistry != null) {
+      metricRegistry.removeMatching((name, metric) -> name.startsWith(METRIC_PREFIX + ".subscriber."));
+    }
+  }
+
+  /**
+   * An event delivery waiting in a subscriber queue.
+   */
+  private static class Delivery
+  {
+    final Runnable command;
+
+    final long queuedNanos = System.nanoTime();
+
+    Delivery(final Runnable command) {
+      this.command = command;
+    }
+  }
+
+  /**
+   * Bounded queue of deliveries for one subscriber, drained by at most {@code maxDrainers} workers at a time.
+   */
+  private class SubscriberQueue
+  {
+    final String subscriberName;
+
+    final int maxDrainers;
+
+    final BlockingQueue<Delivery> deliveries = new ArrayBlockingQueue<>(capacity);
+
+    final AtomicInteger drainers = new AtomicInteger();
+
+    @Nullable
+    final Timer waitTimer;
+
+    @Nullable
+    final Timer processingTimer;
+
+    @Nullable
+    final Meter droppedMeter;
+
+    SubscriberQueue(final String subscriberName, final int maxDrainers) {
+      this.subscriberName = subscriberName;
+      this.maxDrainers = maxDrainers;
+
+      if (metricRegistry != null) {
+        String prefix = metricPrefix();
+        metricRegistry.remove(name(prefix, "depth"));
+        metricRegistry.register(name(prefix, "depth"), (Gauge<Integer>) deliveries::size);
+        waitTimer = metricRegistry.timer(name(prefix, "wait"));
+        processingTimer = metricRegistry.timer(name(prefix, "processing"));
+        droppedMeter = metricRegistry.meter(name(prefix, "dropped"));
+      }
+      else {
+        waitTimer = null;
+        processingTimer = null;
+        droppedMeter = null;
+      }
+    }
+
+    String metricPrefix() {
+      return name(METRIC_PREFIX, "subscriber", subscriberName);
+    }
+
+    boolean isEmpty() {
+      return deliveries.isEmpty();
+    }
+
+    void enqueue(final Delivery delivery) {
+      if (!deliveries.offer(delivery) && !overflow(delivery)) {
+        return;
+      }
+      if (tryAddDrainer()) {
+        workers.execute(this::drain);
+      }
+    }
+
+    /**
+     * @return {@code true} if the delivery was eventually queued (or run), {@code false} if it was discarded
+     */
+    private boolean overflow(final Delivery delivery) {
+      if (Boolean.TRUE.equals(IS_WORKER.get())) {
+        // blocking a worker on another queue risks deadlock, so deliver re-entrant events directly
+        run(delivery);
+        return false;
+      }
+      switch (overflow) {
+        case DROP:
+          return drop(delivery);
+        case BLOCK:
+        default:
+          return put(delivery);
+      }
+    }
+
+    private boolean drop(final Delivery delivery) {
+      if (droppedMeter != null) {
+        droppedMeter.mark();
+      }
+      log.debug("Dropped delivery to {}: queue is full", subscriberName);
+      if (delivery.command instanceof Discardable) {
+        try {
+          ((Discardable) delivery.command).discard();
+        }
+        catch (Throwable e) { // NOSONAR
+          log.warn("Unexpected problem discarding delivery to {}", subscriberName, e);
+        }
+      }
+      return false;
+    }
+
+    private boolean put(final Delivery delivery) {
+      try {
+        deliveries.put(delivery);
+        return true;
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        log.debug("Interrupted while waiting for room in {} queue, delivering directly", subscriberName);
+        run(delivery);
+        return false;
+      }
+    }
+
+    private boolean tryAddDrainer() {
+      int current;
+      do {
+        current = drainers.get();
+        if (current >= maxDrainers) {
+          return false;
+        }
+      }
+      while (!drainers.compareAndSet(current, current + 1));
+      return true;
+    }
+
+    /**
+     * Runs one delivery then goes to the back of the line, so workers rotate fairly between subscribers.
+     * Once the workers are shutdown any remaining deliveries are run on the current thread.
+     */
+    private void drain() {
+      while (true) {
+        Delivery delivery = deliveries.poll();
+        if (delivery != null) {
+          if (waitTimer != null) {
+            waitTimer.update(System.nanoTime() - delivery.queuedNanos, TimeUnit.NANOSECONDS);
+          }
+          Boolean wasWorker = IS_WORKER.get();
+          IS_WORKER.set(true);
+          try {
+            run(delivery);
+          }
+          finally {
+            IS_WORKER.set(wasWorker);
+          }
+        }
+        if (deliveries.isEmpty()) {
+          drainers.decrementAndGet();
+          // re-check in case a delivery was queued while we were leaving
+          if (deliveries.isEmpty() || !tryAddDrainer()) {
+            return;
+          }
+        }
+        if (!workers.isShutdown()) {
+          workers.execute(this::drain);
+          return;
+        }
+      }
+    }
+
+    private void run(final Delivery delivery) {
+      Timer.Context context = processingTimer != null ? processingTimer.time() : null;
+      try {
+        delivery.command.run();
+      }
+      catch (Throwable e) { // NOSONAR
+        log.warn("Unexpected problem delivering event to {}", subscriberName, e);
+      }
+      finally {
+        if (context != null) {
+          context.stop();
+        }
+      }
+    }
+  }
+}
@@ -340,13 +340,19 @@ public class DatabaseServerImpl
   @Override
   protected void doStop() throws Exception {
     try {
-      // instance shutdown
-      orientServer.shutdown();
-      orientServer = null;
+      // post any entity events still waiting to be coalesced while their databases are still open
+      entityHook.stop();
     }
     finally {
-      // global shutdown
-      Orient.instance().shutdown();
+      try {
+        // instance shutdown
+        orientServer.shutdown();
+        orientServer = null;
+      }
+      finally {
+        // global shutdown
+        Orient.instance().shutdown();
+      }
     }
 
     log.info("Shutdown");
@@ -18,6 +18,7 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.jmx.reflect.ManagedAttribute;
 import org.sonatype.nexus.jmx.reflect.ManagedObject;
+import org.sonatype.nexus.jmx.reflect.ManagedOperation;
 import org.sonatype.nexus.transaction.RetryController;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -32,6 +33,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @ManagedObject
 public class RetryControllerBean
 {
+  private static final int HOT_KEYS_LIMIT = 20;
+
   private final RetryController retryController;
 
   @Inject
@@ -98,4 +101,49 @@ public class RetryControllerBean
   public void setMajorExceptionFilter(final String majorExceptionFilter) {
     retryController.setMajorExceptionFilter(majorExceptionFilter);
   }
+
+  @ManagedAttribute
+  public int getHotKeyThreshold() {
+    return retryController.getHotKeyThreshold();
+  }
+
+  @ManagedAttribute
+  public void setHotKeyThreshold(final int hotKeyThreshold) {
+    retryController.setHotKeyThreshold(hotKeyThreshold);
+  }
+
+  @ManagedAttribute
+  public int getHotKeyWaitMillis() {
+    return retryController.getHotKeyWaitMillis();
+  }
+
+  @ManagedAttribute
+  public void setHotKeyWaitMillis(final int hotKeyWaitMillis) {
+    retryController.setHotKeyWaitMillis(hotKeyWaitMillis);
+  }
+
+  /**
+   * Most contended record/entity keys with their conflicts in the last minute.
+   */
+  @ManagedAttribute
+  public String[] getHotKeys() {
+    return retryController.hotKeys(HOT_KEYS_LIMIT).entrySet().stream()
+        .map(e -> e.getKey() + "=" + e.getValue())
+        .toArray(String[]::new);
+  }
+
+  @ManagedAttribute
+  public long getSerializedRetries() {
+    return retryController.serializedRetries();
+  }
+
+  @ManagedAttribute
+  public long getExcessiveRetriesInLastHour() {
+    return retryController.excessiveRetriesInLastHour();
+  }
+
+  @ManagedOperation
+  public void resetConflictStats() {
+    retryController.resetConflictStats();
+  }
 }
@@ -0,0 +1,184 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.webresources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.webresources.WebResource;
+import org.sonatype.nexus.webresources.WebResource.Prepareable;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps the content-hash fingerprint and gzip-compressed form of cacheable {@link WebResource}s, so they are only
+ * read and compressed once rather than on every request.
+ *
+ * Entries are keyed by resource path and recomputed when the size or last-modified time of the resource changes.
+ *
+ * @since 3.next
+ */
+@Named
+@Singleton
+public class PrecompressedWebResources
+    extends ComponentSupport
+{
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private boolean compress = true;
+
+  private int minimumSize = 1024;
+
+  @Inject
+  public void configure(@Named("${nexus.webresources.compress:-true}") final boolean compress,
+                        @Named("${nexus.webresources.compress.minimumSize:-1024}") final int minimumSize)
+  {
+    checkArgument(minimumSize >= 0, "Minimum size must not be negative");
+    this.compress = compress;
+    this.minimumSize = minimumSize;
+  }
+
+  /**
+   * Precomputed details of a cacheable resource.
+   */
+  public static class Entry
+  {
+    private final long size;
+
+    private final long lastModified;
+
+    private final String fingerprint;
+
+    @Nullable
+    private final byte[] gzipped;
+
+    Entry(final long size, final long lastModified, final String fingerprint, @Nullable final byte[] gzipped) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.fingerprint = checkNotNull(fingerprint);
+      this.gzipped = gzipped;
+    }
+
+    /**
+     * Content-hash of the uncompressed resource.
+     */
+    public String getFingerprint() {
+      return fingerprint;
+    }
+
+    /**
+     * Gzip-compressed content; {@code null} if the resource isn't worth compressing.
+     */
+    @Nullable
+    public byte[] getGzipped() {
+      return gzipped;
+    }
+
+    boolean isCurrent(final WebResource resource) {
+      return size == resource.getSize() && lastModified == resource.getLastModified();
+    }
+  }
+
+  /**
+   * Returns the precomputed details of the given resource; {@code null} if the resource isn't cacheable or is
+   * generated on demand.
+   */
+  @Nullable
+  public Entry get(final WebResource resource) {
+    checkNotNull(resource);
+    if (!resource.isCacheable() || resource instanceof Prepareable) {
+      return null;
+    }
+    String path = resource.getPath();
+    Entry entry = entries.get(path);
+    if (entry != null && entry.isCurrent(resource)) {
+      return entry;
+    }
+    try {
+      // read and compress outside of the map, so a slow load never blocks lookups of other resources
+      Entry loaded = load(resource);
+      return entries.merge(path, loaded, (current, fresh) -> current.isCurrent(resource) ? current : fresh);
+    }
+    catch (UncheckedIOException e) {
+      log.warn("Unable to precompress resource {}", resource.getPath(), e.getCause());
+      return null;
+    }
+  }
+
+  private Entry load(final WebResource resource) {
+    long size = resource.getSize();
+    long lastModified = resource.getLastModified();
+    byte[] content;
+    try (InputStream in = resource.getInputStream()) {
+      content = ByteStreams.toByteArray(in);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    String fingerprint = Hashing.sha1().hashBytes(content).toString();
+
+    byte[] gzipped = null;
+    if (compress && content.length >= minimumSize && isCompressible(resource.getContentType())) {
+      gzipped = gzip(content);
+      if (gzipped.length >= content.length) {
+        gzipped = null; // no gain, serve as-is
+      }
+    }
+
+    log.debug("Precompressed resource {}: {} bytes, gzipped {} bytes, fingerprint {}", resource.getPath(),
+        content.length, gzipped != null ? gzipped.length : "-", fingerprint);
+
+    return new Entry(size, lastModified, fingerprint, gzipped);
+  }
+
+  private static byte[] gzip(final byte[] content) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4);
+    try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+      out.write(content);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Text-based content compresses well; images, fonts and archives are usually compressed already.
+   */
+  static boolean isCompressible(@Nullable final String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    return contentType.startsWith("text/")
+        || contentType.contains("javascript")
+        || contentType.contains("json")
+        || contentType.contains("xml")
+        || contentType.contains("svg");
+  }
+}
@@ -20,12 +20,14 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.servlet.ServletContext;
 
 import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.internal.webresources.PrecompressedWebResources.Entry;
 import org.sonatype.nexus.mime.MimeSupport;
 import org.sonatype.nexus.webresources.FileWebResource;
 import org.sonatype.nexus.webresources.UrlWebResource;
@@ -56,16 +58,20 @@ public class WebResourceServiceImpl
 
   private final MimeSupport mimeSupport;
 
+  private final PrecompressedWebResources precompressedWebResources;
+
   private final Map<String, WebResource> resourcePaths;
 
   @Inject
   public WebResourceServiceImpl(final DevModeResources devModeResources,
                                 final ServletContext servletContext,
-                                final MimeSupport mimeSupport)
+                                final MimeSupport mimeSupport,
+                                final PrecompressedWebResources precompressedWebResources)
   {
     this.devModeResources = checkNotNull(devModeResources);
     this.servletContext = checkNotNull(servletContext);
     this.mimeSupport = checkNotNull(mimeSupport);
+    this.precompressedWebResources = checkNotNull(precompressedWebResources);
     this.resourcePaths = Maps.newHashMap();
 
     // make it clear we have DEV mode enabled
@@ -138,6 +144,19 @@ public class WebResourceServiceImpl
     return resource;
   }
 
+  @Override
+  @Nullable
+  public String getFingerprint(final String path) {
+    WebResource resource = getResource(path);
+    if (resource != null) {
+      Entry entry = precompressedWebResources.get(resource);
+      if (entry != null) {
+        return entry.getFingerprint();
+      }
+    }
+    return null;
+  }
+
   @Named
   static class ResourceBundleMediator
       implements Mediator<Named, WebResourceBundle, WebResourceServiceImpl>
@@ -12,9 +12,12 @@
  */
 package org.sonatype.nexus.internal.webresources;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -25,22 +28,30 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.common.app.BaseUrlHolder;
+import org.sonatype.nexus.internal.webresources.PrecompressedWebResources.Entry;
 import org.sonatype.nexus.servlet.ServletHelper;
 import org.sonatype.nexus.servlet.XFrameOptions;
+import org.sonatype.nexus.webresources.DelegatingWebResource;
 import org.sonatype.nexus.webresources.WebResource;
 import org.sonatype.nexus.webresources.WebResource.Prepareable;
 import org.sonatype.nexus.webresources.WebResourceService;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.net.HttpHeaders.ACCEPT_ENCODING;
 import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
+import static com.google.common.net.HttpHeaders.CONTENT_ENCODING;
 import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.HttpHeaders.ETAG;
 import static com.google.common.net.HttpHeaders.IF_MODIFIED_SINCE;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
 import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static com.google.common.net.HttpHeaders.VARY;
 import static com.google.common.net.HttpHeaders.X_FRAME_OPTIONS;
 import static com.google.common.net.HttpHeaders.X_XSS_PROTECTION;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
@@ -64,16 +75,35 @@ public class WebResourceServlet
 
   private final XFrameOptions xframeOptions;
 
+  private final PrecompressedWebResources precompressedWebResources;
+
   private static final String INDEX_PATH = "/index.html";
 
+  /**
+   * Query parameter carrying the content-hash fingerprint of a resource.
+   *
+   * @since 3.next
+   */
+  public static final String FINGERPRINT_PARAM = "_fp";
+
+  private static final long IMMUTABLE_MAX_AGE_SECONDS = TimeUnit.DAYS.toSeconds(365);
+
+  private static final String IDENTITY = "identity";
+
+  private static final String GZIP = "gzip";
+
+  private static final String BROTLI = "br";
+
   @Inject
   public WebResourceServlet(final WebResourceService webResources,
                             final XFrameOptions xframeOptions,
+                            final PrecompressedWebResources precompressedWebResources,
                             @Named("${nexus.webresources.maxAge:-30days}") final Time maxAge)
   {
     this.webResources = checkNotNull(webResources);
     this.maxAgeSeconds = checkNotNull(maxAge.toSeconds());
     this.xframeOptions = checkNotNull(xframeOptions);
+    this.precompressedWebResources = checkNotNull(precompressedWebResources);
     log.info("Max-age: {} ({} seconds)", maxAge, maxAgeSeconds);
   }
 
@@ -137,6 +167,38 @@ public class WebResourceServlet
     response.setHeader(CONTENT_TYPE, contentType);
     response.setDateHeader(LAST_MODIFIED, resource.getLastModified());
 
+    // cacheable resources are fingerprinted and may be served precompressed
+    Entry entry = precompressedWebResources.get(resource);
+    String etag = null;
+    if (entry != null) {
+      response.setHeader(VARY, ACCEPT_ENCODING);
+      String acceptEncoding = request.getHeader(ACCEPT_ENCODING);
+      String encoding = IDENTITY;
+      WebResource encoded = null;
+      if (accepts(acceptEncoding, BROTLI)) {
+        encoded = prebuilt(resource, ".br");
+        encoding = BROTLI;
+      }
+      if (encoded == null && accepts(acceptEncoding, GZIP)) {
+        encoded = prebuilt(resource, ".gz");
+        if (encoded == null && entry.getGzipped() != null) {
+          encoded = gzipped(resource, entry.getGzipped());
+        }
+        encoding = GZIP;
+      }
+      if (encoded != null) {
+        response.setHeader(CONTENT_ENCODING, encoding);
+        resource = encoded;
+      }
+      else {
+        encoding = IDENTITY;
+      }
+      // strong validator, distinct per encoding as the bytes on the wire differ
+      etag = IDENTITY.equals(encoding) ? "\"" + entry.getFingerprint() + "\""
+          : "\"" + entry.getFingerprint() + "-" + encoding + "\"";
+      response.setHeader(ETAG, etag);
+    }
+
     // set content-length, complain if invalid
     long size = resource.getSize();
     if (size < 0) {
@@ -144,19 +206,30 @@ public class WebResourceServlet
     }
     response.setHeader(CONTENT_LENGTH, String.valueOf(size));
 
-    // set max-age if cacheable
-    if (resource.isCacheable()) {
+    // fingerprinted URLs never change content, anything else gets max-age if cacheable
+    if (entry != null && entry.getFingerprint().equals(request.getParameter(FINGERPRINT_PARAM))) {
+      response.setHeader(CACHE_CONTROL, "public, max-age=" + IMMUTABLE_MAX_AGE_SECONDS + ", immutable");
+    }
+    else if (resource.isCacheable()) {
       response.setHeader(CACHE_CONTROL, "max-age=" + maxAgeSeconds);
     }
     else {
       ServletHelper.addNoCacheResponseHeaders(response);
     }
 
-    // honor if-modified-since GETs
-    long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
-    // handle conditional GETs
-    if (ifModifiedSince > -1 && resource.getLastModified() <= ifModifiedSince) {
-      // this is a conditional GET using time-stamp, and resource is not modified
+    // handle conditional GETs, entity-tags take precedence over time-stamps
+    boolean notModified;
+    String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+      notModified = etag != null && matches(ifNoneMatch, etag);
+    }
+    else {
+      long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
+      notModified = ifModifiedSince > -1 && resource.getLastModified() <= ifModifiedSince;
+    }
+
+    if (notModified) {
+      // this is a conditional GET, and resource is not modified
       response.setStatus(SC_NOT_MODIFIED);
     }
     else {
@@ -168,4 +241,82 @@ public class WebResourceServlet
       }
     }
   }
+
+  /**
+   * Returns the encoded form of the resource produced at build time, if one was bundled next to it.
+   */
+  @Nullable
+  private WebResource prebuilt(final WebResource resource, final String extension) {
+    WebResource encoded = webResources.getResource(resource.getPath() + extension);
+    if (encoded != null && encoded.getLastModified() >= resource.getLastModified()) {
+      return new DelegatingWebResource(encoded)
+      {
+        @Override
+        public String getContentType() {
+          return resource.getContentType();
+        }
+      };
+    }
+    return null;
+  }
+
+  private static WebResource gzipped(final WebResource resource, final byte[] content) {
+    return new DelegatingWebResource(resource)
+    {
+      @Override
+      public long getSize() {
+        return content.length;
+      }
+
+      @Override
+      public InputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+      }
+    };
+  }
+
+  /**
+   * Checks whether the given content-coding is acceptable according to the {@code Accept-Encoding} header.
+   */
+  @VisibleForTesting
+  static boolean accepts(@Nullable final String acceptEncoding, final String coding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String element : acceptEncoding.split(",")) {
+      String[] parts = element.split(";");
+      if (coding.equalsIgnoreCase(parts[0].trim())) {
+        for (int i = 1; i < parts.length; i++) {
+          String param = parts[i].trim();
+          if (param.startsWith("q=")) {
+            try {
+              return Double.parseDouble(param.substring(2)) > 0;
+            }
+            catch (NumberFormatException e) {
+              return false;
+            }
+          }
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether the {@code If-None-Match} header matches the given entity-tag.
+   */
+  @VisibleForTesting
+  static boolean matches(final String ifNoneMatch, final String etag) {
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2); // weak comparison is allowed for If-None-Match
+      }
+      if ("*".equals(candidate) || etag.equals(candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -80,7 +80,15 @@ public class EventManagerImplTest
 
   @Test
   public void asyncInheritsIsReplicating() throws Exception {
-    EventExecutor executor = newEventExecutor();
+    asyncInheritsIsReplicating(newEventExecutor());
+  }
+
+  @Test
+  public void asyncInheritsIsReplicatingWithSubscriberQueues() throws Exception {
+    asyncInheritsIsReplicating(new EventExecutor(true, 10, Time.seconds(1), false, false, true, 4, 10, 4, "block"));
+  }
+
+  private void asyncInheritsIsReplicating(final EventExecutor executor) throws Exception {
     EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
     AsyncReentrantHandler handler = new AsyncReentrantHandler(underTest);
     underTest.register(handler);
@@ -190,6 +198,34 @@ public class EventManagerImplTest
     });
   }
 
+  @Test
+  public void subscriberQueuesDeliverToEachRegisteredInstance() throws Exception {
+    EventExecutor executor = new EventExecutor(true, 10, Time.seconds(1), false, false, true, 4, 10, 4, "block");
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    AsyncHandler handler1 = new AsyncHandler();
+    AsyncHandler handler2 = new AsyncHandler();
+    underTest.register(handler1);
+    underTest.register(handler2);
+
+    executor.start(); // enable multi-threaded mode
+
+    FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("first"));
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalmPeriod);
+
+    assertThat(handler1.handledByThread, hasSize(1));
+    assertThat(handler2.handledByThread, hasSize(1));
+
+    underTest.unregister(handler1);
+
+    FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("second"));
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalmPeriod);
+
+    assertThat(handler1.handledByThread, hasSize(1));
+    assertThat(handler2.handledByThread, hasSize(2));
+
+    executor.stop();
+  }
+
   private static EventExecutor newEventExecutor() {
     return new EventExecutor(false, 0, Time.seconds(0), false, false);
   }
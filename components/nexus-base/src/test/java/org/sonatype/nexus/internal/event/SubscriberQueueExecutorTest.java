@@ -0,0 +1,271 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.event;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.event.EventBusFactory;
+import org.sonatype.nexus.internal.event.SubscriberQueueExecutor.Overflow;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.junit.After;
+import org.junit.Test;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * Tests for {@link SubscriberQueueExecutor}.
+ */
+public class SubscriberQueueExecutorTest
+    extends TestSupport
+{
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private final BlockingHandler slowHandler = new BlockingHandler();
+
+  private final RecordingHandler fastHandler = new RecordingHandler();
+
+  private SubscriberQueueExecutor underTest;
+
+  @After
+  public void tearDown() {
+    slowHandler.release.countDown();
+    if (underTest != null) {
+      underTest.shutdown();
+    }
+  }
+
+  @Test
+  public void busySubscriberDoesNotHoldUpOthers() {
+    newExecutor(10, Overflow.BLOCK);
+    List<EventBus> eventBuses = asList(register(slowHandler), register(fastHandler));
+
+    post(eventBuses, "a");
+    post(eventBuses, "b");
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> fastHandler.handled.size() == 2);
+    assertThat(fastHandler.handled, contains("a", "b"));
+    assertThat(underTest.getQueueDepth(slowHandler), is(1));
+    assertThat(underTest.isCalm(), is(false));
+
+    slowHandler.release.countDown();
+
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalm);
+    assertThat(slowHandler.handled, contains("a", "b"));
+
+    String prefix = metricPrefix(slowHandler);
+    assertThat(metricRegistry.getGauges(), hasKey(name(prefix, "depth")));
+    assertThat(metricRegistry.timer(name(prefix, "wait")).getCount(), is(2L));
+    assertThat(metricRegistry.timer(name(prefix, "processing")).getCount(), is(2L));
+  }
+
+  @Test
+  public void instancesOfTheSameSubscriberTypeHaveSeparateQueues() {
+    newExecutor(10, Overflow.BLOCK);
+    BlockingHandler otherHandler = new BlockingHandler();
+    otherHandler.release.countDown();
+    List<EventBus> eventBuses = asList(register(slowHandler), register(otherHandler));
+
+    post(eventBuses, "a");
+    post(eventBuses, "b");
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> otherHandler.handled.size() == 2);
+    assertThat(otherHandler.handled, contains("a", "b"));
+    assertThat(underTest.getQueueDepth(slowHandler), is(1));
+    assertThat(metricPrefix(slowHandler), not(metricPrefix(otherHandler)));
+
+    slowHandler.release.countDown();
+
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalm);
+    assertThat(slowHandler.handled, contains("a", "b"));
+  }
+
+  @Test
+  public void subscribersThatDoNotAllowConcurrentEventsAreDrainedByOneWorker() throws Exception {
+    underTest = new SubscriberQueueExecutor(8, 10, 4, Overflow.BLOCK, metricRegistry);
+    ConcurrencyHandler serialHandler = new ConcurrencyHandler();
+    ConcurrentHandler concurrentHandler = new ConcurrentHandler();
+    EventBus serialBus = register(serialHandler);
+    EventBus concurrentBus = register(concurrentHandler);
+
+    for (int i = 0; i < 4; i++) {
+      serialBus.post("event" + i);
+      concurrentBus.post("event" + i);
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> concurrentHandler.maxActive.get() == 4);
+    assertThat(serialHandler.maxActive.get(), is(1));
+
+    serialHandler.release.countDown();
+    concurrentHandler.release.countDown();
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalm);
+    assertThat(serialHandler.maxActive.get(), is(1));
+  }
+
+  @Test
+  public void releasedSubscriberMetricsAreRemoved() {
+    newExecutor(10, Overflow.BLOCK);
+    register(fastHandler).post("a");
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalm);
+    String prefix = metricPrefix(fastHandler);
+    assertThat(metricRegistry.getGauges(), hasKey(name(prefix, "depth")));
+
+    underTest.release(fastHandler);
+
+    assertThat(metricRegistry.getNames(), not(hasItem(startsWith(prefix + "."))));
+  }
+
+  @Test
+  public void deliveriesAreDroppedWhenQueueIsFull() {
+    newExecutor(1, Overflow.DROP);
+    EventBus eventBus = register(slowHandler);
+
+    eventBus.post("a");
+    await().atMost(5, TimeUnit.SECONDS).until(() -> slowHandler.started.getCount() == 0);
+    eventBus.post("b");
+    eventBus.post("c");
+
+    slowHandler.release.countDown();
+
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalm);
+    assertThat(slowHandler.handled, contains("a", "b"));
+    assertThat(metricRegistry.meter(name(metricPrefix(slowHandler), "dropped")).getCount(), is(1L));
+  }
+
+  @Test
+  public void droppedDeliveriesAreNotTrackedByAffinityBarrier() throws Exception {
+    underTest = new SubscriberQueueExecutor(1, 1, 1, Overflow.DROP, metricRegistry);
+    AffinityBarrier barrier = new AffinityBarrier(Runnable::run, underTest.forSubscriber(slowHandler),
+        Time.seconds(30));
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    barrier.execute(() -> {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+    barrier.execute(() -> { }); // queued
+    barrier.execute(() -> { }); // dropped
+
+    // posting thread plus the running and the queued delivery
+    assertThat(barrier.getRegisteredParties(), is(3));
+
+    release.countDown();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> barrier.getRegisteredParties() == 1);
+  }
+
+  private void newExecutor(final int capacity, final Overflow overflow) {
+    underTest = new SubscriberQueueExecutor(4, capacity, 4, overflow, metricRegistry);
+  }
+
+  private EventBus register(final Object subscriber) {
+    EventBus eventBus = EventBusFactory.reentrantAsyncEventBus("test", underTest.forSubscriber(subscriber));
+    eventBus.register(subscriber);
+    return eventBus;
+  }
+
+  private static void post(final List<EventBus> eventBuses, final Object event) {
+    eventBuses.forEach(eventBus -> eventBus.post(event));
+  }
+
+  private String metricPrefix(final Object subscriber) {
+    return name(EventExecutor.class.getName(), "subscriber", underTest.getSubscriberName(subscriber));
+  }
+
+  private static class BlockingHandler
+  {
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final List<String> handled = new CopyOnWriteArrayList<>();
+
+    @Subscribe
+    public void on(final String event) throws InterruptedException {
+      started.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      handled.add(event);
+    }
+  }
+
+  private static class ConcurrencyHandler
+  {
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final AtomicInteger active = new AtomicInteger();
+
+    final AtomicInteger maxActive = new AtomicInteger();
+
+    void handle() throws InterruptedException {
+      maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      }
+      finally {
+        active.decrementAndGet();
+      }
+    }
+
+    @Subscribe
+    public void on(final String event) throws InterruptedException {
+      handle();
+    }
+  }
+
+  private static class ConcurrentHandler
+      extends ConcurrencyHandler
+  {
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void on(final String event) throws InterruptedException {
+      handle();
+    }
+  }
+
+  private static class RecordingHandler
+  {
+    final List<String> handled = new CopyOnWriteArrayList<>();
+
+    @Subscribe
+    public void on(final String event) {
+      handled.add(event);
+    }
+  }
+}
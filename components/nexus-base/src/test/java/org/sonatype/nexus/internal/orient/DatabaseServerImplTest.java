@@ -18,6 +18,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.common.app.ApplicationDirectories;
@@ -25,6 +26,7 @@ import org.sonatype.nexus.common.event.EventManager;
 import org.sonatype.nexus.common.node.NodeAccess;
 import org.sonatype.nexus.orient.entity.EntityHook;
 
+import com.orientechnologies.orient.server.OServer;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -36,6 +38,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DatabaseServerImplTest
@@ -70,6 +75,37 @@ public class DatabaseServerImplTest
         new EntityHook(eventManager));
   }
 
+  @Test
+  public void testEntityHookIsStoppedBeforeServerShutdown() throws Exception {
+    when(applicationDirectories.getConfigDirectory("fabric")).thenReturn(tempDir.newFolder("fabric"));
+    when(applicationDirectories.getWorkDirectory("orient")).thenReturn(tempDir.newFolder("orient"));
+    EntityHook entityHook = spy(new EntityHook(eventManager));
+    underTest = new DatabaseServerImpl(
+        applicationDirectories,
+        Collections.emptyList(),
+        Collections.emptyList(),
+        ClassLoader.getSystemClassLoader(),
+        false, false, false,
+        "2424-2430", "2480-2490",
+        nodeAccess,
+        entityHook);
+
+    underTest.start();
+    OServer server = underTest.getOrientServer();
+
+    AtomicBoolean serverActiveWhenHookStopped = new AtomicBoolean();
+    doAnswer(invocation -> {
+      serverActiveWhenHookStopped.set(server.isActive());
+      return invocation.callRealMethod();
+    }).when(entityHook).stop();
+
+    underTest.stop();
+
+    verify(entityHook).stop();
+    assertThat(serverActiveWhenHookStopped.get(), is(true));
+    assertThat(server.isActive(), is(false));
+  }
+
   @Test
   public void testOnlyOurDatabasesAreReported() {
     List<String> candidates = asList(
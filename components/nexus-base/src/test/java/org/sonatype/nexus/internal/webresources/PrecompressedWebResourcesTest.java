@@ -0,0 +1,176 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.webresources;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.internal.webresources.PrecompressedWebResources.Entry;
+import org.sonatype.nexus.webresources.FileWebResource;
+import org.sonatype.nexus.webresources.GeneratedWebResource;
+import org.sonatype.nexus.webresources.WebResource;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.sonatype.nexus.webresources.WebResource.JAVASCRIPT;
+
+/**
+ * Tests for {@link PrecompressedWebResources}.
+ */
+public class PrecompressedWebResourcesTest
+    extends TestSupport
+{
+  private static final String SCRIPT = Strings.repeat("console.log('hello');\n", 200);
+
+  private PrecompressedWebResources underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new PrecompressedWebResources();
+  }
+
+  @Test
+  public void fingerprintsAndCompressesTextResources() throws Exception {
+    Entry entry = underTest.get(resource("app.js", SCRIPT, JAVASCRIPT, true));
+
+    assertThat(entry, notNullValue());
+    assertThat(entry.getFingerprint(), is(Hashing.sha1().hashString(SCRIPT, UTF_8).toString()));
+    assertThat(entry.getGzipped(), notNullValue());
+    assertThat(entry.getGzipped().length < SCRIPT.length(), is(true));
+    assertThat(new String(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(entry.getGzipped()))),
+        UTF_8), is(SCRIPT));
+  }
+
+  @Test
+  public void smallOrBinaryResourcesAreNotCompressed() throws Exception {
+    assertThat(underTest.get(resource("small.js", "var x;", JAVASCRIPT, true)).getGzipped(), nullValue());
+    assertThat(underTest.get(resource("image.png", SCRIPT, "image/png", true)).getGzipped(), nullValue());
+
+    underTest.configure(false, 0);
+    assertThat(underTest.get(resource("other.js", SCRIPT, JAVASCRIPT, true)).getGzipped(), nullValue());
+  }
+
+  @Test
+  public void uncacheableResourcesAreIgnored() throws Exception {
+    assertThat(underTest.get(resource("dev.js", SCRIPT, JAVASCRIPT, false)), nullValue());
+
+    WebResource generated = new GeneratedWebResource()
+    {
+      @Override
+      public String getPath() {
+        return "/generated.js";
+      }
+
+      @Override
+      public String getContentType() {
+        return JAVASCRIPT;
+      }
+
+      @Override
+      protected byte[] generate() {
+        return SCRIPT.getBytes(UTF_8);
+      }
+    };
+    assertThat(underTest.get(generated), nullValue());
+  }
+
+  @Test
+  public void entriesAreReusedUntilTheResourceChanges() throws Exception {
+    WebResource resource = resource("app.js", SCRIPT, JAVASCRIPT, true);
+    Entry entry = underTest.get(resource);
+    assertThat(underTest.get(resource), sameInstance(entry));
+
+    File file = util.resolveFile("target/" + getClass().getSimpleName() + "/app.js");
+    Files.write(SCRIPT + "console.log('changed');\n", file, UTF_8);
+    Entry changed = underTest.get(resource);
+    assertThat(changed, not(sameInstance(entry)));
+    assertThat(changed.getFingerprint(), not(entry.getFingerprint()));
+  }
+
+  @Test
+  public void slowLoadDoesNotBlockOtherResources() throws Exception {
+    // "Aa" and "BB" share a hash code, so both paths land in the same bin of the map
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    WebResource slow = new FileWebResource(new File("unused"), "/static/Aa", JAVASCRIPT, true)
+    {
+      @Override
+      public long getSize() {
+        return SCRIPT.length();
+      }
+
+      @Override
+      public long getLastModified() {
+        return 1L;
+      }
+
+      @Override
+      public InputStream getInputStream() {
+        loading.countDown();
+        try {
+          release.await();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new ByteArrayInputStream(SCRIPT.getBytes(UTF_8));
+      }
+    };
+    WebResource fast = resource("BB", SCRIPT, JAVASCRIPT, true);
+    assertThat("/static/Aa".hashCode(), is(fast.getPath().hashCode()));
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Entry> slowEntry = executor.submit(() -> underTest.get(slow));
+      assertThat(loading.await(5, SECONDS), is(true));
+
+      assertThat(executor.submit(() -> underTest.get(fast)).get(5, SECONDS), notNullValue());
+
+      release.countDown();
+      assertThat(slowEntry.get(5, SECONDS), notNullValue());
+    }
+    finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private WebResource resource(final String name, final String content, final String contentType,
+                               final boolean cacheable) throws Exception
+  {
+    File file = util.resolveFile("target/" + getClass().getSimpleName() + "/" + name);
+    Files.createParentDirs(file);
+    Files.write(content, file, UTF_8);
+    return new FileWebResource(file, "/static/" + name, contentType, cacheable);
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.webresources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.servlet.XFrameOptions;
+import org.sonatype.nexus.webresources.FileWebResource;
+import org.sonatype.nexus.webresources.WebResource;
+import org.sonatype.nexus.webresources.WebResourceService;
+
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static com.google.common.net.HttpHeaders.ACCEPT_ENCODING;
+import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
+import static com.google.common.net.HttpHeaders.CONTENT_ENCODING;
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.net.HttpHeaders.VARY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.internal.webresources.WebResourceServlet.accepts;
+import static org.sonatype.nexus.internal.webresources.WebResourceServlet.matches;
+import static org.sonatype.nexus.webresources.WebResource.JAVASCRIPT;
+
+/**
+ * Tests for {@link WebResourceServlet}.
+ */
+public class WebResourceServletTest
+    extends TestSupport
+{
+  private static final String PATH = "/static/rapture/app-prod.js";
+
+  private static final String SCRIPT = Strings.repeat("console.log('hello');\n", 200);
+
+  @Mock
+  private WebResourceService webResources;
+
+  @Mock
+  private HttpServletRequest request;
+
+  @Mock
+  private HttpServletResponse response;
+
+  private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+  private final PrecompressedWebResources precompressedWebResources = new PrecompressedWebResources();
+
+  private WebResourceServlet underTest;
+
+  private String fingerprint;
+
+  @Before
+  public void setUp() throws Exception {
+    WebResource resource = resource(PATH, SCRIPT);
+    fingerprint = precompressedWebResources.get(resource).getFingerprint();
+
+    when(webResources.getResource(PATH)).thenReturn(resource);
+    when(request.getPathInfo()).thenReturn(PATH);
+    when(request.getMethod()).thenReturn("GET");
+    when(request.getDateHeader(anyString())).thenReturn(-1L);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream()
+    {
+      @Override
+      public void write(final int b) {
+        content.write(b);
+      }
+
+      public boolean isReady() {
+        return true;
+      }
+
+      public void setWriteListener(final WriteListener writeListener) {
+        // no-op
+      }
+    });
+
+    underTest = new WebResourceServlet(webResources, new XFrameOptions(true), precompressedWebResources,
+        Time.days(30));
+  }
+
+  @Test
+  public void identityWhenCompressionNotAccepted() throws Exception {
+    underTest.doGet(request, response);
+
+    verify(response).setHeader(CONTENT_TYPE, JAVASCRIPT);
+    verify(response).setHeader(VARY, ACCEPT_ENCODING);
+    verify(response).setHeader(ETAG, "\"" + fingerprint + "\"");
+    verify(response).setHeader(CACHE_CONTROL, "max-age=2592000");
+    verify(response, never()).setHeader(eq(CONTENT_ENCODING), anyString());
+    assertThat(new String(content.toByteArray(), UTF_8), is(SCRIPT));
+  }
+
+  @Test
+  public void gzipServedWhenAccepted() throws Exception {
+    when(request.getHeader(ACCEPT_ENCODING)).thenReturn("gzip, deflate, br");
+
+    underTest.doGet(request, response);
+
+    byte[] gzipped = precompressedWebResources.get(webResources.getResource(PATH)).getGzipped();
+    verify(response).setHeader(CONTENT_ENCODING, "gzip");
+    verify(response).setHeader(CONTENT_LENGTH, String.valueOf(gzipped.length));
+    verify(response).setHeader(ETAG, "\"" + fingerprint + "-gzip\"");
+    assertThat(content.toByteArray(), is(gzipped));
+  }
+
+  @Test
+  public void prebuiltBrotliPreferredWhenAccepted() throws Exception {
+    when(webResources.getResource(PATH + ".br")).thenReturn(resource(PATH + ".br", "brotli"));
+    when(request.getHeader(ACCEPT_ENCODING)).thenReturn("gzip, br");
+
+    underTest.doGet(request, response);
+
+    verify(response).setHeader(CONTENT_TYPE, JAVASCRIPT);
+    verify(response).setHeader(CONTENT_ENCODING, "br");
+    verify(response).setHeader(ETAG, "\"" + fingerprint + "-br\"");
+    assertThat(new String(content.toByteArray(), UTF_8), is("brotli"));
+  }
+
+  @Test
+  public void fingerprintedUrlIsImmutable() throws Exception {
+    when(request.getParameter(WebResourceServlet.FINGERPRINT_PARAM)).thenReturn(fingerprint);
+
+    underTest.doGet(request, response);
+
+    verify(response).setHeader(CACHE_CONTROL, "public, max-age=31536000, immutable");
+  }
+
+  @Test
+  public void staleFingerprintIsNotImmutable() throws Exception {
+    when(request.getParameter(WebResourceServlet.FINGERPRINT_PARAM)).thenReturn("0000");
+
+    underTest.doGet(request, response);
+
+    verify(response).setHeader(CACHE_CONTROL, "max-age=2592000");
+  }
+
+  @Test
+  public void notModifiedWhenEntityTagMatches() throws Exception {
+    when(request.getHeader(ACCEPT_ENCODING)).thenReturn("gzip");
+    when(request.getHeader(IF_NONE_MATCH)).thenReturn("\"other\", \"" + fingerprint + "-gzip\"");
+
+    underTest.doGet(request, response);
+
+    verify(response).setStatus(SC_NOT_MODIFIED);
+    assertThat(content.size(), is(0));
+  }
+
+  @Test
+  public void modifiedWhenEntityTagDiffers() throws Exception {
+    when(request.getHeader(IF_NONE_MATCH)).thenReturn("\"" + fingerprint + "-gzip\"");
+
+    underTest.doGet(request, response);
+
+    verify(response, never()).setStatus(SC_NOT_MODIFIED);
+    assertThat(new String(content.toByteArray(), UTF_8), is(SCRIPT));
+  }
+
+  @Test
+  public void acceptEncodingParsing() {
+    assertThat(accepts(null, "gzip"), is(false));
+    assertThat(accepts("gzip", "gzip"), is(true));
+    assertThat(accepts("deflate, GZIP;q=0.5", "gzip"), is(true));
+    assertThat(accepts("gzip;q=0, br", "gzip"), is(false));
+    assertThat(accepts("br", "gzip"), is(false));
+  }
+
+  @Test
+  public void ifNoneMatchParsing() {
+    assertThat(matches("\"abc\"", "\"abc\""), is(true));
+    assertThat(matches("W/\"abc\"", "\"abc\""), is(true));
+    assertThat(matches("*", "\"abc\""), is(true));
+    assertThat(matches("\"abcd\", \"ab\"", "\"abc\""), is(false));
+  }
+
+  private WebResource resource(final String path, final String text) throws Exception {
+    File file = util.resolveFile("target/" + getClass().getSimpleName() + path);
+    Files.createParentDirs(file);
+    Files.write(text, file, UTF_8);
+    return new FileWebResource(file, path, JAVASCRIPT, true);
+  }
+}
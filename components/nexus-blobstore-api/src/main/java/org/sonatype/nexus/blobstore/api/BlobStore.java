@@ -14,7 +14,9 @@ package org.sonatype.nexus.blobstore.api;
 
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
@@ -126,6 +128,21 @@ public interface BlobStore
    */
   Blob copy(BlobId blobId, Map<String, String> headers);
 
+  /**
+   * Replaces the headers of an existing blob in place, without copying its content. This lets a temporary blob be
+   * promoted to a permanent one (or reverted back again) where copying the content would be expensive.
+   *
+   * Headers which determine the location of a blob, such as {@link #DIRECT_PATH_BLOB_HEADER}, are not supported.
+   *
+   * @return the updated blob; {@code null} if the blob doesn't exist or this blob store can't replace headers,
+   *         in which case callers should fall back to {@link #copy(BlobId, Map)}
+   * @since 3.next
+   */
+  @Nullable
+  default Blob replaceHeaders(BlobId blobId, Map<String, String> headers) {
+    return null;
+  }
+
   /**
    * Returns the corresponding {@link Blob}, or {@code null} if the  blob does not exist or has been {@link #delete
    * deleted}.
@@ -156,6 +173,24 @@ public interface BlobStore
    */
   boolean delete(BlobId blobId, String reason);
 
+  /**
+   * Removes a batch of blobs from the blob store, as if {@link #delete(BlobId, String)} was called for each of them.
+   * Implementations may group the underlying writes, so prefer this when deleting many blobs at once.
+   *
+   * @param blobIds the blobs to delete, each mapped to the reason it's being deleted
+   * @return the blobs that have been deleted; blobs that were not found are left out
+   * @since 3.next
+   */
+  default Set<BlobId> deleteBatch(Map<BlobId, String> blobIds) {
+    Set<BlobId> deleted = new HashSet<>();
+    blobIds.forEach((blobId, reason) -> {
+      if (delete(blobId, reason)) {
+        deleted.add(blobId);
+      }
+    });
+    return deleted;
+  }
+
   /**
    * Removes a blob from the blob store immediately, disregarding any locking or concurrent access by other threads.
    * This should be considered exceptional (e.g. administrative) usage.
@@ -0,0 +1,217 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators.AbstractSpliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+
+/**
+ * Append-only journal of the blob ids held by a file blob store, so full enumerations can skip walking the content
+ * directory.
+ *
+ * Ids are journaled as {@code +id} before their attribute file is moved into place and as {@code -id} after it has been
+ * hard deleted, so the journal may list a few blobs that no longer exist but never misses one. Callers of the blob id
+ * stream already have to cope with blobs disappearing underneath them. The journal is only trusted once it has been
+ * seeded by a complete walk of the content directory, see {@link #record(Stream)}.
+ *
+ * @since 3.next
+ */
+public class FileBlobStoreInventory
+{
+  public static final String INVENTORY_FILENAME = "inventory.index";
+
+  private static final char ADDED = '+';
+
+  private static final char REMOVED = '-';
+
+  private static final Logger log = LoggerFactory.getLogger(FileBlobStoreInventory.class);
+
+  private final Path file;
+
+  private Writer writer;
+
+  private volatile boolean complete;
+
+  private boolean failed;
+
+  public FileBlobStoreInventory(final Path file) {
+    this.file = checkNotNull(file);
+  }
+
+  /**
+   * Opens the journal for appending. A complete journal is compacted first, otherwise its content can't be trusted
+   * and it is started afresh.
+   */
+  public synchronized void open(final boolean complete) throws IOException {
+    checkState(writer == null, "Inventory already open");
+    boolean trusted = complete && Files.exists(file);
+    if (trusted) {
+      Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+      try (Writer out = Files.newBufferedWriter(compacted, UTF_8, CREATE, TRUNCATE_EXISTING)) {
+        for (String blobId : readBlobIds()) {
+          out.write(ADDED + blobId + '\n');
+        }
+      }
+      Files.move(compacted, file, REPLACE_EXISTING, ATOMIC_MOVE);
+      writer = Files.newBufferedWriter(file, UTF_8, CREATE, APPEND);
+    }
+    else {
+      writer = Files.newBufferedWriter(file, UTF_8, CREATE, TRUNCATE_EXISTING);
+    }
+    this.complete = trusted;
+    this.failed = false;
+  }
+
+  public synchronized void close() throws IOException {
+    if (writer != null) {
+      try {
+        writer.close();
+      }
+      finally {
+        writer = null;
+      }
+    }
+  }
+
+  /**
+   * Closes and removes the journal.
+   */
+  public synchronized void delete() throws IOException {
+    close();
+    complete = false;
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Whether the journal lists every blob in the store.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  public void added(final BlobId blobId) {
+    append(ADDED, blobId);
+  }
+
+  public void removed(final BlobId blobId) {
+    append(REMOVED, blobId);
+  }
+
+  private synchronized void append(final char change, final BlobId blobId) {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.write(change + blobId.asUniqueString() + '\n');
+      writer.flush();
+    }
+    catch (IOException e) {
+      // the journal no longer lists every blob, so stop trusting it until the next complete walk
+      log.warn("Unable to journal blob {} in {}, falling back to walking the blob store", blobId, file, e);
+      complete = false;
+      failed = true;
+    }
+  }
+
+  /**
+   * Returns the blob ids listed by a complete journal.
+   */
+  public Stream<BlobId> blobIds() {
+    checkState(complete, "Inventory is incomplete");
+    try {
+      return readBlobIds().stream().map(BlobId::new);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Journals each blob id found by a walk of the blob store, marking the journal complete once the walk is done.
+   */
+  public Stream<BlobId> record(final Stream<BlobId> walk) {
+    Iterator<BlobId> iterator = walk.iterator();
+    Spliterator<BlobId> spliterator = new AbstractSpliterator<BlobId>(Long.MAX_VALUE, Spliterator.NONNULL)
+    {
+      @Override
+      public boolean tryAdvance(final Consumer<? super BlobId> action) {
+        if (iterator.hasNext()) {
+          BlobId blobId = iterator.next();
+          added(blobId);
+          action.accept(blobId);
+          return true;
+        }
+        markComplete();
+        return false;
+      }
+    };
+    return StreamSupport.stream(spliterator, false).onClose(walk::close);
+  }
+
+  private synchronized void markComplete() {
+    if (writer != null && !complete && !failed) {
+      log.info("Inventory {} is complete", file);
+      complete = true;
+    }
+  }
+
+  private synchronized Set<String> readBlobIds() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    }
+    Set<String> blobIds = new LinkedHashSet<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.length() < 2) {
+          continue;
+        }
+        String blobId = line.substring(1);
+        if (line.charAt(0) == ADDED) {
+          blobIds.add(blobId);
+        }
+        else if (line.charAt(0) == REMOVED) {
+          blobIds.remove(blobId);
+        }
+      }
+    }
+    return blobIds;
+  }
+}
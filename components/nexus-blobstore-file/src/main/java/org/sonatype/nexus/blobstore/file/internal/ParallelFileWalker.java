@@ -0,0 +1,248 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators.AbstractSpliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+
+/**
+ * Walks a directory tree using a bounded pool of threads, one subtree at a time.
+ *
+ * The tree is listed down to the split depth (for the volume/chapter layout a depth of 2 gives one subtree per
+ * chapter) and each subtree is then walked concurrently. Matching paths are handed to the resulting stream through a
+ * bounded queue, so a slow consumer holds back the walkers rather than buffering the whole tree. Paths are returned
+ * in no particular order.
+ *
+ * The returned stream should be closed once the caller is done with it, so any remaining walkers are stopped.
+ *
+ * @since 3.next
+ */
+public class ParallelFileWalker
+{
+  private static final Logger log = LoggerFactory.getLogger(ParallelFileWalker.class);
+
+  private static final int QUEUE_CAPACITY = 1024;
+
+  /**
+   * Walkers give up when the consumer hasn't taken anything for this long, which means the stream was abandoned
+   * without being closed.
+   */
+  private static final long ABANDON_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private static final long POLL_MILLIS = 100;
+
+  private static final Object DONE = new Object();
+
+  private final String poolId;
+
+  private final int threads;
+
+  private final int splitDepth;
+
+  private final long abandonTimeoutMillis;
+
+  public ParallelFileWalker(final String poolId, final int threads, final int splitDepth) {
+    this(poolId, threads, splitDepth, ABANDON_TIMEOUT_MILLIS);
+  }
+
+  @VisibleForTesting
+  ParallelFileWalker(final String poolId, final int threads, final int splitDepth, final long abandonTimeoutMillis) {
+    checkArgument(splitDepth > 0, "Split depth must be positive");
+    checkArgument(abandonTimeoutMillis > 0, "Abandon timeout must be positive");
+    this.poolId = checkNotNull(poolId);
+    this.threads = threads;
+    this.splitDepth = splitDepth;
+    this.abandonTimeoutMillis = abandonTimeoutMillis;
+  }
+
+  /**
+   * Returns a stream of the files under {@code root} that match the filter. Falls back to a sequential walk when only
+   * one thread is configured.
+   */
+  public Stream<Path> walk(final Path root, final Predicate<Path> filter) throws IOException {
+    if (threads <= 1) {
+      return Files.walk(root, FOLLOW_LINKS).filter(filter);
+    }
+
+    List<Path> shallowFiles = new ArrayList<>();
+    List<Path> subtrees = new ArrayList<>();
+    try (Stream<Path> paths = Files.walk(root, splitDepth, FOLLOW_LINKS)) {
+      paths.forEach(path -> {
+        if (Files.isDirectory(path)) {
+          if (!path.equals(root) && root.relativize(path).getNameCount() == splitDepth) {
+            subtrees.add(path);
+          }
+        }
+        else if (filter.test(path)) {
+          shallowFiles.add(path);
+        }
+      });
+    }
+
+    if (subtrees.isEmpty()) {
+      return shallowFiles.stream();
+    }
+
+    WalkSpliterator spliterator = new WalkSpliterator(subtrees, filter);
+    return Stream.concat(shallowFiles.stream(), StreamSupport.stream(spliterator, false))
+        .onClose(spliterator::close);
+  }
+
+  private class WalkSpliterator
+      extends AbstractSpliterator<Path>
+  {
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final ExecutorService executor;
+
+    private int remaining;
+
+    private volatile boolean closed;
+
+    private volatile boolean abandoned;
+
+    WalkSpliterator(final List<Path> subtrees, final Predicate<Path> filter) {
+      super(Long.MAX_VALUE, Spliterator.NONNULL | Spliterator.DISTINCT);
+      this.remaining = subtrees.size();
+      this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+          new NexusThreadFactory(poolId, poolId, Thread.NORM_PRIORITY, true));
+      subtrees.forEach(subtree -> executor.execute(() -> walkSubtree(subtree, filter)));
+      executor.shutdown(); // threads exit once the submitted walks are done
+    }
+
+    /**
+     * Always leaves a {@link #DONE} or failure marker for the consumer, even when the walk fails with an {@link Error},
+     * unless the walk was closed or abandoned meanwhile.
+     */
+    private void walkSubtree(final Path subtree, final Predicate<Path> filter) {
+      Object result = null;
+      try (Stream<Path> paths = Files.walk(subtree, FOLLOW_LINKS)) {
+        Iterator<Path> iterator = paths.filter(filter).iterator();
+        while (iterator.hasNext()) {
+          if (!offer(iterator.next())) {
+            return;
+          }
+        }
+        result = DONE;
+      }
+      catch (IOException e) {
+        result = new UncheckedIOException(e);
+      }
+      catch (RuntimeException e) {
+        result = e;
+      }
+      catch (Throwable e) { // NOSONAR
+        result = new IllegalStateException("Failed to walk " + subtree, e);
+        throw e;
+      }
+      finally {
+        if (result != null) {
+          offer(result);
+        }
+      }
+    }
+
+    private boolean offer(final Object item) {
+      long deadline = System.currentTimeMillis() + abandonTimeoutMillis;
+      try {
+        while (!closed) {
+          if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+          if (System.currentTimeMillis() > deadline) {
+            log.debug("Abandoning walk, nothing consumed for {} ms", abandonTimeoutMillis);
+            abandoned = true;
+            closed = true;
+          }
+        }
+      }
+      catch (InterruptedException e) { // NOSONAR
+        log.debug("Walk interrupted");
+      }
+      return false;
+    }
+
+    /**
+     * Polls rather than blocks, because once the walk is closed or abandoned the walkers stop without queueing their
+     * {@link #DONE} markers. A consumer that comes back after the walk was abandoned gets an exception instead of a
+     * silently truncated stream.
+     */
+    @Override
+    public boolean tryAdvance(final Consumer<? super Path> action) {
+      while (remaining > 0) {
+        Object item;
+        try {
+          item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+          close();
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while walking files", e);
+        }
+        if (item == null) {
+          if (closed && queue.isEmpty()) {
+            if (abandoned) {
+              throw new IllegalStateException(
+                  "Walk abandoned, nothing consumed for " + abandonTimeoutMillis + " ms");
+            }
+            return false;
+          }
+        }
+        else if (item == DONE) {
+          remaining--;
+        }
+        else if (item instanceof RuntimeException) {
+          close();
+          throw (RuntimeException) item;
+        }
+        else {
+          action.accept((Path) item);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void close() {
+      closed = true;
+      executor.shutdownNow();
+    }
+  }
+}
@@ -20,15 +20,21 @@ import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.blobstore.DefaultBlobIdLocationResolver;
 import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobAttributes;
 import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.blobstore.api.BlobMetrics;
 import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
@@ -46,6 +52,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
+import com.squareup.tape.QueueFile;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.After;
 import org.junit.Before;
@@ -57,6 +64,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.lang3.tuple.Pair.of;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
@@ -627,6 +635,50 @@ public class FileBlobStoreIT
     assertThat(Files.exists(propertiesPath), is(false));
   }
 
+  @Test
+  public void batchDeleteSoftDeletesBlobsUntilCompacted() throws Exception {
+    Map<BlobId, String> batch = new HashMap<>();
+    List<Path> bytesPaths = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Blob blob = underTest.create(new ByteArrayInputStream(new byte[TEST_DATA_LENGTH]), TEST_HEADERS);
+      batch.put(blob.getId(), "batchDelete");
+      bytesPaths.add(contentDirectory.resolve(blobIdResolver.getLocation(blob.getId()) +
+          FileBlobStore.BLOB_CONTENT_SUFFIX));
+    }
+    Set<BlobId> created = new HashSet<>(batch.keySet());
+    batch.put(new BlobId(UUID.randomUUID().toString()), "batchDelete");
+
+    assertThat(underTest.deleteBatch(batch), is(created));
+    for (BlobId blobId : created) {
+      assertThat(underTest.get(blobId), is(nullValue()));
+      BlobAttributes attributes = underTest.getBlobAttributes(blobId);
+      assertThat(attributes.isDeleted(), is(true));
+      assertThat(attributes.getDeletedReason(), is("batchDelete"));
+    }
+    for (Path bytesPath : bytesPaths) {
+      assertThat(Files.exists(bytesPath), is(true));
+    }
+
+    // the whole batch is recorded with a single append to the deleted blob index
+    QueueFile deletedBlobIndex = new QueueFile(
+        blobStoreDirectory.resolve(nodeAccess.getId() + "-" + FileBlobStore.DELETIONS_FILENAME).toFile());
+    try {
+      assertThat(deletedBlobIndex.size(), is(1));
+    }
+    finally {
+      deletedBlobIndex.close();
+    }
+
+    // already deleted
+    assertThat(underTest.deleteBatch(batch), is(empty()));
+
+    underTest.compact();
+
+    for (Path bytesPath : bytesPaths) {
+      assertThat(Files.exists(bytesPath), is(false));
+    }
+  }
+
   private void verifyMoveOperations(Blob blob) throws IOException {
     Pair<Path, Path> paths = verifyBlobPaths(blob);
 
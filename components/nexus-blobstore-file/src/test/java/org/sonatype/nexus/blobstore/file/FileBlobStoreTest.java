@@ -17,7 +17,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
@@ -30,6 +33,7 @@ import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
+import org.sonatype.nexus.blobstore.file.internal.FileBlobStoreInventory;
 import org.sonatype.nexus.blobstore.file.internal.FileBlobStoreMetricsStore;
 import org.sonatype.nexus.blobstore.file.internal.FileOperations;
 import org.sonatype.nexus.common.app.ApplicationDirectories;
@@ -51,6 +55,8 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 
 import static java.nio.file.Files.write;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -59,6 +65,8 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -203,6 +211,30 @@ public class FileBlobStoreTest
     assertThat(blob.getMetrics().getSha1Hash(), is("356a192b7913b04c54574d18c28d46e6395428ab"));
   }
 
+  @Test
+  public void blobIsJournaledOnlyOnceMovedIntoPlace() throws Exception {
+    underTest.configureEnumeration(1, true);
+    underTest.doStart();
+    Path inventoryPath = underTest.getAbsoluteBlobDir().resolve(FileBlobStoreInventory.INVENTORY_FILENAME);
+
+    HashCode sha1 = HashCode.fromString("356a192b7913b04c54574d18c28d46e6395428ab");
+    Path path = util.createTempFile().toPath();
+
+    doThrow(new IOException("test")).when(fileOperations).copyIfLocked(any(), any(), any());
+    try {
+      underTest.create(path, TEST_HEADERS, 100L, sha1);
+      fail("Expected failed move to fail the create");
+    }
+    catch (BlobStoreException e) {
+      // expected
+    }
+    assertThat(Files.readAllLines(inventoryPath), is(empty()));
+
+    doNothing().when(fileOperations).copyIfLocked(any(), any(), any());
+    Blob blob = underTest.create(path, TEST_HEADERS, 100L, sha1);
+    assertThat(Files.readAllLines(inventoryPath), contains("+" + blob.getId().asUniqueString()));
+  }
+
   @Test
   public void blobIdCollisionCausesRetry() throws Exception {
 
@@ -319,6 +351,18 @@ public class FileBlobStoreTest
     verifyNoMoreInteractions(attributes);
   }
 
+  @Test
+  public void deletedBlobIndexEntriesHoldOneOrMoreBlobIds() {
+    List<BlobId> blobIds = Arrays.asList(new BlobId("fakeid"), new BlobId("path$some/file.txt"));
+
+    byte[] entry = FileBlobStore.toDeletedBlobIndexEntry(blobIds);
+    assertThat(FileBlobStore.fromDeletedBlobIndexEntry(entry), is(blobIds));
+
+    // entries recorded by single deletes
+    assertThat(FileBlobStore.fromDeletedBlobIndexEntry("fakeid".getBytes(StandardCharsets.UTF_8)),
+        is(Collections.singletonList(new BlobId("fakeid"))));
+  }
+
   private void setRebuildMetadataToTrue() throws IOException {
     PropertiesFile metadataPropertiesFile = new PropertiesFile(
         underTest.getAbsoluteBlobDir().resolve(FileBlobStore.METADATA_FILENAME).toFile());
@@ -376,6 +420,34 @@ public class FileBlobStoreTest
     verify(fileOperations, never()).delete(any());
   }
 
+  @Test
+  public void testCompactKeepsUnprocessedBlobsOfEntryWhenItFails() throws Exception {
+    when(nodeAccess.isOldestNode()).thenReturn(true);
+    underTest.doStart();
+
+    BlobId blobId1 = new BlobId("blob1");
+    BlobId blobId2 = new BlobId("blob2");
+    write(fullPath.resolve("blob1.properties"), VALID_BLOB_STORE_PROPERTIES);
+    write(fullPath.resolve("blob2.properties"), VALID_BLOB_STORE_PROPERTIES);
+    underTest.deleteBatch(ImmutableMap.of(blobId1, "test", blobId2, "test"));
+
+    doThrow(new IOException("test")).when(fileOperations).delete(fullPath.resolve("blob1.bytes"));
+    try {
+      underTest.compact();
+      fail("Expected exception to be thrown");
+    }
+    catch (BlobStoreException expected) {
+    }
+    verify(fileOperations, never()).delete(fullPath.resolve("blob2.bytes"));
+
+    doReturn(true).when(fileOperations).delete(any());
+    underTest.compact();
+
+    verify(fileOperations, times(2)).delete(fullPath.resolve("blob1.bytes"));
+    verify(fileOperations).delete(fullPath.resolve("blob2.bytes"));
+    checkDeletionsIndex(true);
+  }
+
   @Test
   public void testDeleteWithCorruptAttributes() throws Exception {
     when(nodeAccess.isOldestNode()).thenReturn(true);
@@ -0,0 +1,105 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file.internal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link FileBlobStoreInventory}.
+ */
+public class FileBlobStoreInventoryTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path file;
+
+  private FileBlobStoreInventory underTest;
+
+  @Before
+  public void setUp() {
+    file = temporaryFolder.getRoot().toPath().resolve(FileBlobStoreInventory.INVENTORY_FILENAME);
+    underTest = new FileBlobStoreInventory(file);
+  }
+
+  @Test
+  public void completeWalkSeedsInventory() throws IOException {
+    underTest.open(false);
+    assertThat(underTest.isComplete(), is(false));
+
+    try (Stream<BlobId> walk = underTest.record(Stream.of(new BlobId("a"), new BlobId("b")))) {
+      assertThat(walk.count(), is(2L));
+    }
+    assertThat(underTest.isComplete(), is(true));
+
+    underTest.added(new BlobId("c"));
+    underTest.removed(new BlobId("a"));
+    assertThat(blobIds(), containsInAnyOrder("b", "c"));
+  }
+
+  @Test
+  public void partialWalkLeavesInventoryIncomplete() throws IOException {
+    underTest.open(false);
+    try (Stream<BlobId> walk = underTest.record(Stream.of(new BlobId("a"), new BlobId("b")))) {
+      assertThat(walk.findFirst().isPresent(), is(true));
+    }
+    assertThat(underTest.isComplete(), is(false));
+  }
+
+  @Test
+  public void reopeningCompactsCompleteInventory() throws IOException {
+    underTest.open(false);
+    underTest.record(Stream.of(new BlobId("a"), new BlobId("b"))).forEach(blobId -> { });
+    underTest.removed(new BlobId("a"));
+    underTest.close();
+
+    underTest.open(true);
+    assertThat(underTest.isComplete(), is(true));
+    assertThat(Files.readAllLines(file), contains("+b"));
+    assertThat(blobIds(), contains("b"));
+  }
+
+  @Test
+  public void reopeningIncompleteInventoryStartsAfresh() throws IOException {
+    underTest.open(false);
+    underTest.added(new BlobId("a"));
+    underTest.close();
+
+    underTest.open(false);
+    assertThat(underTest.isComplete(), is(false));
+    assertThat(Files.size(file), is(0L));
+  }
+
+  private List<String> blobIds() {
+    return underTest.blobIds().map(BlobId::asUniqueString).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file.internal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ParallelFileWalker}.
+ */
+public class ParallelFileWalkerTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path root;
+
+  private Set<Path> expected;
+
+  @Before
+  public void setUp() throws IOException {
+    root = temporaryFolder.getRoot().toPath();
+    expected = new HashSet<>();
+    for (int vol = 1; vol <= 5; vol++) {
+      for (int chap = 1; chap <= 7; chap++) {
+        Path chapter = Files.createDirectories(root.resolve("vol-0" + vol).resolve("chap-0" + chap));
+        for (int i = 0; i < 40; i++) {
+          expected.add(Files.createFile(chapter.resolve("blob-" + i + ".properties")));
+          Files.createFile(chapter.resolve("blob-" + i + ".bytes"));
+        }
+      }
+    }
+    expected.add(Files.createFile(root.resolve("shallow.properties")));
+    Files.createDirectories(root.resolve("vol-01").resolve("chap-01").resolve("deeper"));
+    expected.add(Files.createFile(root.resolve("vol-01").resolve("chap-01").resolve("deeper").resolve("x.properties")));
+  }
+
+  @Test
+  public void walksAllMatchingFiles() throws IOException {
+    ParallelFileWalker underTest = new ParallelFileWalker("test-walk", 4, 2);
+    try (Stream<Path> paths = underTest.walk(root, this::isProperties)) {
+      assertThat(paths.collect(Collectors.toSet()), is(expected));
+    }
+  }
+
+  @Test
+  public void walksSequentiallyWithSingleThread() throws IOException {
+    ParallelFileWalker underTest = new ParallelFileWalker("test-walk", 1, 2);
+    try (Stream<Path> paths = underTest.walk(root, this::isProperties)) {
+      assertThat(paths.collect(Collectors.toSet()), is(expected));
+    }
+  }
+
+  @Test
+  public void walksTreeShallowerThanSplitDepth() throws IOException {
+    ParallelFileWalker underTest = new ParallelFileWalker("test-walk", 4, 5);
+    try (Stream<Path> paths = underTest.walk(root, this::isProperties)) {
+      assertThat(paths.collect(Collectors.toSet()), is(expected));
+    }
+  }
+
+  @Test
+  public void closingStopsWalk() throws IOException {
+    ParallelFileWalker underTest = new ParallelFileWalker("test-walk", 4, 2);
+    Stream<Path> paths = underTest.walk(root, this::isProperties);
+    Iterator<Path> iterator = paths.iterator();
+    assertThat(iterator.hasNext(), is(true));
+    iterator.next();
+    paths.close();
+  }
+
+  @Test(timeout = 30000)
+  public void resumingAfterWalkWasAbandonedFailsRatherThanHangs() throws Exception {
+    ParallelFileWalker underTest = new ParallelFileWalker("test-walk", 4, 2, 200);
+    try (Stream<Path> paths = underTest.walk(root, this::isProperties)) {
+      Iterator<Path> iterator = paths.iterator();
+      assertThat(iterator.hasNext(), is(true));
+      iterator.next();
+
+      // stall the consumer while the walkers are blocked on the full queue, so they give up
+      Thread.sleep(1000);
+
+      try {
+        while (iterator.hasNext()) {
+          iterator.next();
+        }
+        fail("Expected abandoned walk to fail");
+      }
+      catch (IllegalStateException e) {
+        assertThat(e.getMessage(), containsString("abandoned"));
+      }
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void errorInWalkerFailsStreamRatherThanHangs() throws IOException {
+    ParallelFileWalker underTest = new ParallelFileWalker("test-walk", 4, 2);
+    try (Stream<Path> paths = underTest.walk(root, path -> {
+      if (path.endsWith("chap-03")) {
+        throw new AssertionError("boom");
+      }
+      return isProperties(path);
+    })) {
+      paths.forEach(path -> {
+        // drain
+      });
+      fail("Expected walker error to fail the stream");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e.getCause().getMessage(), is("boom"));
+    }
+  }
+
+  private boolean isProperties(final Path path) {
+    return path.toString().endsWith(".properties");
+  }
+}
@@ -14,11 +14,14 @@ package org.sonatype.nexus.blobstore;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -68,6 +71,16 @@ public abstract class BlobStoreSupport<T extends AttributesLocation>
           ".*vol-\\d{2}[/\\\\]chap-\\d{2}[/\\\\]\\b[0-9a-f]{8}\\b-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-\\b[0-9a-f]{12}\\b.properties$",
           Pattern.CASE_INSENSITIVE);
 
+  /**
+   * Matches temporary blobs, which keep their id when promoted in place by {@link #replaceHeaders}.
+   *
+   * @since 3.next
+   */
+  protected static final Pattern TEMPORARY_UUID_PATTERN = Pattern
+      .compile(
+          ".*tmp[/\\\\]tmp\\$[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}.properties$",
+          Pattern.CASE_INSENSITIVE);
+
   public BlobStoreSupport(final BlobIdLocationResolver blobIdLocationResolver,
                           final DryRunPrefix dryRunPrefix)
   {
@@ -131,6 +144,38 @@ public abstract class BlobStoreSupport<T extends AttributesLocation>
 
   protected abstract boolean doDelete(BlobId blobId, String reason);
 
+  /**
+   * @since 3.next
+   */
+  @Override
+  @Guarded(by = STARTED)
+  public Set<BlobId> deleteBatch(final Map<BlobId, String> blobIds) {
+    checkNotNull(blobIds);
+
+    long start = System.nanoTime();
+    try {
+      return doDeleteBatch(blobIds);
+    }
+    finally {
+      updateTimer("deleteBatch", System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Deletes each blob in turn; implementations that can group the underlying writes should override this.
+   *
+   * @since 3.next
+   */
+  protected Set<BlobId> doDeleteBatch(final Map<BlobId, String> blobIds) {
+    Set<BlobId> deleted = new HashSet<>();
+    blobIds.forEach((blobId, reason) -> {
+      if (doDelete(blobId, reason)) {
+        deleted.add(blobId);
+      }
+    });
+    return deleted;
+  }
+
   @Override
   @Guarded(by = STARTED)
   public boolean undelete(@Nullable final BlobStoreUsageChecker inUseChecker, final BlobId blobId,
@@ -229,7 +274,8 @@ public abstract class BlobStoreSupport<T extends AttributesLocation>
   protected abstract BlobAttributes getBlobAttributes(final T attributesFilePath) throws IOException;
 
   protected String getBlobIdFromAttributeFilePath(final T attributeFilePath) {
-    if (UUID_PATTERN.matcher(attributeFilePath.getFullPath()).matches()) {
+    if (UUID_PATTERN.matcher(attributeFilePath.getFullPath()).matches() ||
+        TEMPORARY_UUID_PATTERN.matcher(attributeFilePath.getFullPath()).matches()) {
       String filename = attributeFilePath.getFileName();
       return filename.substring(0, filename.length() - BLOB_ATTRIBUTE_SUFFIX.length());
     }
@@ -252,6 +298,8 @@ public abstract class BlobStoreSupport<T extends AttributesLocation>
 
   @Override
   public boolean isEmpty() {
-    return !getBlobIdStream().findAny().isPresent();
+    try (Stream<BlobId> blobIds = getBlobIdStream()) {
+      return !blobIds.findAny().isPresent();
+    }
   }
 }
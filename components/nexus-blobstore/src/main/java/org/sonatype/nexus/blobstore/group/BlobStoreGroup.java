@@ -16,10 +16,14 @@ import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
@@ -235,6 +239,26 @@ public class BlobStoreGroup
     }
   }
 
+  /**
+   * Each blob is routed to the member it is located in, using the same lookup as {@link #get(BlobId)}, and each member
+   * is then asked to delete its blobs in one batch.
+   *
+   * @since 3.next
+   */
+  @Override
+  @Guarded(by = STARTED)
+  public Set<BlobId> deleteBatch(final Map<BlobId, String> blobIds) {
+    Map<BlobStore, Map<BlobId, String>> blobIdsByMember = new LinkedHashMap<>();
+    blobIds.forEach((blobId, reason) -> {
+      locate(blobId).ifPresent(
+          member -> blobIdsByMember.computeIfAbsent(member, k -> new HashMap<>()).put(blobId, reason));
+      locatedBlobs.remove(blobId);
+    });
+    Set<BlobId> deleted = new HashSet<>();
+    blobIdsByMember.forEach((member, located) -> deleted.addAll(member.deleteBatch(located)));
+    return deleted;
+  }
+
   @Override
   @Guarded(by = STARTED)
   public boolean deleteHard(final BlobId blobId) {
@@ -268,6 +268,29 @@ class BlobStoreGroupTest
       'in_both'      || false // not deleted from two
   }
 
+  def 'delete batch with two members'() {
+    given: 'A group with two members'
+      config.attributes = [group: [members: ['one', 'two'], fillPolicy: 'test']]
+      blobStore.init(config)
+      blobStore.doStart()
+      blobStoreManager.get('one') >> one
+      blobStoreManager.get('two') >> two
+      one.exists(_) >> { BlobId id -> id == new BlobId('in_one') || id == new BlobId('in_both') }
+      two.exists(_) >> { BlobId id -> id == new BlobId('in_two') || id == new BlobId('in_both') }
+      def batch = ['doesntexists', 'in_one', 'in_two', 'in_both'].collectEntries { [(new BlobId(it)): 'just because'] }
+
+    when: 'delete batch called for all blobIds'
+      def deleted = blobStore.deleteBatch(batch)
+
+    then: 'each blob is routed to the first member holding it, which deletes its blobs in one batch'
+      1 * one.deleteBatch([(new BlobId('in_one')): 'just because', (new BlobId('in_both')): 'just because']) >>
+          ([new BlobId('in_one'), new BlobId('in_both')] as Set)
+      1 * two.deleteBatch([(new BlobId('in_two')): 'just because']) >> ([new BlobId('in_two')] as Set)
+      0 * one.delete(_, _)
+      0 * two.delete(_, _)
+      deleted == [new BlobId('in_one'), new BlobId('in_two'), new BlobId('in_both')] as Set
+  }
+
   @Unroll
   def 'delete hard with two members with id #blobId'() {
     given: 'A group with two members'
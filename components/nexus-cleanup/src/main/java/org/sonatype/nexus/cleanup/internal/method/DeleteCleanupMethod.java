@@ -14,8 +14,10 @@ package org.sonatype.nexus.cleanup.internal.method;
 
 import java.util.function.BooleanSupplier;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.common.entity.EntityId;
@@ -23,21 +25,36 @@ import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.storage.ComponentMaintenance;
 import org.sonatype.nexus.repository.storage.DefaultComponentMaintenanceImpl.DeletionProgress;
 
+import com.google.common.util.concurrent.RateLimiter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Provides a delete mechanism for cleanup
+ *
+ * A global deletion budget ({@code nexus.cleanup.deletionsPerSecond}, {@code 0} for unlimited) is shared by all
+ * repositories being cleaned up and is applied before each batch of components is deleted.
  * 
  * @since 3.14
  */
 @Named
+@Singleton
 public class DeleteCleanupMethod
     extends ComponentSupport
     implements CleanupMethod
 {
   private final int batchSize;
 
+  @Nullable
+  private final RateLimiter deletionRateLimiter;
+
   @Inject
-  public DeleteCleanupMethod(@Named("${nexus.cleanup.batchSize:-100}") final int batchSize) {
+  public DeleteCleanupMethod(@Named("${nexus.cleanup.batchSize:-100}") final int batchSize,
+                             @Named("${nexus.cleanup.deletionsPerSecond:-0}") final int deletionsPerSecond)
+  {
+    checkArgument(deletionsPerSecond >= 0, "Must use a non-negative deletion rate");
     this.batchSize = batchSize;
+    this.deletionRateLimiter = deletionsPerSecond > 0 ? RateLimiter.create(deletionsPerSecond) : null;
   }
   
   @Override
@@ -45,6 +62,7 @@ public class DeleteCleanupMethod
                               final Iterable<EntityId> components,
                               final BooleanSupplier cancelledCheck)
   {
-    return repository.facet(ComponentMaintenance.class).deleteComponents(components, cancelledCheck, batchSize);
+    return repository.facet(ComponentMaintenance.class)
+        .deleteComponents(components, cancelledCheck, batchSize, deletionRateLimiter);
   }
 }
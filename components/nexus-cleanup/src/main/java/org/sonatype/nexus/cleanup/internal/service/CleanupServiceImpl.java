@@ -12,8 +12,18 @@
  */
 package org.sonatype.nexus.cleanup.internal.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 
@@ -28,16 +38,26 @@ import org.sonatype.nexus.cleanup.service.CleanupService;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicy;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicyStorage;
 import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.logging.task.TaskLoggerHelper;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.storage.DefaultComponentMaintenanceImpl.DeletionProgress;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.security.subject.FakeAlmightySubject;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
+import com.google.common.base.Stopwatch;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
+import static org.sonatype.nexus.repository.storage.StorageFacetConstants.BLOB_STORE_NAME;
+import static org.sonatype.nexus.repository.storage.StorageFacetConstants.STORAGE;
 
 /**
  * @since 3.14
@@ -64,40 +84,117 @@ public class CleanupServiceImpl
 
   private int cleanupRetryLimit;
 
+  private final int concurrency;
+
   @Inject
   public CleanupServiceImpl(final RepositoryManager repositoryManager,
                             final CleanupComponentBrowse browseService,
                             final CleanupPolicyStorage cleanupPolicyStorage,
                             final CleanupMethod cleanupMethod,
                             final GroupType groupType,
-                            @Named("${nexus.cleanup.retries:-3}") final int cleanupRetryLimit)
+                            @Named("${nexus.cleanup.retries:-3}") final int cleanupRetryLimit,
+                            @Named("${nexus.cleanup.concurrency:-1}") final int concurrency)
   {
+    checkArgument(concurrency > 0, "Must use a positive concurrency");
     this.repositoryManager = checkNotNull(repositoryManager);
     this.browseService = checkNotNull(browseService);
     this.cleanupPolicyStorage = checkNotNull(cleanupPolicyStorage);
     this.cleanupMethod = checkNotNull(cleanupMethod);
     this.groupType = checkNotNull(groupType);
     this.cleanupRetryLimit = cleanupRetryLimit;
+    this.concurrency = concurrency;
   }
 
   @Override
   public void cleanup(final BooleanSupplier cancelledCheck) {
     AtomicLong totalDeletedCount = new AtomicLong(0L);
+
+    // repositories sharing a blob store are cleaned up one after the other, separate blob stores in parallel
+    Map<String, List<Repository>> repositoriesByBlobStore = new LinkedHashMap<>();
     repositoryManager.browse().forEach(repository -> {
-      if (!cancelledCheck.getAsBoolean() && !repository.getType().equals(groupType)) {
-        totalDeletedCount.addAndGet(this.cleanup(repository, cancelledCheck));
+      if (!repository.getType().equals(groupType)) {
+        repositoriesByBlobStore.computeIfAbsent(blobStoreName(repository), k -> new ArrayList<>()).add(repository);
       }
     });
+
+    if (concurrency == 1 || repositoriesByBlobStore.size() <= 1) {
+      repositoriesByBlobStore.values().forEach(
+          repositories -> totalDeletedCount.addAndGet(cleanup(repositories, cancelledCheck)));
+    }
+    else {
+      cleanupInParallel(repositoriesByBlobStore.values(), cancelledCheck, totalDeletedCount);
+    }
+
     log.info("{} components cleaned up across all repositories", totalDeletedCount.get());
   }
 
+  private void cleanupInParallel(final Collection<List<Repository>> repositoryGroups,
+                                 final BooleanSupplier cancelledCheck,
+                                 final AtomicLong totalDeletedCount)
+  {
+    ExecutorService executorService = makeExecutorService(Math.min(concurrency, repositoryGroups.size()));
+    try {
+      // workers log to the same task log as the cleanup task itself
+      List<Future<?>> futures = new ArrayList<>();
+      repositoryGroups.forEach(repositories -> futures.add(executorService.submit(TaskLoggerHelper.wrap(
+          () -> totalDeletedCount.addAndGet(cleanup(repositories, cancelledCheck))))));
+
+      // wait for every worker before propagating the first failure, as the sequential path would
+      Throwable failure = null;
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        }
+        catch (ExecutionException e) {
+          Throwable cause = e.getCause() != null ? e.getCause() : e;
+          if (failure == null) {
+            failure = cause;
+          }
+          else {
+            failure.addSuppressed(cause);
+          }
+        }
+      }
+      if (failure != null) {
+        throwIfUnchecked(failure);
+        throw new RuntimeException(failure);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Cleanup was interrupted");
+    }
+    finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private ExecutorService makeExecutorService(final int threads) {
+    ThreadPoolExecutor backing = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.NANOSECONDS,
+        new LinkedBlockingQueue<>(), new NexusThreadFactory("cleanup", "cleanup"));
+    backing.allowCoreThreadTimeOut(true);
+    return NexusExecutorService.forFixedSubject(backing, FakeAlmightySubject.TASK_SUBJECT);
+  }
+
+  private long cleanup(final List<Repository> repositories, final BooleanSupplier cancelledCheck) {
+    long deleted = 0L;
+    for (Repository repository : repositories) {
+      if (cancelledCheck.getAsBoolean()) {
+        break;
+      }
+      deleted += cleanup(repository, cancelledCheck);
+    }
+    return deleted;
+  }
+
   private Long cleanup(final Repository repository, final BooleanSupplier cancelledCheck) {
     AtomicLong deleted = new AtomicLong(0L);
     UnitOfWork.begin(repository.facet(StorageFacet.class).txSupplier());
     try {
       findPolicy(repository).ifPresent(p -> {
+        Stopwatch stopwatch = Stopwatch.createStarted();
         deleted.addAndGet(deleteByPolicy(repository, p, cancelledCheck));
-        log.info("{} components cleaned up for repository {}", deleted, repository.getName());
+        log.info("{} components cleaned up for repository {} in {}", deleted, repository.getName(), stopwatch);
       });
       return deleted.get();
     }
@@ -134,6 +231,17 @@ public class CleanupServiceImpl
     }
   }
 
+  private String blobStoreName(final Repository repository) {
+    Map<String, Map<String, Object>> attributes = repository.getConfiguration().getAttributes();
+    if (attributes != null && attributes.containsKey(STORAGE)) {
+      Object blobStoreName = attributes.get(STORAGE).get(BLOB_STORE_NAME);
+      if (blobStoreName != null) {
+        return blobStoreName.toString();
+      }
+    }
+    return "";
+  }
+
   private Optional<CleanupPolicy> findPolicy(final Repository repository) {
     Map<String, Map<String, Object>> attributes = repository.getConfiguration().getAttributes();
     if (attributes != null && attributes.containsKey(CLEANUP_ATTRIBUTES_KEY)) {
@@ -21,6 +21,7 @@ import org.sonatype.nexus.repository.storage.ComponentMaintenance;
 import org.sonatype.nexus.repository.storage.DefaultComponentMaintenanceImpl.DeletionProgress;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.RateLimiter;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -28,6 +29,8 @@ import org.mockito.Mock;
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.notNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -52,7 +55,7 @@ public class DeleteCleanupMethodTest
 
   @Before
   public void setup() throws Exception {
-    underTest = new DeleteCleanupMethod(500);
+    underTest = new DeleteCleanupMethod(500, 0);
 
     when(cancelledCheck.getAsBoolean()).thenReturn(false);
     when(repository.facet(ComponentMaintenance.class)).thenReturn(componentMaintenance);
@@ -63,12 +66,23 @@ public class DeleteCleanupMethodTest
     DeletionProgress deletionProgress = new DeletionProgress();
     deletionProgress.addCount(2L);
 
-    when(componentMaintenance.deleteComponents(any(), any(), anyInt())).thenReturn(deletionProgress);
+    when(componentMaintenance.deleteComponents(any(), any(), anyInt(), any())).thenReturn(deletionProgress);
 
     DeletionProgress response = underTest.run(repository, ImmutableList.of(component1, component2), cancelledCheck);
 
     assertThat(response.getCount()).isEqualTo(2L);
 
-    verify(componentMaintenance).deleteComponents(ImmutableList.of(component1, component2), cancelledCheck, BATCH_SIZE);
+    verify(componentMaintenance)
+        .deleteComponents(ImmutableList.of(component1, component2), cancelledCheck, BATCH_SIZE, null);
+  }
+
+  @Test
+  public void deleteComponentWithDeletionBudget() throws Exception {
+    underTest = new DeleteCleanupMethod(BATCH_SIZE, 10);
+
+    underTest.run(repository, ImmutableList.of(component1, component2), cancelledCheck);
+
+    verify(componentMaintenance).deleteComponents(eq(ImmutableList.of(component1, component2)), eq(cancelledCheck),
+        eq(BATCH_SIZE), notNull(RateLimiter.class));
   }
 }
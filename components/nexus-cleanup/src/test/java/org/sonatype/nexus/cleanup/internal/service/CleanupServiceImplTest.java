@@ -12,7 +12,10 @@
  */
 package org.sonatype.nexus.cleanup.internal.service;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BooleanSupplier;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -21,6 +24,8 @@ import org.sonatype.nexus.cleanup.service.CleanupComponentBrowse;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicy;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicyStorage;
 import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.logging.task.TaskLogger;
+import org.sonatype.nexus.logging.task.TaskLoggerHelper;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.Type;
 import org.sonatype.nexus.repository.config.Configuration;
@@ -38,6 +43,10 @@ import org.mockito.Mock;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
@@ -92,12 +101,15 @@ public class CleanupServiceImplTest
   @Mock
   private DeletionProgress deletionProgress;
 
+  @Mock
+  private TaskLogger taskLogger;
+
   private CleanupServiceImpl underTest;
 
   @Before
   public void setup() throws Exception {
     underTest = new CleanupServiceImpl(repositoryManager, browseService, cleanupPolicyStorage, cleanupMethod,
-        new GroupType(), RETRY_LIMIT);
+        new GroupType(), RETRY_LIMIT, 1);
     
     setupRepository(repository1, POLICY_1_NAME);
     setupRepository(repository2, POLICY_2_NAME);
@@ -213,6 +225,68 @@ public class CleanupServiceImplTest
     verify(cleanupMethod, times(3)).run(any(), any(), any());
   }
 
+  @Test
+  public void cleanupRepositoriesOnSeparateBlobStoresInParallel() {
+    underTest = new CleanupServiceImpl(repositoryManager, browseService, cleanupPolicyStorage, cleanupMethod,
+        new GroupType(), RETRY_LIMIT, 2);
+    setBlobStore(repository1, "blobStore1");
+    setBlobStore(repository2, "blobStore2");
+
+    underTest.cleanup(cancelledCheck);
+
+    verify(cleanupMethod).run(repository1, ImmutableList.of(component1, component2), cancelledCheck);
+    verify(cleanupMethod).run(repository2, ImmutableList.of(component3), cancelledCheck);
+  }
+
+  @Test
+  public void parallelCleanupRunsWithTaskLogger() {
+    underTest = new CleanupServiceImpl(repositoryManager, browseService, cleanupPolicyStorage, cleanupMethod,
+        new GroupType(), RETRY_LIMIT, 2);
+    setBlobStore(repository1, "blobStore1");
+    setBlobStore(repository2, "blobStore2");
+    List<TaskLogger> workerTaskLoggers = new CopyOnWriteArrayList<>();
+    doAnswer(i -> {
+      workerTaskLoggers.add(TaskLoggerHelper.get());
+      return deletionProgress;
+    }).when(cleanupMethod).run(any(), any(), any());
+
+    TaskLoggerHelper.start(taskLogger);
+    try {
+      underTest.cleanup(cancelledCheck);
+    }
+    finally {
+      TaskLoggerHelper.finish();
+    }
+
+    assertThat(workerTaskLoggers, contains(taskLogger, taskLogger));
+  }
+
+  @Test
+  public void parallelCleanupPropagatesFailureAfterAllWorkersFinish() {
+    underTest = new CleanupServiceImpl(repositoryManager, browseService, cleanupPolicyStorage, cleanupMethod,
+        new GroupType(), RETRY_LIMIT, 2);
+    setBlobStore(repository1, "blobStore1");
+    setBlobStore(repository2, "blobStore2");
+    IllegalStateException failure = new IllegalStateException("boom");
+    when(cleanupMethod.run(repository1, ImmutableList.of(component1, component2), cancelledCheck)).thenThrow(failure);
+
+    try {
+      underTest.cleanup(cancelledCheck);
+      fail("Expected exception not thrown");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e, is(failure));
+    }
+
+    verify(cleanupMethod).run(repository2, ImmutableList.of(component3), cancelledCheck);
+  }
+
+  private void setBlobStore(final Repository repository, final String blobStoreName) {
+    Map<String, Map<String, Object>> attributes = new HashMap<>(repository.getConfiguration().getAttributes());
+    attributes.put("storage", ImmutableMap.of("blobStoreName", blobStoreName));
+    repository.getConfiguration().setAttributes(attributes);
+  }
+
   private void setupRepository(final Repository repository, final String policyName) {
     Configuration repositoryConfig = new Configuration();
     when(repository.getConfiguration()).thenReturn(repositoryConfig);
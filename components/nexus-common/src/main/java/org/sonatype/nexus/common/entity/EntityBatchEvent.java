@@ -15,6 +15,8 @@ package org.sonatype.nexus.common.entity;
 import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.common.event.WithAffinity;
 
 /**
@@ -36,8 +38,22 @@ public class EntityBatchEvent
 
   private final List<EntityEvent> events;
 
+  @Nullable
+  private final String affinity;
+
   public EntityBatchEvent(final List<EntityEvent> events) {
     this.events = Collections.unmodifiableList(events);
+    this.affinity = null;
+  }
+
+  /**
+   * Creates a batch which declares its own affinity instead of using the affinity of its first event.
+   *
+   * @since 3.next
+   */
+  public EntityBatchEvent(final List<EntityEvent> events, @Nullable final String affinity) {
+    this.events = Collections.unmodifiableList(events);
+    this.affinity = affinity;
   }
 
   public List<EntityEvent> getEvents() {
@@ -46,6 +62,9 @@ public class EntityBatchEvent
 
   @Override
   public String getAffinity() {
+    if (affinity != null) {
+      return affinity;
+    }
     return events.get(0).getAffinity(); // first event in the batch declares the affinity for the rest
   }
 
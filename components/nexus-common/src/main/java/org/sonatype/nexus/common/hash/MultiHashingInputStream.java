@@ -15,12 +15,19 @@ package org.sonatype.nexus.common.hash;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
@@ -31,30 +38,72 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * An {@link InputStream} that maintains multiple hashes and the number of bytes of data read from it.
  *
+ * When given an {@link Executor} the data is collected into chunks which are hashed in the background, each algorithm
+ * working through the chunks in order while the reader carries on. This spreads the hashing of large content across
+ * cores and overlaps it with whatever the reader does with the data, such as writing it to a blob store.
+ *
  * @see HashingInputStream
  * @since 3.0
  */
 public class MultiHashingInputStream
     extends FilterInputStream
 {
+  private static final int CHUNK_SIZE = 256 * 1024;
+
+  private static final int MAX_PENDING_CHUNKS = 8;
+
   private final Map<HashAlgorithm, Hasher> hashers = new LinkedHashMap<>();
 
+  @Nullable
+  private final Executor hashingExecutor;
+
   private long count;
 
+  private byte[] chunk;
+
+  private int chunkLength;
+
+  private Semaphore pendingChunks;
+
+  private CompletableFuture<?>[] lanes;
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
   public MultiHashingInputStream(final Iterable<HashAlgorithm> algorithms, final InputStream inputStream) {
+    this(algorithms, inputStream, null);
+  }
+
+  /**
+   * @param hashingExecutor optional executor used to hash content in the background
+   *
+   * @since 3.next
+   */
+  public MultiHashingInputStream(final Iterable<HashAlgorithm> algorithms,
+                                 final InputStream inputStream,
+                                 @Nullable final Executor hashingExecutor)
+  {
     super(checkNotNull(inputStream));
     checkNotNull(algorithms);
     for (HashAlgorithm algorithm : algorithms) {
       hashers.put(algorithm, algorithm.function().newHasher());
     }
+    this.hashingExecutor = hashers.isEmpty() ? null : hashingExecutor;
   }
 
   @Override
   public int read() throws IOException {
     int b = in.read();
     if (b != -1) {
-      for (Hasher hasher : hashers.values()) {
-        hasher.putByte((byte) b);
+      if (hashingExecutor != null) {
+        chunk()[chunkLength++] = (byte) b;
+        if (chunkLength == CHUNK_SIZE) {
+          submitChunk();
+        }
+      }
+      else {
+        for (Hasher hasher : hashers.values()) {
+          hasher.putByte((byte) b);
+        }
       }
       count++;
     }
@@ -65,14 +114,109 @@ public class MultiHashingInputStream
   public int read(@Nonnull final byte[] bytes, final int off, final int len) throws IOException {
     int numRead = in.read(bytes, off, len);
     if (numRead != -1) {
-      for (Hasher hasher : hashers.values()) {
-        hasher.putBytes(bytes, off, numRead);
+      if (hashingExecutor != null) {
+        collect(bytes, off, numRead);
+      }
+      else {
+        for (Hasher hasher : hashers.values()) {
+          hasher.putBytes(bytes, off, numRead);
+        }
       }
       count += numRead;
     }
     return numRead;
   }
 
+  /**
+   * Copies data into the current chunk, handing full chunks over to be hashed; the caller may reuse its buffer.
+   */
+  private void collect(final byte[] bytes, final int off, final int len) throws IOException {
+    int pos = off;
+    int remaining = len;
+    while (remaining > 0) {
+      int numCopied = Math.min(remaining, CHUNK_SIZE - chunkLength);
+      System.arraycopy(bytes, pos, chunk(), chunkLength, numCopied);
+      chunkLength += numCopied;
+      pos += numCopied;
+      remaining -= numCopied;
+      if (chunkLength == CHUNK_SIZE) {
+        submitChunk();
+      }
+    }
+  }
+
+  private byte[] chunk() {
+    if (chunk == null) {
+      chunk = new byte[CHUNK_SIZE];
+    }
+    return chunk;
+  }
+
+  /**
+   * Queues the current chunk behind earlier chunks for each algorithm, waiting if too many chunks are still pending.
+   */
+  private void submitChunk() throws IOException {
+    if (lanes == null) {
+      pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+      lanes = new CompletableFuture<?>[hashers.size()];
+      for (int i = 0; i < lanes.length; i++) {
+        lanes[i] = CompletableFuture.completedFuture(null);
+      }
+    }
+    try {
+      pendingChunks.acquire();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for hashing to catch up");
+    }
+
+    byte[] bytes = chunk;
+    int length = chunkLength;
+    chunk = null;
+    chunkLength = 0;
+
+    AtomicInteger unhashed = new AtomicInteger(hashers.size());
+    int lane = 0;
+    for (Hasher hasher : hashers.values()) {
+      lanes[lane] = lanes[lane].thenRunAsync(() -> {
+        try {
+          hasher.putBytes(bytes, 0, length);
+        }
+        catch (Throwable e) { // NOSONAR
+          failure.compareAndSet(null, e);
+        }
+        finally {
+          if (unhashed.decrementAndGet() == 0) {
+            pendingChunks.release();
+          }
+        }
+      }, hashingExecutor);
+      lane++;
+    }
+  }
+
+  /**
+   * Waits for background hashing to finish and hashes any remaining data on the calling thread.
+   */
+  private void finishHashing() {
+    if (lanes != null) {
+      CompletableFuture.allOf(lanes).join();
+      lanes = null;
+      Throwable cause = failure.get();
+      if (cause != null) {
+        throw new IllegalStateException("Failed to hash content", cause);
+      }
+    }
+    if (chunkLength > 0) {
+      for (Hasher hasher : hashers.values()) {
+        hasher.putBytes(chunk, 0, chunkLength);
+      }
+      chunk = null;
+      chunkLength = 0;
+    }
+  }
+
   @Override
   public boolean markSupported() {
     return false;
@@ -92,6 +236,9 @@ public class MultiHashingInputStream
    * Gets the {@link HashCode}s based on the data read from this stream.
    */
   public Map<HashAlgorithm, HashCode> hashes() {
+    if (hashingExecutor != null) {
+      finishHashing();
+    }
     Map<HashAlgorithm, HashCode> hashes = new HashMap<>(hashers.size());
     for (Entry<HashAlgorithm, Hasher> entry : hashers.entrySet()) {
       hashes.put(entry.getKey(), entry.getValue().hash());
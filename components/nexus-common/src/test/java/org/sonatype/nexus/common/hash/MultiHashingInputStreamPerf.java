@@ -0,0 +1,125 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.hash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.io.ByteStreams;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Performance tests comparing inline and background hashing in {@link MultiHashingInputStream}.
+ */
+@RunWith(Parameterized.class)
+public class MultiHashingInputStreamPerf
+    extends TestSupport
+{
+  private static final long MB = 1024 * 1024;
+
+  private static final List<HashAlgorithm> ALGORITHMS = Arrays.asList(HashAlgorithm.MD5, HashAlgorithm.SHA1,
+      HashAlgorithm.SHA256, HashAlgorithm.SHA512);
+
+  private static final int ITERATIONS = 3;
+
+  private static ExecutorService executor;
+
+  private final long size;
+
+  public MultiHashingInputStreamPerf(final long size) {
+    this.size = size;
+  }
+
+  @Parameters(name = "{0} bytes")
+  public static Collection<Object[]> sizes() {
+    return Arrays.asList(new Object[][]{{MB}, {100 * MB}, {1024 * MB}, {5 * 1024 * MB}});
+  }
+
+  @BeforeClass
+  public static void startExecutor() {
+    executor = Executors.newFixedThreadPool(ALGORITHMS.size());
+  }
+
+  @AfterClass
+  public static void stopExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void hashInline() throws IOException {
+    for (int i = 0; i < ITERATIONS; i++) {
+      hash("inline", new MultiHashingInputStream(ALGORITHMS, new SyntheticInputStream(size)));
+    }
+  }
+
+  @Test
+  public void hashInBackground() throws IOException {
+    for (int i = 0; i < ITERATIONS; i++) {
+      hash("background", new MultiHashingInputStream(ALGORITHMS, new SyntheticInputStream(size), executor));
+    }
+  }
+
+  private void hash(final String mode, final MultiHashingInputStream hashingStream) throws IOException {
+    long started = System.nanoTime();
+    ByteStreams.copy(hashingStream, ByteStreams.nullOutputStream());
+    assertThat(hashingStream.hashes().size(), is(ALGORITHMS.size()));
+    long elapsed = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+    log("{}: {} MB in {} ms ({} MB/s)", mode, size / MB, elapsed, size * 1000 / MB / elapsed);
+  }
+
+  /**
+   * Generates content on the fly so large sizes don't need to be held in memory or on disk.
+   */
+  private static class SyntheticInputStream
+      extends InputStream
+  {
+    private long remaining;
+
+    SyntheticInputStream(final long size) {
+      this.remaining = size;
+    }
+
+    @Override
+    public int read() {
+      return remaining-- > 0 ? (int) (remaining & 0xff) : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int numRead = (int) Math.min(len, remaining);
+      for (int i = 0; i < numRead; i++) {
+        bytes[off + i] = (byte) (remaining - i);
+      }
+      remaining -= numRead;
+      return numRead;
+    }
+  }
+}
@@ -15,6 +15,10 @@ package org.sonatype.nexus.common.hash;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.google.common.hash.HashCode;
 import com.google.common.io.ByteStreams;
@@ -46,6 +50,46 @@ public class MultiHashingInputStreamTest
     assertThat(andUseHashingStream.count(), is(equalTo(byteArrayLength)));
   }
 
+  @Test
+  public void hashingInBackgroundMatchesHashingInline() throws IOException {
+    byte[] bytes = new byte[3 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(bytes);
+    List<HashAlgorithm> algorithms = Arrays.asList(HashAlgorithm.MD5, HashAlgorithm.SHA1, HashAlgorithm.SHA256,
+        HashAlgorithm.SHA512);
+
+    MultiHashingInputStream inline = new MultiHashingInputStream(algorithms, new ByteArrayInputStream(bytes));
+    ByteStreams.copy(inline, ByteStreams.nullOutputStream());
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      MultiHashingInputStream background = new MultiHashingInputStream(algorithms, new ByteArrayInputStream(bytes),
+          executor);
+      // mix single byte reads with buffered reads to cover both paths
+      for (int i = 0; i < 1000; i++) {
+        background.read();
+      }
+      ByteStreams.copy(background, ByteStreams.nullOutputStream());
+
+      assertThat(background.count(), is((long) bytes.length));
+      assertThat(background.hashes(), is(inline.hashes()));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void smallContentIsHashedWithoutExecutor() throws IOException {
+    MultiHashingInputStream hashingStream = new MultiHashingInputStream(Arrays.asList(HashAlgorithm.SHA512),
+        new ByteArrayInputStream(new byte[100]), command -> {
+          throw new AssertionError("executor should not be used");
+        });
+    ByteStreams.copy(hashingStream, ByteStreams.nullOutputStream());
+
+    assertThat(hashingStream.hashes().get(HashAlgorithm.SHA512),
+        is(createAndUseHashingStream(new byte[100]).hashes().get(HashAlgorithm.SHA512)));
+  }
+
   private MultiHashingInputStream createAndUseHashingStream(final byte[] bytes) throws IOException {
     final MultiHashingInputStream hashingStream = new MultiHashingInputStream(
         Arrays.asList(HashAlgorithm.SHA512), new ByteArrayInputStream(bytes));
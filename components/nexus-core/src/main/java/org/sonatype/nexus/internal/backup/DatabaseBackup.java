@@ -41,4 +41,17 @@ public interface DatabaseBackup
    */
   Callable<Void> fullBackup(String backupFolder, String dbName, LocalDateTime timestamp) throws IOException;
 
+  /**
+   * Creates an incremental backup job, which only stores changes since the last backup of the database to the
+   * same folder. A full backup is taken instead when there is no previous backup to build on.
+   *
+   * @param backupFolder Name of folder where backup file will be created
+   * @param dbName The name of the database being backed up
+   * @param timestamp a timestamp indicating when the backup was taken
+   * @return java.util.concurrent.Callable For storing backup data
+   * @throws IOException
+   * @since 3.next
+   */
+  Callable<Void> incrementalBackup(String backupFolder, String dbName, LocalDateTime timestamp) throws IOException;
+
 }
@@ -18,6 +18,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -28,11 +29,14 @@ import org.sonatype.nexus.common.app.ApplicationVersion;
 import org.sonatype.nexus.orient.DatabaseManager;
 import org.sonatype.nexus.orient.DatabaseRestorer;
 import org.sonatype.nexus.orient.DatabaseServer;
+import org.sonatype.nexus.orient.restore.BackupDelta;
+import org.sonatype.nexus.orient.restore.BackupDelta.Manifest;
 import org.sonatype.nexus.orient.restore.RestoreFile;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -46,6 +50,7 @@ public class DatabaseBackupImpl
     extends ComponentSupport
     implements DatabaseBackup
 {
+  private static final String MANIFEST_EXTENSION = ".manifest";
 
   private final DatabaseServer databaseServer;
 
@@ -57,16 +62,33 @@ public class DatabaseBackupImpl
 
   private final ApplicationVersion applicationVersion;
 
-  @Inject
+  private final int maxDeltas;
+
   public DatabaseBackupImpl(final DatabaseServer databaseServer, final DatabaseManager databaseManager,
                             final DatabaseRestorer databaseRestorer,
                             final ApplicationDirectories applicationDirectories,
                             final ApplicationVersion applicationVersion) {
+    this(databaseServer, databaseManager, databaseRestorer, applicationDirectories, applicationVersion, 6);
+  }
+
+  /**
+   * @param maxDeltas number of incremental backups to take after each full backup
+   *
+   * @since 3.next
+   */
+  @Inject
+  public DatabaseBackupImpl(final DatabaseServer databaseServer, final DatabaseManager databaseManager,
+                            final DatabaseRestorer databaseRestorer,
+                            final ApplicationDirectories applicationDirectories,
+                            final ApplicationVersion applicationVersion,
+                            @Named("${nexus.backup.incremental.maxDeltas:-6}") final int maxDeltas) {
     this.databaseServer = checkNotNull(databaseServer);
     this.databaseManager = checkNotNull(databaseManager);
     this.databaseRestorer = checkNotNull(databaseRestorer);
     this.applicationDirectories = checkNotNull(applicationDirectories);
     this.applicationVersion = checkNotNull(applicationVersion);
+    checkArgument(maxDeltas >= 0, "Number of incremental backups cannot be negative");
+    this.maxDeltas = maxDeltas;
   }
 
   @Override
@@ -76,14 +98,80 @@ public class DatabaseBackupImpl
         databaseManager.getBackupCompressionLevel(), databaseManager.getBackupBufferSize());
   }
 
+  @Override
+  public Callable<Void> incrementalBackup(final String backupFolder, final String dbName, final LocalDateTime timestamp)
+      throws IOException
+  {
+    File parentDir = checkTargetDir(backupFolder);
+    File manifestFile = new File(parentDir, dbName + MANIFEST_EXTENSION);
+
+    Manifest manifest = readManifest(manifestFile);
+    if (manifest != null && manifest.getSequence() < maxDeltas && new File(parentDir, manifest.getBase()).isFile()
+        && hasRecordedDeltas(parentDir, dbName, manifest)) {
+      File deltaFile = createTarget(parentDir,
+          RestoreFile.formatDeltaFilename(dbName, timestamp, applicationVersion.getVersion()));
+      return new DatabaseDeltaBackupRunner(databaseManager.instance(dbName), deltaFile, manifest, manifestFile);
+    }
+
+    log.info("database backup of {} will be a full backup, as the base of future incremental backups", dbName);
+    File backupFile = checkTarget(backupFolder, dbName, timestamp);
+    return new DatabaseBackupRunner(databaseManager.instance(dbName), backupFile,
+        databaseManager.getBackupCompressionLevel(), databaseManager.getBackupBufferSize(), manifestFile);
+  }
+
+  @Nullable
+  private Manifest readManifest(final File manifestFile) {
+    if (manifestFile.isFile()) {
+      try {
+        return Manifest.read(manifestFile);
+      }
+      catch (Exception e) {
+        log.warn("Unable to read backup manifest {}", manifestFile, log.isDebugEnabled() ? e : null);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks the deltas taken since the base backup match the manifest, so the next delta continues the sequence.
+   */
+  private boolean hasRecordedDeltas(final File parentDir, final String dbName, final Manifest manifest) {
+    File[] deltas = parentDir.listFiles(file -> file.isFile() && file.getName().startsWith(dbName + '-')
+        && file.getName().endsWith(RestoreFile.DELTA_EXTENSION));
+    int deltaCount = 0;
+    for (File delta : deltas != null ? deltas : new File[0]) {
+      try {
+        if (manifest.getBase().equals(BackupDelta.readBase(delta))) {
+          deltaCount++;
+        }
+      }
+      catch (Exception e) {
+        log.warn("Ignoring unreadable backup delta {}", delta, log.isDebugEnabled() ? e : null);
+      }
+    }
+    if (deltaCount != manifest.getSequence()) {
+      log.warn("Found {} backup deltas of {} but the manifest records {}, next backup of {} will be full",
+          deltaCount, manifest.getBase(), manifest.getSequence(), dbName);
+      return false;
+    }
+    return true;
+  }
+
   @VisibleForTesting
   File checkTarget(final String backupFolder, final String dbName, final LocalDateTime timestamp) throws IOException {
     String filename = RestoreFile.formatFilename(dbName, timestamp, applicationVersion.getVersion());
+    return createTarget(checkTargetDir(backupFolder), filename);
+  }
+
+  private File checkTargetDir(final String backupFolder) throws IOException {
     File parentDir = applicationDirectories.getWorkDirectory(backupFolder);
     if (databaseRestorer.isRestoreFromLocation(parentDir)) {
       throw new IllegalArgumentException("Backup to " + parentDir + " is not allowed.");
     }
+    return parentDir;
+  }
 
+  private File createTarget(final File parentDir, final String filename) throws IOException {
     File output = new File(parentDir, filename);
     if (output.createNewFile()) {
       return output;
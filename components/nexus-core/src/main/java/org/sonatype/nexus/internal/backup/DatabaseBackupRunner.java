@@ -18,8 +18,14 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.concurrent.Callable;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.orient.DatabaseInstance;
+import org.sonatype.nexus.orient.restore.BackupDelta;
+import org.sonatype.nexus.orient.restore.BackupDelta.Manifest;
 
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +51,9 @@ public class DatabaseBackupRunner
 
   private final int bufferSize;
 
+  @Nullable
+  private final File manifestFile;
+
   /**
    * Constructor to instantiate thread for executing database backup
    *
@@ -55,10 +64,23 @@ public class DatabaseBackupRunner
    */
   public DatabaseBackupRunner(final DatabaseInstance databaseInstance, final File backupFile,
                               final int compressionLevel, final int bufferSize) {
+    this(databaseInstance, backupFile, compressionLevel, bufferSize, null);
+  }
+
+  /**
+   * Constructor to instantiate thread for executing database backup, which is also the base of incremental backups
+   *
+   * @param manifestFile when set, a {@link Manifest} of the backed up storage is written here for incremental backups
+   *
+   * @since 3.next
+   */
+  public DatabaseBackupRunner(final DatabaseInstance databaseInstance, final File backupFile,
+                              final int compressionLevel, final int bufferSize, @Nullable final File manifestFile) {
     this.databaseInstance = checkNotNull(databaseInstance);
     this.backupFile = checkNotNull(backupFile);
     this.compressionLevel = checkNotNull(compressionLevel);
     this.bufferSize = checkNotNull(bufferSize);
+    this.manifestFile = manifestFile;
   }
 
   @Override
@@ -66,10 +88,19 @@ public class DatabaseBackupRunner
     try (final OutputStream backupOutputStream = new FileOutputStream(backupFile)) {
       inTx(() -> databaseInstance).throwing(IOException.class).run(
           db -> {
-            db.backup(backupOutputStream, null, null, iText -> {
+            Manifest[] manifest = new Manifest[1];
+            Callable<Object> scanStorage = null;
+            if (manifestFile != null) {
+              // called while storage is frozen, so the manifest matches what ends up in the backup
+              scanStorage = () -> manifest[0] = scan(db, backupFile.getName());
+            }
+            db.backup(backupOutputStream, null, scanStorage, iText -> {
               // these messages are a bit chatty, so only visible at debug
               log.debug("database backup of {}, received message '{}'", databaseInstance.getName(), iText);
             }, compressionLevel, bufferSize);
+            if (manifestFile != null) {
+              writeManifest(manifest[0]);
+            }
             log.info("database backup of {} completed successfully", databaseInstance.getName());
           });
     }
@@ -79,4 +110,25 @@ public class DatabaseBackupRunner
     return null;
   }
 
+  @Nullable
+  private Manifest scan(final ODatabaseDocumentTx db, final String base) throws IOException {
+    OLocalPaginatedStorage storage = DatabaseDeltaBackupRunner.localStorage(db);
+    if (storage == null) {
+      log.debug("database {} does not use local storage, incremental backups are not available",
+          databaseInstance.getName());
+      return null;
+    }
+    return BackupDelta.scan(new File(storage.getStoragePath()), base, DatabaseDeltaBackupRunner.checkpoint(storage));
+  }
+
+  private void writeManifest(@Nullable final Manifest manifest) throws IOException {
+    if (manifest != null) {
+      manifest.write(manifestFile);
+    }
+    else if (manifestFile.delete()) {
+      // don't leave an older manifest behind, otherwise deltas would continue from a previous full backup
+      log.warn("database backup of {} could not record its storage, next incremental backup will be full",
+          databaseInstance.getName());
+    }
+  }
 }
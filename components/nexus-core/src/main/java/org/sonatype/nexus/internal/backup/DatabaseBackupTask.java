@@ -59,6 +59,8 @@ public class DatabaseBackupTask
 
   private String location;
 
+  private boolean incremental;
+
   private final DatabaseBackup databaseBackup;
 
   private final DatabaseFreezeService freezeService;
@@ -87,6 +89,7 @@ public class DatabaseBackupTask
   public void configure(final TaskConfiguration configuration) {
     super.configure(configuration);
     this.location = configuration.getString(DatabaseBackupTaskDescriptor.BACKUP_LOCATION);
+    this.incremental = configuration.getBoolean(DatabaseBackupTaskDescriptor.INCREMENTAL, false);
   }
 
   @Override
@@ -103,7 +106,9 @@ public class DatabaseBackupTask
     for (String dbName : databaseBackup.dbNames()) {
       try {
         log.info("database backup of {} starting", dbName);
-        Callable<Void> job = databaseBackup.fullBackup(location, dbName, timestamp);
+        Callable<Void> job = incremental ?
+            databaseBackup.incrementalBackup(location, dbName, timestamp) :
+            databaseBackup.fullBackup(location, dbName, timestamp);
         jobs.add(job);
       }
       catch (Exception e) {
@@ -160,4 +165,18 @@ public class DatabaseBackupTask
   public void setLocation(final String location) {
     this.location = location;
   }
+
+  /**
+   * @since 3.next
+   */
+  public boolean isIncremental() {
+    return incremental;
+  }
+
+  /**
+   * @since 3.next
+   */
+  public void setIncremental(final boolean incremental) {
+    this.incremental = incremental;
+  }
 }
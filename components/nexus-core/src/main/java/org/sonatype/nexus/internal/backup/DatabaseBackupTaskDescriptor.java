@@ -19,11 +19,13 @@ import javax.inject.Singleton;
 import org.sonatype.goodies.i18n.I18N;
 import org.sonatype.goodies.i18n.MessageBundle;
 import org.sonatype.nexus.common.node.NodeAccess;
+import org.sonatype.nexus.formfields.CheckboxFormField;
 import org.sonatype.nexus.formfields.StringTextFormField;
 import org.sonatype.nexus.scheduling.TaskConfiguration;
 import org.sonatype.nexus.scheduling.TaskDescriptorSupport;
 
 import static org.sonatype.nexus.formfields.FormField.MANDATORY;
+import static org.sonatype.nexus.formfields.FormField.OPTIONAL;
 
 /**
  * {@link DatabaseBackupTask} descriptor.
@@ -41,6 +43,11 @@ public class DatabaseBackupTaskDescriptor
 
   public static final String BACKUP_LOCATION = "location";
 
+  /**
+   * @since 3.next
+   */
+  public static final String INCREMENTAL = "incremental";
+
   private interface Messages
       extends MessageBundle
   {
@@ -52,6 +59,12 @@ public class DatabaseBackupTaskDescriptor
 
     @DefaultMessage("Filesystem location for backup data")
     String locationHelpText();
+
+    @DefaultMessage("Incremental backup")
+    String incrementalLabel();
+
+    @DefaultMessage("Only export changes since the last backup in this location, with periodic full backups")
+    String incrementalHelpText();
   }
 
   private static final Messages messages = I18N.create(Messages.class);
@@ -66,6 +79,12 @@ public class DatabaseBackupTaskDescriptor
             messages.locationHelpText(),
             MANDATORY
         ),
+        new CheckboxFormField(
+            INCREMENTAL,
+            messages.incrementalLabel(),
+            messages.incrementalHelpText(),
+            OPTIONAL
+        ).withInitialValue(false),
         nodeAccess.isClustered() ? newLimitNodeFormField() : null
     );
   }
@@ -0,0 +1,147 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.backup;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.orient.DatabaseInstance;
+import org.sonatype.nexus.orient.restore.BackupDelta;
+import org.sonatype.nexus.orient.restore.BackupDelta.Manifest;
+import org.sonatype.nexus.orient.restore.BackupDelta.Snapshot;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OLogSequenceNumber;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWriteAheadLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.sonatype.nexus.orient.transaction.OrientTransactional.inTx;
+
+/**
+ * Background thread that creates an incremental database backup, containing storage changes since the last backup.
+ *
+ * @since 3.next
+ */
+public class DatabaseDeltaBackupRunner
+    implements Callable<Void>
+{
+  private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+  private final DatabaseInstance databaseInstance;
+
+  private final File deltaFile;
+
+  private final Manifest manifest;
+
+  private final File manifestFile;
+
+  /**
+   * Constructor to instantiate thread for executing incremental database backup
+   *
+   * @param databaseInstance the database that will be backed up
+   * @param deltaFile the changed storage will be written onto this file
+   * @param manifest the manifest recorded by the previous backup
+   * @param manifestFile where the updated manifest will be written once the delta is complete
+   */
+  public DatabaseDeltaBackupRunner(final DatabaseInstance databaseInstance, final File deltaFile,
+                                   final Manifest manifest, final File manifestFile) {
+    this.databaseInstance = checkNotNull(databaseInstance);
+    this.deltaFile = checkNotNull(deltaFile);
+    this.manifest = checkNotNull(manifest);
+    this.manifestFile = checkNotNull(manifestFile);
+  }
+
+  @Override
+  public Void call() throws Exception {
+    File tempFile = new File(deltaFile.getPath() + ".tmp");
+    try {
+      Manifest nextManifest;
+      try (Snapshot snapshot = snapshot();
+           OutputStream deltaOutputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+        nextManifest = BackupDelta.write(snapshot, manifest, deltaOutputStream);
+      }
+
+      // publish the complete delta before recording it in the manifest, DatabaseBackupImpl falls back to a full
+      // backup if the deltas on disk and the manifest ever disagree
+      Files.move(tempFile.toPath(), deltaFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+      nextManifest.write(manifestFile);
+
+      log.info("incremental database backup of {} completed successfully, delta {} since {}",
+          databaseInstance.getName(), nextManifest.getSequence(), nextManifest.getBase());
+    }
+    catch (Throwable e) { // NOSONAR
+      if (tempFile.exists() && !tempFile.delete()) {
+        log.warn("unable to remove incomplete delta {}", tempFile);
+      }
+      if (!deltaFile.delete()) { // unrecorded deltas would break the sequence on restore
+        log.warn("unable to remove incomplete delta {}", deltaFile);
+      }
+      throw new RuntimeException(String.format("incremental database backup of %s failed", databaseInstance.getName()),
+          e);
+    }
+    return null;
+  }
+
+  /**
+   * Copies the storage files that changed since the previous backup, only holding back writes while they're copied.
+   */
+  private Snapshot snapshot() throws IOException {
+    return inTx(() -> databaseInstance).throwing(IOException.class).call(
+        db -> {
+          OLocalPaginatedStorage storage = localStorage(db);
+          checkState(storage != null, "database %s does not use local storage", databaseInstance.getName());
+
+          storage.freeze(false); // flush and hold back writes while we copy changed storage files
+          try {
+            return BackupDelta.snapshot(new File(storage.getStoragePath()), manifest, checkpoint(storage),
+                deltaFile.getParentFile());
+          }
+          finally {
+            storage.release();
+          }
+        });
+  }
+
+  /**
+   * @return the local paginated storage underlying the database; {@code null} if it uses some other kind of storage
+   */
+  @Nullable
+  static OLocalPaginatedStorage localStorage(final ODatabaseDocumentTx db) {
+    OStorage storage = db.getStorage().getUnderlying();
+    return storage instanceof OLocalPaginatedStorage ? (OLocalPaginatedStorage) storage : null;
+  }
+
+  /**
+   * @return current end of the storage's write-ahead-log, used to skip scanning when nothing has changed
+   */
+  @Nullable
+  static String checkpoint(final OLocalPaginatedStorage storage) {
+    OWriteAheadLog wal = storage.getWALInstance();
+    OLogSequenceNumber end = wal != null ? wal.end() : null;
+    return end != null ? end.toString() : null;
+  }
+}
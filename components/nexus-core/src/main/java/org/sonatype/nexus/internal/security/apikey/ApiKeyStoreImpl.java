@@ -30,6 +30,7 @@ import org.sonatype.nexus.orient.DatabaseInstance;
 import org.sonatype.nexus.orient.DatabaseInstanceNames;
 import org.sonatype.nexus.security.UserPrincipalsExpired;
 import org.sonatype.nexus.security.UserPrincipalsHelper;
+import org.sonatype.nexus.security.authc.CredentialsCache;
 import org.sonatype.nexus.security.authc.apikey.ApiKeyFactory;
 import org.sonatype.nexus.security.authc.apikey.ApiKeyStore;
 import org.sonatype.nexus.security.user.UserNotFoundException;
@@ -71,18 +72,22 @@ public class ApiKeyStoreImpl
 
   private final DefaultApiKeyFactory defaultApiKeyFactory;
 
+  private final CredentialsCache credentialsCache;
+
   @Inject
   public ApiKeyStoreImpl(@Named(DatabaseInstanceNames.SECURITY) final Provider<DatabaseInstance> databaseInstance,
                          final ApiKeyEntityAdapter entityAdapter,
                          final UserPrincipalsHelper principalsHelper,
                          final Map<String, ApiKeyFactory> apiKeyFactories,
-                         final DefaultApiKeyFactory defaultApiKeyFactory)
+                         final DefaultApiKeyFactory defaultApiKeyFactory,
+                         final CredentialsCache credentialsCache)
   {
     this.databaseInstance = checkNotNull(databaseInstance);
     this.entityAdapter = checkNotNull(entityAdapter);
     this.principalsHelper = checkNotNull(principalsHelper);
     this.apiKeyFactories = checkNotNull(apiKeyFactories);
     this.defaultApiKeyFactory = checkNotNull(defaultApiKeyFactory);
+    this.credentialsCache = checkNotNull(credentialsCache);
   }
 
   @Override
@@ -141,10 +146,17 @@ public class ApiKeyStoreImpl
   @Override
   @Guarded(by = STARTED)
   public PrincipalCollection getPrincipals(final String domain, final char[] apiKey) {
-    return inTx(databaseInstance).call(db -> {
-      final ApiKey entity = entityAdapter.findByApiKey(db, domain, checkNotNull(apiKey));
-      return entity == null ? null : entity.getPrincipals();
-    });
+    PrincipalCollection principals = credentialsCache.getApiKeyPrincipals(domain, checkNotNull(apiKey));
+    if (principals == null) {
+      principals = inTx(databaseInstance).call(db -> {
+        final ApiKey entity = entityAdapter.findByApiKey(db, domain, apiKey);
+        return entity == null ? null : entity.getPrincipals();
+      });
+      if (principals != null) {
+        credentialsCache.apiKeyVerified(domain, apiKey, principals);
+      }
+    }
+    return principals;
   }
 
   @Override
@@ -157,6 +169,7 @@ public class ApiKeyStoreImpl
         }
       }
     });
+    credentialsCache.invalidateApiKeys(domain, primaryPrincipal(principals));
   }
 
   @Override
@@ -167,12 +180,14 @@ public class ApiKeyStoreImpl
         entityAdapter.deleteEntity(db, entity);
       }
     });
+    credentialsCache.invalidateApiKeys(null, primaryPrincipal(principals));
   }
 
   @Override
   @Guarded(by = STARTED)
   public void deleteApiKeys() {
     inTxRetry(databaseInstance).run(entityAdapter::deleteAll);
+    credentialsCache.invalidateApiKeys();
   }
 
   @Override
@@ -201,6 +216,7 @@ public class ApiKeyStoreImpl
         entityAdapter.deleteEntity(db, entity);
       }
     });
+    credentialsCache.invalidateApiKeys();
   }
 
   @Subscribe
@@ -218,8 +234,11 @@ public class ApiKeyStoreImpl
   private Iterable<ApiKey> findByPrimaryPrincipal(final ODatabaseDocumentTx db,
                                                   final PrincipalCollection principals)
   {
-    final String primaryPrincipal = checkNotNull(principals).getPrimaryPrincipal().toString();
-    return entityAdapter.browseByPrimaryPrincipal(db, primaryPrincipal);
+    return entityAdapter.browseByPrimaryPrincipal(db, primaryPrincipal(principals));
+  }
+
+  private static String primaryPrincipal(final PrincipalCollection principals) {
+    return checkNotNull(principals).getPrimaryPrincipal().toString();
   }
 
   private char[] makeApiKey(final String domain, final PrincipalCollection principals) {
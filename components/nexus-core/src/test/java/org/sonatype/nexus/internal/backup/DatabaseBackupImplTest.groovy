@@ -16,9 +16,11 @@ import java.time.LocalDateTime
 
 import org.sonatype.nexus.common.app.ApplicationDirectories
 import org.sonatype.nexus.common.app.ApplicationVersion
+import org.sonatype.nexus.orient.DatabaseInstance
 import org.sonatype.nexus.orient.DatabaseManager
 import org.sonatype.nexus.orient.DatabaseRestorer
 import org.sonatype.nexus.orient.DatabaseServer
+import org.sonatype.nexus.orient.restore.BackupDelta
 
 import spock.lang.Specification
 
@@ -58,6 +60,75 @@ class DatabaseBackupImplTest
       1 * applicationDirectories.getWorkDirectory(_) >> { String name -> new File(name) }
   }
 
+  def 'incremental backups build on the last full backup'() {
+    databaseRestorer.isRestoreFromLocation(_) >> false
+    applicationVersion.getVersion() >> "3.4.1"
+    applicationDirectories.getWorkDirectory(_) >> { String name -> new File(name) }
+    databaseManager.instance("test") >> Mock(DatabaseInstance)
+    File folder = File.createTempDir()
+    def databaseBackup = new DatabaseBackupImpl(databaseServer, databaseManager, databaseRestorer, applicationDirectories, applicationVersion, 1)
+
+    when: 'there is no previous backup'
+      def first = databaseBackup.incrementalBackup(folder.path, "test", LocalDateTime.now().minusDays(2))
+
+    then: 'a full backup is taken'
+      first instanceof DatabaseBackupRunner
+
+    when: 'the full backup has recorded its manifest'
+      File base = folder.listFiles().find { it.name.endsWith('.bak') }
+      BackupDelta.scan(File.createTempDir(), base.name, null).write(new File(folder, 'test.manifest'))
+      def second = databaseBackup.incrementalBackup(folder.path, "test", LocalDateTime.now().minusDays(1))
+
+    then: 'a delta is taken'
+      second instanceof DatabaseDeltaBackupRunner
+      folder.listFiles().find { it.name.endsWith('.delta') } != null
+
+    when: 'the maximum number of deltas has been reached'
+      BackupDelta.Manifest manifest = BackupDelta.Manifest.read(new File(folder, 'test.manifest'))
+      BackupDelta.write(File.createTempDir(), manifest, null, new ByteArrayOutputStream())
+          .write(new File(folder, 'test.manifest'))
+      def third = databaseBackup.incrementalBackup(folder.path, "test", LocalDateTime.now())
+
+    then: 'a new full backup is taken'
+      third instanceof DatabaseBackupRunner
+
+    cleanup:
+      folder.deleteDir()
+  }
+
+  def 'a full backup is taken when the deltas on disk do not match the manifest'() {
+    databaseRestorer.isRestoreFromLocation(_) >> false
+    applicationVersion.getVersion() >> "3.4.1"
+    applicationDirectories.getWorkDirectory(_) >> { String name -> new File(name) }
+    databaseManager.instance("test") >> Mock(DatabaseInstance)
+    File folder = File.createTempDir()
+    File base = new File(folder, 'test-base.bak')
+    base.createNewFile()
+    File manifestFile = new File(folder, 'test.manifest')
+    BackupDelta.Manifest manifest = BackupDelta.scan(File.createTempDir(), base.name, null)
+    manifest.write(manifestFile)
+    def databaseBackup = new DatabaseBackupImpl(databaseServer, databaseManager, databaseRestorer, applicationDirectories, applicationVersion, 6)
+
+    when: 'a delta was written but not recorded in the manifest'
+      BackupDelta.Manifest next = new File(folder, 'test-1.delta').withOutputStream { out ->
+        BackupDelta.write(File.createTempDir(), manifest, null, out)
+      }
+      def first = databaseBackup.incrementalBackup(folder.path, "test", LocalDateTime.now().minusDays(1))
+
+    then: 'a full backup is taken'
+      first instanceof DatabaseBackupRunner
+
+    when: 'the manifest records the delta'
+      next.write(manifestFile)
+      def second = databaseBackup.incrementalBackup(folder.path, "test", LocalDateTime.now())
+
+    then: 'a delta is taken'
+      second instanceof DatabaseDeltaBackupRunner
+
+    cleanup:
+      folder.deleteDir()
+  }
+
   def 'restore to location is disallowed'() {
     databaseRestorer.isRestoreFromLocation(_) >> true
     applicationVersion.getVersion() >> "3.4.1"
@@ -14,6 +14,7 @@ package org.sonatype.nexus.internal.security.apikey
 
 import java.util.concurrent.atomic.AtomicBoolean
 
+import org.sonatype.goodies.common.Time
 import org.sonatype.goodies.testsupport.TestSupport
 import org.sonatype.nexus.crypto.internal.CryptoHelperImpl
 import org.sonatype.nexus.crypto.internal.RandomBytesGeneratorImpl
@@ -22,6 +23,7 @@ import org.sonatype.nexus.orient.transaction.OrientFunction
 import org.sonatype.nexus.scheduling.CancelableHelper
 import org.sonatype.nexus.scheduling.TaskInterruptedException
 import org.sonatype.nexus.security.UserPrincipalsHelper
+import org.sonatype.nexus.security.authc.CredentialsCache
 import org.sonatype.nexus.security.user.UserNotFoundException
 import org.sonatype.nexus.security.user.UserStatus
 
@@ -68,17 +70,21 @@ class ApiKeyStoreImplTest
 
   private AtomicBoolean cancelled = new AtomicBoolean(!CANCELLED)
 
+  private CredentialsCache credentialsCache
+
   private ApiKeyStoreImpl underTest
 
   @Before
   void setup() {
     CancelableHelper.set(cancelled)
+    credentialsCache = new CredentialsCache(100, Time.minutes(1))
     underTest = new ApiKeyStoreImpl(
         database.instanceProvider,
         new ApiKeyEntityAdapter(ClassLoader.getSystemClassLoader()),
         principalsHelper,
         Maps.newHashMap(),
-        new DefaultApiKeyFactory(new RandomBytesGeneratorImpl(new CryptoHelperImpl()))
+        new DefaultApiKeyFactory(new RandomBytesGeneratorImpl(new CryptoHelperImpl())),
+        credentialsCache
     )
     underTest.start()
   }
@@ -152,6 +158,20 @@ class ApiKeyStoreImplTest
     assertThat(principals.primaryPrincipal, equalTo("alpha"))
   }
 
+  @Test
+  void 'Repeated api key lookups are cached until the key is deleted'() {
+    PrincipalCollection p = makePrincipals("alpha")
+    char[] key = underTest.createApiKey('foo', p)
+
+    assertThat(underTest.getPrincipals('foo', key).primaryPrincipal, equalTo("alpha"))
+    assertThat(underTest.getPrincipals('foo', key).primaryPrincipal, equalTo("alpha"))
+    assertThat(credentialsCache.apiKeyHitCount, equalTo(1L))
+
+    underTest.deleteApiKey('foo', p)
+
+    assertThat(underTest.getPrincipals('foo', key), nullValue())
+  }
+
   @Test
   void 'Can delete all API Keys'() {
     PrincipalCollection principalA = makePrincipals("name-a")
@@ -0,0 +1,216 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.common.ComponentSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Bounded pool of JDBC {@link Connection}s, each with its own cache of {@link PreparedStatement}s.
+ *
+ * @since 3.next
+ */
+public class JdbcConnectionPool
+    extends ComponentSupport
+    implements AutoCloseable
+{
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  private final String jdbcUrl;
+
+  private final Properties properties;
+
+  private final long connectionTimeoutMillis;
+
+  private final int statementCacheSize;
+
+  private final Semaphore permits;
+
+  private final BlockingQueue<PooledConnection> idle;
+
+  private volatile boolean closed;
+
+  public JdbcConnectionPool(final String jdbcUrl,
+                            final Properties properties,
+                            final int maximumPoolSize,
+                            final long connectionTimeoutMillis,
+                            final int statementCacheSize)
+  {
+    checkArgument(maximumPoolSize > 0, "Maximum pool size must be positive");
+    checkArgument(connectionTimeoutMillis >= 0, "Connection timeout must not be negative");
+    checkArgument(statementCacheSize > 0, "Statement cache size must be positive");
+    this.jdbcUrl = checkNotNull(jdbcUrl);
+    this.properties = checkNotNull(properties);
+    this.connectionTimeoutMillis = connectionTimeoutMillis;
+    this.statementCacheSize = statementCacheSize;
+    this.permits = new Semaphore(maximumPoolSize, true);
+    this.idle = new ArrayBlockingQueue<>(maximumPoolSize);
+  }
+
+  /**
+   * Borrows a connection from the pool, opening a new one if none are idle; blocks up to the connection timeout
+   * when all connections are in use.
+   */
+  public PooledConnection borrow() throws SQLException {
+    checkState(!closed, "Connection pool is closed");
+    try {
+      if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new SQLTransientConnectionException(
+            "No connection available for " + jdbcUrl + " within " + connectionTimeoutMillis + "ms");
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for connection to " + jdbcUrl, e);
+    }
+    try {
+      PooledConnection pooled;
+      while ((pooled = idle.poll()) != null) {
+        if (pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+          return pooled;
+        }
+        log.debug("Discarding stale connection to {}", jdbcUrl);
+        pooled.discard();
+      }
+      return new PooledConnection(DriverManager.getConnection(jdbcUrl, properties));
+    }
+    catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a connection to the pool; any open transaction is rolled back.
+   */
+  void release(final PooledConnection pooled) {
+    try {
+      if (!closed && !pooled.connection.isClosed()) {
+        if (!pooled.connection.getAutoCommit()) {
+          pooled.connection.rollback();
+          pooled.connection.setAutoCommit(true);
+        }
+        if (idle.offer(pooled)) {
+          return;
+        }
+      }
+      pooled.discard();
+    }
+    catch (SQLException e) {
+      log.debug("Discarding broken connection to {}", jdbcUrl, e);
+      pooled.discard();
+    }
+    finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Closes all idle connections; connections in use are closed as they are released.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    PooledConnection pooled;
+    while ((pooled = idle.poll()) != null) {
+      pooled.discard();
+    }
+  }
+
+  /**
+   * Pooled {@link Connection} with an LRU cache of {@link PreparedStatement}s.
+   */
+  public class PooledConnection
+  {
+    private final Connection connection;
+
+    private final Map<String, PreparedStatement> statements;
+
+    PooledConnection(final Connection connection) {
+      this.connection = checkNotNull(connection);
+      this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true)
+      {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+          if (size() > statementCacheSize) {
+            closeQuietly(eldest.getValue());
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+
+    public Connection getConnection() {
+      return connection;
+    }
+
+    /**
+     * Returns a cached statement for the given SQL, preparing it on first use.
+     */
+    public PreparedStatement prepare(final String sql) throws SQLException {
+      PreparedStatement statement = statements.get(sql);
+      if (statement == null || statement.isClosed()) {
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+      }
+      return statement;
+    }
+
+    /**
+     * Returns this connection to the pool.
+     */
+    public void release() {
+      JdbcConnectionPool.this.release(this);
+    }
+
+    void discard() {
+      for (Iterator<PreparedStatement> itr = statements.values().iterator(); itr.hasNext(); ) {
+        closeQuietly(itr.next());
+        itr.remove();
+      }
+      try {
+        connection.close();
+      }
+      catch (SQLException e) {
+        log.debug("Problem closing connection to {}", jdbcUrl, e);
+      }
+    }
+
+    private void closeQuietly(final PreparedStatement statement) {
+      try {
+        statement.close();
+      }
+      catch (SQLException e) {
+        log.debug("Problem closing statement", e);
+      }
+    }
+  }
+}
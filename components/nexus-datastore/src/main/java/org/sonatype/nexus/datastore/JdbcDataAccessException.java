@@ -12,41 +12,22 @@
  */
 package org.sonatype.nexus.datastore;
 
-import java.util.Map;
-
-import javax.inject.Named;
-
-import org.sonatype.nexus.datastore.api.DataAccess;
-import org.sonatype.nexus.datastore.api.DataSession;
-import org.sonatype.nexus.datastore.api.DataStore;
-import org.sonatype.nexus.transaction.Transaction;
+import java.sql.SQLException;
 
 /**
- * Temporary stubbed {@link DataStore}.
+ * Unchecked wrapper for {@link SQLException}s thrown while accessing a {@link JdbcDataStore}.
  *
  * @since 3.next
  */
-@Named("jdbc")
-public class StubDataStore
-    extends DataStoreSupport<Transaction, DataSession<Transaction>>
+public class JdbcDataAccessException
+    extends RuntimeException
 {
-  @Override
-  protected void doStart(final String storeName, final Map<String, String> attributes) throws Exception {
-    // no-op
-  }
-
-  @Override
-  public void register(final Class<? extends DataAccess> accessType) {
-    // no-op
-  }
-
-  @Override
-  public void unregister(final Class<? extends DataAccess> accessType) {
-    // no-op
+  public JdbcDataAccessException(final String message, final SQLException cause) {
+    super(message, cause);
   }
 
   @Override
-  public DataSession<Transaction> openSession() {
-    throw new UnsupportedOperationException("stub");
+  public synchronized SQLException getCause() {
+    return (SQLException) super.getCause();
   }
 }
@@ -0,0 +1,251 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.sonatype.nexus.datastore.api.DataAccess;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.sql.ResultSet.CONCUR_READ_ONLY;
+import static java.sql.ResultSet.TYPE_FORWARD_ONLY;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Support for {@link DataAccess} mappings of entities to a single table in a {@link JdbcDataStore}.
+ *
+ * Subclasses describe the table and how entities are bound to and read from its columns; the support class
+ * generates the SQL. Implementations must have a public constructor that takes a {@link JdbcDataSession}.
+ *
+ * @since 3.next
+ */
+public abstract class JdbcDataAccessSupport<E, K>
+    implements DataAccess
+{
+  private final JdbcDataSession session;
+
+  private final String insertSql;
+
+  private final String updateSql;
+
+  private final String selectSql;
+
+  private final String browseSql;
+
+  private final String deleteSql;
+
+  protected JdbcDataAccessSupport(final JdbcDataSession session) {
+    this.session = checkNotNull(session);
+
+    String table = table();
+    String key = keyColumn();
+    List<String> columns = columns();
+
+    String allColumns = key + columns.stream().map(c -> ", " + c).collect(joining());
+
+    insertSql = "INSERT INTO " + table + " (" + allColumns + ") VALUES (?"
+        + columns.stream().map(c -> ", ?").collect(joining()) + ")";
+    updateSql = "UPDATE " + table + " SET " + columns.stream().map(c -> c + " = ?").collect(joining(", "))
+        + " WHERE " + key + " = ?";
+    selectSql = "SELECT " + allColumns + " FROM " + table + " WHERE " + key + " = ?";
+    browseSql = "SELECT " + allColumns + " FROM " + table + " ORDER BY " + key;
+    deleteSql = "DELETE FROM " + table + " WHERE " + key + " = ?";
+  }
+
+  /**
+   * Name of the table holding the entities.
+   */
+  protected abstract String table();
+
+  /**
+   * Name of the key column.
+   */
+  protected abstract String keyColumn();
+
+  /**
+   * Names of the remaining columns, in the order they are bound by {@link #bind}.
+   */
+  protected abstract List<String> columns();
+
+  /**
+   * DDL that creates the table if it doesn't already exist.
+   */
+  protected abstract String schema();
+
+  /**
+   * Returns the key of the given entity.
+   */
+  protected abstract K keyOf(E entity);
+
+  /**
+   * Binds the given key to the statement parameter at the given index.
+   */
+  protected abstract void bindKey(PreparedStatement statement, int index, K key) throws SQLException;
+
+  /**
+   * Binds the non-key {@link #columns} of the entity to consecutive statement parameters starting at the given index.
+   */
+  protected abstract void bind(PreparedStatement statement, int index, E entity) throws SQLException;
+
+  /**
+   * Reads an entity from the current row; the key is the first column, followed by the {@link #columns}.
+   */
+  protected abstract E read(ResultSet resultSet) throws SQLException;
+
+  @Override
+  public void createSchema() {
+    try (Statement statement = session.getConnection().getConnection().createStatement()) {
+      statement.execute(schema());
+    }
+    catch (SQLException e) {
+      throw new JdbcDataAccessException("Unable to create schema for " + table(), e);
+    }
+  }
+
+  /**
+   * Streams entities in key order; the cursor is closed once exhausted or when the session closes.
+   */
+  public Iterable<E> browse() {
+    return Cursor::new;
+  }
+
+  public void create(final E entity) {
+    K key = keyOf(entity);
+    try {
+      session.write(insertSql, statement -> {
+        bindKey(statement, 1, key);
+        bind(statement, 2, entity);
+      });
+    }
+    catch (SQLException e) {
+      throw new JdbcDataAccessException("Unable to create " + table() + " " + key, e);
+    }
+  }
+
+  protected Optional<E> doRead(final K key) {
+    try {
+      PreparedStatement statement = session.query(selectSql, s -> bindKey(s, 1, key));
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? Optional.of(read(resultSet)) : Optional.empty();
+      }
+    }
+    catch (SQLException e) {
+      throw new JdbcDataAccessException("Unable to read " + table() + " " + key, e);
+    }
+  }
+
+  public void update(final E entity) {
+    K key = keyOf(entity);
+    int keyIndex = columns().size() + 1;
+    try {
+      session.write(updateSql, statement -> {
+        bind(statement, 1, entity);
+        bindKey(statement, keyIndex, key);
+      });
+    }
+    catch (SQLException e) {
+      throw new JdbcDataAccessException("Unable to update " + table() + " " + key, e);
+    }
+  }
+
+  protected boolean doDelete(final K key) {
+    try {
+      return session.execute(deleteSql, statement -> bindKey(statement, 1, key)) > 0;
+    }
+    catch (SQLException e) {
+      throw new JdbcDataAccessException("Unable to delete " + table() + " " + key, e);
+    }
+  }
+
+  /**
+   * Forward-only cursor over the table, with its own statement so several cursors can be open at once.
+   */
+  private class Cursor
+      implements Iterator<E>, AutoCloseable
+  {
+    private final PreparedStatement statement;
+
+    private final ResultSet resultSet;
+
+    private Boolean hasNext;
+
+    private boolean closed;
+
+    Cursor() {
+      try {
+        session.flush();
+        statement = session.getConnection().getConnection()
+            .prepareStatement(browseSql, TYPE_FORWARD_ONLY, CONCUR_READ_ONLY);
+        statement.setFetchSize(session.getFetchSize());
+        resultSet = statement.executeQuery();
+      }
+      catch (SQLException e) {
+        throw new JdbcDataAccessException("Unable to browse " + table(), e);
+      }
+      session.opened(this);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (hasNext == null) {
+        try {
+          hasNext = !closed && resultSet.next();
+        }
+        catch (SQLException e) {
+          close();
+          throw new JdbcDataAccessException("Unable to browse " + table(), e);
+        }
+        if (!hasNext) {
+          close();
+        }
+      }
+      return hasNext;
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      hasNext = null;
+      try {
+        return read(resultSet);
+      }
+      catch (SQLException e) {
+        close();
+        throw new JdbcDataAccessException("Unable to browse " + table(), e);
+      }
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        try {
+          statement.close(); // also closes the result set
+        }
+        catch (SQLException e) {
+          // ignore, the connection will be cleaned up when released
+        }
+        session.closed(this);
+      }
+    }
+  }
+}
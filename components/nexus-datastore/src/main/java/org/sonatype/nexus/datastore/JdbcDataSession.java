@@ -0,0 +1,212 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.datastore.JdbcConnectionPool.PooledConnection;
+import org.sonatype.nexus.datastore.api.DataAccess;
+import org.sonatype.nexus.datastore.api.DataSession;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@link DataSession} holding a pooled JDBC connection.
+ *
+ * Writes made inside a transaction are collected into JDBC batches: consecutive writes using the same statement
+ * share a batch, which is executed when a different statement is used, the batch is full, the session queries the
+ * database, or the transaction commits.
+ *
+ * @since 3.next
+ */
+public class JdbcDataSession
+    extends ComponentSupport
+    implements DataSession<JdbcTransaction>
+{
+  /**
+   * Binds parameters to a prepared statement.
+   */
+  @FunctionalInterface
+  public interface StatementBinder
+  {
+    void bind(PreparedStatement statement) throws SQLException;
+  }
+
+  private final JdbcDataStore store;
+
+  private final PooledConnection connection;
+
+  private final int batchSize;
+
+  private final int fetchSize;
+
+  private final Map<Class<?>, DataAccess> accessCache = new HashMap<>();
+
+  private final Set<AutoCloseable> openCursors = new LinkedHashSet<>();
+
+  private JdbcTransaction transaction;
+
+  private PreparedStatement pendingBatch;
+
+  private int pendingCount;
+
+  private boolean closed;
+
+  JdbcDataSession(final JdbcDataStore store,
+                  final PooledConnection connection,
+                  final int batchSize,
+                  final int fetchSize)
+  {
+    checkArgument(batchSize > 0, "Batch size must be positive");
+    this.store = checkNotNull(store);
+    this.connection = checkNotNull(connection);
+    this.batchSize = batchSize;
+    this.fetchSize = fetchSize;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <D extends DataAccess> D access(final Class<D> type) {
+    checkState(!closed, "Session is closed");
+    return (D) accessCache.computeIfAbsent(type, t -> store.createAccess(type, this));
+  }
+
+  @Override
+  public JdbcTransaction openTransaction() {
+    checkState(!closed, "Session is closed");
+    checkState(transaction == null || !transaction.isActive(), "Session already has an active transaction");
+    transaction = new JdbcTransaction(this);
+    return transaction;
+  }
+
+  /**
+   * Returns the underlying pooled connection.
+   */
+  public PooledConnection getConnection() {
+    return connection;
+  }
+
+  int getFetchSize() {
+    return fetchSize;
+  }
+
+  boolean inTransaction() {
+    return transaction != null && transaction.isActive();
+  }
+
+  /**
+   * Executes a write; inside a transaction the write is batched with consecutive writes using the same SQL.
+   */
+  public void write(final String sql, final StatementBinder binder) throws SQLException {
+    PreparedStatement statement = connection.prepare(sql);
+    if (!inTransaction()) {
+      flush();
+      binder.bind(statement);
+      statement.executeUpdate();
+      return;
+    }
+    if (pendingBatch != statement) {
+      flush();
+    }
+    binder.bind(statement);
+    statement.addBatch();
+    pendingBatch = statement;
+    if (++pendingCount >= batchSize) {
+      flush();
+    }
+  }
+
+  /**
+   * Executes a write immediately, returning the number of rows affected.
+   */
+  public int execute(final String sql, final StatementBinder binder) throws SQLException {
+    flush();
+    PreparedStatement statement = connection.prepare(sql);
+    binder.bind(statement);
+    return statement.executeUpdate();
+  }
+
+  /**
+   * Prepares a cached statement for querying, after executing any pending writes.
+   */
+  public PreparedStatement query(final String sql, final StatementBinder binder) throws SQLException {
+    flush();
+    PreparedStatement statement = connection.prepare(sql);
+    binder.bind(statement);
+    return statement;
+  }
+
+  /**
+   * Executes any pending batch of writes.
+   */
+  public void flush() throws SQLException {
+    if (pendingBatch != null) {
+      PreparedStatement batch = pendingBatch;
+      int count = pendingCount;
+      pendingBatch = null;
+      pendingCount = 0;
+      log.trace("Executing batch of {} writes", count);
+      batch.executeBatch();
+    }
+  }
+
+  /**
+   * Discards any pending batch of writes.
+   */
+  void discard() {
+    if (pendingBatch != null) {
+      try {
+        pendingBatch.clearBatch();
+      }
+      catch (SQLException e) {
+        log.debug("Problem clearing batch", e);
+      }
+      pendingBatch = null;
+      pendingCount = 0;
+    }
+  }
+
+  void opened(final AutoCloseable cursor) {
+    openCursors.add(cursor);
+  }
+
+  void closed(final AutoCloseable cursor) {
+    openCursors.remove(cursor);
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (AutoCloseable cursor : openCursors.toArray(new AutoCloseable[0])) {
+      try {
+        cursor.close();
+      }
+      catch (Exception e) {
+        log.debug("Problem closing cursor", e);
+      }
+    }
+    discard();
+    connection.release(); // rolls back any uncommitted work
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Named;
+
+import org.sonatype.nexus.datastore.api.DataAccess;
+import org.sonatype.nexus.datastore.api.DataStore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Embedded SQL {@link DataStore} accessed over JDBC, such as H2 in file mode.
+ *
+ * Supported attributes:
+ * <ul>
+ * <li>{@code jdbcUrl} - JDBC URL of the database (required)</li>
+ * <li>{@code username}, {@code password} - database credentials</li>
+ * <li>{@code maximumPoolSize} - maximum number of pooled connections (default 16)</li>
+ * <li>{@code connectionTimeout} - milliseconds to wait for a pooled connection (default 30000)</li>
+ * <li>{@code statementCacheSize} - prepared statements cached per connection (default 64)</li>
+ * <li>{@code batchSize} - maximum writes per JDBC batch (default 100)</li>
+ * <li>{@code fetchSize} - rows fetched at a time when browsing (default 100)</li>
+ * </ul>
+ *
+ * {@link DataAccess} types are supported when they extend {@link JdbcDataAccessSupport}.
+ *
+ * @since 3.next
+ */
+@Named("jdbc")
+public class JdbcDataStore
+    extends DataStoreSupport<JdbcTransaction, JdbcDataSession>
+{
+  private final Map<Class<?>, Constructor<? extends DataAccess>> accessTypes = new ConcurrentHashMap<>();
+
+  private JdbcConnectionPool pool;
+
+  private int batchSize;
+
+  private int fetchSize;
+
+  @Override
+  protected void doStart(final String storeName, final Map<String, String> attributes) throws Exception {
+    String jdbcUrl = attributes.get("jdbcUrl");
+    checkArgument(jdbcUrl != null, "%s data store is missing jdbcUrl", storeName);
+
+    Properties properties = new Properties();
+    if (attributes.containsKey("username")) {
+      properties.setProperty("user", attributes.get("username"));
+    }
+    if (attributes.containsKey("password")) {
+      properties.setProperty("password", attributes.get("password"));
+    }
+
+    batchSize = intAttribute(attributes, "batchSize", 100);
+    fetchSize = intAttribute(attributes, "fetchSize", 100);
+
+    pool = new JdbcConnectionPool(jdbcUrl, properties,
+        intAttribute(attributes, "maximumPoolSize", 16),
+        intAttribute(attributes, "connectionTimeout", 30000),
+        intAttribute(attributes, "statementCacheSize", 64));
+
+    // create schemas for any types registered while stopped
+    for (Class<?> accessType : accessTypes.keySet()) {
+      createSchema(accessType);
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    pool.close();
+    pool = null;
+  }
+
+  @Override
+  public void register(final Class<? extends DataAccess> accessType) {
+    if (!JdbcDataAccessSupport.class.isAssignableFrom(accessType) || Modifier.isAbstract(accessType.getModifiers())) {
+      log.debug("Ignoring {} as it has no JDBC mapping", accessType);
+      return;
+    }
+    try {
+      accessTypes.put(accessType, accessType.getConstructor(JdbcDataSession.class));
+    }
+    catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(accessType + " must have a public constructor taking a JdbcDataSession", e);
+    }
+    if (isStarted()) {
+      createSchema(accessType);
+    }
+  }
+
+  @Override
+  public void unregister(final Class<? extends DataAccess> accessType) {
+    accessTypes.remove(accessType);
+  }
+
+  @Override
+  public JdbcDataSession openSession() {
+    checkState(pool != null, "%s data store is not started", configuration.getName());
+    try {
+      return new JdbcDataSession(this, pool.borrow(), batchSize, fetchSize);
+    }
+    catch (SQLException e) {
+      throw new JdbcDataAccessException("Unable to open session", e);
+    }
+  }
+
+  DataAccess createAccess(final Class<?> accessType, final JdbcDataSession session) {
+    Constructor<? extends DataAccess> constructor = accessTypes.get(accessType);
+    checkArgument(constructor != null, "%s is not registered with %s", accessType, this);
+    try {
+      return constructor.newInstance(session);
+    }
+    catch (InvocationTargetException e) {
+      throw new IllegalStateException("Unable to create " + accessType, e.getCause());
+    }
+    catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to create " + accessType, e);
+    }
+  }
+
+  private void createSchema(final Class<?> accessType) {
+    try (JdbcDataSession session = openSession()) {
+      session.access(accessType.asSubclass(DataAccess.class)).createSchema();
+    }
+  }
+
+  private static int intAttribute(final Map<String, String> attributes, final String key, final int defaultValue) {
+    String value = attributes.get(key);
+    return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+  }
+}
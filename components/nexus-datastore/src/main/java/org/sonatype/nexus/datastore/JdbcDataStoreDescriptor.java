@@ -26,12 +26,12 @@ import static java.util.Arrays.asList;
 import static org.sonatype.nexus.formfields.FormField.MANDATORY;
 
 /**
- * Temporary stubbed {@link DataStoreDescriptor}.
+ * {@link DataStoreDescriptor} for {@link JdbcDataStore}.
  *
  * @since 3.next
  */
 @Named("jdbc")
-public class StubDataStoreDescriptor
+public class JdbcDataStoreDescriptor
     implements DataStoreDescriptor
 {
   private interface Messages
@@ -49,7 +49,7 @@ public class StubDataStoreDescriptor
   private final FormField<?> jdbcUrl;
 
   @Inject
-  public StubDataStoreDescriptor() {
+  public JdbcDataStoreDescriptor() {
     this.jdbcUrl = new StringTextFormField(
         "jdbcUrl",
         messages.urlLabel(),
@@ -0,0 +1,70 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.sonatype.nexus.common.entity.DetachedEntityId;
+import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.common.entity.HasEntityId;
+import org.sonatype.nexus.datastore.api.IterableDataAccess;
+
+/**
+ * {@link IterableDataAccess} backed by a {@link JdbcDataStore} table keyed by entity id.
+ *
+ * @since 3.next
+ */
+public abstract class JdbcIterableDataAccess<E extends HasEntityId>
+    extends JdbcDataAccessSupport<E, EntityId>
+    implements IterableDataAccess<E>
+{
+  protected JdbcIterableDataAccess(final JdbcDataSession session) {
+    super(session);
+  }
+
+  @Override
+  protected String keyColumn() {
+    return "id";
+  }
+
+  @Override
+  protected EntityId keyOf(final E entity) {
+    return entity.getEntityId();
+  }
+
+  @Override
+  protected void bindKey(final PreparedStatement statement, final int index, final EntityId key) throws SQLException {
+    statement.setString(index, key.getValue());
+  }
+
+  @Override
+  public void create(final E entity) {
+    if (entity.getEntityId() == null) {
+      entity.setEntityId(new DetachedEntityId(UUID.randomUUID().toString()));
+    }
+    super.create(entity);
+  }
+
+  @Override
+  public Optional<E> read(final EntityId id) {
+    return doRead(id);
+  }
+
+  @Override
+  public boolean delete(final EntityId id) {
+    return doDelete(id);
+  }
+}
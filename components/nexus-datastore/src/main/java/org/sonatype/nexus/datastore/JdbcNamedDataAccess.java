@@ -0,0 +1,59 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Optional;
+
+import org.sonatype.nexus.common.entity.HasName;
+import org.sonatype.nexus.datastore.api.NamedDataAccess;
+
+/**
+ * {@link NamedDataAccess} backed by a {@link JdbcDataStore} table keyed by name.
+ *
+ * @since 3.next
+ */
+public abstract class JdbcNamedDataAccess<E extends HasName>
+    extends JdbcDataAccessSupport<E, String>
+    implements NamedDataAccess<E>
+{
+  protected JdbcNamedDataAccess(final JdbcDataSession session) {
+    super(session);
+  }
+
+  @Override
+  protected String keyColumn() {
+    return "name";
+  }
+
+  @Override
+  protected String keyOf(final E entity) {
+    return entity.getName();
+  }
+
+  @Override
+  protected void bindKey(final PreparedStatement statement, final int index, final String key) throws SQLException {
+    statement.setString(index, key);
+  }
+
+  @Override
+  public Optional<E> read(final String name) {
+    return doRead(name);
+  }
+
+  @Override
+  public boolean delete(final String name) {
+    return doDelete(name);
+  }
+}
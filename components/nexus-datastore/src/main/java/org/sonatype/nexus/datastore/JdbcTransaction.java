@@ -0,0 +1,104 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+
+import org.sonatype.nexus.transaction.Transaction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * JDBC {@link Transaction} over the connection held by a {@link JdbcDataSession}.
+ *
+ * @since 3.next
+ */
+public class JdbcTransaction
+    implements Transaction
+{
+  private static final int MAX_RETRIES = 8;
+
+  private final JdbcDataSession session;
+
+  private boolean active;
+
+  private int retries;
+
+  JdbcTransaction(final JdbcDataSession session) {
+    this.session = checkNotNull(session);
+  }
+
+  @Override
+  public void begin() throws SQLException {
+    checkState(!active, "Transaction already active");
+    connection().setAutoCommit(false);
+    active = true;
+  }
+
+  @Override
+  public void commit() throws SQLException {
+    checkState(active, "Transaction not active");
+    session.flush();
+    Connection connection = connection();
+    connection.commit();
+    connection.setAutoCommit(true);
+    active = false;
+  }
+
+  @Override
+  public void rollback() throws SQLException {
+    checkState(active, "Transaction not active");
+    session.discard();
+    Connection connection = connection();
+    active = false;
+    connection.rollback();
+    connection.setAutoCommit(true);
+  }
+
+  @Override
+  public boolean isActive() {
+    return active;
+  }
+
+  @Override
+  public boolean allowRetry(final Exception cause) {
+    if (retries < MAX_RETRIES && isTransient(cause)) {
+      retries++;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (active) {
+      rollback();
+    }
+  }
+
+  private Connection connection() {
+    return session.getConnection().getConnection();
+  }
+
+  private static boolean isTransient(final Throwable cause) {
+    for (Throwable t = cause; t != null; t = t.getCause()) {
+      if (t instanceof SQLTransientException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.datastore.JdbcConnectionPool.PooledConnection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link JdbcConnectionPool} tests.
+ */
+public class JdbcConnectionPoolTest
+    extends TestSupport
+{
+  private static final String JDBC_URL = "jdbc:nexus-pool-test:pool";
+
+  private static final List<Connection> opened = new ArrayList<>();
+
+  private final PoolTestDriver driver = new PoolTestDriver();
+
+  private JdbcConnectionPool underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    opened.clear();
+    DriverManager.registerDriver(driver);
+    underTest = new JdbcConnectionPool(JDBC_URL, new Properties(), 2, 50, 8);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.close();
+    DriverManager.deregisterDriver(driver);
+  }
+
+  @Test
+  public void releasedConnectionsAreReused() throws Exception {
+    PooledConnection first = underTest.borrow();
+    first.release();
+    PooledConnection second = underTest.borrow();
+
+    assertThat(second, sameInstance(first));
+    assertThat(opened, hasSize(1));
+  }
+
+  @Test(expected = SQLTransientConnectionException.class)
+  public void borrowTimesOutWhenPoolIsExhausted() throws Exception {
+    underTest.borrow();
+    underTest.borrow();
+    underTest.borrow();
+  }
+
+  @Test
+  public void staleConnectionsAreReplaced() throws Exception {
+    PooledConnection first = underTest.borrow();
+    first.release();
+    when(opened.get(0).isValid(anyInt())).thenReturn(false);
+
+    PooledConnection second = underTest.borrow();
+
+    assertThat(second, not(sameInstance(first)));
+    verify(opened.get(0)).close();
+  }
+
+  @Test
+  public void uncommittedWorkIsRolledBackOnRelease() throws Exception {
+    PooledConnection pooled = underTest.borrow();
+    when(pooled.getConnection().getAutoCommit()).thenReturn(false);
+
+    pooled.release();
+
+    verify(pooled.getConnection()).rollback();
+    verify(pooled.getConnection()).setAutoCommit(true);
+  }
+
+  @Test
+  public void statementsAreCachedPerConnection() throws Exception {
+    PooledConnection pooled = underTest.borrow();
+    Connection connection = pooled.getConnection();
+    when(connection.prepareStatement("SELECT 1")).thenReturn(mock(PreparedStatement.class));
+
+    assertThat(pooled.prepare("SELECT 1"), sameInstance(pooled.prepare("SELECT 1")));
+    verify(connection).prepareStatement("SELECT 1");
+  }
+
+  /**
+   * Minimal driver handing out fresh mock connections.
+   */
+  public static class PoolTestDriver
+      implements Driver
+  {
+    @Override
+    public Connection connect(final String url, final Properties info) throws SQLException {
+      if (!acceptsURL(url)) {
+        return null;
+      }
+      Connection connection = mock(Connection.class);
+      when(connection.isValid(anyInt())).thenReturn(true);
+      when(connection.getAutoCommit()).thenReturn(true);
+      opened.add(connection);
+      return connection;
+    }
+
+    @Override
+    public boolean acceptsURL(final String url) {
+      return url.startsWith("jdbc:nexus-pool-test:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+      return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+      return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+      return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+      return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+    }
+  }
+}
@@ -0,0 +1,376 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.datastore;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.entity.HasName;
+import org.sonatype.nexus.common.stateguard.StateGuardModule;
+import org.sonatype.nexus.datastore.api.DataStoreConfiguration;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import static com.google.inject.Guice.createInjector;
+import static java.sql.ResultSet.CONCUR_READ_ONLY;
+import static java.sql.ResultSet.TYPE_FORWARD_ONLY;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link JdbcDataStore} tests.
+ */
+public class JdbcDataStoreTest
+    extends TestSupport
+{
+  private static final String JDBC_URL = "jdbc:nexus-test:store";
+
+  private static final String INSERT_SQL = "INSERT INTO test_entity (name, text) VALUES (?, ?)";
+
+  private static final String UPDATE_SQL = "UPDATE test_entity SET text = ? WHERE name = ?";
+
+  private static final String BROWSE_SQL = "SELECT name, text FROM test_entity ORDER BY name";
+
+  private static Connection currentConnection;
+
+  private static final AtomicInteger connectCount = new AtomicInteger();
+
+  private final TestDriver driver = new TestDriver();
+
+  private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+  @Mock
+  private Connection connection;
+
+  @Mock
+  private Statement ddlStatement;
+
+  private JdbcDataStore underTest;
+
+  public static class TestEntity
+      implements HasName
+  {
+    private String name;
+
+    private String text;
+
+    TestEntity(final String name, final String text) {
+      this.name = name;
+      this.text = text;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public void setName(final String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name + "=" + text;
+    }
+  }
+
+  public static class TestEntityAccess
+      extends JdbcNamedDataAccess<TestEntity>
+  {
+    public TestEntityAccess(final JdbcDataSession session) {
+      super(session);
+    }
+
+    @Override
+    protected String table() {
+      return "test_entity";
+    }
+
+    @Override
+    protected List<String> columns() {
+      return ImmutableList.of("text");
+    }
+
+    @Override
+    protected String schema() {
+      return "CREATE TABLE IF NOT EXISTS test_entity (name VARCHAR PRIMARY KEY, text VARCHAR)";
+    }
+
+    @Override
+    protected void bind(final PreparedStatement statement, final int index, final TestEntity entity)
+        throws SQLException
+    {
+      statement.setString(index, entity.text);
+    }
+
+    @Override
+    protected TestEntity read(final ResultSet resultSet) throws SQLException {
+      return new TestEntity(resultSet.getString(1), resultSet.getString(2));
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    currentConnection = connection;
+    connectCount.set(0);
+    DriverManager.registerDriver(driver);
+
+    when(connection.isValid(anyInt())).thenReturn(true);
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(connection.createStatement()).thenReturn(ddlStatement);
+    when(connection.prepareStatement(anyString())).thenAnswer(
+        invocation -> statements.computeIfAbsent((String) invocation.getArguments()[0],
+            sql -> mock(PreparedStatement.class)));
+
+    underTest = createInjector(new StateGuardModule()).getInstance(JdbcDataStore.class);
+    DataStoreConfiguration configuration = new DataStoreConfiguration();
+    configuration.setName("test");
+    configuration.setType("jdbc");
+    configuration.setSource("local");
+    configuration.setAttributes(ImmutableMap.of("jdbcUrl", JDBC_URL, "batchSize", "2"));
+    underTest.setConfiguration(configuration);
+    underTest.start();
+    underTest.register(TestEntityAccess.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.shutdown();
+    DriverManager.deregisterDriver(driver);
+  }
+
+  @Test
+  public void schemaIsCreatedOnRegistration() throws Exception {
+    verify(ddlStatement).execute("CREATE TABLE IF NOT EXISTS test_entity (name VARCHAR PRIMARY KEY, text VARCHAR)");
+  }
+
+  @Test
+  public void sessionsShareConnectionsAndStatements() throws Exception {
+    try (JdbcDataSession session = underTest.openSession()) {
+      session.access(TestEntityAccess.class).create(new TestEntity("a", "1"));
+    }
+    try (JdbcDataSession session = underTest.openSession()) {
+      session.access(TestEntityAccess.class).create(new TestEntity("b", "2"));
+    }
+
+    assertThat(connectCount.get(), is(1));
+    verify(connection, times(1)).prepareStatement(INSERT_SQL);
+    verify(statements.get(INSERT_SQL), times(2)).executeUpdate();
+    verify(statements.get(INSERT_SQL), never()).addBatch();
+  }
+
+  @Test
+  public void writesInTransactionAreBatched() throws Exception {
+    try (JdbcDataSession session = underTest.openSession()) {
+      TestEntityAccess access = session.access(TestEntityAccess.class);
+      JdbcTransaction tx = session.openTransaction();
+      tx.begin();
+      access.create(new TestEntity("a", "1"));
+      access.create(new TestEntity("b", "2"));
+      access.create(new TestEntity("c", "3"));
+      access.update(new TestEntity("a", "4"));
+      tx.commit();
+    }
+
+    PreparedStatement insert = statements.get(INSERT_SQL);
+    PreparedStatement update = statements.get(UPDATE_SQL);
+    verify(insert, times(3)).addBatch();
+    verify(insert, never()).executeUpdate();
+    verify(update).setString(1, "4");
+    verify(update).setString(2, "a");
+
+    // full batch of two, then the remainder when switching statements, then the update on commit
+    InOrder order = inOrder(insert, update, connection);
+    order.verify(insert, times(2)).executeBatch();
+    order.verify(update).executeBatch();
+    order.verify(connection).commit();
+  }
+
+  @Test
+  public void rollbackDiscardsPendingWrites() throws Exception {
+    try (JdbcDataSession session = underTest.openSession()) {
+      JdbcTransaction tx = session.openTransaction();
+      tx.begin();
+      session.access(TestEntityAccess.class).create(new TestEntity("a", "1"));
+      tx.rollback();
+    }
+
+    verify(statements.get(INSERT_SQL)).clearBatch();
+    verify(statements.get(INSERT_SQL), never()).executeBatch();
+    verify(connection).rollback();
+  }
+
+  @Test
+  public void browseStreamsRows() throws Exception {
+    PreparedStatement browse = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(connection.prepareStatement(BROWSE_SQL, TYPE_FORWARD_ONLY, CONCUR_READ_ONLY)).thenReturn(browse);
+    when(browse.executeQuery()).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true, true, false);
+    when(resultSet.getString(1)).thenReturn("a", "b");
+    when(resultSet.getString(2)).thenReturn("1", "2");
+
+    try (JdbcDataSession session = underTest.openSession()) {
+      Iterator<TestEntity> cursor = session.access(TestEntityAccess.class).browse().iterator();
+      verify(browse).setFetchSize(100);
+
+      assertThat(cursor.next().toString(), is("a=1"));
+      verify(browse, never()).close();
+
+      assertThat(Lists.newArrayList(cursor).toString(), is("[b=2]"));
+      verify(browse).close();
+    }
+  }
+
+  @Test
+  public void openCursorsAreClosedWithSession() throws Exception {
+    PreparedStatement browse = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(connection.prepareStatement(BROWSE_SQL, TYPE_FORWARD_ONLY, CONCUR_READ_ONLY)).thenReturn(browse);
+    when(browse.executeQuery()).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true);
+
+    try (JdbcDataSession session = underTest.openSession()) {
+      assertThat(session.access(TestEntityAccess.class).browse().iterator().hasNext(), is(true));
+    }
+
+    verify(browse).close();
+  }
+
+  @Test
+  public void readFlushesPendingWrites() throws Exception {
+    PreparedStatement select = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    statements.put("SELECT name, text FROM test_entity WHERE name = ?", select);
+    when(select.executeQuery()).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true);
+    when(resultSet.getString(1)).thenReturn("a");
+    when(resultSet.getString(2)).thenReturn("1");
+
+    try (JdbcDataSession session = underTest.openSession()) {
+      TestEntityAccess access = session.access(TestEntityAccess.class);
+      JdbcTransaction tx = session.openTransaction();
+      tx.begin();
+      access.create(new TestEntity("a", "1"));
+      assertThat(access.read("a").get().toString(), is("a=1"));
+
+      InOrder order = inOrder(statements.get(INSERT_SQL), select);
+      order.verify(statements.get(INSERT_SQL)).executeBatch();
+      order.verify(select).executeQuery();
+      tx.commit();
+    }
+  }
+
+  @Test
+  public void transientFailuresAreRetried() throws Exception {
+    try (JdbcDataSession session = underTest.openSession()) {
+      JdbcTransaction tx = session.openTransaction();
+      SQLException deadlock = new SQLTransientException("deadlock");
+      assertThat(tx.allowRetry(new JdbcDataAccessException("failed", deadlock)), is(true));
+      assertThat(tx.allowRetry(new JdbcDataAccessException("failed", new SQLException("syntax"))), is(false));
+    }
+  }
+
+  @Test
+  public void unregisteredAccessIsRejected() throws Exception {
+    underTest.unregister(TestEntityAccess.class);
+    try (JdbcDataSession session = underTest.openSession()) {
+      session.access(TestEntityAccess.class);
+      throw new AssertionError("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+      assertThat(e.getMessage().contains("is not registered"), is(true));
+    }
+    verify(connection, never()).prepareStatement(eq(INSERT_SQL));
+  }
+
+  /**
+   * Minimal driver handing out the mock connection.
+   */
+  public static class TestDriver
+      implements Driver
+  {
+    @Override
+    public Connection connect(final String url, final Properties info) {
+      if (!acceptsURL(url)) {
+        return null;
+      }
+      connectCount.incrementAndGet();
+      return currentConnection;
+    }
+
+    @Override
+    public boolean acceptsURL(final String url) {
+      return url.startsWith("jdbc:nexus-test:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+      return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+      return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+      return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+      return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+    }
+  }
+}
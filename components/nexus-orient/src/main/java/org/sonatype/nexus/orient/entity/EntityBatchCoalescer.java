@@ -0,0 +1,242 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.common.entity.EntityBatchEvent;
+import org.sonatype.nexus.common.entity.EntityEvent;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sonatype.nexus.common.event.EventHelper.asReplicating;
+import static org.sonatype.nexus.common.event.EventHelper.isReplicating;
+
+/**
+ * Coalesces consecutive {@link EntityBatchEvent}s from the same repository into larger batches, bounded by time
+ * and size, before they are posted.
+ *
+ * Batches are keyed by the repository part of the event affinity ({@code bucketId@name}) and each coalesced batch
+ * declares that key as its affinity, so batches for the same repository are posted and delivered in commit order.
+ * Note this makes the affinity of coalesced batches per-bucket rather than per-entity: batch deliveries for a busy
+ * repository are serialized, and they are no longer ordered against the individual entity events of the same entity.
+ *
+ * @since 3.next
+ */
+class EntityBatchCoalescer
+{
+  private static final Logger log = LoggerFactory.getLogger(EntityBatchCoalescer.class);
+
+  private final EventManager eventManager;
+
+  private final long windowMillis;
+
+  private final int maxBatchSize;
+
+  private final Map<List<String>, PendingBatch> pendingBatches = new ConcurrentHashMap<>();
+
+  private final AtomicInteger queuedEvents = new AtomicInteger();
+
+  private final ScheduledExecutorService scheduler;
+
+  private volatile boolean stopped;
+
+  @Nullable
+  private volatile Timer lagTimer;
+
+  @Nullable
+  private volatile Histogram batchSizes;
+
+  EntityBatchCoalescer(final EventManager eventManager, final Time window, final int maxBatchSize) {
+    checkArgument(window.toMillis() > 0, "Must use a positive coalescing window");
+    checkArgument(maxBatchSize > 0, "Must use a positive batch size");
+    this.eventManager = checkNotNull(eventManager);
+    this.windowMillis = window.toMillis();
+    this.maxBatchSize = maxBatchSize;
+
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+        new NexusThreadFactory("entity-batch", "entity-batch", Thread.NORM_PRIORITY, true));
+    executor.setRemoveOnCancelPolicy(true);
+    this.scheduler = executor;
+  }
+
+  /**
+   * Registers queue depth, lag and batch size metrics.
+   */
+  void registerMetrics(final MetricRegistry metricRegistry) {
+    String prefix = EntityBatchCoalescer.class.getName();
+    metricRegistry.register(name(prefix, "queued"), (Gauge<Integer>) queuedEvents::get);
+    lagTimer = metricRegistry.timer(name(prefix, "lag"));
+    batchSizes = metricRegistry.histogram(name(prefix, "batchSize"));
+  }
+
+  /**
+   * Queues the given batchable events for posting; they will be posted once the window closes or the batch is full.
+   */
+  void submit(final List<EntityEvent> events, @Nullable final String remoteNodeId) {
+    String key = coalescingKey(events.get(0).getAffinity());
+    pendingBatches.computeIfAbsent(Arrays.asList(key, remoteNodeId), k -> new PendingBatch(key, remoteNodeId))
+        .add(events);
+  }
+
+  /**
+   * Posts all pending batches immediately.
+   */
+  void flush() {
+    pendingBatches.values().forEach(PendingBatch::flush);
+  }
+
+  /**
+   * Posts all pending batches and stops the scheduler; batches submitted from now on are posted immediately.
+   */
+  void stop() {
+    stopped = true;
+    flush();
+    scheduler.shutdown();
+  }
+
+  /**
+   * Number of events waiting to be posted.
+   */
+  int getQueueSize() {
+    return queuedEvents.get();
+  }
+
+  /**
+   * Reduces affinities of the form {@code bucketId@name} to their bucket, other affinities are used as-is.
+   */
+  @Nullable
+  private static String coalescingKey(@Nullable final String affinity) {
+    if (affinity != null) {
+      int separator = affinity.indexOf('@');
+      if (separator > 0) {
+        return affinity.substring(0, separator);
+      }
+    }
+    return affinity;
+  }
+
+  private void post(final List<EntityEvent> events,
+                    @Nullable final String affinity,
+                    @Nullable final String remoteNodeId)
+  {
+    EntityBatchEvent batchEvent = new EntityBatchEvent(events, affinity);
+    if (remoteNodeId != null && !isReplicating()) {
+      // flushed outside of the original replication context, so restore it
+      asReplicating(() -> eventManager.post(batchEvent));
+    }
+    else {
+      eventManager.post(batchEvent);
+    }
+  }
+
+  /**
+   * Events waiting to be posted for a given affinity.
+   */
+  private class PendingBatch
+  {
+    @Nullable
+    private final String affinity;
+
+    @Nullable
+    private final String remoteNodeId;
+
+    private final List<EntityEvent> events = new ArrayList<>();
+
+    private long firstQueuedNanos;
+
+    private boolean flushScheduled;
+
+    PendingBatch(@Nullable final String affinity, @Nullable final String remoteNodeId) {
+      this.affinity = affinity;
+      this.remoteNodeId = remoteNodeId;
+    }
+
+    synchronized void add(final List<EntityEvent> newEvents) {
+      if (events.isEmpty()) {
+        firstQueuedNanos = System.nanoTime();
+      }
+      events.addAll(newEvents);
+      queuedEvents.addAndGet(newEvents.size());
+
+      if (events.size() >= maxBatchSize || stopped) {
+        flush();
+      }
+      else if (!flushScheduled) {
+        try {
+          scheduler.schedule(this::scheduledFlush, windowMillis, TimeUnit.MILLISECONDS);
+          flushScheduled = true;
+        }
+        catch (RejectedExecutionException e) { // NOSONAR
+          flush(); // stopped while we were adding
+        }
+      }
+    }
+
+    synchronized void scheduledFlush() {
+      flushScheduled = false;
+      flush();
+    }
+
+    /**
+     * Posts while holding the lock so that batches with the same affinity cannot overtake each other.
+     */
+    synchronized void flush() {
+      if (events.isEmpty()) {
+        return;
+      }
+
+      List<EntityEvent> batch = new ArrayList<>(events);
+      events.clear();
+      queuedEvents.addAndGet(-batch.size());
+
+      Timer timer = lagTimer;
+      if (timer != null) {
+        timer.update(System.nanoTime() - firstQueuedNanos, TimeUnit.NANOSECONDS);
+      }
+      Histogram histogram = batchSizes;
+      if (histogram != null) {
+        histogram.update(batch.size());
+      }
+
+      try {
+        post(batch, affinity, remoteNodeId);
+      }
+      catch (Throwable e) { // NOSONAR
+        log.error("Failed to post coalesced entity events", e);
+      }
+    }
+  }
+}
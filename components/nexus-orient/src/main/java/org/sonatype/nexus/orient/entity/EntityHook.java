@@ -25,6 +25,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.common.entity.EntityBatchEvent;
 import org.sonatype.nexus.common.entity.EntityBatchEvent.Batchable;
 import org.sonatype.nexus.common.entity.EntityEvent;
@@ -33,6 +34,7 @@ import org.sonatype.nexus.common.event.EventManager;
 import org.sonatype.nexus.orient.entity.EntityAdapter.EventKind;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
+import com.codahale.metrics.MetricRegistry;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.ODatabaseInternal;
@@ -56,7 +58,7 @@ import static java.util.Collections.synchronizedList;
 @Named
 @Singleton
 @SuppressWarnings("rawtypes")
-public final class EntityHook
+public class EntityHook
     extends DatabaseListenerSupport
 {
   private static final Logger log = LoggerFactory.getLogger(EntityHook.class);
@@ -75,9 +77,56 @@ public final class EntityHook
 
   private final EventManager eventManager;
 
-  @Inject
+  @Nullable
+  private final EntityBatchCoalescer batchCoalescer;
+
   public EntityHook(final EventManager eventManager) {
+    this(eventManager, Time.millis(0), 1000);
+  }
+
+  /**
+   * @param coalesceWindow how long to wait for further {@link EntityBatchEvent}s from the same bucket before
+   *                       posting them as one batch with a per-bucket affinity; zero disables coalescing
+   * @param coalesceSize   maximum number of entity events in a coalesced batch
+   *
+   * @since 3.next
+   */
+  @Inject
+  public EntityHook(final EventManager eventManager,
+                    @Named("${nexus.entity.batch.coalesceWindow:-0ms}") final Time coalesceWindow,
+                    @Named("${nexus.entity.batch.coalesceSize:-1000}") final int coalesceSize)
+  {
     this.eventManager = checkNotNull(eventManager);
+    if (coalesceWindow.toMillis() > 0) {
+      this.batchCoalescer = new EntityBatchCoalescer(eventManager, coalesceWindow, coalesceSize);
+    }
+    else {
+      this.batchCoalescer = null;
+    }
+  }
+
+  /**
+   * Exposes metrics about coalesced {@link EntityBatchEvent}s, when enabled.
+   *
+   * @since 3.next
+   */
+  @Inject
+  public void setMetricRegistry(final MetricRegistry metricRegistry) {
+    if (batchCoalescer != null) {
+      batchCoalescer.registerMetrics(metricRegistry);
+    }
+  }
+
+  /**
+   * Posts any {@link EntityBatchEvent}s still waiting to be coalesced and stops coalescing, so later batches are
+   * posted straight away. Called when the database server shuts down.
+   *
+   * @since 3.next
+   */
+  public void stop() {
+    if (batchCoalescer != null) {
+      batchCoalescer.stop();
+    }
   }
 
   /**
@@ -322,7 +371,12 @@ public final class EntityHook
     }
 
     if (!batchedEvents.isEmpty()) {
-      eventManager.post(new EntityBatchEvent(batchedEvents));
+      if (batchCoalescer != null) {
+        batchCoalescer.submit(batchedEvents, remoteNodeId);
+      }
+      else {
+        eventManager.post(new EntityBatchEvent(batchedEvents));
+      }
       db.activateOnCurrentThread();
     }
   }
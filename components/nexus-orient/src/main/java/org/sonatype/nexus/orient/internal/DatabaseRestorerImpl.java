@@ -12,14 +12,20 @@
  */
 package org.sonatype.nexus.orient.internal;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -28,16 +34,20 @@ import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.common.app.ApplicationDirectories;
 import org.sonatype.nexus.common.node.NodeAccess;
 import org.sonatype.nexus.orient.DatabaseRestorer;
+import org.sonatype.nexus.orient.restore.BackupDelta;
 import org.sonatype.nexus.orient.restore.RestoreFile;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 
+import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Restores orient databases from standard location "sonatype-work/nexus3/restore-from-backup".
  *
+ * Any incremental {@link BackupDelta}s found alongside the full backup are replayed over it before restoring.
+ *
  * @since 3.2
  */
 @Named
@@ -49,12 +59,15 @@ public class DatabaseRestorerImpl
 
   private static final String RESTORE_FROM_LOCATION = "restore-from-backup";
 
+  private final ApplicationDirectories applicationDirectories;
+
   private final File restoreFromLocation;
 
   private final NodeAccess nodeAccess;
 
   @Inject
   public DatabaseRestorerImpl(final ApplicationDirectories applicationDirectories, final NodeAccess nodeAccess) {
+    this.applicationDirectories = checkNotNull(applicationDirectories);
     this.restoreFromLocation = applicationDirectories.getWorkDirectory(RESTORE_FROM_LOCATION);
     this.nodeAccess = checkNotNull(nodeAccess);
   }
@@ -89,8 +102,16 @@ public class DatabaseRestorerImpl
     Path path = getRestorePath(databaseName);
 
     if (path != null) {
-      log.info("restoration of database {} from file {} starting", databaseName, path);
-      doRestore(path.toFile(), db, databaseName);
+      List<Path> deltas = getRestoreDeltas(databaseName, path);
+      if (deltas.isEmpty()) {
+        log.info("restoration of database {} from file {} starting", databaseName, path);
+        doRestore(path.toFile(), db, databaseName);
+      }
+      else {
+        log.info("restoration of database {} from file {} and {} incremental deltas starting", databaseName, path,
+            deltas.size());
+        doRestore(path.toFile(), deltas, db, databaseName);
+      }
       return true;
     }
 
@@ -123,6 +144,74 @@ public class DatabaseRestorerImpl
     return backupFiles.isEmpty() ? null : backupFiles.get(0);
   }
 
+  /**
+   * Deltas left over from an older full backup are skipped, since they cannot be replayed over this one.
+   *
+   * @param databaseName the name of the database
+   * @param backupFile   the full backup the deltas must apply to
+   * @return the {@link Path}s to any incremental backup deltas of the full backup, in the order they were taken
+   * @throws IOException if there was a problem listing or reading files from {@link #RESTORE_FROM_LOCATION}
+   * @since 3.next
+   */
+  protected List<Path> getRestoreDeltas(final String databaseName, final Path backupFile) throws IOException {
+    checkNotNull(databaseName);
+    checkNotNull(backupFile);
+
+    List<Path> candidates;
+    try (Stream<Path> paths = Files.list(restoreFromLocation.toPath())) {
+      candidates = paths
+          .filter(path -> isDeltaFileForDatabase(path, databaseName))
+          .sorted(comparing(path -> path.getFileName().toString())) // filenames start with sortable timestamps
+          .collect(toList());
+    }
+
+    String base = String.valueOf(backupFile.getFileName());
+    List<Path> deltas = new ArrayList<>();
+    for (Path delta : candidates) {
+      String deltaBase = BackupDelta.readBase(delta.toFile());
+      if (base.equals(deltaBase)) {
+        deltas.add(delta);
+      }
+      else {
+        log.warn("Ignoring backup delta {} which applies to {}, not {}", delta, deltaBase, base);
+      }
+    }
+    return deltas;
+  }
+
+  /**
+   * Replays the deltas over the full backup in a temporary file before restoring from that.
+   */
+  private void doRestore(final File file, final List<Path> deltas, final ODatabaseDocumentTx db,
+                         final String databaseName)
+  {
+    File tempDir = applicationDirectories.getTemporaryDirectory();
+    File patchedFile = null;
+    try {
+      patchedFile = File.createTempFile(databaseName + "-", ".bak", tempDir);
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(patchedFile))) {
+        BackupDelta.replay(file, deltas.stream().map(Path::toFile).collect(toList()), tempDir, out);
+      }
+    }
+    catch (Exception e) {
+      deleteQuietly(patchedFile);
+      throw new RuntimeException(String.format("database restore of %s from %s failed to apply deltas %s",
+          databaseName, file, deltas), e);
+    }
+    try {
+      doRestore(patchedFile, db, databaseName);
+    }
+    finally {
+      deleteQuietly(patchedFile);
+    }
+  }
+
+  private void deleteQuietly(@Nullable final File file) {
+    if (file != null && !file.delete() && file.exists()) {
+      log.warn("Unable to delete temporary restore file {}", file);
+    }
+  }
+
   private void doRestore(final File file, final ODatabaseDocumentTx db, final String databaseName) {
     try (InputStream inputStream = new FileInputStream(file)) {
       db.restore(inputStream, null, null, iText -> {
@@ -135,6 +224,20 @@ public class DatabaseRestorerImpl
     }
   }
 
+  private boolean isDeltaFileForDatabase(final Path path, final String databaseName) {
+    Path pathFile = path.getFileName();
+    if (pathFile != null) {
+      String filename = pathFile.toString();
+      return
+          Files.isRegularFile(path) &&
+          filename.startsWith(databaseName + '-') &&
+          filename.endsWith(RestoreFile.DELTA_EXTENSION);
+    }
+    else {
+      return false;
+    }
+  }
+
   private boolean isBackupFileForDatabase(final Path path, final String databaseName) {
     checkNotNull(path);
     checkNotNull(databaseName);
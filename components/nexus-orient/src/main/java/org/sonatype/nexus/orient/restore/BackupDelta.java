@@ -0,0 +1,639 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.restore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Incremental changes to the storage files of an OrientDB database since a previous backup.
+ *
+ * Storage files are compared in fixed size chunks against the {@link Manifest} of chunk hashes recorded by the
+ * previous backup, and only chunks that changed are written to the delta. Replaying each delta in order over the
+ * files of the base backup recreates the storage as it was when the last delta was taken.
+ *
+ * Storage must be frozen while it is being scanned so that its files are flushed and stable. To keep that short,
+ * a {@link #snapshot} can be taken while storage is frozen, which only copies files that changed since the previous
+ * backup; the delta is then {@link #write(Snapshot, Manifest, OutputStream) written} from the snapshot after storage
+ * is released.
+ *
+ * @since 3.next
+ */
+public final class BackupDelta
+{
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private static final int HASH_SIZE = 16;
+
+  /**
+   * Files modified this recently may be modified again without their timestamp changing, on file systems with
+   * coarse timestamps, so their timestamp is not trusted by the next backup.
+   */
+  private static final long TIMESTAMP_GRANULARITY_MILLIS = 2000L;
+
+  private static final HashFunction CHUNK_HASH = Hashing.murmur3_128();
+
+  /**
+   * Same files that OrientDB leaves out of its own backups.
+   */
+  private static final List<String> EXCLUDED_EXTENSIONS = ImmutableList.of(".fl", ".stt", ".lock");
+
+  private static final String HEADER_ENTRY = "delta.properties";
+
+  private static final String FILES_ENTRY = "files.properties";
+
+  private static final String CHUNKS_PREFIX = "chunks/";
+
+  private static final String BASE_KEY = "base";
+
+  private static final String SEQUENCE_KEY = "sequence";
+
+  private static final String CHECKPOINT_KEY = "checkpoint";
+
+  private BackupDelta() {
+    // empty
+  }
+
+  /**
+   * Scans the storage files, recording the chunk hashes of the given base backup.
+   */
+  public static Manifest scan(final File storageDir, final String base, @Nullable final String checkpoint)
+      throws IOException
+  {
+    Manifest manifest = new Manifest(base, 0, checkpoint);
+    for (File file : storageFiles(storageDir)) {
+      ByteArrayOutputStream hashes = new ByteArrayOutputStream();
+      long lastModified = trustedLastModified(file);
+      long length = forEachChunk(file, (index, buffer, size) -> hashes.write(hash(buffer, size)));
+      manifest.files.put(file.getName(), new FileHashes(length, lastModified, hashes.toByteArray()));
+    }
+    return manifest;
+  }
+
+  /**
+   * Writes the storage chunks that changed since the previous backup to the output stream.
+   *
+   * Storage must be frozen for the duration of this call; prefer {@link #snapshot} to keep that short.
+   *
+   * @return manifest of the storage files covered by this delta
+   */
+  public static Manifest write(final File storageDir,
+                               final Manifest previous,
+                               @Nullable final String checkpoint,
+                               final OutputStream out) throws IOException
+  {
+    try (Snapshot snapshot = snapshot(storageDir, previous, checkpoint, null)) {
+      return write(snapshot, previous, out);
+    }
+  }
+
+  /**
+   * Takes a snapshot of the storage files that changed since the previous backup, by their length and timestamp.
+   * Only this needs storage to be frozen, the delta can be {@link #write(Snapshot, Manifest, OutputStream) written}
+   * from the snapshot once storage is released.
+   *
+   * @param workDir where to copy the changed files; {@code null} to leave them in place
+   */
+  public static Snapshot snapshot(final File storageDir,
+                                  final Manifest previous,
+                                  @Nullable final String checkpoint,
+                                  @Nullable final File workDir) throws IOException
+  {
+    List<File> files = storageFiles(storageDir);
+    Snapshot snapshot = new Snapshot(checkpoint, workDir != null
+        ? Files.createTempDirectory(workDir.toPath(), "snapshot-") : null);
+    try {
+      // write-ahead-log hasn't moved since the last backup, so there's nothing to copy
+      boolean walUnchanged = checkpoint != null && checkpoint.equals(previous.checkpoint)
+          && sameLengths(files, previous);
+      for (File file : files) {
+        FileHashes hashes = previous.files.get(file.getName());
+        if (hashes != null && (walUnchanged || hashes.isUnchanged(file))) {
+          snapshot.files.put(file.getName(), new SnapshotFile(null, hashes.lastModified));
+        }
+        else {
+          long lastModified = trustedLastModified(file);
+          File source = file;
+          if (snapshot.dir != null) {
+            source = resolve(snapshot.dir, file.getName()).toFile();
+            Files.copy(file.toPath(), source.toPath());
+          }
+          snapshot.files.put(file.getName(), new SnapshotFile(source, lastModified));
+        }
+      }
+      return snapshot;
+    }
+    catch (IOException | RuntimeException e) {
+      snapshot.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Writes the storage chunks that changed since the previous backup, as captured by the snapshot, to the output
+   * stream.
+   *
+   * @return manifest of the storage files covered by this delta
+   */
+  public static Manifest write(final Snapshot snapshot, final Manifest previous, final OutputStream out)
+      throws IOException
+  {
+    Manifest next = new Manifest(previous.base, previous.sequence + 1, snapshot.checkpoint);
+    String checkpoint = snapshot.checkpoint;
+
+    ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out));
+    Properties header = new Properties();
+    header.setProperty(BASE_KEY, next.base);
+    header.setProperty(SEQUENCE_KEY, Integer.toString(next.sequence));
+    if (checkpoint != null) {
+      header.setProperty(CHECKPOINT_KEY, checkpoint);
+    }
+    zip.putNextEntry(new ZipEntry(HEADER_ENTRY));
+    header.store(zip, null);
+    zip.closeEntry();
+
+    for (Map.Entry<String, SnapshotFile> entry : snapshot.files.entrySet()) {
+      String name = entry.getKey();
+      SnapshotFile file = entry.getValue();
+      if (file.source == null) {
+        next.files.put(name, previous.files.get(name)); // unchanged since the previous backup
+      }
+      else {
+        next.files.put(name, writeChangedChunks(name, file.source, file.lastModified, previous.files.get(name), zip));
+      }
+    }
+
+    Properties lengths = new Properties();
+    next.files.forEach((name, hashes) -> lengths.setProperty(name, Long.toString(hashes.length)));
+    zip.putNextEntry(new ZipEntry(FILES_ENTRY));
+    lengths.store(zip, null);
+    zip.closeEntry();
+
+    zip.finish(); // caller owns the output stream
+    zip.flush();
+    return next;
+  }
+
+  /**
+   * Returns the name of the base backup that the given delta applies to.
+   */
+  public static String readBase(final File delta) throws IOException {
+    try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(delta)))) {
+      return readHeader(zip, delta).getProperty(BASE_KEY);
+    }
+  }
+
+  /**
+   * Replays the deltas (in sequence order) over the base backup, writing the patched backup to the output stream.
+   *
+   * @param workDir where to unpack the base backup while it is being patched
+   */
+  public static void replay(final File baseBackup,
+                            final List<File> deltas,
+                            final File workDir,
+                            final OutputStream out) throws IOException
+  {
+    Path storageDir = Files.createTempDirectory(workDir.toPath(), "restore-");
+    try {
+      unzip(baseBackup, storageDir);
+      int expectedSequence = 1;
+      for (File delta : deltas) {
+        apply(delta, baseBackup.getName(), expectedSequence++, storageDir);
+      }
+      zip(storageDir, out);
+    }
+    finally {
+      deleteRecursively(storageDir);
+    }
+  }
+
+  private static void apply(final File delta, final String base, final int expectedSequence, final Path storageDir)
+      throws IOException
+  {
+    try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(delta)))) {
+      Properties header = readHeader(zip, delta);
+      checkState(base.equals(header.getProperty(BASE_KEY)),
+          "Backup delta %s applies to %s, not %s", delta, header.getProperty(BASE_KEY), base);
+      checkState(Integer.toString(expectedSequence).equals(header.getProperty(SEQUENCE_KEY)),
+          "Backup delta %s is out of sequence, expected delta number %s", delta, expectedSequence);
+
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (entry.getName().startsWith(CHUNKS_PREFIX)) {
+          applyChunks(zip, resolve(storageDir, entry.getName().substring(CHUNKS_PREFIX.length())));
+        }
+        else if (FILES_ENTRY.equals(entry.getName())) {
+          Properties lengths = new Properties();
+          lengths.load(zip);
+          truncateFiles(storageDir, lengths);
+        }
+      }
+    }
+  }
+
+  private static Properties readHeader(final ZipInputStream zip, final File delta) throws IOException {
+    ZipEntry entry = zip.getNextEntry();
+    checkState(entry != null && HEADER_ENTRY.equals(entry.getName()), "%s is not a backup delta", delta);
+    Properties header = new Properties();
+    header.load(zip);
+    return header;
+  }
+
+  private static FileHashes writeChangedChunks(final String name,
+                                               final File file,
+                                               final long lastModified,
+                                               @Nullable final FileHashes previous,
+                                               final ZipOutputStream zip) throws IOException
+  {
+    ByteArrayOutputStream hashes = new ByteArrayOutputStream();
+    DataOutputStream[] chunks = new DataOutputStream[1];
+    long length = forEachChunk(file, (index, buffer, size) -> {
+      byte[] hash = hash(buffer, size);
+      hashes.write(hash);
+      if (previous == null || !previous.matches(index, hash)) {
+        if (chunks[0] == null) {
+          zip.putNextEntry(new ZipEntry(CHUNKS_PREFIX + name));
+          chunks[0] = new DataOutputStream(zip);
+        }
+        chunks[0].writeInt(index);
+        chunks[0].writeInt(size);
+        chunks[0].write(buffer, 0, size);
+      }
+    });
+    if (chunks[0] != null) {
+      chunks[0].writeInt(-1); // end of chunks
+      chunks[0].flush();
+      zip.closeEntry();
+    }
+    return new FileHashes(length, lastModified, hashes.toByteArray());
+  }
+
+  private static void applyChunks(final InputStream in, final Path file) throws IOException {
+    DataInputStream chunks = new DataInputStream(in);
+    byte[] buffer = new byte[CHUNK_SIZE];
+    try (RandomAccessFile target = new RandomAccessFile(file.toFile(), "rw")) {
+      int index;
+      while ((index = chunks.readInt()) >= 0) {
+        int size = chunks.readInt();
+        chunks.readFully(buffer, 0, size);
+        target.seek((long) index * CHUNK_SIZE);
+        target.write(buffer, 0, size);
+      }
+    }
+  }
+
+  private static void truncateFiles(final Path storageDir, final Properties lengths) throws IOException {
+    try (Stream<Path> paths = Files.list(storageDir)) {
+      for (Path path : paths.collect(toList())) {
+        String name = path.getFileName().toString();
+        if (!lengths.containsKey(name) && !isExcluded(name)) {
+          Files.delete(path); // storage file was removed after the base backup
+        }
+      }
+    }
+    for (String name : lengths.stringPropertyNames()) {
+      try (RandomAccessFile target = new RandomAccessFile(resolve(storageDir, name).toFile(), "rw")) {
+        target.setLength(Long.parseLong(lengths.getProperty(name)));
+      }
+    }
+  }
+
+  private static boolean sameLengths(final List<File> files, final Manifest previous) {
+    if (files.size() != previous.files.size()) {
+      return false;
+    }
+    for (File file : files) {
+      FileHashes hashes = previous.files.get(file.getName());
+      if (hashes == null || hashes.length != file.length()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<File> storageFiles(final File storageDir) throws IOException {
+    File[] files = storageDir.listFiles(file -> file.isFile() && !isExcluded(file.getName()));
+    if (files == null) {
+      throw new IOException("Unable to list storage files in " + storageDir);
+    }
+    Arrays.sort(files, Comparator.comparing(File::getName));
+    return Arrays.asList(files);
+  }
+
+  /**
+   * @return timestamp of the file, or {@code -1} if it was modified too recently to tell later changes apart
+   */
+  private static long trustedLastModified(final File file) {
+    long lastModified = file.lastModified();
+    return System.currentTimeMillis() - lastModified > TIMESTAMP_GRANULARITY_MILLIS ? lastModified : -1L;
+  }
+
+  private static boolean isExcluded(final String name) {
+    return EXCLUDED_EXTENSIONS.stream().anyMatch(name::endsWith);
+  }
+
+  private static byte[] hash(final byte[] buffer, final int size) {
+    return CHUNK_HASH.hashBytes(buffer, 0, size).asBytes();
+  }
+
+  private interface ChunkConsumer
+  {
+    void accept(int index, byte[] buffer, int size) throws IOException;
+  }
+
+  private static long forEachChunk(final File file, final ChunkConsumer consumer) throws IOException {
+    long length = 0;
+    byte[] buffer = new byte[CHUNK_SIZE];
+    try (InputStream in = new FileInputStream(file)) {
+      int index = 0;
+      int size;
+      while ((size = ByteStreams.read(in, buffer, 0, CHUNK_SIZE)) > 0) {
+        consumer.accept(index++, buffer, size);
+        length += size;
+      }
+    }
+    return length;
+  }
+
+  private static Path resolve(final Path storageDir, final String name) throws IOException {
+    Path path = storageDir.resolve(name).normalize();
+    if (!storageDir.equals(path.getParent())) {
+      throw new IOException("Unexpected storage file " + name);
+    }
+    return path;
+  }
+
+  private static void unzip(final File backup, final Path storageDir) throws IOException {
+    try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(backup)))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (!entry.isDirectory()) {
+          try (OutputStream out = new FileOutputStream(resolve(storageDir, entry.getName()).toFile())) {
+            ByteStreams.copy(zip, out);
+          }
+        }
+      }
+    }
+  }
+
+  private static void zip(final Path storageDir, final OutputStream out) throws IOException {
+    ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out));
+    zip.setLevel(Deflater.BEST_SPEED); // only used for the duration of the restore
+    try (Stream<Path> paths = Files.list(storageDir)) {
+      for (Path path : paths.sorted().collect(toList())) {
+        zip.putNextEntry(new ZipEntry(path.getFileName().toString()));
+        Files.copy(path, zip);
+        zip.closeEntry();
+      }
+    }
+    zip.finish(); // caller owns the output stream
+    zip.flush();
+  }
+
+  private static void deleteRecursively(final Path dir) throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(toList())) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  /**
+   * Storage files captured while storage was frozen.
+   */
+  public static class Snapshot
+      implements Closeable
+  {
+    @Nullable
+    private final String checkpoint;
+
+    @Nullable
+    private final Path dir;
+
+    private final Map<String, SnapshotFile> files = new LinkedHashMap<>();
+
+    private Snapshot(@Nullable final String checkpoint, @Nullable final Path dir) {
+      this.checkpoint = checkpoint;
+      this.dir = dir;
+    }
+
+    /**
+     * Removes any files copied for this snapshot.
+     */
+    @Override
+    public void close() throws IOException {
+      if (dir != null) {
+        deleteRecursively(dir);
+      }
+    }
+  }
+
+  /**
+   * Storage file in a snapshot.
+   */
+  private static class SnapshotFile
+  {
+    /**
+     * Where to read the file as it was when the snapshot was taken; {@code null} if it is unchanged since the
+     * previous backup.
+     */
+    @Nullable
+    final File source;
+
+    final long lastModified;
+
+    SnapshotFile(@Nullable final File source, final long lastModified) {
+      this.source = source;
+      this.lastModified = lastModified;
+    }
+  }
+
+  /**
+   * Chunk hashes of a storage file.
+   */
+  private static class FileHashes
+  {
+    final long length;
+
+    /**
+     * Timestamp of the file when it was hashed; {@code -1} if unknown.
+     */
+    final long lastModified;
+
+    final byte[] hashes;
+
+    FileHashes(final long length, final long lastModified, final byte[] hashes) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.hashes = hashes;
+    }
+
+    /**
+     * @return {@code true} if the file has the same length and timestamp as when it was hashed
+     */
+    boolean isUnchanged(final File file) {
+      return lastModified >= 0 && lastModified == file.lastModified() && length == file.length();
+    }
+
+    boolean matches(final int index, final byte[] hash) {
+      int offset = index * HASH_SIZE;
+      if (offset + HASH_SIZE > hashes.length) {
+        return false;
+      }
+      for (int i = 0; i < HASH_SIZE; i++) {
+        if (hashes[offset + i] != hash[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Chunk hashes of the storage files as of the last backup, along with the base backup and delta sequence.
+   */
+  public static class Manifest
+  {
+    private static final int FORMAT_VERSION = 2;
+
+    private final String base;
+
+    private final int sequence;
+
+    @Nullable
+    private final String checkpoint;
+
+    private final Map<String, FileHashes> files = new LinkedHashMap<>();
+
+    private Manifest(final String base, final int sequence, @Nullable final String checkpoint) {
+      this.base = checkNotNull(base);
+      this.sequence = sequence;
+      this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Name of the full backup that subsequent deltas apply to.
+     */
+    public String getBase() {
+      return base;
+    }
+
+    /**
+     * Number of deltas taken since the full backup.
+     */
+    public int getSequence() {
+      return sequence;
+    }
+
+    /**
+     * Position in the write-ahead-log when the last backup was taken.
+     */
+    @Nullable
+    public String getCheckpoint() {
+      return checkpoint;
+    }
+
+    public static Manifest read(final File manifestFile) throws IOException {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile)))) {
+        int version = in.readInt();
+        checkState(version == 1 || version == FORMAT_VERSION, "Unsupported backup manifest %s", manifestFile);
+        String base = in.readUTF();
+        int sequence = in.readInt();
+        String checkpoint = in.readBoolean() ? in.readUTF() : null;
+        Manifest manifest = new Manifest(base, sequence, checkpoint);
+        int fileCount = in.readInt();
+        for (int i = 0; i < fileCount; i++) {
+          String name = in.readUTF();
+          long length = in.readLong();
+          long lastModified = version > 1 ? in.readLong() : -1L;
+          byte[] hashes = new byte[in.readInt()];
+          in.readFully(hashes);
+          manifest.files.put(name, new FileHashes(length, lastModified, hashes));
+        }
+        return manifest;
+      }
+    }
+
+    /**
+     * Writes the manifest, replacing any previous manifest once it has been completely written.
+     */
+    public void write(final File manifestFile) throws IOException {
+      File tempFile = new File(manifestFile.getPath() + ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(base);
+        out.writeInt(sequence);
+        out.writeBoolean(checkpoint != null);
+        if (checkpoint != null) {
+          out.writeUTF(checkpoint);
+        }
+        out.writeInt(files.size());
+        for (Map.Entry<String, FileHashes> entry : files.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeLong(entry.getValue().length);
+          out.writeLong(entry.getValue().lastModified);
+          out.writeInt(entry.getValue().hashes.length);
+          out.write(entry.getValue().hashes);
+        }
+      }
+      Files.move(tempFile.toPath(), manifestFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+      return "{" +
+          "base=" + base +
+          ", sequence=" + sequence +
+          ", checkpoint=" + checkpoint +
+          ", files=" + files.size() +
+          "}";
+    }
+  }
+}
@@ -42,6 +42,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class RestoreFile
 {
+  /**
+   * @since 3.next
+   */
+  public static final String DELTA_EXTENSION = ".delta";
 
   private static final String TIMESTAMP_FORMAT = "%1$tY-%1$tm-%1$td-%1$tH-%1$tM-%1$tS";
 
@@ -80,10 +84,26 @@ public class RestoreFile
    * @return a string that represents the valid {@link Path#getFileName()}
    */
   public static String formatFilename(String databaseName, LocalDateTime timestamp, String version) {
+    return formatFilename(databaseName, timestamp, version, ".bak");
+  }
+
+  /**
+   * @param databaseName the name of the database (e.g. 'config')
+   * @param timestamp the timestamp
+   * @param version the nexus repository manager (e.g. '3.4.1')
+   * @return a string that represents the valid {@link Path#getFileName()} of a {@link BackupDelta}
+   *
+   * @since 3.next
+   */
+  public static String formatDeltaFilename(String databaseName, LocalDateTime timestamp, String version) {
+    return formatFilename(databaseName, timestamp, version, DELTA_EXTENSION);
+  }
+
+  private static String formatFilename(String databaseName, LocalDateTime timestamp, String version, String extension) {
     return new StringBuilder()
         .append(databaseName).append("-")
         .append(String.format(TIMESTAMP_FORMAT, timestamp)).append("-")
-        .append(version.replace("-SNAPSHOT", "")).append(".bak")
+        .append(version.replace("-SNAPSHOT", "")).append(extension)
         .toString();
   }
 
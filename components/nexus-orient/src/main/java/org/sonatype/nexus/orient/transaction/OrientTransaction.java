@@ -12,11 +12,15 @@
  */
 package org.sonatype.nexus.orient.transaction;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.transaction.RetryController;
 import org.sonatype.nexus.transaction.Transaction;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OConcurrentModificationException;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
 import com.orientechnologies.orient.core.tx.OTransaction;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -92,7 +96,7 @@ public class OrientTransaction
 
   @Override
   public boolean allowRetry(final Exception cause) {
-    if (RetryController.INSTANCE.allowRetry(retries, cause)) {
+    if (RetryController.INSTANCE.allowRetry(retries, cause, conflictKey(db, cause))) {
       retries++;
       return true;
     }
@@ -100,4 +104,25 @@ public class OrientTransaction
       return false;
     }
   }
+
+  /**
+   * Identifies the record contended in the given retry cause, so conflicts on the same record can be tracked.
+   *
+   * @return key of the contended record; {@code null} if the cause isn't a record conflict
+   *
+   * @since 3.next
+   */
+  @Nullable
+  public static String conflictKey(final ODatabaseDocumentTx db, final Throwable cause) {
+    for (Throwable t = cause; t != null; t = t.getCause()) {
+      if (t instanceof OConcurrentModificationException) {
+        return db.getName() + ((OConcurrentModificationException) t).getRid();
+      }
+      if (t instanceof ORecordDuplicatedException) {
+        ORecordDuplicatedException e = (ORecordDuplicatedException) t;
+        return db.getName() + ":" + e.getIndexName() + e.getRid();
+      }
+    }
+    return null;
+  }
 }
@@ -0,0 +1,152 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.entity;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.entity.EntityBatchEvent;
+import org.sonatype.nexus.common.entity.EntityEvent;
+import org.sonatype.nexus.common.entity.EntityMetadata;
+import org.sonatype.nexus.common.entity.EntityUpdatedEvent;
+import org.sonatype.nexus.common.event.EventHelper;
+import org.sonatype.nexus.common.event.EventManager;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class EntityBatchCoalescerTest
+    extends TestSupport
+{
+  @Mock
+  private EventManager eventManager;
+
+  private final List<EntityBatchEvent> posted = new CopyOnWriteArrayList<>();
+
+  private final List<Boolean> postedAsReplicating = new CopyOnWriteArrayList<>();
+
+  private EntityBatchCoalescer underTest;
+
+  @Before
+  public void setUp() {
+    doAnswer(invocation -> {
+      posted.add((EntityBatchEvent) invocation.getArguments()[0]);
+      postedAsReplicating.add(EventHelper.isReplicating());
+      return null;
+    }).when(eventManager).post(any());
+
+    underTest = new EntityBatchCoalescer(eventManager, Time.hours(1), 3);
+    underTest.registerMetrics(new MetricRegistry());
+  }
+
+  @Test
+  public void batchesFromSameRepositoryAreMergedInOrder() {
+    EntityEvent first = event("#1:0@foo");
+    EntityEvent second = event("#1:0@bar");
+    EntityEvent third = event("#2:0@foo");
+
+    underTest.submit(singletonList(first), null);
+    underTest.submit(singletonList(second), null);
+    underTest.submit(singletonList(third), null);
+
+    assertThat(posted, hasSize(0));
+    assertThat(underTest.getQueueSize(), is(3));
+
+    underTest.flush();
+
+    assertThat(posted, hasSize(2));
+    assertThat(postedFor("#1:0").getEvents(), contains(first, second));
+    assertThat(postedFor("#2:0").getEvents(), contains(third));
+    assertThat(underTest.getQueueSize(), is(0));
+  }
+
+  @Test
+  public void fullBatchIsPostedImmediately() {
+    EntityEvent first = event("#1:0@foo");
+    EntityEvent second = event("#1:0@bar");
+    EntityEvent third = event("#1:0@baz");
+
+    underTest.submit(asList(first, second), null);
+    assertThat(posted, hasSize(0));
+
+    underTest.submit(singletonList(third), null);
+    assertThat(posted, hasSize(1));
+    assertThat(posted.get(0).getEvents(), contains(first, second, third));
+  }
+
+  @Test
+  public void batchIsPostedWhenWindowCloses() {
+    underTest = new EntityBatchCoalescer(eventManager, Time.millis(10), 100);
+
+    underTest.submit(singletonList(event("#1:0@foo")), null);
+
+    await().until(() -> posted.size() == 1);
+  }
+
+  @Test
+  public void remoteBatchesArePostedAsReplicating() {
+    underTest.submit(singletonList(event("#1:0@foo")), "REMOTE-NODE");
+    underTest.submit(singletonList(event("#1:0@bar")), null);
+
+    underTest.flush();
+
+    assertThat(posted, hasSize(2));
+    assertThat(postedAsReplicating, containsInAnyOrder(true, false));
+  }
+
+  @Test
+  public void stoppingPostsPendingBatchesAndStopsCoalescing() {
+    EntityEvent first = event("#1:0@foo");
+    EntityEvent second = event("#1:0@bar");
+
+    underTest.submit(singletonList(first), null);
+    assertThat(posted, hasSize(0));
+
+    underTest.stop();
+
+    assertThat(posted, hasSize(1));
+    assertThat(posted.get(0).getEvents(), contains(first));
+
+    underTest.submit(singletonList(second), null);
+
+    assertThat(posted, hasSize(2));
+    assertThat(posted.get(1).getEvents(), contains(second));
+    assertThat(underTest.getQueueSize(), is(0));
+  }
+
+  private EntityBatchEvent postedFor(final String affinity) {
+    return posted.stream().filter(batch -> affinity.equals(batch.getAffinity())).findFirst().orElse(null);
+  }
+
+  private static EntityEvent event(final String affinity) {
+    EntityEvent event = new EntityUpdatedEvent(mock(EntityMetadata.class));
+    event.setAffinity(affinity);
+    return event;
+  }
+}
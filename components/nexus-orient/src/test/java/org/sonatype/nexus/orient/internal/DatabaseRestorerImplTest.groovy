@@ -12,6 +12,9 @@
  */
 package org.sonatype.nexus.orient.internal
 
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
 import org.sonatype.nexus.common.app.ApplicationDirectories
 import org.sonatype.nexus.common.node.NodeAccess
 
@@ -93,6 +96,20 @@ class DatabaseRestorerImplTest
       0 * db.restore(*_)
   }
 
+  def 'restore ignores leftover deltas of an older full backup'() {
+    when: 'a backup directory exists with a full backup and a delta taken against an older full backup'
+      def backupDir = new File(workdir, 'restore-from-backup')
+      backupDir.mkdir()
+      new File(backupDir, 'config-2016-11-23-09-20-40.bak') << 'backupdata'
+      writeDelta(new File(backupDir, 'config-2016-11-22-09-30-00.delta'), 'config-2016-11-22-09-20-40.bak')
+
+      def didBackup = databaseRestorer.maybeRestoreDatabase(db, 'config')
+
+    then: 'the full backup is restored without replaying the stale delta'
+      didBackup == true
+      1 * db.restore(*_)
+  }
+
   def 'restore is skipped when joining existing cluster even if backup exists'() {
     when: 'a backup directory exists'
       def backupDir = new File(workdir, 'restore-from-backup')
@@ -108,4 +125,19 @@ class DatabaseRestorerImplTest
       didBackup == false
       0 * db.restore(*_)
   }
+
+  private static void writeDelta(final File file, final String base) {
+    file.withOutputStream { out ->
+      new ZipOutputStream(out).with { zip ->
+        zip.putNextEntry(new ZipEntry('delta.properties'))
+        new Properties().with {
+          setProperty('base', base)
+          setProperty('sequence', '1')
+          store(zip, null)
+        }
+        zip.closeEntry()
+        zip.finish()
+      }
+    }
+  }
 }
@@ -0,0 +1,264 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.restore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.orient.restore.BackupDelta.Manifest;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Tests for {@link BackupDelta}.
+ */
+public class BackupDeltaTest
+    extends TestSupport
+{
+  private static final int MB = 1024 * 1024;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final Random random = new Random(42);
+
+  private File storageDir;
+
+  private File backupDir;
+
+  @Before
+  public void setUp() throws Exception {
+    storageDir = tempFolder.newFolder("storage");
+    backupDir = tempFolder.newFolder("backup");
+
+    writeFile("asset.pcl", randomBytes(4 * MB));
+    writeFile("component.pcl", randomBytes(MB));
+    writeFile("obsolete.cpm", randomBytes(1000));
+    writeFile("dirty.fl", new byte[]{1}); // excluded from backups, like OrientDB does
+  }
+
+  @Test
+  public void replayingDeltasRecreatesStorage() throws Exception {
+    File base = fullBackup("component-base.bak");
+    Manifest manifest = BackupDelta.scan(storageDir, base.getName(), "1:100");
+
+    // change a single chunk in the middle, grow one file and remove another
+    try (RandomAccessFile file = new RandomAccessFile(new File(storageDir, "asset.pcl"), "rw")) {
+      file.seek(2 * MB + 10);
+      file.write(randomBytes(100));
+    }
+    try (RandomAccessFile file = new RandomAccessFile(new File(storageDir, "component.pcl"), "rw")) {
+      file.seek(file.length());
+      file.write(randomBytes(5000));
+    }
+    Files.delete(new File(storageDir, "obsolete.cpm").toPath());
+    writeFile("added.sbc", randomBytes(300));
+
+    File firstDelta = new File(backupDir, "component-1.delta");
+    manifest = writeDelta(manifest, "1:200", firstDelta);
+    assertThat(manifest.getSequence(), is(1));
+    assertThat(firstDelta.length(), lessThan(256L * 1024));
+
+    // shrink a file for the second delta
+    try (RandomAccessFile file = new RandomAccessFile(new File(storageDir, "component.pcl"), "rw")) {
+      file.setLength(MB / 2);
+    }
+    File secondDelta = new File(backupDir, "component-2.delta");
+    manifest = writeDelta(manifest, "1:300", secondDelta);
+    assertThat(manifest.getSequence(), is(2));
+    assertThat(BackupDelta.readBase(secondDelta), is(base.getName()));
+
+    ByteArrayOutputStream patched = new ByteArrayOutputStream();
+    BackupDelta.replay(base, Arrays.asList(firstDelta, secondDelta), tempFolder.newFolder("work"), patched);
+
+    Map<String, byte[]> expected = storageContents();
+    expected.put("dirty.fl", new byte[]{1}); // carried over from base backup
+    assertSameContents(unzip(patched.toByteArray()), expected);
+  }
+
+  @Test
+  public void unchangedStorageIsNotScannedAgain() throws Exception {
+    File base = fullBackup("component-base.bak");
+    Manifest manifest = BackupDelta.scan(storageDir, base.getName(), "1:100");
+
+    File delta = new File(backupDir, "component-1.delta");
+    manifest = writeDelta(manifest, "1:100", delta);
+    assertThat(manifest.getSequence(), is(1));
+    assertThat(delta.length(), lessThan(1024L));
+
+    ByteArrayOutputStream patched = new ByteArrayOutputStream();
+    BackupDelta.replay(base, singletonList(delta), tempFolder.newFolder("work"), patched);
+
+    Map<String, byte[]> expected = storageContents();
+    expected.put("dirty.fl", new byte[]{1});
+    assertSameContents(unzip(patched.toByteArray()), expected);
+  }
+
+  @Test
+  public void manifestCanBeReadBack() throws Exception {
+    Manifest manifest = BackupDelta.scan(storageDir, "component-base.bak", "1:100");
+    File manifestFile = new File(backupDir, "component.manifest");
+    manifest.write(manifestFile);
+
+    Manifest readBack = Manifest.read(manifestFile);
+    assertThat(readBack.getBase(), is("component-base.bak"));
+    assertThat(readBack.getSequence(), is(0));
+    assertThat(readBack.getCheckpoint(), is("1:100"));
+
+    // nothing changed, so the delta written against the read manifest should be empty
+    File delta = new File(backupDir, "component-1.delta");
+    writeDelta(readBack, "1:150", delta);
+    assertThat(delta.length(), lessThan(1024L));
+  }
+
+  @Test
+  public void snapshotOnlyCopiesChangedFilesAndIsUnaffectedByLaterWrites() throws Exception {
+    File base = fullBackup("component-base.bak");
+    long longAgo = System.currentTimeMillis() - 3_600_000L;
+    for (File file : storageDir.listFiles()) {
+      assertThat(file.setLastModified(longAgo), is(true));
+    }
+    Manifest manifest = BackupDelta.scan(storageDir, base.getName(), "1:100");
+
+    try (RandomAccessFile file = new RandomAccessFile(new File(storageDir, "asset.pcl"), "rw")) {
+      file.seek(MB + 10);
+      file.write(randomBytes(100));
+    }
+
+    File workDir = tempFolder.newFolder("work");
+    File delta = new File(backupDir, "component-1.delta");
+    Map<String, byte[]> expected;
+    try (BackupDelta.Snapshot snapshot = BackupDelta.snapshot(storageDir, manifest, "1:200", workDir)) {
+      expected = storageContents();
+
+      File[] snapshotDirs = workDir.listFiles();
+      assertThat(snapshotDirs.length, is(1));
+      assertThat(snapshotDirs[0].list(), arrayContaining("asset.pcl"));
+
+      // storage is released once the snapshot is taken, so later writes must not end up in the delta
+      try (RandomAccessFile file = new RandomAccessFile(new File(storageDir, "asset.pcl"), "rw")) {
+        file.seek(3 * MB);
+        file.write(randomBytes(100));
+      }
+
+      try (OutputStream out = new FileOutputStream(delta)) {
+        manifest = BackupDelta.write(snapshot, manifest, out);
+      }
+    }
+    assertThat(manifest.getSequence(), is(1));
+    assertThat(workDir.list(), emptyArray());
+
+    ByteArrayOutputStream patched = new ByteArrayOutputStream();
+    BackupDelta.replay(base, singletonList(delta), tempFolder.newFolder("replay"), patched);
+
+    expected.put("dirty.fl", new byte[]{1});
+    assertSameContents(unzip(patched.toByteArray()), expected);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void deltasMustBeReplayedInSequence() throws Exception {
+    File base = fullBackup("component-base.bak");
+    Manifest manifest = BackupDelta.scan(storageDir, base.getName(), "1:100");
+
+    File firstDelta = new File(backupDir, "component-1.delta");
+    manifest = writeDelta(manifest, "1:200", firstDelta);
+    File secondDelta = new File(backupDir, "component-2.delta");
+    writeDelta(manifest, "1:300", secondDelta);
+
+    BackupDelta.replay(base, singletonList(secondDelta), tempFolder.newFolder("work"), new ByteArrayOutputStream());
+  }
+
+  private Manifest writeDelta(final Manifest previous, final String checkpoint, final File deltaFile)
+      throws IOException
+  {
+    try (OutputStream out = new FileOutputStream(deltaFile)) {
+      return BackupDelta.write(storageDir, previous, checkpoint, out);
+    }
+  }
+
+  /**
+   * Mimics OrientDB's backup format: a flat zip of the storage directory.
+   */
+  private File fullBackup(final String name) throws IOException {
+    File backup = new File(backupDir, name);
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(backup))) {
+      for (File file : storageDir.listFiles()) {
+        zip.putNextEntry(new ZipEntry(file.getName()));
+        Files.copy(file.toPath(), zip);
+        zip.closeEntry();
+      }
+    }
+    return backup;
+  }
+
+  private Map<String, byte[]> storageContents() throws IOException {
+    Map<String, byte[]> contents = new TreeMap<>();
+    for (File file : storageDir.listFiles()) {
+      if (!file.getName().endsWith(".fl")) {
+        contents.put(file.getName(), Files.readAllBytes(file.toPath()));
+      }
+    }
+    return contents;
+  }
+
+  private static Map<String, byte[]> unzip(final byte[] backup) throws IOException {
+    Map<String, byte[]> contents = new TreeMap<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(backup))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        contents.put(entry.getName(), ByteStreams.toByteArray(zip));
+      }
+    }
+    return contents;
+  }
+
+  private static void assertSameContents(final Map<String, byte[]> actual, final Map<String, byte[]> expected) {
+    assertThat(actual.keySet(), is(expected.keySet()));
+    expected.forEach((name, bytes) -> assertThat(name, Arrays.equals(actual.get(name), bytes), is(true)));
+  }
+
+  private void writeFile(final String name, final byte[] bytes) throws IOException {
+    Files.write(new File(storageDir, name).toPath(), bytes);
+  }
+
+  private byte[] randomBytes(final int size) {
+    byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+}
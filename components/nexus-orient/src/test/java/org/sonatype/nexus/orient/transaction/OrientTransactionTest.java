@@ -0,0 +1,65 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.transaction;
+
+import java.io.IOException;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OConcurrentModificationException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.orient.transaction.OrientTransaction.conflictKey;
+
+/**
+ * Tests for {@link OrientTransaction}.
+ */
+public class OrientTransactionTest
+    extends TestSupport
+{
+  @Mock
+  private ODatabaseDocumentTx db;
+
+  @Before
+  public void setUp() {
+    when(db.getName()).thenReturn("component");
+  }
+
+  @Test
+  public void conflictKeyIdentifiesContendedRecord() {
+    OConcurrentModificationException conflict = new OConcurrentModificationException(new ORecordId(12, 34), 2, 1, 0);
+    assertThat(conflictKey(db, conflict), is("component#12:34"));
+    assertThat(conflictKey(db, new RuntimeException(conflict)), is("component#12:34"));
+  }
+
+  @Test
+  public void conflictKeyIdentifiesDuplicatedIndexEntry() {
+    ORecordDuplicatedException duplicate = new ORecordDuplicatedException("duplicate", "asset_bucket_name_idx",
+        new ORecordId(5, 6));
+    assertThat(conflictKey(db, duplicate), is("component:asset_bucket_name_idx#5:6"));
+  }
+
+  @Test
+  public void conflictKeyIsNullForOtherFailures() {
+    assertThat(conflictKey(db, new IOException()), nullValue());
+  }
+}
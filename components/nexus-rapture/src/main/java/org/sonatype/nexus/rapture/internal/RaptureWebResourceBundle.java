@@ -38,8 +38,10 @@ import org.sonatype.nexus.servlet.ServletHelper;
 import org.sonatype.nexus.webresources.GeneratedWebResource;
 import org.sonatype.nexus.webresources.WebResource;
 import org.sonatype.nexus.webresources.WebResourceBundle;
+import org.sonatype.nexus.webresources.WebResourceService;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
@@ -79,13 +81,16 @@ public class RaptureWebResourceBundle
 
   private final ReactFrontendConfiguration reactFrontendConfiguration;
 
+  private final Provider<WebResourceService> webResourceServiceProvider;
+
   @Inject
   public RaptureWebResourceBundle(final ApplicationVersion applicationVersion,
                                   final Provider<HttpServletRequest> servletRequestProvider,
                                   final Provider<StateComponent> stateComponentProvider,
                                   final TemplateHelper templateHelper,
                                   final List<UiPluginDescriptor> pluginDescriptors,
-                                  final ReactFrontendConfiguration reactFrontendConfiguration)
+                                  final ReactFrontendConfiguration reactFrontendConfiguration,
+                                  final Provider<WebResourceService> webResourceServiceProvider)
   {
     this.applicationVersion = checkNotNull(applicationVersion);
     this.servletRequestProvider = checkNotNull(servletRequestProvider);
@@ -93,6 +98,7 @@ public class RaptureWebResourceBundle
     this.templateHelper = checkNotNull(templateHelper);
     this.pluginDescriptors = checkNotNull(pluginDescriptors);
     this.reactFrontendConfiguration = checkNotNull(reactFrontendConfiguration);
+    this.webResourceServiceProvider = checkNotNull(webResourceServiceProvider);
 
     log.info("UI plugin descriptors:");
     for (UiPluginDescriptor descriptor : pluginDescriptors) {
@@ -157,12 +163,15 @@ public class RaptureWebResourceBundle
 
       @Override
       protected byte[] generate() throws IOException {
+        List<URI> styles = getStyles();
+        List<URI> scripts = getScripts();
         return render("index.vm", new TemplateParameters()
                 .set("baseUrl", BaseUrlHolder.get())
                 .set("debug", isDebug())
                 .set("urlSuffix", generateUrlSuffix())
-                .set("styles", getStyles())
-                .set("scripts", getScripts())
+                .set("styles", styles)
+                .set("scripts", scripts)
+                .set("fingerprints", getFingerprints(Iterables.concat(styles, scripts)))
                 .set("util", new TemplateUtil())
         );
       }
@@ -311,6 +320,25 @@ public class RaptureWebResourceBundle
     }
   }
 
+  /**
+   * Determine the content-hash fingerprints of the given static resources, keyed by their URI.
+   *
+   * Resources which are generated on each request have no fingerprint.
+   */
+  private Map<String, String> getFingerprints(final Iterable<URI> uris) {
+    String prefix = uri("").toString();
+    WebResourceService webResourceService = webResourceServiceProvider.get();
+    Map<String, String> fingerprints = Maps.newHashMap();
+    for (URI uri : uris) {
+      String path = "/static/rapture/" + uri.toString().substring(prefix.length());
+      String fingerprint = webResourceService.getFingerprint(path);
+      if (fingerprint != null) {
+        fingerprints.put(uri.toString(), fingerprint);
+      }
+    }
+    return fingerprints;
+  }
+
   /**
    * Generate the list of CSS styles to include in the index.html.
    */
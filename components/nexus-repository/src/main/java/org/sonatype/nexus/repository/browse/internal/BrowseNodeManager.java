@@ -12,14 +12,19 @@
  */
 package org.sonatype.nexus.repository.browse.internal;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.entity.EntityHelper;
 import org.sonatype.nexus.common.entity.EntityId;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.browse.BrowseNodeGenerator;
@@ -29,7 +34,15 @@ import org.sonatype.nexus.repository.storage.BrowseNodeStore;
 import org.sonatype.nexus.repository.storage.Component;
 import org.sonatype.nexus.repository.storage.ComponentStore;
 
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Collections.emptyMap;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static java.util.stream.StreamSupport.stream;
 
 /**
  * Manages format specific behaviour for browse nodes
@@ -91,8 +104,69 @@ public class BrowseNodeManager
     checkNotNull(assets);
 
     String repositoryName = repository.getName();
-    BrowseNodeGenerator generator = pathGenerators.getOrDefault(repository.getFormat().getValue(), defaultGenerator);
-    assets.forEach(asset -> createBrowseNodes(repositoryName, repository.getFormat().getValue(), generator, asset));
+    String format = repository.getFormat().getValue();
+    BrowseNodeGenerator generator = pathGenerators.getOrDefault(format, defaultGenerator);
+
+    Map<EntityId, Component> components = prefetchComponents(assets);
+
+    Map<Asset, List<BrowsePaths>> assetPaths = new LinkedHashMap<>();
+    SetMultimap<Component, List<BrowsePaths>> componentPaths = LinkedHashMultimap.create();
+    for (Asset asset : assets) {
+      try {
+        Component component = asset.componentId() != null ? components.get(asset.componentId()) : null;
+        computeBrowsePaths(generator, asset, component, assetPaths, componentPaths);
+      }
+      catch (RuntimeException e) {
+        log.warn("Problem generating browse nodes for {}", asset, e);
+      }
+    }
+
+    try {
+      browseNodeStore.createNodes(repositoryName, format, assetPaths, componentPaths);
+    }
+    catch (RuntimeException e) {
+      log.debug("Problem creating batch of browse nodes for {}, retrying one asset at a time", repositoryName, e);
+      assets.forEach(asset -> createBrowseNodes(repositoryName, format, generator, asset));
+    }
+  }
+
+  /**
+   * Loads the components of all the given assets using a single query.
+   */
+  private Map<EntityId, Component> prefetchComponents(final Iterable<Asset> assets) {
+    Set<EntityId> componentIds = stream(assets.spliterator(), false)
+        .map(Asset::componentId)
+        .filter(Objects::nonNull)
+        .collect(toSet());
+
+    if (componentIds.isEmpty()) {
+      return emptyMap();
+    }
+
+    return componentStore.readAll(componentIds).stream()
+        .collect(toMap(EntityHelper::id, identity(), (first, second) -> first));
+  }
+
+  /**
+   * Computes the asset and component paths for an asset; component paths shared by several assets are only kept once.
+   */
+  private void computeBrowsePaths(final BrowseNodeGenerator generator,
+                                  final Asset asset,
+                                  @Nullable final Component component,
+                                  final Map<Asset, List<BrowsePaths>> assetPaths,
+                                  final SetMultimap<Component, List<BrowsePaths>> componentPaths)
+  {
+    List<BrowsePaths> paths = generator.computeAssetPaths(asset, component);
+    if (!paths.isEmpty()) {
+      assetPaths.put(asset, paths);
+    }
+
+    if (component != null) {
+      paths = generator.computeComponentPaths(asset, component);
+      if (!paths.isEmpty()) {
+        componentPaths.put(component, paths);
+      }
+    }
   }
 
   /**
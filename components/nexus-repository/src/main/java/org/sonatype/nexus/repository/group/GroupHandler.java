@@ -12,11 +12,19 @@
  */
 package org.sonatype.nexus.repository.group;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
@@ -30,8 +38,11 @@ import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.ViewFacet;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 
 import static java.util.Collections.unmodifiableSet;
 import static org.sonatype.nexus.repository.http.HttpMethods.GET;
@@ -52,11 +63,13 @@ public class GroupHandler
 
   /**
    * Request-context state container for set of repositories already dispatched to.
+   *
+   * Safe to share between threads, for handlers that dispatch to members concurrently.
    */
   @VisibleForTesting
   public static class DispatchedRepositories
   {
-    private final Set<String> dispatched = Sets.newLinkedHashSet();
+    private final Set<String> dispatched = Collections.synchronizedSet(Sets.newLinkedHashSet());
 
     public void add(final Repository repository) {
       dispatched.add(repository.getName());
@@ -186,6 +199,52 @@ public class GroupHandler
     return responses;
   }
 
+  /**
+   * Like {@link #getAll(Context, Iterable, DispatchedRepositories)}, but dispatches to the members concurrently using
+   * the given executor, under the caller's security subject. Members are claimed as dispatched up-front, responses are
+   * returned in group member order. Falls back to dispatching serially when no executor is given.
+   *
+   * @since 3.next
+   */
+  protected LinkedHashMap<Repository, Response> getAll(@Nonnull final Context context,
+                                                       @Nonnull final Iterable<Repository> members,
+                                                       @Nonnull final DispatchedRepositories dispatched,
+                                                       @Nullable final ExecutorService executor)
+      throws Exception
+  {
+    if (executor == null) {
+      return getAll(context, members, dispatched);
+    }
+
+    final Request request = context.getRequest();
+    final Map<Repository, Future<Response>> futures = new LinkedHashMap<>();
+    for (Repository member : members) {
+      // track repositories we have dispatched to, prevent circular dispatch for nested groups
+      if (dispatched.contains(member)) {
+        log.trace("Skipping already dispatched member: {}", member);
+        continue;
+      }
+      dispatched.add(member);
+
+      Callable<Response> dispatch = () -> member.facet(ViewFacet.class).dispatch(request, context);
+      Subject subject = ThreadContext.getSubject();
+      futures.put(member, executor.submit(subject != null ? subject.associateWith(dispatch) : dispatch));
+    }
+
+    final LinkedHashMap<Repository, Response> responses = Maps.newLinkedHashMap();
+    for (Entry<Repository, Future<Response>> entry : futures.entrySet()) {
+      try {
+        Response response = entry.getValue().get();
+        log.trace("Member {} response {}", entry.getKey(), response.getStatus());
+        responses.put(entry.getKey(), response);
+      }
+      catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), Exception.class);
+        throw e;
+      }
+    }
+    return responses;
+  }
 
   /**
    * Returns standard 404 with no message. Override for format specific messaging.
@@ -0,0 +1,48 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group;
+
+import java.util.Set;
+
+/**
+ * Index of the merged assets cached by group repositories, so a change to a member asset only invalidates the group
+ * assets that were derived from it, including those of groups containing the member through nested groups.
+ *
+ * Merged assets are expected to have the same name in the group as in its members. The index is held in memory and
+ * bounded, so groups should treat merged content that it no longer tracks as stale and merge it again.
+ *
+ * @since 3.next
+ */
+public interface GroupMergedAssetIndex
+{
+  /**
+   * Records that the group has cached merged content for the named asset.
+   */
+  void recordMergedAsset(String groupName, String assetName);
+
+  /**
+   * Forgets merged content cached by the group for the named asset, for example once it has been deleted.
+   */
+  void removeMergedAsset(String groupName, String assetName);
+
+  /**
+   * Returns whether the index still tracks merged content cached by the group for the named asset.
+   */
+  boolean isMergedAsset(String groupName, String assetName);
+
+  /**
+   * Returns the groups containing the repository, directly or transitively, that cached merged content for the named
+   * asset.
+   */
+  Set<String> findMergedGroups(String repositoryName, String assetName);
+}
@@ -18,25 +18,35 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.common.event.EventAware;
 import org.sonatype.nexus.repository.group.GroupFacet;
+import org.sonatype.nexus.repository.group.GroupMergedAssetIndex;
 import org.sonatype.nexus.repository.manager.RepositoryCreatedEvent;
 import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.manager.RepositoryUpdatedEvent;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.eventbus.Subscribe;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 /**
- * Maintain mapping of which groups a member repository is contained in
+ * Maintain mapping of which groups a member repository is contained in, along with the {@link GroupMergedAssetIndex}
+ * of merged assets cached by those groups.
  *
  * @since 3.16
  */
@@ -44,12 +54,29 @@ import com.google.common.eventbus.Subscribe;
 @Named
 public class GroupMemberMappingCache
   extends ComponentSupport
-    implements EventAware
+    implements EventAware, GroupMergedAssetIndex
 {
   private volatile Map<String, List<String>> memberInGroupsMap;
 
+  /**
+   * Names of the groups which cached merged content, keyed by asset name; bounded, so groups must treat merged
+   * content that is no longer tracked here as stale.
+   */
+  private final Cache<String, Set<String>> mergedAssetGroups;
+
   private RepositoryManager repositoryManager;
 
+  @Inject
+  public GroupMemberMappingCache(
+      @Named("${nexus.group.mergedAssetIndex.maximumSize:-100000}") final int maximumSize,
+      @Named("${nexus.group.mergedAssetIndex.expireAfterAccess:-24h}") final Time expireAfterAccess)
+  {
+    this.mergedAssetGroups = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(expireAfterAccess.toMillis(), MILLISECONDS)
+        .build();
+  }
+
   @Subscribe
   public void on(final RepositoryCreatedEvent event) {
     log.debug("Handling repository create event for {}", event.getRepository().getName());
@@ -70,6 +97,53 @@ public class GroupMemberMappingCache
   public void on(final RepositoryDeletedEvent event) {
     log.debug("Handling repository deleted event for {}", event.getRepository().getName());
     memberInGroupsMap = null;
+    if (event.getRepository().optionalFacet(GroupFacet.class).isPresent()) {
+      String groupName = event.getRepository().getName();
+      mergedAssetGroups.asMap().values().forEach(groupNames -> groupNames.remove(groupName));
+      mergedAssetGroups.asMap().values().removeIf(Set::isEmpty);
+    }
+  }
+
+  /**
+   * @since 3.next
+   */
+  @Override
+  public void recordMergedAsset(final String groupName, final String assetName) {
+    mergedAssetGroups.asMap().computeIfAbsent(assetName, name -> ConcurrentHashMap.newKeySet()).add(groupName);
+  }
+
+  /**
+   * @since 3.next
+   */
+  @Override
+  public void removeMergedAsset(final String groupName, final String assetName) {
+    mergedAssetGroups.asMap().computeIfPresent(assetName, (name, groupNames) -> {
+      groupNames.remove(groupName);
+      return groupNames.isEmpty() ? null : groupNames;
+    });
+  }
+
+  /**
+   * @since 3.next
+   */
+  @Override
+  public boolean isMergedAsset(final String groupName, final String assetName) {
+    Set<String> groupNames = mergedAssetGroups.getIfPresent(assetName);
+    return groupNames != null && groupNames.contains(groupName);
+  }
+
+  /**
+   * @since 3.next
+   */
+  @Override
+  public Set<String> findMergedGroups(final String repositoryName, final String assetName) {
+    Set<String> groupNames = mergedAssetGroups.getIfPresent(assetName);
+    if (groupNames == null) {
+      return Collections.emptySet();
+    }
+    return getCache().getOrDefault(repositoryName, Collections.emptyList()).stream()
+        .filter(groupNames::contains)
+        .collect(Collectors.toSet());
   }
 
   List<String> getGroups(String member) {
@@ -42,6 +42,7 @@ import org.sonatype.nexus.repository.config.Configuration;
 import com.google.inject.assistedinject.Assisted;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.sonatype.nexus.repository.manager.internal.RepositoryImpl.State.DELETED;
 import static org.sonatype.nexus.repository.manager.internal.RepositoryImpl.State.DESTROYED;
 import static org.sonatype.nexus.repository.manager.internal.RepositoryImpl.State.FAILED;
@@ -225,7 +226,9 @@ public class RepositoryImpl
     for (Facet facet : facets) {
       try {
         log.debug("Starting facet: {}", facet);
+        long start = System.nanoTime();
         facet.start();
+        log.debug("Started facet: {} in {} ms", facet, NANOSECONDS.toMillis(System.nanoTime() - start));
       }
       catch (Throwable t) {
         log.error("Failed to start facet: {}", facet, t);
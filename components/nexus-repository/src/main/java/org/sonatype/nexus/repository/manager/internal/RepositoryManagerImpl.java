@@ -13,6 +13,7 @@
 package org.sonatype.nexus.repository.manager.internal;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -65,9 +66,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 import static org.sonatype.nexus.blobstore.api.BlobStoreManager.DEFAULT_BLOBSTORE_NAME;
 import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
@@ -125,6 +128,8 @@ public class RepositoryManagerImpl
 
   private final List<ConfigurationValidator> configurationValidators;
 
+  private final int startupThreads;
+
   @Inject
   public RepositoryManagerImpl(final EventManager eventManager,
                                final ConfigurationStore store,
@@ -137,7 +142,8 @@ public class RepositoryManagerImpl
                                @Named("${nexus.skipDefaultRepositories:-false}") final boolean skipDefaultRepositories,
                                final BlobStoreManager blobStoreManager,
                                final GroupMemberMappingCache groupMemberMappingCache,
-                               final List<ConfigurationValidator> configurationValidators)
+                               final List<ConfigurationValidator> configurationValidators,
+                               @Named("${nexus.repository.startupThreads:-8}") final int startupThreads)
   {
     this.eventManager = checkNotNull(eventManager);
     this.store = checkNotNull(store);
@@ -151,6 +157,8 @@ public class RepositoryManagerImpl
     this.blobStoreManager = checkNotNull(blobStoreManager);
     this.groupMemberMappingCache = checkNotNull(groupMemberMappingCache);
     this.configurationValidators = checkNotNull(configurationValidators);
+    checkArgument(startupThreads > 0, "Startup threads must be positive");
+    this.startupThreads = startupThreads;
   }
 
   /**
@@ -250,9 +258,11 @@ public class RepositoryManagerImpl
       }
     }
 
-    restoreRepositories(configurations);
+    RepositoryStartupScheduler scheduler = new RepositoryStartupScheduler(startupThreads, this::memberNames);
+
+    restoreRepositories(scheduler, configurations);
 
-    startRepositories();
+    startRepositories(scheduler);
   }
 
   private void provisionDefaultRepositories() {
@@ -264,25 +274,35 @@ public class RepositoryManagerImpl
     }
   }
 
-  private void restoreRepositories(final List<Configuration> configurations) throws Exception {
+  private void restoreRepositories(final RepositoryStartupScheduler scheduler,
+                                   final List<Configuration> configurations) throws Exception
+  {
     log.debug("Restoring {} repositories", configurations.size());
-    for (Configuration configuration : configurations) {
-      log.debug("Restoring repository: {}", configuration);
-      Repository repository = newRepository(configuration);
+    for (Repository repository : scheduler.build(configurations, this::newRepository)) {
       track(repository);
 
       eventManager.post(new RepositoryLoadedEvent(repository));
     }
   }
 
-  private void startRepositories() throws Exception {
+  private void startRepositories(final RepositoryStartupScheduler scheduler) throws Exception {
     log.debug("Starting {} repositories", repositories.size());
-    for (Repository repository : repositories.values()) {
-      log.debug("Starting repository: {}", repository);
+    scheduler.start(ImmutableList.copyOf(repositories.values()), repository -> {
       repository.start();
 
       eventManager.post(new RepositoryRestoredEvent(repository));
+    });
+  }
+
+  /**
+   * Names of the configured members of a group repository, so groups can be started after their members.
+   */
+  private Collection<String> memberNames(final Repository repository) {
+    if (!repository.optionalFacet(GroupFacet.class).isPresent()) {
+      return Collections.emptyList();
     }
+    Collection<?> memberNames = repository.getConfiguration().attributes("group").get("memberNames", Collection.class);
+    return memberNames != null ? memberNames.stream().map(String::valueOf).collect(toList()) : Collections.emptyList();
   }
 
   @Override
@@ -0,0 +1,237 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.manager.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.MultipleFailures;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.Configuration;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Map.Entry.comparingByValue;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Builds and starts repositories concurrently on a bounded pool, making sure groups only start once their members have
+ * started. Start times are recorded per repository so slow repositories can be identified.
+ *
+ * @since 3.next
+ */
+class RepositoryStartupScheduler
+    extends ComponentSupport
+{
+  private static final int SLOWEST_REPORTED = 5;
+
+  /**
+   * Builds a repository from its configuration.
+   */
+  interface Builder
+  {
+    Repository build(Configuration configuration) throws Exception;
+  }
+
+  /**
+   * Starts a built repository.
+   */
+  interface Starter
+  {
+    void start(Repository repository) throws Exception;
+  }
+
+  private final int threads;
+
+  private final Function<Repository, Collection<String>> memberNames;
+
+  private final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+
+  /**
+   * @param threads     maximum number of repositories built or started at the same time; 1 keeps the old serial order
+   * @param memberNames names of the members a repository depends on, empty for non-groups
+   */
+  RepositoryStartupScheduler(final int threads, final Function<Repository, Collection<String>> memberNames) {
+    checkArgument(threads > 0, "Startup threads must be positive");
+    this.threads = threads;
+    this.memberNames = checkNotNull(memberNames);
+  }
+
+  /**
+   * Builds repositories concurrently, returning them in the same order as their configurations.
+   */
+  List<Repository> build(final List<Configuration> configurations, final Builder builder) throws Exception {
+    ExecutorService executor = newExecutor("repository-restore");
+    try {
+      List<CompletableFuture<Repository>> futures = configurations.stream()
+          .map(configuration -> CompletableFuture.supplyAsync(() -> {
+            log.debug("Restoring repository: {}", configuration);
+            try {
+              return builder.build(configuration);
+            }
+            catch (Exception e) {
+              throw new CompletionException(e);
+            }
+          }, executor))
+          .collect(toList());
+
+      MultipleFailures failures = new MultipleFailures();
+      List<Repository> repositories = new ArrayList<>(futures.size());
+      for (CompletableFuture<Repository> future : futures) {
+        try {
+          repositories.add(future.join());
+        }
+        catch (CompletionException e) {
+          failures.add(e.getCause());
+        }
+      }
+      failures.maybePropagate("Failed to restore repositories");
+      return repositories;
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Starts repositories concurrently; groups are only started once all their members have started. When a member
+   * fails to start, the groups containing it are not started.
+   */
+  void start(final Collection<Repository> repositories, final Starter starter) throws Exception {
+    Map<String, Repository> byName = new HashMap<>();
+    repositories.forEach(repository -> byName.put(repository.getName(), repository));
+
+    ExecutorService executor = newExecutor("repository-startup");
+    MultipleFailures failures = new MultipleFailures();
+    long startedAt = System.nanoTime();
+    try {
+      Map<String, CompletableFuture<Void>> scheduled = new LinkedHashMap<>();
+      for (Repository repository : repositories) {
+        schedule(repository, byName, scheduled, new HashSet<>(), executor, starter, failures);
+      }
+      for (Entry<String, CompletableFuture<Void>> entry : scheduled.entrySet()) {
+        try {
+          entry.getValue().join();
+        }
+        catch (CompletionException e) { // NOSONAR: already recorded where it failed
+          log.debug("Repository {} did not start", entry.getKey());
+        }
+      }
+    }
+    finally {
+      executor.shutdown();
+    }
+
+    logStartTimes(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    failures.maybePropagate("Failed to start repositories");
+  }
+
+  /**
+   * Time taken to start each repository, in milliseconds.
+   */
+  Map<String, Long> getStartTimes() {
+    return Collections.unmodifiableMap(startTimes);
+  }
+
+  private CompletableFuture<Void> schedule(final Repository repository,
+                                           final Map<String, Repository> byName,
+                                           final Map<String, CompletableFuture<Void>> scheduled,
+                                           final Set<String> visiting,
+                                           final ExecutorService executor,
+                                           final Starter starter,
+                                           final MultipleFailures failures)
+  {
+    String name = repository.getName();
+    CompletableFuture<Void> future = scheduled.get(name);
+    if (future != null) {
+      return future;
+    }
+
+    visiting.add(name);
+    List<CompletableFuture<Void>> members = new ArrayList<>();
+    for (String memberName : memberNames.apply(repository)) {
+      Repository member = byName.get(memberName);
+      if (member == null) {
+        log.debug("Group {} refers to unknown member {}", name, memberName);
+      }
+      else if (visiting.contains(memberName)) {
+        log.warn("Ignoring cyclic membership of {} in group {}", memberName, name);
+      }
+      else {
+        members.add(schedule(member, byName, scheduled, visiting, executor, starter, failures));
+      }
+    }
+    visiting.remove(name);
+
+    future = CompletableFuture.allOf(members.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+      log.debug("Starting repository: {}", repository);
+      long start = System.nanoTime();
+      try {
+        starter.start(repository);
+      }
+      catch (Exception e) {
+        log.error("Failed to start repository: {}", name, e);
+        synchronized (failures) {
+          failures.add(e);
+        }
+        throw new CompletionException(e);
+      }
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      startTimes.put(name, elapsed);
+      log.debug("Started repository: {} in {} ms", name, elapsed);
+    }, executor);
+
+    scheduled.put(name, future);
+    return future;
+  }
+
+  private void logStartTimes(final long elapsed) {
+    log.info("Started {} repositories in {} ms using {} threads", startTimes.size(), elapsed, threads);
+    if (log.isInfoEnabled() && startTimes.size() > 1) {
+      List<String> slowest = startTimes.entrySet().stream()
+          .sorted(Collections.reverseOrder(comparingByValue()))
+          .limit(SLOWEST_REPORTED)
+          .map(entry -> entry.getKey() + "=" + entry.getValue() + "ms")
+          .collect(toList());
+      log.info("Slowest repositories to start: {}", slowest);
+    }
+  }
+
+  private ExecutorService newExecutor(final String name) {
+    if (threads == 1) {
+      return MoreExecutors.newDirectExecutorService();
+    }
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+        new NexusThreadFactory(name, name));
+  }
+}
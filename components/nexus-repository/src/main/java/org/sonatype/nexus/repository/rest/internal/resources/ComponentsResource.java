@@ -249,4 +249,29 @@ public class ComponentsResource
       throw new WebApplicationMessageException(Status.BAD_REQUEST, e.getMessage());
     }
   }
+
+  /**
+   * @since 3.next
+   */
+  @Override
+  @POST
+  @Path("/bulk")
+  @Consumes(MediaType.MULTIPART_FORM_DATA)
+  public void uploadComponents(@QueryParam("repository") final String repositoryId,
+                               @Context final HttpServletRequest request)
+      throws IOException
+  {
+    if (!uploadConfiguration.isEnabled()) {
+      throw new WebApplicationException(NOT_FOUND);
+    }
+
+    Repository repository = repositoryManagerRESTAdapter.getRepository(repositoryId);
+
+    try {
+      uploadManager.handleBulk(repository, request);
+    }
+    catch (IllegalOperationException e) {
+      throw new WebApplicationMessageException(Status.BAD_REQUEST, e.getMessage());
+    }
+  }
 }
@@ -74,4 +74,16 @@ public interface ComponentsResourceDoc
       final String repository,
       @ApiParam(hidden = true) @MultipartForm HttpServletRequest request)
       throws IOException;
+
+  @ApiOperation(value = "Upload many components",
+      notes = "Fields of each component are prefixed by its number, as in 'component1.maven2.groupId'")
+  @ApiResponses(value = {
+      @ApiResponse(code = 403, message = "Insufficient permissions to upload components"),
+      @ApiResponse(code = 422, message = "Parameter 'repository' is required")
+  })
+  void uploadComponents(
+      @ApiParam(value = "Name of the repository to which you would like to upload the components", required = true)
+      final String repository,
+      @ApiParam(hidden = true) @MultipartForm HttpServletRequest request)
+      throws IOException;
 }
@@ -31,15 +31,18 @@ import org.sonatype.nexus.orient.OIndexBuilder;
 import org.sonatype.nexus.orient.OIndexNameBuilder;
 import org.sonatype.nexus.orient.entity.AttachedEntityId;
 import org.sonatype.nexus.orient.entity.AttachedEntityMetadata;
+import org.sonatype.nexus.repository.storage.AssetNearCache.CachedAsset;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
@@ -153,8 +156,14 @@ public class AssetEntityAdapter
   private static final String EXISTS_QUERY_STRING = format("select from index:%1$s where key = [:%2$s, :%3$s]",
       I_BUCKET_NAME, P_BUCKET, P_NAME);
 
+  private static final String FIND_BY_NAME_QUERY_STRING = format("select from %s where %s = :%s and %s = :%s",
+      DB_CLASS, P_BUCKET, P_BUCKET, P_NAME, P_NAME);
+
   private final ComponentEntityAdapter componentEntityAdapter;
 
+  @Nullable
+  private AssetNearCache nearCache;
+
   @Inject
   public AssetEntityAdapter(final BucketEntityAdapter bucketEntityAdapter,
                             final ComponentEntityAdapter componentEntityAdapter)
@@ -163,6 +172,14 @@ public class AssetEntityAdapter
     this.componentEntityAdapter = componentEntityAdapter;
   }
 
+  /**
+   * @since 3.next
+   */
+  @Inject
+  public void setNearCache(final AssetNearCache nearCache) {
+    this.nearCache = checkNotNull(nearCache);
+  }
+
   @Override
   protected void defineType(final ODatabaseDocumentTx db, final OClass type) {
     super.defineType(type);
@@ -315,6 +332,59 @@ public class AssetEntityAdapter
     return first != null ? readEntity(first) : null;
   }
 
+  /**
+   * Finds the asset with the given name in the bucket, using the near-cache to skip the index query when possible.
+   *
+   * @since 3.next
+   */
+  @Nullable
+  Asset findByName(final ODatabaseDocumentTx db, final String name, final Bucket bucket) {
+    if (nearCache == null || !nearCache.isEnabled()) {
+      return findByProperty(db, P_NAME, name, bucket);
+    }
+
+    String repositoryName = bucket.getRepositoryName();
+    ORID bucketId = bucketEntityAdapter.recordIdentity(bucket);
+
+    CachedAsset cached = nearCache.get(repositoryName, name);
+    if (cached != null) {
+      ODocument document = loadCached(db, cached.getRid());
+      if (document != null && (document.getVersion() == cached.getVersion() || isNamed(document, name, bucketId))) {
+        if (document.getVersion() != cached.getVersion()) {
+          nearCache.put(repositoryName, name, cached.getRid(), document.getVersion());
+        }
+        return readEntity(document);
+      }
+      nearCache.invalidate(repositoryName, name);
+    }
+
+    Map<String, Object> parameters = ImmutableMap.of(P_BUCKET, bucketId, P_NAME, name);
+    Iterable<ODocument> docs = db.command(new OCommandSQL(FIND_BY_NAME_QUERY_STRING)).execute(parameters);
+    ODocument first = Iterables.getFirst(docs, null);
+    if (first == null) {
+      return null;
+    }
+    nearCache.put(repositoryName, name, first.getIdentity(), first.getVersion());
+    return readEntity(first);
+  }
+
+  @Nullable
+  private ODocument loadCached(final ODatabaseDocumentTx db, final ORID rid) {
+    try {
+      ORecord record = db.load(rid);
+      return record instanceof ODocument && getTypeName().equals(((ODocument) record).getClassName())
+          ? (ODocument) record
+          : null;
+    }
+    catch (ORecordNotFoundException e) { // NOSONAR
+      return null;
+    }
+  }
+
+  private static boolean isNamed(final ODocument document, final String name, final ORID bucketId) {
+    return name.equals(document.field(P_NAME, OType.STRING)) && bucketId.equals(document.field(P_BUCKET, ORID.class));
+  }
+
   @Override
   public boolean sendEvents() {
     return true;
@@ -0,0 +1,134 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.storage;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.orientechnologies.orient.core.id.ORID;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Per-repository near-cache of asset record ids by name, letting hot lookups by name skip the index query.
+ *
+ * Entries are hints: readers must load the record and check it still has the expected name and bucket, using the
+ * record version to skip that check when nothing has changed. Entries are dropped on asset events, whether local
+ * or from remote nodes, and when their repository is deleted.
+ *
+ * @since 3.next
+ */
+@Named
+@Singleton
+public class AssetNearCache
+    extends ComponentSupport
+    implements EventAware
+{
+  private final ConcurrentMap<String, Cache<String, CachedAsset>> repositoryCaches = new ConcurrentHashMap<>();
+
+  private final long maxSizePerRepository;
+
+  @Inject
+  public AssetNearCache(@Named("${nexus.asset.nearCache.maxSizePerRepository:-10000}") final long maxSizePerRepository) {
+    this.maxSizePerRepository = maxSizePerRepository;
+  }
+
+  /**
+   * Whether lookups should use the cache.
+   */
+  public boolean isEnabled() {
+    return maxSizePerRepository > 0;
+  }
+
+  @Nullable
+  public CachedAsset get(final String repositoryName, final String assetName) {
+    Cache<String, CachedAsset> cache = repositoryCaches.get(repositoryName);
+    return cache != null ? cache.getIfPresent(assetName) : null;
+  }
+
+  public void put(final String repositoryName, final String assetName, final ORID rid, final int version) {
+    checkNotNull(rid);
+    if (isEnabled() && rid.isPersistent()) {
+      repositoryCaches
+          .computeIfAbsent(repositoryName, k -> CacheBuilder.newBuilder().maximumSize(maxSizePerRepository).build())
+          .put(assetName, new CachedAsset(rid, version));
+    }
+  }
+
+  public void invalidate(final String repositoryName, final String assetName) {
+    Cache<String, CachedAsset> cache = repositoryCaches.get(repositoryName);
+    if (cache != null) {
+      cache.invalidate(assetName);
+    }
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetUpdatedEvent event) {
+    invalidate(event);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetDeletedEvent event) {
+    invalidate(event);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final RepositoryDeletedEvent event) {
+    repositoryCaches.remove(event.getRepository().getName());
+  }
+
+  private void invalidate(final AssetEvent event) {
+    if (repositoryCaches.containsKey(event.getRepositoryName())) {
+      invalidate(event.getRepositoryName(), event.getAsset().name());
+    }
+  }
+
+  /**
+   * Record id and version of an asset when it was last looked up by name.
+   */
+  public static class CachedAsset
+  {
+    private final ORID rid;
+
+    private final int version;
+
+    CachedAsset(final ORID rid, final int version) {
+      this.rid = rid;
+      this.version = version;
+    }
+
+    public ORID getRid() {
+      return rid;
+    }
+
+    public int getVersion() {
+      return version;
+    }
+  }
+}
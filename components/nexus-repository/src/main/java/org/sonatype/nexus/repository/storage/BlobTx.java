@@ -14,9 +14,11 @@ package org.sonatype.nexus.repository.storage;
 
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -58,9 +60,22 @@ public class BlobTx
 
   private final Map<BlobRef, String> deletionRequests = Maps.newHashMap();
 
+  @Nullable
+  private final Executor hashingExecutor;
+
   public BlobTx(final NodeAccess nodeAccess, final BlobStore blobStore) {
+    this(nodeAccess, blobStore, null);
+  }
+
+  /**
+   * @param hashingExecutor optional executor used to hash new blobs in the background as they are written
+   *
+   * @since 3.next
+   */
+  public BlobTx(final NodeAccess nodeAccess, final BlobStore blobStore, @Nullable final Executor hashingExecutor) {
     this.nodeAccess = checkNotNull(nodeAccess);
     this.blobStore = checkNotNull(blobStore);
+    this.hashingExecutor = hashingExecutor;
   }
 
   public AssetBlob create(final InputStream inputStream,
@@ -68,7 +83,7 @@ public class BlobTx
                           final Iterable<HashAlgorithm> hashAlgorithms,
                           final String contentType)
   {
-    MultiHashingInputStream hashingStream = new MultiHashingInputStream(hashAlgorithms, inputStream);
+    MultiHashingInputStream hashingStream = new MultiHashingInputStream(hashAlgorithms, inputStream, hashingExecutor);
     Blob streamedBlob = blobStore.create(hashingStream, headers); // pre-fetch to populate hashes
     return createPrefetchedAssetBlob(
         streamedBlob,
@@ -124,6 +139,28 @@ public class BlobTx
         headers.get(BlobStore.CONTENT_TYPE_HEADER));
   }
 
+  /**
+   * Create an asset blob by promoting a temporary blob in place, falling back to copying it when the blob store can't
+   * promote blobs. Promotion is reverted if the asset blob is not attached by the end of the transaction.
+   *
+   * @param tempBlob    temporary blob already present in the blobstore
+   * @param headers     a map of headers to be applied to the resulting blob
+   * @return {@link AssetBlob}
+   * @since 3.next
+   */
+  public AssetBlob createByPromoting(final TempBlob tempBlob, final Map<String, String> headers) {
+    checkArgument(!Strings2.isBlank(headers.get(BlobStore.CONTENT_TYPE_HEADER)), "Blob content type is required");
+    AssetBlob assetBlob = new PromotedAssetBlob(
+        nodeAccess,
+        blobStore,
+        tempBlob,
+        headers,
+        headers.get(BlobStore.CONTENT_TYPE_HEADER));
+
+    newlyCreatedBlobs.add(assetBlob);
+    return assetBlob;
+  }
+
   private PrefetchedAssetBlob createPrefetchedAssetBlob(final Blob blob,
                                                         final Map<HashAlgorithm, HashCode> hashes,
                                                         final boolean hashesVerified,
@@ -168,13 +205,11 @@ public class BlobTx
   }
 
   public void commit() {
-    for (Entry<BlobRef, String> deletionRequestEntry : deletionRequests.entrySet()) {
-      try {
-        blobStore.delete(deletionRequestEntry.getKey().getBlobId(), deletionRequestEntry.getValue());
-      }
-      catch (Throwable t) {
-        log.warn("Unable to delete old blob {} while committing transaction", deletionRequestEntry.getKey(), t);
-      }
+    if (deletionRequests.size() > 1) {
+      deleteBatch();
+    }
+    else {
+      deleteEach();
     }
     for (AssetBlob assetBlob : newlyCreatedBlobs) {
       try {
@@ -189,6 +224,34 @@ public class BlobTx
     clearState();
   }
 
+  /**
+   * Hands all deletion requests to the blob store at once, so it can group the underlying writes; for example when
+   * deleting a batch of components. Falls back to deleting blobs one at a time if the batch fails.
+   */
+  private void deleteBatch() {
+    Map<BlobId, String> blobIds = new LinkedHashMap<>();
+    deletionRequests.forEach((blobRef, reason) -> blobIds.put(blobRef.getBlobId(), reason));
+    try {
+      blobStore.deleteBatch(blobIds);
+    }
+    catch (Throwable t) {
+      log.warn("Unable to delete {} old blobs as a batch while committing transaction, deleting them one at a time",
+          blobIds.size(), t);
+      deleteEach();
+    }
+  }
+
+  private void deleteEach() {
+    for (Entry<BlobRef, String> deletionRequestEntry : deletionRequests.entrySet()) {
+      try {
+        blobStore.delete(deletionRequestEntry.getKey().getBlobId(), deletionRequestEntry.getValue());
+      }
+      catch (Throwable t) {
+        log.warn("Unable to delete old blob {} while committing transaction", deletionRequestEntry.getKey(), t);
+      }
+    }
+  }
+
   public void rollback() {
     //
     // No need to undelete deletionRequests here, because rollback is only triggered if the DB commit fails.
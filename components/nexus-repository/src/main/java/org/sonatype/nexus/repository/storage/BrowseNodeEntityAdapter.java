@@ -13,8 +13,10 @@
 package org.sonatype.nexus.repository.storage;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -205,9 +207,24 @@ public class BrowseNodeEntityAdapter
                                   final String format,
                                   final List<BrowsePaths> paths,
                                   final Component component)
+  {
+    createComponentNode(db, repositoryName, format, paths, component, new HashSet<>());
+  }
+
+  /**
+   * Associates a {@link BrowseNode} with the given {@link Component}, skipping parent folders already known to exist.
+   *
+   * @since 3.next
+   */
+  public void createComponentNode(final ODatabaseDocumentTx db,
+                                  final String repositoryName,
+                                  final String format,
+                                  final List<BrowsePaths> paths,
+                                  final Component component,
+                                  final Set<String> knownParentPaths)
   {
     //create any parent folder nodes for this component if not already existing
-    maybeCreateParentNodes(db, repositoryName, format, paths.subList(0, paths.size() - 1));
+    maybeCreateParentNodes(db, repositoryName, format, paths.subList(0, paths.size() - 1), knownParentPaths);
 
     //now create the component node
     BrowseNode node = newNode(repositoryName, format, paths);
@@ -240,9 +257,24 @@ public class BrowseNodeEntityAdapter
                               final String format,
                               final List<BrowsePaths> paths,
                               final Asset asset)
+  {
+    createAssetNode(db, repositoryName, format, paths, asset, new HashSet<>());
+  }
+
+  /**
+   * Associates a {@link BrowseNode} with the given {@link Asset}, skipping parent folders already known to exist.
+   *
+   * @since 3.next
+   */
+  public void createAssetNode(final ODatabaseDocumentTx db,
+                              final String repositoryName,
+                              final String format,
+                              final List<BrowsePaths> paths,
+                              final Asset asset,
+                              final Set<String> knownParentPaths)
   {
     //create any parent folder nodes for this asset if not already existing
-    maybeCreateParentNodes(db, repositoryName, format, paths.subList(0, paths.size() - 1));
+    maybeCreateParentNodes(db, repositoryName, format, paths.subList(0, paths.size() - 1), knownParentPaths);
 
     //now create the asset node
     BrowseNode node = newNode(repositoryName, format, paths);
@@ -262,6 +294,7 @@ public class BrowseNodeEntityAdapter
 
         //if this node is now an asset, we don't want a trailing slash
         if (!asset.name().endsWith("/") && path.endsWith("/")) {
+          knownParentPaths.remove(path); // no longer a proper folder, must be checked again if used as a parent
           path = path.substring(0, path.length() - 1);
           document.field(P_PATH, path);
         }
@@ -276,17 +309,24 @@ public class BrowseNodeEntityAdapter
 
   /**
    * Iterate over the list of path strings, and create a browse node for each one if not already there.
+   *
+   * Parent paths found in (or added to) {@code knownParentPaths} are not looked up again; once a known or
+   * existing parent is reached its ancestors are assumed to exist.
    */
   private void maybeCreateParentNodes(final ODatabaseDocumentTx db,
                                       final String repositoryName,
                                       final String format,
-                                      final List<BrowsePaths> paths)
+                                      final List<BrowsePaths> paths,
+                                      final Set<String> knownParentPaths)
   {
     for (int i = paths.size() ; i > 0 ; i--) {
       BrowseNode parentNode = newNode(repositoryName, format, paths.subList(0, i));
       if (!parentNode.getPath().endsWith("/")) {
         parentNode.setPath(parentNode.getPath() + "/");
       }
+      if (!knownParentPaths.add(parentNode.getPath())) {
+        break;
+      }
       ODocument document = findNodeRecord(db, parentNode);
       if (document == null) {
         addEntity(db, parentNode);
@@ -13,11 +13,14 @@
 package org.sonatype.nexus.repository.storage;
 
 import java.util.List;
+import java.util.Map;
 
 import org.sonatype.nexus.common.entity.EntityId;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.browse.BrowsePaths;
 
+import com.google.common.collect.Multimap;
+
 /**
  * Store providing access to the browse tree for assets & components.
  *
@@ -35,6 +38,16 @@ public interface BrowseNodeStore
    */
   void createComponentNode(String repositoryName, String format, List<BrowsePaths> paths, Component component);
 
+  /**
+   * Creates {@link BrowseNode}s for a batch of assets and components in a single transaction.
+   *
+   * @since 3.next
+   */
+  void createNodes(String repositoryName,
+                   String format,
+                   Map<Asset, List<BrowsePaths>> assetPaths,
+                   Multimap<Component, List<BrowsePaths>> componentPaths);
+
   /**
    * Deletes the asset's {@link BrowseNode}.
    */
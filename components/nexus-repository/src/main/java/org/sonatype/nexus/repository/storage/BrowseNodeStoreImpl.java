@@ -47,6 +47,7 @@ import org.sonatype.nexus.selector.SelectorEvaluationException;
 import org.sonatype.nexus.selector.SelectorManager;
 import org.sonatype.nexus.selector.SelectorSqlBuilder;
 
+import com.google.common.collect.Multimap;
 import com.orientechnologies.common.concur.ONeedRetryException;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
@@ -142,6 +143,26 @@ public class BrowseNodeStoreImpl
         .run(db -> entityAdapter.createAssetNode(db, repositoryName, format, paths, asset));
   }
 
+  @Override
+  @Guarded(by = STARTED)
+  public void createNodes(final String repositoryName,
+                          final String format,
+                          final Map<Asset, List<BrowsePaths>> assetPaths,
+                          final Multimap<Component, List<BrowsePaths>> componentPaths)
+  {
+    inTxRetry(databaseInstance)
+        // handle case where other threads try to create the same paths at once
+        .retryOn(ONeedRetryException.class, ORecordDuplicatedException.class)
+        .run(db -> {
+          // parent folders shared by nodes in this batch only need to be checked once
+          Set<String> knownParentPaths = new HashSet<>();
+          assetPaths.forEach((asset, paths) ->
+              entityAdapter.createAssetNode(db, repositoryName, format, paths, asset, knownParentPaths));
+          componentPaths.forEach((component, paths) ->
+              entityAdapter.createComponentNode(db, repositoryName, format, paths, component, knownParentPaths));
+        });
+  }
+
   @Override
   @Guarded(by = STARTED)
   public void deleteComponentNode(EntityId componentId) {
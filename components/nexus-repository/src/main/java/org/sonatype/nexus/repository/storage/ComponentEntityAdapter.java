@@ -12,8 +12,14 @@
  */
 package org.sonatype.nexus.repository.storage;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -33,7 +39,11 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.orientechnologies.orient.core.collate.OCaseInsensitiveCollate;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexCursor;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OType;
@@ -41,6 +51,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
 import static org.sonatype.nexus.common.entity.EntityHelper.id;
@@ -199,6 +210,76 @@ public class ComponentEntityAdapter
     return !Iterables.isEmpty(db.command(query).<Iterable<ODocument>>execute(params));
   }
 
+  /**
+   * Browses the components of a bucket in group, name and version order by walking the bucket index. Returns up to
+   * {@code limit} components following {@code after}, or from the start of the bucket if that is {@code null}, so a
+   * large bucket can be walked page by page with the last component of each page.
+   *
+   * @since 3.next
+   */
+  public List<Component> browseBucketPage(final ODatabaseDocumentTx db,
+                                          final Bucket bucket,
+                                          @Nullable final Component after,
+                                          final int limit)
+  {
+    checkArgument(limit > 0, "Page limit must be positive");
+    ORID bucketId = bucketEntityAdapter.recordIdentity(checkNotNull(bucket));
+    OIndex<?> index = db.getMetadata().getIndexManager().getIndex(I_BUCKET_GROUP_NAME_VERSION);
+
+    OCompositeKey bucketKey = new OCompositeKey(bucketId);
+    OIndexCursor cursor = after == null
+        ? index.iterateEntriesBetween(bucketKey, true, bucketKey, true, true)
+        : index.iterateEntriesBetween(new OCompositeKey(bucketId, after.group(), after.name(), after.version()), false,
+            bucketKey, true, true);
+    cursor.setPrefetchSize(limit);
+
+    List<Component> page = new ArrayList<>(limit);
+    Entry<Object, OIdentifiable> entry;
+    while (page.size() < limit && (entry = cursor.nextEntry()) != null) {
+      ODocument document = entry.getValue().getRecord();
+      if (document != null) {
+        page.add(readEntity(document));
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Finds the components with exactly this {@code group}, {@code name} and {@code version} across all buckets, using a
+   * direct lookup in the group/name/version index rather than a query.
+   *
+   * @since 3.next
+   */
+  public List<Component> findByGroupNameVersion(final ODatabaseDocumentTx db,
+                                                @Nullable final String group,
+                                                final String name,
+                                                @Nullable final String version)
+  {
+    checkNotNull(name);
+    OIndex<?> index = db.getMetadata().getIndexManager().getIndex(I_GROUP_NAME_VERSION_INSENSITIVE);
+    Object matches = index.get(new OCompositeKey(lowerCase(group), lowerCase(name), lowerCase(version)));
+    if (!(matches instanceof Collection)) {
+      return Collections.emptyList();
+    }
+
+    List<Component> components = new ArrayList<>();
+    for (Object match : (Collection<?>) matches) {
+      ODocument document = ((OIdentifiable) match).getRecord();
+      if (document != null
+          && Objects.equals(group, document.field(P_GROUP, OType.STRING))
+          && Objects.equals(name, document.field(P_NAME, OType.STRING))
+          && Objects.equals(version, document.field(P_VERSION, OType.STRING))) {
+        components.add(readEntity(document));
+      }
+    }
+    return components;
+  }
+
+  @Nullable
+  private static String lowerCase(@Nullable final String value) {
+    return value != null ? value.toLowerCase(Locale.ENGLISH) : null;
+  }
+
   @Override
   protected Component newEntity() {
     return componentFactory.createComponent();
@@ -15,10 +15,14 @@ package org.sonatype.nexus.repository.storage;
 import java.util.Set;
 import java.util.function.BooleanSupplier;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.common.entity.EntityId;
 import org.sonatype.nexus.repository.Facet;
 import org.sonatype.nexus.repository.storage.DefaultComponentMaintenanceImpl.DeletionProgress;
 
+import com.google.common.util.concurrent.RateLimiter;
+
 /**
  * Exposes manual component maintenance operations.
  *
@@ -65,6 +69,9 @@ public interface ComponentMaintenance
   /**
    * Deletes a list of components
    * 
+   * Blobs belonging to the components in each batch are soft-deleted together when the batch commits, see
+   * {@link org.sonatype.nexus.blobstore.api.BlobStore#deleteBatch}.
+   *
    * @param components list of components to delete
    * @param cancelledCheck check for cancellation
    * @param batchSize number of components to commit at a time
@@ -74,6 +81,26 @@ public interface ComponentMaintenance
    */
   DeletionProgress deleteComponents(Iterable<EntityId> components, BooleanSupplier cancelledCheck, int batchSize);
 
+  /**
+   * Deletes a list of components, acquiring permits from the given rate limiter before each batch is deleted.
+   * Implementations that do not support rate limiting ignore the limiter.
+   *
+   * @param components list of components to delete
+   * @param cancelledCheck check for cancellation
+   * @param batchSize number of components to commit at a time
+   * @param deletionRateLimiter limits how fast components are deleted; {@code null} for no limit
+   * @return {@link DeletionProgress} for the current deletion attempt
+   *
+   * @since 3.next
+   */
+  default DeletionProgress deleteComponents(Iterable<EntityId> components,
+                                            BooleanSupplier cancelledCheck,
+                                            int batchSize,
+                                            @Nullable RateLimiter deletionRateLimiter)
+  {
+    return deleteComponents(components, cancelledCheck, batchSize);
+  }
+
   /**
    * Runs at the end of deleteComponents.
    *
@@ -36,6 +36,12 @@ public interface ComponentStore
    */
   Component read(EntityId id);
 
+  /**
+   * @return the components for the ids, fetched in a single query; ids of missing components are skipped
+   * @since 3.next
+   */
+  List<Component> readAll(Iterable<EntityId> ids);
+
   /**
    * Finds and returns all the components that match the specified parameters.
    *
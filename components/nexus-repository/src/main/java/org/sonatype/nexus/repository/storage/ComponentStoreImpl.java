@@ -80,6 +80,15 @@ public class ComponentStoreImpl
     }
   }
 
+  @Override
+  @Guarded(by = STARTED)
+  public List<Component> readAll(final Iterable<EntityId> ids)
+  {
+    try (ODatabaseDocumentTx db = databaseInstance.get().acquire()) {
+      return ImmutableList.copyOf(entityAdapter.transform(entityAdapter.documents(db, ids)));
+    }
+  }
+
   @Override
   @Guarded(by = STARTED)
   public List<Component> getAllMatchingComponents(final Repository repository,
@@ -27,6 +27,8 @@ import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.transaction.TransactionalDeleteBlob;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
+import com.google.common.util.concurrent.RateLimiter;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.partition;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
@@ -102,6 +104,15 @@ public class DefaultComponentMaintenanceImpl
   public DeletionProgress deleteComponents(final Iterable<EntityId> components,
                                            final BooleanSupplier cancelledCheck,
                                            final int batchSize)
+  {
+    return deleteComponents(components, cancelledCheck, batchSize, null);
+  }
+
+  @Override
+  public DeletionProgress deleteComponents(final Iterable<EntityId> components,
+                                           final BooleanSupplier cancelledCheck,
+                                           final int batchSize,
+                                           @Nullable final RateLimiter deletionRateLimiter)
   {
     checkNotNull(components);
     checkNotNull(cancelledCheck);
@@ -118,6 +129,11 @@ public class DefaultComponentMaintenanceImpl
           break;
         }
 
+        // acquire permits before the batch transaction is opened so throttling never holds a transaction open
+        if (deletionRateLimiter != null) {
+          deletionRateLimiter.acquire(entityIds.size());
+        }
+
         DeletionProgress batchDeletion = doBatchDelete(entityIds, cancelledCheck);
         deletionProgress.addCount(batchDeletion.getCount());
         if (batchDeletion.isFailed()) {
@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
@@ -67,10 +68,8 @@ public class DefaultContentValidator
     checkNotNull(contentSupplier);
     final String declaredBaseContentType = mediaTypeWithoutParameters(declaredContentType);
 
-    final LinkedHashSet<String> contentDetectedMimeTypes = new LinkedHashSet<>();
-    try (InputStream is = contentSupplier.get()) {
-      contentDetectedMimeTypes.addAll(mimeSupport.detectMimeTypes(is, contentName));
-    }
+    final LinkedHashSet<String> contentDetectedMimeTypes = new LinkedHashSet<>(
+        detectMimeTypes(contentSupplier, contentName));
     adjustIfHtml(contentDetectedMimeTypes);
     log.debug("Mime support detects {} as {}", contentName, contentDetectedMimeTypes);
 
@@ -123,6 +122,29 @@ public class DefaultContentValidator
     return finalContentType;
   }
 
+  /**
+   * Detects MIME types from the content; temporary blobs supply their leading bytes and remember the result, so they
+   * don't need to be read back from the blob store.
+   */
+  private List<String> detectMimeTypes(final Supplier<InputStream> contentSupplier,
+                                       @Nullable final String contentName) throws IOException
+  {
+    if (contentSupplier instanceof TempBlob) {
+      TempBlob tempBlob = (TempBlob) contentSupplier;
+      List<String> mimeTypes = tempBlob.getDetectedMimeTypes(contentName);
+      if (mimeTypes == null) {
+        try (InputStream is = tempBlob.openDetectionStream()) {
+          mimeTypes = mimeSupport.detectMimeTypes(is, contentName);
+        }
+        tempBlob.setDetectedMimeTypes(contentName, mimeTypes);
+      }
+      return mimeTypes;
+    }
+    try (InputStream is = contentSupplier.get()) {
+      return mimeSupport.detectMimeTypes(is, contentName);
+    }
+  }
+
   /**
    * Removes any parameter (like charset) for simpler matching.
    */
@@ -0,0 +1,97 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.storage;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.hash.MultiHashingInputStream;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+
+/**
+ * Shared pool used to hash incoming content in the background while it is written to the blob store.
+ *
+ * @see MultiHashingInputStream
+ * @since 3.next
+ */
+@Named
+@ManagedLifecycle(phase = SERVICES)
+@Singleton
+public class HashingExecutor
+    extends LifecycleSupport
+{
+  private final int threads;
+
+  @Nullable
+  private volatile ThreadPoolExecutor threadPool;
+
+  @Nullable
+  private volatile Executor executor;
+
+  @Inject
+  public HashingExecutor(@Named("${nexus.storage.hashing.threads:-8}") final int threads) {
+    checkArgument(threads >= 0, "Hashing threads must not be negative");
+    this.threads = threads;
+  }
+
+  @Override
+  protected void doStart() {
+    if (threads > 0) {
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), new NexusThreadFactory("hashing", "storage-hashing"));
+      pool.allowCoreThreadTimeOut(true);
+      threadPool = pool;
+      executor = command -> {
+        try {
+          pool.execute(command);
+        }
+        catch (RejectedExecutionException e) {
+          command.run(); // shutting down, finish hashing on the calling thread
+        }
+      };
+      log.info("Hashing content with {} background threads", threads);
+    }
+  }
+
+  @Override
+  protected void doStop() {
+    ThreadPoolExecutor pool = threadPool;
+    executor = null;
+    threadPool = null;
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Returns the executor to hash content with; {@code null} when background hashing is disabled or not running,
+   * in which case content is hashed by the reading thread.
+   */
+  @Nullable
+  public Executor executor() {
+    return executor;
+  }
+}
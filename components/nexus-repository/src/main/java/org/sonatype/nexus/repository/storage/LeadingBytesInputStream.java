@@ -0,0 +1,98 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link InputStream} that keeps a copy of the leading bytes read from it, so content type detection can sniff them
+ * later without reading the content again.
+ *
+ * @since 3.next
+ */
+class LeadingBytesInputStream
+    extends FilterInputStream
+{
+  private final byte[] leadingBytes;
+
+  private int count;
+
+  private boolean skipped;
+
+  LeadingBytesInputStream(final InputStream inputStream, final int limit) {
+    super(checkNotNull(inputStream));
+    checkArgument(limit > 0, "Must keep at least one byte");
+    this.leadingBytes = new byte[limit];
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = in.read();
+    if (b != -1 && count < leadingBytes.length) {
+      leadingBytes[count++] = (byte) b;
+    }
+    return b;
+  }
+
+  @Override
+  public int read(@Nonnull final byte[] bytes, final int off, final int len) throws IOException {
+    int numRead = in.read(bytes, off, len);
+    if (numRead > 0 && count < leadingBytes.length) {
+      int numKept = Math.min(numRead, leadingBytes.length - count);
+      System.arraycopy(bytes, off, leadingBytes, count, numKept);
+      count += numKept;
+    }
+    return numRead;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    long numSkipped = in.skip(n);
+    if (numSkipped > 0 && count < leadingBytes.length) {
+      skipped = true; // gap in the leading bytes, so they can't be used
+    }
+    return numSkipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void mark(final int readlimit) {
+    // no-op
+  }
+
+  @Override
+  public void reset() throws IOException {
+    throw new IOException("reset not supported");
+  }
+
+  /**
+   * Gets the leading bytes read from this stream; {@code null} if they're incomplete because bytes were skipped.
+   */
+  @Nullable
+  public byte[] leadingBytes() {
+    return skipped ? null : Arrays.copyOf(leadingBytes, count);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.storage;
+
+import java.util.Map;
+
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.common.node.NodeAccess;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link AssetBlob} which takes over a {@link TempBlob} by promoting it in place, copying it only when the blob store
+ * doesn't support promotion.
+ *
+ * @since 3.next
+ */
+class PromotedAssetBlob
+    extends AssetBlob
+{
+  private final TempBlob tempBlob;
+
+  PromotedAssetBlob(final NodeAccess nodeAccess,
+                    final BlobStore blobStore,
+                    final TempBlob tempBlob,
+                    final Map<String, String> headers,
+                    final String contentType)
+  {
+    super(nodeAccess, blobStore, store -> promoteOrCopy(store, tempBlob, headers), contentType,
+        tempBlob.getHashes(), tempBlob.getHashesVerified());
+    this.tempBlob = checkNotNull(tempBlob);
+  }
+
+  private static Blob promoteOrCopy(final BlobStore blobStore,
+                                    final TempBlob tempBlob,
+                                    final Map<String, String> headers)
+  {
+    Blob promotedBlob = tempBlob.promote(blobStore, headers);
+    return promotedBlob != null ? promotedBlob : blobStore.copy(tempBlob.getBlob().getId(), headers);
+  }
+
+  /**
+   * Hands a promoted blob back to its {@link TempBlob}, so it can be retried and is cleaned up when that's closed.
+   */
+  @Override
+  void delete(final String reason) {
+    Blob ingestedBlob = getIngestedBlob();
+    if (ingestedBlob != null && ingestedBlob.getId().equals(tempBlob.getBlob().getId())) {
+      tempBlob.revertPromotion();
+    }
+    else {
+      super.delete(reason);
+    }
+  }
+}
@@ -74,6 +74,11 @@ public class StorageFacetImpl
     extends FacetSupport
     implements StorageFacet
 {
+  /**
+   * Leading bytes read by content type detection, which matches Tika's magic detection.
+   */
+  private static final int DETECTION_LENGTH = 64 * 1024;
+
   private final NodeAccess nodeAccess;
 
   private final BlobStoreManager blobStoreManager;
@@ -100,6 +105,8 @@ public class StorageFacetImpl
 
   private final ConstraintViolationFactory constraintViolationFactory;
 
+  private final HashingExecutor hashingExecutor;
+
   @VisibleForTesting
   static class Config
   {
@@ -138,7 +145,8 @@ public class StorageFacetImpl
                           final MimeRulesSourceSelector mimeRulesSourceSelector,
                           final StorageFacetManager storageFacetManager,
                           final ComponentFactory componentFactory,
-                          final ConstraintViolationFactory constraintViolationFactory)
+                          final ConstraintViolationFactory constraintViolationFactory,
+                          final HashingExecutor hashingExecutor)
   {
     this.nodeAccess = checkNotNull(nodeAccess);
     this.blobStoreManager = checkNotNull(blobStoreManager);
@@ -153,6 +161,7 @@ public class StorageFacetImpl
     this.storageFacetManager = checkNotNull(storageFacetManager);
     this.componentFactory = checkNotNull(componentFactory);
     this.constraintViolationFactory = checkNotNull(constraintViolationFactory);
+    this.hashingExecutor = checkNotNull(hashingExecutor);
 
     this.txSupplier = () -> openStorageTx(databaseInstanceProvider.get().acquire());
   }
@@ -236,14 +245,17 @@ public class StorageFacetImpl
   @Override
   public TempBlob createTempBlob(final InputStream inputStream, final Iterable<HashAlgorithm> hashAlgorithms) {
     BlobStore blobStore = checkNotNull(blobStoreManager.get(config.blobStoreName));
-    MultiHashingInputStream hashingStream = new MultiHashingInputStream(hashAlgorithms, inputStream);
+    // keep enough leading bytes for content type detection, so it doesn't need to read the blob back
+    LeadingBytesInputStream leadingBytesStream = new LeadingBytesInputStream(inputStream, DETECTION_LENGTH);
+    MultiHashingInputStream hashingStream = new MultiHashingInputStream(hashAlgorithms, leadingBytesStream,
+        hashingExecutor.executor());
     Blob blob = blobStore.create(hashingStream,
         ImmutableMap.of(
             BlobStore.BLOB_NAME_HEADER, "temp",
             BlobStore.CREATED_BY_HEADER, createdBy(),
             BlobStore.CREATED_BY_IP_HEADER, createdByIp(),
             BlobStore.TEMPORARY_BLOB_HEADER, ""));
-    return new TempBlob(blob, hashingStream.hashes(), true, blobStore);
+    return new TempBlob(blob, hashingStream.hashes(), true, blobStore, leadingBytesStream.leadingBytes());
   }
 
   @Override
@@ -291,7 +303,7 @@ public class StorageFacetImpl
         new StorageTxImpl(
             createdBy(),
             createdByIp(),
-            new BlobTx(nodeAccess, blobStore),
+            new BlobTx(nodeAccess, blobStore, hashingExecutor.executor()),
             db,
             getRepository().getName(),
             config.writePolicy == null ? WritePolicy.ALLOW : config.writePolicy,
@@ -62,11 +62,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
 import static org.sonatype.nexus.common.entity.EntityHelper.id;
+import static org.sonatype.nexus.orient.transaction.OrientTransaction.conflictKey;
 import static org.sonatype.nexus.repository.proxy.ProxyFacetSupport.isDownloading;
 import static org.sonatype.nexus.repository.storage.Asset.CHECKSUM;
 import static org.sonatype.nexus.repository.storage.Asset.HASHES_NOT_VERIFIED;
 import static org.sonatype.nexus.repository.storage.Asset.PROVENANCE;
 import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_ATTRIBUTES;
+import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
 import static org.sonatype.nexus.repository.storage.StorageTxImpl.State.ACTIVE;
 import static org.sonatype.nexus.repository.storage.StorageTxImpl.State.CLOSED;
 import static org.sonatype.nexus.repository.storage.StorageTxImpl.State.OPEN;
@@ -195,7 +197,7 @@ public class StorageTxImpl
    */
   @Override
   public boolean allowRetry(final Exception cause) throws RetryDeniedException {
-    if (RetryController.INSTANCE.allowRetry(retries, cause)) {
+    if (RetryController.INSTANCE.allowRetry(retries, cause, conflictKey(db, cause))) {
       retries++;
       return true;
     }
@@ -330,6 +332,9 @@ public class StorageTxImpl
   @Override
   @Guarded(by = ACTIVE)
   public Asset findAssetWithProperty(final String propName, final Object propValue, final Bucket bucket) {
+    if (P_NAME.equals(propName) && propValue instanceof String) {
+      return assetEntityAdapter.findByName(db, (String) propValue, bucket);
+    }
     return assetEntityAdapter.findByProperty(db, propName, propValue, bucket);
   }
 
@@ -659,12 +664,7 @@ public class StorageTxImpl
 
     Map<String, String> storageHeadersMap = buildStorageHeaders(blobName, originalBlob, headers, declaredContentType,
         skipContentVerification);
-    return blobTx.createByCopying(
-        originalBlob.getBlob().getId(),
-        storageHeadersMap,
-        originalBlob.getHashes(),
-        originalBlob.getHashesVerified()
-    );
+    return blobTx.createByPromoting(originalBlob, storageHeadersMap);
   }
 
   private Map<String, String> buildStorageHeaders(final String blobName,
@@ -12,16 +12,24 @@
  */
 package org.sonatype.nexus.repository.storage;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
 
+import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.HashCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,17 +55,40 @@ public class TempBlob
 
   private final BlobStore blobStore;
 
+  @Nullable
+  private final byte[] leadingBytes;
+
+  private final Map<String, List<String>> detectedMimeTypes = new HashMap<>();
+
   private boolean deleted = false;
 
+  @Nullable
+  private Map<String, String> temporaryHeaders;
+
   public TempBlob(final Blob blob,
                   final Map<HashAlgorithm, HashCode> hashes,
                   final boolean hashesVerified,
                   final BlobStore blobStore)
+  {
+    this(blob, hashes, hashesVerified, blobStore, null);
+  }
+
+  /**
+   * @param leadingBytes bytes captured from the start of the blob as it was written, used to detect its content type
+   *
+   * @since 3.next
+   */
+  public TempBlob(final Blob blob,
+                  final Map<HashAlgorithm, HashCode> hashes,
+                  final boolean hashesVerified,
+                  final BlobStore blobStore,
+                  @Nullable final byte[] leadingBytes)
   {
     this.blob = checkNotNull(blob);
     this.hashes = checkNotNull(hashes);
     this.hashesVerified = hashesVerified;
     this.blobStore = checkNotNull(blobStore);
+    this.leadingBytes = leadingBytes;
   }
 
   /**
@@ -82,9 +113,75 @@ public class TempBlob
     return hashesVerified;
   }
 
+  /**
+   * Opens the content used to detect the type of this blob. When its leading bytes were captured as the blob was
+   * written they are used instead of reading the blob back from the blob store.
+   *
+   * @since 3.next
+   */
+  public InputStream openDetectionStream() {
+    return leadingBytes != null ? new ByteArrayInputStream(leadingBytes) : get();
+  }
+
+  /**
+   * Returns MIME types already detected for this blob under the given name, {@code null} if not yet detected.
+   */
+  @Nullable
+  List<String> getDetectedMimeTypes(@Nullable final String contentName) {
+    return detectedMimeTypes.get(Strings.nullToEmpty(contentName));
+  }
+
+  /**
+   * Records MIME types detected for this blob under the given name, to avoid repeating detection.
+   */
+  void setDetectedMimeTypes(@Nullable final String contentName, final List<String> mimeTypes) {
+    detectedMimeTypes.put(Strings.nullToEmpty(contentName), ImmutableList.copyOf(mimeTypes));
+  }
+
+  /**
+   * Promotes this temporary blob in place to a permanent blob in the given blob store with the given headers, rather
+   * than copying its content. Once promoted it's no longer deleted on {@link #close()}, unless promotion is reverted.
+   *
+   * @return the promoted blob; {@code null} if it couldn't be promoted and should be copied instead
+   */
+  @Nullable
+  Blob promote(final BlobStore targetBlobStore, final Map<String, String> headers) {
+    if (deleted || temporaryHeaders != null || targetBlobStore != blobStore
+        || headers.containsKey(BlobStore.DIRECT_PATH_BLOB_HEADER)) {
+      return null;
+    }
+    Map<String, String> originalHeaders = ImmutableMap.copyOf(blob.getHeaders());
+    Blob promotedBlob = blobStore.replaceHeaders(blob.getId(), headers);
+    if (promotedBlob != null) {
+      temporaryHeaders = originalHeaders;
+    }
+    return promotedBlob;
+  }
+
+  /**
+   * Reverts a previous {@link #promote}, so this blob is deleted again on {@link #close()}.
+   */
+  void revertPromotion() {
+    if (temporaryHeaders == null) {
+      return;
+    }
+    try {
+      if (blobStore.replaceHeaders(blob.getId(), temporaryHeaders) != null) {
+        temporaryHeaders = null;
+        return;
+      }
+    }
+    catch (BlobStoreException e) {
+      log.debug("Unable to revert promotion of blob {}", blob.getId(), e);
+    }
+    // can't be used as a temporary blob again, so soft-delete it to be cleaned up on the next compact
+    blobStore.delete(blob.getId(), "Reverting promotion of temporary blob");
+    deleted = true;
+  }
+
   @Override
   public void close() {
-    if (deleted) {
+    if (deleted || temporaryHeaders != null) {
       return;
     }
     try {
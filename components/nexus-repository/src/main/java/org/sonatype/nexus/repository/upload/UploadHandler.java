@@ -13,6 +13,8 @@
 package org.sonatype.nexus.repository.upload;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -42,6 +44,37 @@ public interface UploadHandler
    */
   UploadResponse handle(Repository repository, ComponentUpload upload) throws IOException;
 
+  /**
+   * Adds a batch of components as part of a bulk upload; batches may be handled concurrently. Formats maintaining
+   * metadata derived from many components should override this to store the batch in one transaction and leave that
+   * metadata to {@link #afterBulkUpload(Repository, List)}. By default each component is handled on its own.
+   *
+   * @param repository the {@link Repository} to add the components to
+   * @param uploads the uploads of this batch
+   * @return the responses, in the same order as the uploads
+   * @since 3.next
+   */
+  default List<UploadResponse> handleBulk(final Repository repository, final List<ComponentUpload> uploads)
+      throws IOException
+  {
+    List<UploadResponse> responses = new ArrayList<>(uploads.size());
+    for (ComponentUpload upload : uploads) {
+      responses.add(handle(repository, upload));
+    }
+    return responses;
+  }
+
+  /**
+   * Called once all batches of a bulk upload were handled, including when some of them failed.
+   *
+   * @param repository the {@link Repository} the components were added to
+   * @param responses the responses of the components which were added
+   * @since 3.next
+   */
+  default void afterBulkUpload(final Repository repository, final List<UploadResponse> responses) throws IOException {
+    // no-op
+  }
+
   /**
    * The {@link UploadDefinition} used by this format.
    */
@@ -14,6 +14,7 @@ package org.sonatype.nexus.repository.upload;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 
 import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
@@ -48,4 +49,17 @@ public interface UploadManager
    * @return the {@link Asset Assets} created by the operation
    */
   UploadResponse handle(Repository repository, HttpServletRequest request) throws IOException;
+
+  /**
+   * Adds many components to the repository from a single multipart upload, where the fields of each component are
+   * prefixed by {@code component<n>.}, for example {@code component1.maven2.groupId}. Components are stored in
+   * batches, which are handled concurrently, and format metadata is updated once at the end. Will fail if the
+   * repository format does not have an available handler.
+   *
+   * @param repository the {@link Repository} to add the components to
+   * @param request the http request containing the multipart upload
+   * @return the responses of the added components, in order of their prefix
+   * @since 3.next
+   */
+  List<UploadResponse> handleBulk(Repository repository, HttpServletRequest request) throws IOException;
 }
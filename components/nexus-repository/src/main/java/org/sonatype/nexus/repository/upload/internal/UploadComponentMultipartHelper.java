@@ -89,7 +89,7 @@ public class UploadComponentMultipartHelper
 
     private final BlobStoreMultipartForm multipartForm;
 
-    private final Predicate<String> assetPattern = Pattern.compile("^(\\w+\\.)?asset\\d*$").asPredicate();
+    private final Predicate<String> assetPattern = Pattern.compile("^(\\w+\\.)*asset\\d*$").asPredicate();
 
     private Field field;
 
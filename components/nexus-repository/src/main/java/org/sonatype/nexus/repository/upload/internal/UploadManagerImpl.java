@@ -13,12 +13,25 @@
 package org.sonatype.nexus.repository.upload.internal;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -36,10 +49,17 @@ import org.sonatype.nexus.repository.upload.UploadDefinition;
 import org.sonatype.nexus.repository.upload.UploadHandler;
 import org.sonatype.nexus.repository.upload.UploadManager;
 import org.sonatype.nexus.repository.upload.UploadResponse;
+import org.sonatype.nexus.repository.upload.internal.BlobStoreMultipartForm.TempBlobFormField;
 import org.sonatype.nexus.rest.ValidationErrorsException;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import org.apache.commons.fileupload.FileUploadException;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
@@ -53,6 +73,8 @@ public class UploadManagerImpl
     extends ComponentSupport
     implements UploadManager
 {
+  private static final Pattern BULK_FIELD = Pattern.compile("^component(\\d+)\\.(.+)$");
+
   private List<UploadDefinition> uploadDefinitions;
 
   private Map<String, UploadHandler> uploadHandlers;
@@ -61,16 +83,33 @@ public class UploadManagerImpl
 
   private Set<ComponentUploadExtension> componentUploadExtensions;
 
+  private final int bulkBatchSize;
+
+  /**
+   * Shared by all bulk uploads, so concurrent requests can't multiply the number of threads storing components.
+   */
+  private final ExecutorService bulkExecutor;
+
   @Inject
   public UploadManagerImpl(final Map<String, UploadHandler> uploadHandlers,
                            final UploadComponentMultipartHelper multipartHelper,
-                           final Set<ComponentUploadExtension> componentsUploadExtensions)
+                           final Set<ComponentUploadExtension> componentsUploadExtensions,
+                           @Named("${nexus.upload.bulk.threads:-4}") final int bulkThreads,
+                           @Named("${nexus.upload.bulk.batchSize:-100}") final int bulkBatchSize)
   {
+    checkArgument(bulkThreads > 0, "Bulk upload threads must be positive");
+    checkArgument(bulkBatchSize > 0, "Bulk upload batch size must be positive");
     this.uploadHandlers = checkNotNull(uploadHandlers);
     this.uploadDefinitions = Collections
         .unmodifiableList(uploadHandlers.values().stream().map(handler -> handler.getDefinition()).collect(toList()));
     this.multipartHelper = checkNotNull(multipartHelper);
     this.componentUploadExtensions = checkNotNull(componentsUploadExtensions);
+    this.bulkBatchSize = bulkBatchSize;
+
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(bulkThreads, bulkThreads, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new NexusThreadFactory("upload-bulk", "upload-bulk"));
+    pool.allowCoreThreadTimeOut(true);
+    this.bulkExecutor = pool;
   }
 
   @Override
@@ -111,6 +150,128 @@ public class UploadManagerImpl
     }
   }
 
+  /**
+   * @since 3.next
+   */
+  @Override
+  public List<UploadResponse> handleBulk(final Repository repository, final HttpServletRequest request)
+      throws IOException
+  {
+    checkNotNull(repository);
+    checkNotNull(request);
+
+    UploadHandler uploadHandler = getUploadHandler(repository);
+    BlobStoreMultipartForm multipartForm = parse(repository, request);
+    try {
+      List<ComponentUpload> uploads = new ArrayList<>();
+      for (BlobStoreMultipartForm componentForm : splitBulkForm(multipartForm).values()) {
+        ComponentUpload upload = ComponentUploadUtils
+            .createComponentUpload(repository.getFormat().getValue(), componentForm);
+        for (ComponentUploadExtension componentUploadExtension : componentUploadExtensions) {
+          componentUploadExtension.validate(upload);
+        }
+        uploads.add(uploadHandler.getValidatingComponentUpload(upload).getComponentUpload());
+      }
+      log.info("Uploading {} components with parameters: repository=\"{}\" format=\"{}\"", uploads.size(),
+          repository.getName(), repository.getFormat().getValue());
+
+      return handleBatches(repository, uploadHandler, uploads);
+    }
+    finally {
+      for (TempBlobFormField file : multipartForm.getFiles().values()) {
+        file.getTempBlob().close();
+      }
+    }
+  }
+
+  /**
+   * Hands batches of uploads to the handler concurrently on the shared bulk pool, as the current user. Components of
+   * batches which succeeded are kept even when others fail.
+   */
+  private List<UploadResponse> handleBatches(final Repository repository,
+                                             final UploadHandler uploadHandler,
+                                             final List<ComponentUpload> uploads)
+      throws IOException
+  {
+    List<List<ComponentUpload>> batches = Lists.partition(uploads, bulkBatchSize);
+    Subject subject = ThreadContext.getSubject();
+    List<Future<List<UploadResponse>>> futures = new ArrayList<>(batches.size());
+    for (List<ComponentUpload> batch : batches) {
+      Callable<List<UploadResponse>> task = () -> uploadHandler.handleBulk(repository, batch);
+      futures.add(bulkExecutor.submit(subject != null ? subject.associateWith(task) : task));
+    }
+
+    try {
+      List<ComponentUpload> handled = new ArrayList<>(uploads.size());
+      List<UploadResponse> responses = new ArrayList<>(uploads.size());
+      Throwable failure = null;
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          responses.addAll(futures.get(i).get());
+          handled.addAll(batches.get(i));
+        }
+        catch (ExecutionException e) {
+          log.warn("Failed to upload batch {} of {} to repository {}", i + 1, batches.size(), repository.getName(),
+              log.isDebugEnabled() ? e.getCause() : null);
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted uploading components to " + repository.getName());
+        }
+      }
+
+      uploadHandler.afterBulkUpload(repository, responses);
+      for (int i = 0; i < handled.size(); i++) {
+        for (ComponentUploadExtension componentUploadExtension : componentUploadExtensions) {
+          componentUploadExtension.apply(repository, handled.get(i), responses.get(i).getComponentIds());
+        }
+      }
+
+      if (failure != null) {
+        Throwables.propagateIfPossible(failure, IOException.class);
+        throw new IOException(failure);
+      }
+      return responses;
+    }
+    finally {
+      futures.forEach(future -> future.cancel(true)); // no-op unless we were interrupted
+    }
+  }
+
+  /**
+   * Splits a bulk upload into a form per component, by the {@code component<n>.} prefix of its fields.
+   */
+  private static SortedMap<Integer, BlobStoreMultipartForm> splitBulkForm(final BlobStoreMultipartForm multipartForm) {
+    SortedMap<Integer, BlobStoreMultipartForm> componentForms = new TreeMap<>();
+    for (Entry<String, TempBlobFormField> file : multipartForm.getFiles().entrySet()) {
+      Matcher matcher = matchBulkField(file.getKey());
+      componentForms.computeIfAbsent(Integer.valueOf(matcher.group(1)), n -> new BlobStoreMultipartForm())
+          .putFile(matcher.group(2),
+              new TempBlobFormField(matcher.group(2), file.getValue().getFileName(), file.getValue().getTempBlob()));
+    }
+    for (Entry<String, String> field : multipartForm.getFormFields().entrySet()) {
+      Matcher matcher = matchBulkField(field.getKey());
+      componentForms.computeIfAbsent(Integer.valueOf(matcher.group(1)), n -> new BlobStoreMultipartForm())
+          .putFormField(matcher.group(2), field.getValue());
+    }
+    if (componentForms.isEmpty()) {
+      throw new ValidationErrorsException("No components found in bulk upload");
+    }
+    return componentForms;
+  }
+
+  private static Matcher matchBulkField(final String name) {
+    Matcher matcher = BULK_FIELD.matcher(name);
+    if (!matcher.matches()) {
+      throw new ValidationErrorsException(
+          format("Field '%s' of a bulk upload must be prefixed by the component number, as in 'component1.'", name));
+    }
+    return matcher;
+  }
+
   @Override
   public UploadDefinition getByFormat(final String format) {
     checkNotNull(format);
@@ -121,10 +282,15 @@ public class UploadManagerImpl
 
   private ComponentUpload create(final Repository repository, final HttpServletRequest request)
       throws IOException
+  {
+    return ComponentUploadUtils.createComponentUpload(repository.getFormat().getValue(), parse(repository, request));
+  }
+
+  private BlobStoreMultipartForm parse(final Repository repository, final HttpServletRequest request)
+      throws IOException
   {
     try {
-      BlobStoreMultipartForm multipartForm = multipartHelper.parse(repository, request);
-      return ComponentUploadUtils.createComponentUpload(repository.getFormat().getValue(), multipartForm);
+      return multipartHelper.parse(repository, request);
     }
     catch (FileUploadException e) {
       throw new IOException(e);
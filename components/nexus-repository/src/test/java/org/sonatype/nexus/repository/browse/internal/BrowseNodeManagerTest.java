@@ -12,7 +12,9 @@
  */
 package org.sonatype.nexus.repository.browse.internal;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,16 +33,30 @@ import org.sonatype.nexus.repository.storage.Component;
 import org.sonatype.nexus.repository.storage.ComponentStore;
 import org.sonatype.nexus.repository.storage.DefaultComponent;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.SetMultimap;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class BrowseNodeManagerTest
@@ -69,6 +85,9 @@ public class BrowseNodeManagerTest
   @Mock
   private Repository repository;
 
+  @Captor
+  private ArgumentCaptor<Multimap<Component, List<BrowsePaths>>> componentPaths;
+
   @Before
   public void setup() {
     Map<String, BrowseNodeGenerator> generators = new HashMap<>();
@@ -78,6 +97,14 @@ public class BrowseNodeManagerTest
     manager = new BrowseNodeManager(browseNodeStore, componentStore, generators);
 
     when(repository.getName()).thenReturn(REPOSITORY_NAME);
+
+    doAnswer(invocation -> {
+      List<Component> found = new ArrayList<>();
+      for (EntityId id : (Iterable<EntityId>) invocation.getArguments()[0]) {
+        found.add(componentStore.read(id));
+      }
+      return found;
+    }).when(componentStore).readAll(any());
   }
 
   @Test
@@ -130,11 +157,14 @@ public class BrowseNodeManagerTest
 
     manager.createFromAssets(repository, assets);
 
+    Map<Asset, List<BrowsePaths>> assetPaths = new LinkedHashMap<>();
     for (Asset asset : assets) {
-      verify(browseNodeStore).createAssetNode(REPOSITORY_NAME, MAVEN_2, toBrowsePaths(singletonList(asset.name())), asset);
+      assetPaths.put(asset, toBrowsePaths(singletonList(asset.name())));
     }
 
+    verify(browseNodeStore).createNodes(REPOSITORY_NAME, MAVEN_2, assetPaths, LinkedHashMultimap.create());
     verifyNoMoreInteractions(browseNodeStore);
+    verifyZeroInteractions(componentStore);
   }
 
   @Test
@@ -161,18 +191,68 @@ public class BrowseNodeManagerTest
 
     manager.createFromAssets(repository, assets);
 
+    Map<Asset, List<BrowsePaths>> assetPaths = new LinkedHashMap<>();
+    SetMultimap<Component, List<BrowsePaths>> componentPaths = LinkedHashMultimap.create();
     for (int i = 0; i < assets.size(); i++) {
       Asset asset = assets.get(i);
       Component component = components.get(i);
-      verify(browseNodeStore).createComponentNode(REPOSITORY_NAME, MAVEN_2,
-          toBrowsePaths(asList(component.group(), component.name(), component.version())), component);
-      verify(browseNodeStore).createAssetNode(REPOSITORY_NAME, MAVEN_2,
-          toBrowsePaths(asList(component.group(), component.name(), component.version(), asset.name())), asset);
+      assetPaths.put(asset,
+          toBrowsePaths(asList(component.group(), component.name(), component.version(), asset.name())));
+      componentPaths.put(component, toBrowsePaths(asList(component.group(), component.name(), component.version())));
     }
 
+    verify(componentStore)
+        .readAll(ImmutableSet.of(EntityHelper.id(components.get(0)), EntityHelper.id(components.get(1))));
+    verify(browseNodeStore).createNodes(REPOSITORY_NAME, MAVEN_2, assetPaths, componentPaths);
     verifyNoMoreInteractions(browseNodeStore);
   }
 
+  @Test
+  public void createFromAssetsSavesSharedComponentNodeOnce() {
+    Component component = createComponent("componentName", "componentGroup", "componentVersion", "componentId");
+
+    List<Asset> assets = asList(
+        createAsset("assetName1", "assetId1", MAVEN_2, EntityHelper.id(component)),
+        createAsset("assetName2", "assetId2", MAVEN_2, EntityHelper.id(component))
+    );
+
+    List<BrowsePaths> componentPath = toBrowsePaths(asList(component.group(), component.name(), component.version()));
+    for (Asset asset : assets) {
+      List<BrowsePaths> assetPath =
+          toBrowsePaths(asList(component.group(), component.name(), component.version(), asset.name()));
+      when(maven2BrowseNodeGenerator.computeAssetPaths(asset, component)).thenReturn(assetPath);
+      when(maven2BrowseNodeGenerator.computeComponentPaths(asset, component)).thenReturn(componentPath);
+    }
+
+    manager.createFromAssets(repository, assets);
+
+    verify(browseNodeStore).createNodes(eq(REPOSITORY_NAME), eq(MAVEN_2), any(), componentPaths.capture());
+    assertThat(componentPaths.getValue().size(), is(1));
+    assertThat(componentPaths.getValue().get(component), contains(componentPath));
+  }
+
+  @Test
+  public void createFromAssetsFallsBackToIndividualNodesWhenBatchFails() {
+    List<Asset> assets = asList(
+        createAsset("assetName1", "assetId1", MAVEN_2, null),
+        createAsset("assetName2", "assetId2", MAVEN_2, null)
+    );
+
+    for (Asset asset : assets) {
+      String name = asset.name();
+      when(maven2BrowseNodeGenerator.computeAssetPaths(asset, null)).thenReturn(toBrowsePaths(singletonList(name)));
+    }
+
+    doThrow(new RuntimeException("collision"))
+        .when(browseNodeStore).createNodes(any(), any(), any(), any());
+
+    manager.createFromAssets(repository, assets);
+
+    for (Asset asset : assets) {
+      verify(browseNodeStore).createAssetNode(REPOSITORY_NAME, MAVEN_2, toBrowsePaths(singletonList(asset.name())), asset);
+    }
+  }
+
 
   private Asset createAsset(final String assetName, final String assetId, final String format, final EntityId componentId) {
     EntityMetadata entityMetadata = mock(EntityMetadata.class);
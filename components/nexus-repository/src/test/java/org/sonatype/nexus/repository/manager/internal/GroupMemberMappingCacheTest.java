@@ -17,6 +17,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.group.GroupFacet;
@@ -31,7 +32,9 @@ import org.mockito.Mock;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -47,7 +50,7 @@ public class GroupMemberMappingCacheTest
 
   @Before
   public void setup() {
-    underTest = new GroupMemberMappingCache();
+    underTest = new GroupMemberMappingCache(100, Time.hours(24));
     underTest.init(repositoryManager);
   }
 
@@ -200,6 +203,66 @@ public class GroupMemberMappingCacheTest
     assertThat(groups, empty());
   }
 
+  @Test
+  public void testFindMergedGroups() {
+    Repository repo = mockRepository("repo");
+    Repository repo2 = mockRepository("repo2");
+    Repository group1 = mockGroupRepository("group1", repo);
+    Repository group2 = mockGroupRepository("group2", group1, repo2);
+    Repository group3 = mockGroupRepository("group3", repo);
+
+    when(repositoryManager.browse()).thenReturn(Arrays.asList(repo, repo2, group1, group2, group3));
+
+    underTest.recordMergedAsset("group2", "lodash");
+    underTest.recordMergedAsset("group3", "lodash");
+    underTest.recordMergedAsset("group1", "react");
+
+    assertThat(underTest.findMergedGroups("repo", "lodash"), containsInAnyOrder("group2", "group3"));
+    assertThat(underTest.findMergedGroups("repo2", "lodash"), contains("group2"));
+    assertThat(underTest.findMergedGroups("repo2", "react"), empty());
+    assertThat(underTest.findMergedGroups("repo", "express"), empty());
+
+    underTest.removeMergedAsset("group3", "lodash");
+
+    assertThat(underTest.findMergedGroups("repo", "lodash"), contains("group2"));
+  }
+
+  @Test
+  public void testOnRepositoryDeletedEvent_forgetsMergedAssets() {
+    Repository repo = mockRepository("repo");
+    Repository group = mockGroupRepository("group", repo);
+
+    when(repositoryManager.browse()).thenReturn(Arrays.asList(repo, group));
+
+    underTest.recordMergedAsset("group", "lodash");
+    underTest.on(new RepositoryDeletedEvent(group));
+
+    Repository recreatedGroup = mockGroupRepository("group", repo);
+    when(repositoryManager.browse()).thenReturn(Arrays.asList(repo, recreatedGroup));
+
+    assertThat(underTest.findMergedGroups("repo", "lodash"), empty());
+  }
+
+  @Test
+  public void testMergedAssetsAreBounded() {
+    Repository repo = mockRepository("repo");
+    Repository group = mockGroupRepository("group", repo);
+
+    when(repositoryManager.browse()).thenReturn(Arrays.asList(repo, group));
+
+    underTest.recordMergedAsset("group", "lodash");
+    assertThat(underTest.isMergedAsset("group", "lodash"), is(true));
+    assertThat(underTest.isMergedAsset("other", "lodash"), is(false));
+
+    for (int i = 0; i < 1000; i++) {
+      underTest.recordMergedAsset("group", "package" + i);
+    }
+
+    // evicted, so the group no longer trusts its cached copy and no member change is routed to it
+    assertThat(underTest.isMergedAsset("group", "lodash"), is(false));
+    assertThat(underTest.findMergedGroups("repo", "lodash"), empty());
+  }
+
   private Repository mockRepository(String name) {
     Repository repository = mock(Repository.class);
 
@@ -37,6 +37,7 @@ import com.google.common.collect.ImmutableMap
 import org.junit.Before
 import org.junit.Test
 import org.mockito.ArgumentCaptor
+import org.mockito.InOrder
 import org.mockito.Mock
 
 import static com.google.common.collect.Lists.asList
@@ -52,6 +53,7 @@ import static org.junit.Assert.assertFalse
 import static org.mockito.Matchers.any
 import static org.mockito.Matchers.isA
 import static org.mockito.Mockito.atLeastOnce
+import static org.mockito.Mockito.inOrder
 import static org.mockito.Mockito.mock
 import static org.mockito.Mockito.never
 import static org.mockito.Mockito.times
@@ -263,11 +265,13 @@ class RepositoryManagerImplTest
     return initializeAndStartRepositoryManager(skipDefaultRepositories)
   }
 
-  private RepositoryManagerImpl initializeAndStartRepositoryManager(boolean skipDefaultRepositories) {
+  private RepositoryManagerImpl initializeAndStartRepositoryManager(boolean skipDefaultRepositories,
+                                                                    int startupThreads = 1)
+  {
     repositoryManager = new RepositoryManagerImpl(eventManager, configurationStore, repositoryFactory,
         configurationFacetProvider, ImmutableMap.of(recipeName, recipe), securityContributor,
         defaultRepositoriesContributorList, databaseFreezeService, skipDefaultRepositories, blobStoreManager,
-        groupMemberMappingCache, [])
+        groupMemberMappingCache, [], startupThreads)
 
     repositoryManager.doStart()
     return repositoryManager
@@ -299,6 +303,31 @@ class RepositoryManagerImplTest
     verify(thirdPartyRepository).start()
   }
 
+  @Test
+  void 'groups are started after their members when starting concurrently'() {
+    when(configurationStore.list()).
+        thenReturn(asList(parentGroupConfiguration, groupConfiguration, mavenCentralConfiguration,
+            apacheSnapshotsConfiguration, thirdPartyConfiguration, cycleGroupAConfiguration, cycleGroupBConfiguration,
+            ungroupedRepoConfiguration))
+
+    repositoryManager = initializeAndStartRepositoryManager(false, 4)
+
+    assertThat(repositoryManager.browse()).hasSize(8)
+
+    InOrder memberOrder = inOrder(mavenCentralRepository, groupRepository, parentGroupRepository)
+    memberOrder.verify(mavenCentralRepository).start()
+    memberOrder.verify(groupRepository).start()
+    memberOrder.verify(parentGroupRepository).start()
+
+    InOrder otherMemberOrder = inOrder(apacheSnapshotsRepository, groupRepository)
+    otherMemberOrder.verify(apacheSnapshotsRepository).start()
+    otherMemberOrder.verify(groupRepository).start()
+
+    // cyclic groups are still started
+    verify(cycleGroupA).start()
+    verify(cycleGroupB).start()
+  }
+
   @Test
   void 'it should correctly create default repositories if none are configured on startup'() {
     repositoryManager = buildRepositoryManagerImpl(false)
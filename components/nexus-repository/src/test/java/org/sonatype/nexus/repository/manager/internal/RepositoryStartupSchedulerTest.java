@@ -0,0 +1,126 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.manager.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.sonatype.goodies.common.MultipleFailures.MultipleFailuresException;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.Configuration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RepositoryStartupScheduler}.
+ */
+public class RepositoryStartupSchedulerTest
+    extends TestSupport
+{
+  private final Map<String, Collection<String>> members = new HashMap<>();
+
+  private final Set<String> started = ConcurrentHashMap.newKeySet();
+
+  private RepositoryStartupScheduler underTest;
+
+  private Repository hosted;
+
+  private Repository proxy;
+
+  private Repository group;
+
+  private Repository outerGroup;
+
+  @Before
+  public void setUp() {
+    hosted = repository("hosted");
+    proxy = repository("proxy");
+    group = repository("group", "hosted", "proxy");
+    outerGroup = repository("outer", "group", "missing");
+
+    underTest = new RepositoryStartupScheduler(4,
+        repository -> members.getOrDefault(repository.getName(), Collections.emptyList()));
+  }
+
+  @Test
+  public void buildKeepsConfigurationOrder() throws Exception {
+    List<Configuration> configurations = Arrays.asList(mock(Configuration.class), mock(Configuration.class));
+    when(configurations.get(0).getRepositoryName()).thenReturn("hosted");
+    when(configurations.get(1).getRepositoryName()).thenReturn("proxy");
+
+    List<Repository> built = underTest.build(configurations,
+        configuration -> "hosted".equals(configuration.getRepositoryName()) ? hosted : proxy);
+
+    assertThat(built, contains(hosted, proxy));
+  }
+
+  @Test
+  public void groupsStartAfterTheirMembers() throws Exception {
+    underTest.start(Arrays.asList(outerGroup, group, proxy, hosted), repository -> {
+      for (String member : members.getOrDefault(repository.getName(), Collections.emptyList())) {
+        if (!"missing".equals(member) && !started.contains(member)) {
+          fail(repository.getName() + " started before " + member);
+        }
+      }
+      started.add(repository.getName());
+    });
+
+    assertThat(started, containsInAnyOrder("hosted", "proxy", "group", "outer"));
+    assertThat(underTest.getStartTimes().keySet(), containsInAnyOrder("hosted", "proxy", "group", "outer"));
+  }
+
+  @Test
+  public void groupsAreNotStartedWhenAMemberFails() throws Exception {
+    try {
+      underTest.start(Arrays.asList(outerGroup, group, proxy, hosted), repository -> {
+        if (repository == proxy) {
+          throw new IllegalStateException("broken");
+        }
+        started.add(repository.getName());
+      });
+      fail("Expected startup failure");
+    }
+    catch (MultipleFailuresException e) {
+      assertThat(e.getFailures().size(), is(1));
+    }
+
+    assertThat(started, hasItems("hosted"));
+    assertThat(started, not(hasItems("group")));
+    assertThat(started, not(hasItems("outer")));
+  }
+
+  private Repository repository(final String name, final String... memberNames) {
+    Repository repository = mock(Repository.class);
+    when(repository.getName()).thenReturn(name);
+    members.put(name, Arrays.asList(memberNames));
+    return repository;
+  }
+}
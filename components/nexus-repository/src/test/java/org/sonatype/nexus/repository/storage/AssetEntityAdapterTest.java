@@ -29,6 +29,7 @@ import static java.util.Collections.singletonMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_ATTRIBUTES;
@@ -117,11 +118,55 @@ public class AssetEntityAdapterTest
     }
   }
 
+  @Test
+  public void testFindByNameUsesNearCache() {
+    AssetNearCache nearCache = new AssetNearCache(100);
+    assetEntityAdapter.setNearCache(nearCache);
+    createAssetWithName("some-asset");
+
+    try (ODatabaseDocumentTx db = database.getInstance().acquire()) {
+      assertThat(nearCache.get("test-repo", "some-asset"), is(nullValue()));
+      assertThat(assetEntityAdapter.findByName(db, "some-asset", bucket).name(), is("some-asset"));
+      assertThat(nearCache.get("test-repo", "some-asset"), is(notNullValue()));
+      assertThat(assetEntityAdapter.findByName(db, "some-asset", bucket).name(), is("some-asset"));
+      assertThat(assetEntityAdapter.findByName(db, "missing-asset", bucket), is(nullValue()));
+    }
+  }
+
+  @Test
+  public void testFindByNameValidatesCachedRecord() {
+    AssetNearCache nearCache = new AssetNearCache(100);
+    assetEntityAdapter.setNearCache(nearCache);
+    createAssetWithName("renamed-asset", "1.0");
+    createAssetWithName("deleted-asset", "2.0");
+
+    try (ODatabaseDocumentTx db = database.getInstance().acquire()) {
+      Asset renamed = assetEntityAdapter.findByName(db, "renamed-asset", bucket);
+      Asset deleted = assetEntityAdapter.findByName(db, "deleted-asset", bucket);
+
+      // change the records without sending events, so the cache still has stale entries
+      db.begin();
+      renamed.name("new-name");
+      assetEntityAdapter.editEntity(db, renamed);
+      assetEntityAdapter.deleteEntity(db, deleted);
+      db.commit();
+
+      assertThat(assetEntityAdapter.findByName(db, "renamed-asset", bucket), is(nullValue()));
+      assertThat(assetEntityAdapter.findByName(db, "deleted-asset", bucket), is(nullValue()));
+      assertThat(assetEntityAdapter.findByName(db, "new-name", bucket), is(notNullValue()));
+      assertThat(nearCache.get("test-repo", "renamed-asset"), is(nullValue()));
+    }
+  }
+
   private void createAssetWithName(final String assetName) {
+    createAssetWithName(assetName, "1.0");
+  }
+
+  private void createAssetWithName(final String assetName, final String componentVersion) {
     try (ODatabaseDocumentTx db = database.getInstance().acquire()) {
       db.begin();
 
-      Component component = createComponent(bucket, "some-group", "some-component", "1.0");
+      Component component = createComponent(bucket, "some-group", "some-component", componentVersion);
       componentEntityAdapter.addEntity(db, component);
 
       Asset asset = createAsset(bucket, assetName, component);
@@ -0,0 +1,88 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.storage;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+
+public class AssetNearCacheTest
+    extends TestSupport
+{
+  @Mock
+  private AssetDeletedEvent assetDeletedEvent;
+
+  @Mock
+  private Asset asset;
+
+  @Mock
+  private Repository repository;
+
+  private AssetNearCache underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new AssetNearCache(100);
+    underTest.put("maven-central", "a/b/c.pom", new ORecordId(12, 1), 3);
+    underTest.put("maven-central", "a/b/c.jar", new ORecordId(12, 2), 1);
+  }
+
+  @Test
+  public void assetEventsInvalidateEntry() {
+    when(assetDeletedEvent.getRepositoryName()).thenReturn("maven-central");
+    when(assetDeletedEvent.getAsset()).thenReturn(asset);
+    when(asset.name()).thenReturn("a/b/c.pom");
+
+    underTest.on(assetDeletedEvent);
+
+    assertThat(underTest.get("maven-central", "a/b/c.pom"), is(nullValue()));
+    assertThat(underTest.get("maven-central", "a/b/c.jar").getVersion(), is(1));
+  }
+
+  @Test
+  public void repositoryDeletionDropsItsEntries() {
+    when(repository.getName()).thenReturn("maven-central");
+
+    underTest.on(new RepositoryDeletedEvent(repository));
+
+    assertThat(underTest.get("maven-central", "a/b/c.jar"), is(nullValue()));
+  }
+
+  @Test
+  public void temporaryRecordsAreNotCached() {
+    underTest.put("maven-central", "new.pom", new ORecordId(12, -2), 0);
+
+    assertThat(underTest.get("maven-central", "new.pom"), is(nullValue()));
+    assertThat(underTest.get("maven-central", "a/b/c.jar"), is(notNullValue()));
+  }
+
+  @Test
+  public void disabledCacheStoresNothing() {
+    underTest = new AssetNearCache(0);
+    underTest.put("maven-central", "a/b/c.pom", new ORecordId(12, 1), 3);
+
+    assertThat(underTest.isEnabled(), is(false));
+    assertThat(underTest.get("maven-central", "a/b/c.pom"), is(nullValue()));
+  }
+}
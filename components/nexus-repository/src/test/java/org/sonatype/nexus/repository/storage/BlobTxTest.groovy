@@ -18,8 +18,10 @@ import org.sonatype.goodies.testsupport.TestSupport
 import org.sonatype.nexus.blobstore.api.Blob
 import org.sonatype.nexus.blobstore.api.BlobId
 import org.sonatype.nexus.blobstore.api.BlobMetrics
+import org.sonatype.nexus.blobstore.api.BlobRef
 import org.sonatype.nexus.blobstore.api.BlobStore
 import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration
+import org.sonatype.nexus.blobstore.api.BlobStoreException
 import org.sonatype.nexus.common.hash.HashAlgorithm
 import org.sonatype.nexus.common.node.NodeAccess
 
@@ -30,7 +32,10 @@ import static org.hamcrest.MatcherAssert.assertThat
 import static org.hamcrest.Matchers.equalTo
 import static org.hamcrest.Matchers.hasEntry
 import static org.hamcrest.Matchers.is
+import static org.mockito.Matchers.any
 import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.never
+import static org.mockito.Mockito.verify
 import static org.mockito.Mockito.when
 import static org.sonatype.nexus.blobstore.api.BlobStore.CONTENT_TYPE_HEADER
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1
@@ -153,4 +158,104 @@ class BlobTxTest
     assertThat(assetBlob.hashes, hasEntry(SHA1, HashCode.fromString('356a192b7913b04c54574d18c28d46e6395428ab')))
     assertThat(assetBlob.ingestedBlob, is(blob))
   }
+
+  @Test
+  void 'promote temp blob in place and revert when rolled back'() {
+    String contentType = 'text/plain'
+    Map<String, String> tempHeaders = [(BlobStore.TEMPORARY_BLOB_HEADER): '']
+    Map<String, String> headers = [(CONTENT_TYPE_HEADER): contentType]
+    Map<HashAlgorithm, HashCode> hashes = [(SHA1): HashCode.fromString('356a192b7913b04c54574d18c28d46e6395428ab')]
+
+    NodeAccess nodeAccess = mock(NodeAccess.class)
+    BlobId blobId = new BlobId('tmp$blobid')
+    Blob blob = mock(Blob.class)
+    when(blob.getId()).thenReturn(blobId)
+    when(blob.getHeaders()).thenReturn(tempHeaders)
+
+    BlobStore blobStore = mock(BlobStore.class)
+    when(blobStore.replaceHeaders(blobId, headers)).thenReturn(blob)
+    when(blobStore.replaceHeaders(blobId, tempHeaders)).thenReturn(blob)
+
+    TempBlob tempBlob = new TempBlob(blob, hashes, true, blobStore)
+    BlobTx testSubject = new BlobTx(nodeAccess, blobStore)
+    AssetBlob assetBlob = testSubject.createByPromoting(tempBlob, headers)
+
+    assertThat(assetBlob.blob, is(blob))
+    assertThat(assetBlob.hashesVerified, is(true))
+    verify(blobStore).replaceHeaders(blobId, headers)
+    verify(blobStore, never()).copy(any(BlobId.class), any(Map.class))
+
+    // promoted blob now belongs to the asset
+    tempBlob.close()
+    verify(blobStore, never()).deleteHard(blobId)
+
+    testSubject.rollback()
+    verify(blobStore).replaceHeaders(blobId, tempHeaders)
+
+    // reverted blob is temporary again
+    tempBlob.close()
+    verify(blobStore).deleteHard(blobId)
+  }
+
+  @Test
+  void 'copy temp blob when blob store cannot promote'() {
+    String contentType = 'text/plain'
+    Map<String, String> headers = [(CONTENT_TYPE_HEADER): contentType]
+    Map<HashAlgorithm, HashCode> hashes = [(SHA1): HashCode.fromString('356a192b7913b04c54574d18c28d46e6395428ab')]
+
+    NodeAccess nodeAccess = mock(NodeAccess.class)
+    Blob tempBlobContent = mock(Blob.class)
+    when(tempBlobContent.getId()).thenReturn(new BlobId('tmp$blobid'))
+    when(tempBlobContent.getHeaders()).thenReturn([:])
+    Blob copiedBlob = mock(Blob.class)
+    when(copiedBlob.getId()).thenReturn(new BlobId('blobid'))
+
+    BlobStore blobStore = mock(BlobStore.class)
+    when(blobStore.copy(new BlobId('tmp$blobid'), headers)).thenReturn(copiedBlob)
+
+    BlobTx testSubject = new BlobTx(nodeAccess, blobStore)
+    AssetBlob assetBlob = testSubject.createByPromoting(new TempBlob(tempBlobContent, hashes, true, blobStore), headers)
+
+    assertThat(assetBlob.blob, is(copiedBlob))
+  }
+
+  @Test
+  void 'commit deletes several blobs as one batch'() {
+    BlobStore blobStore = mock(BlobStore.class)
+
+    BlobTx testSubject = new BlobTx(mock(NodeAccess.class), blobStore)
+    testSubject.delete(new BlobRef('node', 'store', 'a'), 'Deleting asset a')
+    testSubject.delete(new BlobRef('node', 'store', 'b'), 'Deleting asset b')
+    testSubject.commit()
+
+    verify(blobStore).deleteBatch([(new BlobId('a')): 'Deleting asset a', (new BlobId('b')): 'Deleting asset b'])
+    verify(blobStore, never()).delete(any(BlobId.class), any(String.class))
+  }
+
+  @Test
+  void 'commit deletes a single blob directly'() {
+    BlobStore blobStore = mock(BlobStore.class)
+
+    BlobTx testSubject = new BlobTx(mock(NodeAccess.class), blobStore)
+    testSubject.delete(new BlobRef('node', 'store', 'a'), 'Deleting asset a')
+    testSubject.commit()
+
+    verify(blobStore).delete(new BlobId('a'), 'Deleting asset a')
+    verify(blobStore, never()).deleteBatch(any(Map.class))
+  }
+
+  @Test
+  void 'commit falls back to deleting blobs one at a time when the batch fails'() {
+    BlobStore blobStore = mock(BlobStore.class)
+    when(blobStore.deleteBatch(any(Map.class))).thenThrow(new BlobStoreException('failed', null))
+    when(blobStore.delete(new BlobId('a'), 'Deleting asset a')).thenThrow(new BlobStoreException('failed', null))
+
+    BlobTx testSubject = new BlobTx(mock(NodeAccess.class), blobStore)
+    testSubject.delete(new BlobRef('node', 'store', 'a'), 'Deleting asset a')
+    testSubject.delete(new BlobRef('node', 'store', 'b'), 'Deleting asset b')
+    testSubject.commit()
+
+    verify(blobStore).delete(new BlobId('a'), 'Deleting asset a')
+    verify(blobStore).delete(new BlobId('b'), 'Deleting asset b')
+  }
 }
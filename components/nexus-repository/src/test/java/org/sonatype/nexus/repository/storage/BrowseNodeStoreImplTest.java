@@ -14,6 +14,7 @@ package org.sonatype.nexus.repository.storage;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.StreamSupport;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -39,11 +40,13 @@ import org.sonatype.nexus.selector.SelectorSqlBuilder;
 import org.sonatype.nexus.validation.ConstraintViolationFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import static java.util.Arrays.asList;
@@ -225,6 +228,25 @@ public class BrowseNodeStoreImplTest
     verifyNoMoreInteractions(browseNodeEntityAdapter, securityHelper, selectorManager);
   }
 
+  @Test
+  public void createNodesSharesKnownParentsAcrossBatch() throws Exception {
+    List<BrowsePaths> componentPath = asList(new BrowsePaths("org", "org"), new BrowsePaths("foo", "org/foo"),
+        new BrowsePaths("1.0", "org/foo/1.0"));
+    List<BrowsePaths> assetPath = asList(new BrowsePaths("org", "org"), new BrowsePaths("foo", "org/foo"),
+        new BrowsePaths("1.0", "org/foo/1.0"), new BrowsePaths("foo-1.0.jar", "org/foo/1.0/foo-1.0.jar"));
+
+    underTest.createNodes(REPOSITORY_NAME, "aformat", ImmutableMap.of(asset, assetPath),
+        ImmutableListMultimap.of(component, componentPath));
+
+    ArgumentCaptor<Set<String>> knownParentPaths = ArgumentCaptor.forClass((Class) Set.class);
+    verify(browseNodeEntityAdapter).createAssetNode(eq(db), eq(REPOSITORY_NAME), eq("aformat"), eq(assetPath), eq(asset),
+        knownParentPaths.capture());
+    verify(browseNodeEntityAdapter).createComponentNode(db, REPOSITORY_NAME, "aformat", componentPath, component,
+        knownParentPaths.getValue());
+
+    verifyNoMoreInteractions(browseNodeEntityAdapter, securityHelper, selectorManager);
+  }
+
   @Test
   public void simpleQueryWithBrowsePermission() throws Exception {
     List<String> queryPath = asList("org", "foo");
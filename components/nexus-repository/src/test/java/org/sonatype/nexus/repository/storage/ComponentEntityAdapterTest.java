@@ -33,6 +33,7 @@ import org.mockito.Mock;
 
 import static java.util.Collections.emptySet;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -189,4 +190,55 @@ public class ComponentEntityAdapterTest
       assertThat(entityAdapter.exists(db, null, "foo", null, bucket), is(false));
     }
   }
+
+  @Test
+  public void testBrowseBucketPage() {
+    try (ODatabaseDocumentTx db = database.getInstance().connect()) {
+      entityAdapter.register(db);
+
+      Bucket otherBucket = new Bucket();
+      otherBucket.attributes(new NestedAttributesMap(P_ATTRIBUTES, new HashMap<>()));
+      otherBucket.setRepositoryName("other-repo");
+      new BucketEntityAdapter().addEntity(db, otherBucket);
+
+      entityAdapter.addEntity(db, createComponent(bucket, "org.b", "app", "1.0"));
+      entityAdapter.addEntity(db, createComponent(bucket, "org.a", "lib", "2.0"));
+      entityAdapter.addEntity(db, createComponent(otherBucket, "org.a", "lib", "3.0"));
+      entityAdapter.addEntity(db, createComponent(bucket, "org.a", "lib", "1.0"));
+      entityAdapter.addEntity(db, createComponent(bucket, "org.a", "app", "1.0"));
+      entityAdapter.addEntity(db, createComponent(otherBucket, "org.c", "app", "1.0"));
+
+      List<String> walked = Lists.newArrayList();
+      Component after = null;
+      List<Component> page;
+      while (!(page = entityAdapter.browseBucketPage(db, bucket, after, 2)).isEmpty()) {
+        assertThat(page.size() <= 2, is(true));
+        page.forEach(c -> walked.add(c.group() + ":" + c.name() + ":" + c.version()));
+        after = page.get(page.size() - 1);
+      }
+
+      assertThat(walked, contains("org.a:app:1.0", "org.a:lib:1.0", "org.a:lib:2.0", "org.b:app:1.0"));
+    }
+  }
+
+  @Test
+  public void testFindByGroupNameVersion() {
+    try (ODatabaseDocumentTx db = database.getInstance().connect()) {
+      entityAdapter.register(db);
+
+      Bucket otherBucket = new Bucket();
+      otherBucket.attributes(new NestedAttributesMap(P_ATTRIBUTES, new HashMap<>()));
+      otherBucket.setRepositoryName("other-repo");
+      new BucketEntityAdapter().addEntity(db, otherBucket);
+
+      entityAdapter.addEntity(db, createComponent(bucket, "org.a", "lib", "1.0"));
+      entityAdapter.addEntity(db, createComponent(otherBucket, "org.a", "lib", "1.0"));
+      entityAdapter.addEntity(db, createComponent(otherBucket, "org.a", "Lib", "1.0"));
+      entityAdapter.addEntity(db, createComponent(bucket, "org.a", "lib", "2.0"));
+
+      assertThat(entityAdapter.findByGroupNameVersion(db, "org.a", "lib", "1.0"), hasSize(2));
+      assertThat(entityAdapter.findByGroupNameVersion(db, "org.a", "Lib", "1.0"), hasSize(1));
+      assertThat(entityAdapter.findByGroupNameVersion(db, "org.a", "lib", "3.0"), hasSize(0));
+    }
+  }
 }
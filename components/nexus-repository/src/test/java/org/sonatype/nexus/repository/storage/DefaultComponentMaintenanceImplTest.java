@@ -22,12 +22,16 @@ import org.sonatype.nexus.common.entity.EntityId;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.storage.DefaultComponentMaintenanceImpl.DeletionProgress;
 
+import com.google.common.util.concurrent.RateLimiter;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,6 +54,9 @@ public class DefaultComponentMaintenanceImplTest
   @Mock
   private StorageTx tx;
 
+  @Mock
+  private RateLimiter deletionRateLimiter;
+
   private List<EntityId> entityIds;
 
   private DefaultComponentMaintenanceImpl underTest;
@@ -97,6 +104,36 @@ public class DefaultComponentMaintenanceImplTest
     verify(deleteProgress, times(2)).getCount();
   }
 
+  @Test
+  public void rateLimiterIsAcquiredBeforeEachBatchTransaction() throws Exception {
+    List<String> events = new ArrayList<>();
+    when(deletionRateLimiter.acquire(anyInt())).thenAnswer(invocation -> {
+      events.add("acquire " + invocation.getArguments()[0]);
+      return 0.0;
+    });
+    DefaultComponentMaintenanceImpl defaultComponentMaintenance = new DefaultComponentMaintenanceImpl()
+    {
+      @Override
+      protected DeletionProgress doBatchDelete(final List<EntityId> entityIds, final BooleanSupplier cancelledCheck) {
+        events.add("delete " + entityIds.size());
+        return new DeletionProgress();
+      }
+    };
+    defaultComponentMaintenance.attach(repository);
+
+    defaultComponentMaintenance.deleteComponents(Arrays.asList(entityId1, entityId2, entityId1), () -> false, 2,
+        deletionRateLimiter);
+
+    assertThat(events, contains("acquire 2", "delete 2", "acquire 1", "delete 1"));
+  }
+
+  @Test
+  public void rateLimiterIsNotAcquiredAfterCancellation() throws Exception {
+    underTest.deleteComponents(entityIds, () -> true, 1, deletionRateLimiter);
+
+    verify(deletionRateLimiter, never()).acquire(anyInt());
+  }
+
   @Test
   public void batchFailureFailsDeletion() throws Exception {
     when(deleteProgress.isFailed()).thenReturn(true);
@@ -13,6 +13,8 @@
 package org.sonatype.nexus.repository.storage
 
 import org.sonatype.goodies.testsupport.TestSupport
+import org.sonatype.nexus.blobstore.api.Blob
+import org.sonatype.nexus.blobstore.api.BlobStore
 import org.sonatype.nexus.mime.MimeRulesSource
 import org.sonatype.nexus.mime.internal.DefaultMimeSupport
 import org.sonatype.nexus.repository.InvalidContentException
@@ -23,6 +25,9 @@ import org.junit.Test
 
 import static org.hamcrest.CoreMatchers.equalTo
 import static org.hamcrest.MatcherAssert.assertThat
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.never
+import static org.mockito.Mockito.verify
 
 /**
  * Tests for {@link DefaultContentValidator}.
@@ -276,4 +281,23 @@ class DefaultContentValidatorTest
     )
     assertThat(type, equalTo(ContentTypes.APPLICATION_XML))
   }
+
+  @Test
+  void 'temp blob detected from leading bytes without reading blob'() {
+    Blob blob = mock(Blob)
+    TempBlob tempBlob = new TempBlob(blob, [:], true, mock(BlobStore), 'simple text'.bytes)
+
+    2.times {
+      def type = testSubject.determineContentType(
+          true,
+          tempBlob,
+          MimeRulesSource.NOOP,
+          'test.txt',
+          ContentTypes.TEXT_PLAIN
+      )
+      assertThat(type, equalTo(ContentTypes.TEXT_PLAIN))
+    }
+    assertThat(tempBlob.getDetectedMimeTypes('test.txt'), equalTo([ContentTypes.TEXT_PLAIN]))
+    verify(blob, never()).getInputStream()
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.storage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link LeadingBytesInputStream}.
+ */
+public class LeadingBytesInputStreamTest
+    extends TestSupport
+{
+  private static final byte[] CONTENT = "hello, world".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void keepsLeadingBytesUpToLimit() throws Exception {
+    LeadingBytesInputStream in = new LeadingBytesInputStream(new ByteArrayInputStream(CONTENT), 5);
+    assertThat(ByteStreams.toByteArray(in), is(CONTENT));
+    assertThat(in.leadingBytes(), is("hello".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void keepsAllBytesOfShortContent() throws Exception {
+    LeadingBytesInputStream in = new LeadingBytesInputStream(new ByteArrayInputStream(CONTENT), 1024);
+    assertThat((byte) in.read(), is(CONTENT[0]));
+    ByteStreams.exhaust(in);
+    assertThat(in.leadingBytes(), is(CONTENT));
+  }
+
+  @Test
+  public void skippingLeadingBytesDiscardsThem() throws Exception {
+    LeadingBytesInputStream in = new LeadingBytesInputStream(new ByteArrayInputStream(CONTENT), 5);
+    in.skip(2);
+    ByteStreams.exhaust(in);
+    assertThat(in.leadingBytes(), is(nullValue()));
+  }
+}
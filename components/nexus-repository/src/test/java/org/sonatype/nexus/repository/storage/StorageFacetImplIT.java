@@ -862,7 +862,8 @@ public class StorageFacetImplIT
         mimeRulesSourceSelector,
         storageFacetManager,
         componentFactory,
-        mock(ConstraintViolationFactory.class));
+        mock(ConstraintViolationFactory.class),
+        new HashingExecutor(0));
     storageFacetImpl.installDependencies(mock(EventManager.class));
 
     storageFacetImpl.attach(repository);
@@ -176,7 +176,8 @@ public class StorageFacetImplTest
         mimeRulesSourceSelector,
         storageFacetManager,
         componentFactory,
-        violationFactory
+        violationFactory,
+        new HashingExecutor(0)
     );
     underTest.attach(repository);
   }
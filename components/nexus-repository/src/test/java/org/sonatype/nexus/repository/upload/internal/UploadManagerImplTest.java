@@ -17,6 +17,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -49,8 +51,10 @@ import org.mockito.Mock;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -110,7 +114,7 @@ public class UploadManagerImplTest extends TestSupport
     handlers.put("b", handlerB);
 
     underTest = new UploadManagerImpl(handlers, blobStoreAwareMultipartHelper,
-        Collections.singleton(componentUploadExtension));
+        Collections.singleton(componentUploadExtension), 2, 2);
   }
 
   @Test
@@ -153,6 +157,86 @@ public class UploadManagerImplTest extends TestSupport
     verify(handlerA, never()).handle(anyObject(), anyObject());
   }
 
+  @Test
+  public void testHandleBulk() throws Exception {
+    BlobStoreMultipartForm uploadedForm = new BlobStoreMultipartForm();
+    for (int i = 1; i <= 5; i++) {
+      uploadedForm.putFile("component" + i + ".a.asset1",
+          new TempBlobFormField("component" + i + ".a.asset1", "foo-" + i + ".jar", mock(TempBlob.class)));
+      uploadedForm.putFormField("component" + i + ".a.version", Integer.toString(i));
+    }
+    when(blobStoreAwareMultipartHelper.parse(anyObject(), anyObject())).thenReturn(uploadedForm);
+    when(handlerA.handleBulk(anyObject(), anyObject())).thenAnswer(invocation -> {
+      List<?> batch = (List<?>) invocation.getArguments()[1];
+      return batch.stream().map(upload -> mock(UploadResponse.class)).collect(Collectors.toList());
+    });
+
+    List<UploadResponse> responses = underTest.handleBulk(repository, request);
+
+    assertThat(responses.size(), is(5));
+    ArgumentCaptor<List> batches = ArgumentCaptor.forClass(List.class);
+    verify(handlerA, times(3)).handleBulk(eq(repository), batches.capture());
+    List<String> versions = batches.getAllValues().stream()
+        .flatMap(batch -> ((List<ComponentUpload>) batch).stream())
+        .map(upload -> upload.getField("version"))
+        .sorted()
+        .collect(Collectors.toList());
+    assertThat(versions, contains("1", "2", "3", "4", "5"));
+    verify(handlerA).afterBulkUpload(repository, responses);
+    verify(componentUploadExtension, times(5)).apply(eq(repository), anyObject(), anyObject());
+    verify(handlerA, never()).handle(anyObject(), anyObject());
+  }
+
+  @Test
+  public void testHandleBulk_sharesThreadsAcrossRequests() throws Exception {
+    BlobStoreMultipartForm uploadedForm = new BlobStoreMultipartForm();
+    for (int i = 1; i <= 6; i++) {
+      uploadedForm.putFile("component" + i + ".a.asset1",
+          new TempBlobFormField("component" + i + ".a.asset1", "foo-" + i + ".jar", mock(TempBlob.class)));
+    }
+    when(blobStoreAwareMultipartHelper.parse(anyObject(), anyObject())).thenReturn(uploadedForm);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    when(handlerA.handleBulk(anyObject(), anyObject())).thenAnswer(invocation -> {
+      threads.add(Thread.currentThread());
+      List<?> batch = (List<?>) invocation.getArguments()[1];
+      return batch.stream().map(upload -> mock(UploadResponse.class)).collect(Collectors.toList());
+    });
+
+    underTest.handleBulk(repository, request);
+    underTest.handleBulk(repository, request);
+
+    verify(handlerA, times(6)).handleBulk(eq(repository), anyObject());
+    assertThat(threads.size(), lessThanOrEqualTo(2));
+  }
+
+  @Test
+  public void testHandleBulk_failedBatch() throws Exception {
+    BlobStoreMultipartForm uploadedForm = new BlobStoreMultipartForm();
+    TempBlob tempBlob = mock(TempBlob.class);
+    uploadedForm.putFile("component1.asset1", new TempBlobFormField("component1.asset1", "foo.jar", tempBlob));
+    when(blobStoreAwareMultipartHelper.parse(anyObject(), anyObject())).thenReturn(uploadedForm);
+    when(handlerA.handleBulk(anyObject(), anyObject())).thenThrow(new IOException("broken"));
+
+    try {
+      underTest.handleBulk(repository, request);
+      fail("Expected exception to be thrown");
+    }
+    catch (IOException e) {
+      assertThat(e.getMessage(), is("broken"));
+    }
+    verify(handlerA).afterBulkUpload(repository, Collections.emptyList());
+    verify(tempBlob).close();
+  }
+
+  @Test(expected = ValidationErrorsException.class)
+  public void testHandleBulk_unprefixedField() throws Exception {
+    BlobStoreMultipartForm uploadedForm = new BlobStoreMultipartForm();
+    uploadedForm.putFile("asset1", new TempBlobFormField("asset1", "foo.jar", mock(TempBlob.class)));
+    when(blobStoreAwareMultipartHelper.parse(anyObject(), anyObject())).thenReturn(uploadedForm);
+
+    underTest.handleBulk(repository, request);
+  }
+
   @Test
   public void testHandle_unsupportedRepositoryFormat() throws IOException {
     when(repository.getFormat()).thenReturn(new Format("c")
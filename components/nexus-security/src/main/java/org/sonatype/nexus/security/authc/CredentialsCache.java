@@ -0,0 +1,260 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.authc;
+
+import java.nio.CharBuffer;
+import java.security.SecureRandom;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.jmx.reflect.ManagedAttribute;
+import org.sonatype.nexus.jmx.reflect.ManagedObject;
+import org.sonatype.nexus.jmx.reflect.ManagedOperation;
+import org.sonatype.nexus.security.UserPrincipalsExpired;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.apache.shiro.subject.PrincipalCollection;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Short-lived cache of credentials that were recently verified, so repeated requests presenting the same password or
+ * API key skip the expensive password hash check and the API key lookup.
+ *
+ * Presented secrets are never kept; entries are keyed by a HMAC of the presented credentials using a random key that
+ * only lives as long as this process. Entries are dropped when the user's password changes or their principals expire,
+ * and when their API keys are deleted.
+ *
+ * @since 3.next
+ */
+@Named
+@Singleton
+@ManagedObject
+public class CredentialsCache
+    extends ComponentSupport
+    implements EventAware
+{
+  private final HashFunction keyFunction;
+
+  private final Cache<HashCode, VerifiedPassword> passwords;
+
+  private final Cache<HashCode, VerifiedApiKey> apiKeys;
+
+  @Inject
+  public CredentialsCache(@Named("${nexus.security.credentialsCache.maxSize:-10000}") final int maxSize,
+                          @Named("${nexus.security.credentialsCache.ttl:-60s}") final Time ttl)
+  {
+    checkArgument(maxSize >= 0, "Max size must be non-negative");
+    checkNotNull(ttl);
+
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.keyFunction = Hashing.hmacSha256(secret);
+
+    this.passwords = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl.toMillis(), MILLISECONDS)
+        .recordStats()
+        .build();
+
+    this.apiKeys = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl.toMillis(), MILLISECONDS)
+        .recordStats()
+        .build();
+
+    log.debug("Max size: {}, ttl: {}", maxSize, ttl);
+  }
+
+  /**
+   * Returns {@code true} if the given password was recently verified against the same stored password hash.
+   */
+  public boolean isPasswordVerified(final String userId, final char[] password, final String storedHash) {
+    VerifiedPassword verified = passwords.getIfPresent(passwordKey(userId, password));
+    return verified != null && verified.storedHash.equals(storedHash);
+  }
+
+  /**
+   * Records that the given password was successfully verified against the stored password hash.
+   */
+  public void passwordVerified(final String userId, final char[] password, final String storedHash) {
+    passwords.put(passwordKey(userId, password), new VerifiedPassword(userId, checkNotNull(storedHash)));
+  }
+
+  /**
+   * Returns the principals recently found for the given API key; {@code null} if the key isn't cached.
+   */
+  @Nullable
+  public PrincipalCollection getApiKeyPrincipals(final String domain, final char[] apiKey) {
+    VerifiedApiKey verified = apiKeys.getIfPresent(apiKeyKey(domain, apiKey));
+    return verified != null ? verified.principals : null;
+  }
+
+  /**
+   * Records the principals found for the given API key.
+   */
+  public void apiKeyVerified(final String domain, final char[] apiKey, final PrincipalCollection principals) {
+    apiKeys.put(apiKeyKey(domain, apiKey), new VerifiedApiKey(domain, checkNotNull(principals)));
+  }
+
+  /**
+   * Drops cached API keys belonging to the given user; when {@code domain} is {@code null} all domains are dropped.
+   */
+  public void invalidateApiKeys(@Nullable final String domain, final String userId) {
+    checkNotNull(userId);
+    invalidate(apiKeys, entry -> (domain == null || domain.equals(entry.domain))
+        && userId.equals(String.valueOf(entry.principals.getPrimaryPrincipal())));
+  }
+
+  /**
+   * Drops all cached API keys.
+   */
+  public void invalidateApiKeys() {
+    apiKeys.invalidateAll();
+  }
+
+  /**
+   * Drops all cached credentials belonging to the given user.
+   */
+  public void invalidateUser(final String userId) {
+    checkNotNull(userId);
+    invalidate(passwords, entry -> userId.equals(entry.userId));
+    invalidateApiKeys(null, userId);
+  }
+
+  @ManagedOperation
+  public void invalidateAll() {
+    passwords.invalidateAll();
+    apiKeys.invalidateAll();
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final UserPasswordChanged event) {
+    invalidateUser(event.getUserId());
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final UserPrincipalsExpired event) {
+    String userId = event.getUserId();
+    if (userId != null) {
+      invalidateUser(userId);
+    }
+    else {
+      invalidateAll();
+    }
+  }
+
+  @ManagedAttribute
+  public long getPasswordCacheSize() {
+    return passwords.size();
+  }
+
+  @ManagedAttribute
+  public double getPasswordHitRate() {
+    return passwords.stats().hitRate();
+  }
+
+  @ManagedAttribute
+  public long getPasswordHitCount() {
+    return passwords.stats().hitCount();
+  }
+
+  @ManagedAttribute
+  public long getPasswordMissCount() {
+    return passwords.stats().missCount();
+  }
+
+  @ManagedAttribute
+  public long getApiKeyCacheSize() {
+    return apiKeys.size();
+  }
+
+  @ManagedAttribute
+  public double getApiKeyHitRate() {
+    return apiKeys.stats().hitRate();
+  }
+
+  @ManagedAttribute
+  public long getApiKeyHitCount() {
+    return apiKeys.stats().hitCount();
+  }
+
+  @ManagedAttribute
+  public long getApiKeyMissCount() {
+    return apiKeys.stats().missCount();
+  }
+
+  private HashCode passwordKey(final String userId, final char[] password) {
+    return keyFunction.newHasher()
+        .putByte((byte) 'P')
+        .putString(checkNotNull(userId), UTF_8)
+        .putByte((byte) 0)
+        .putString(CharBuffer.wrap(checkNotNull(password)), UTF_8)
+        .hash();
+  }
+
+  private HashCode apiKeyKey(final String domain, final char[] apiKey) {
+    return keyFunction.newHasher()
+        .putByte((byte) 'K')
+        .putString(checkNotNull(domain), UTF_8)
+        .putByte((byte) 0)
+        .putString(CharBuffer.wrap(checkNotNull(apiKey)), UTF_8)
+        .hash();
+  }
+
+  private static <V> void invalidate(final Cache<HashCode, V> cache, final Predicate<V> predicate) {
+    cache.asMap().values().removeIf(predicate);
+  }
+
+  private static class VerifiedPassword
+  {
+    final String userId;
+
+    final String storedHash;
+
+    VerifiedPassword(final String userId, final String storedHash) {
+      this.userId = userId;
+      this.storedHash = storedHash;
+    }
+  }
+
+  private static class VerifiedApiKey
+  {
+    final String domain;
+
+    final PrincipalCollection principals;
+
+    VerifiedApiKey(final String domain, final PrincipalCollection principals) {
+      this.domain = domain;
+      this.principals = principals;
+    }
+  }
+}
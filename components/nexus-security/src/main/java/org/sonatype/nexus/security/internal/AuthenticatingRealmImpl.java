@@ -18,6 +18,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.nexus.security.authc.CredentialsCache;
 import org.sonatype.nexus.security.config.CUser;
 import org.sonatype.nexus.security.config.SecurityConfigurationManager;
 import org.sonatype.nexus.security.user.UserNotFoundException;
@@ -60,12 +61,16 @@ public class AuthenticatingRealmImpl
 
   private final PasswordService passwordService;
 
+  private final CredentialsCache credentialsCache;
+
   @Inject
   public AuthenticatingRealmImpl(final SecurityConfigurationManager configuration,
-                                 final PasswordService passwordService)
+                                 final PasswordService passwordService,
+                                 final CredentialsCache credentialsCache)
   {
     this.configuration = configuration;
     this.passwordService = passwordService;
+    this.credentialsCache = credentialsCache;
 
     PasswordMatcher passwordMatcher = new PasswordMatcher();
     passwordMatcher.setPasswordService(this.passwordService);
@@ -108,6 +113,25 @@ public class AuthenticatingRealmImpl
     }
   }
 
+  /**
+   * Skips the password hash check when the same password was recently verified against the same stored hash.
+   */
+  @Override
+  protected void assertCredentialsMatch(final AuthenticationToken token, final AuthenticationInfo info) {
+    UsernamePasswordToken upToken = (UsernamePasswordToken) token;
+    Object credentials = info.getCredentials();
+    if (upToken.getUsername() == null || upToken.getPassword() == null || !(credentials instanceof char[])) {
+      super.assertCredentialsMatch(token, info);
+      return;
+    }
+
+    String storedHash = new String((char[]) credentials);
+    if (!credentialsCache.isPasswordVerified(upToken.getUsername(), upToken.getPassword(), storedHash)) {
+      super.assertCredentialsMatch(token, info);
+      credentialsCache.passwordVerified(upToken.getUsername(), upToken.getPassword(), storedHash);
+    }
+  }
+
   /**
    * Re-hash user password, and persist changes.
    *
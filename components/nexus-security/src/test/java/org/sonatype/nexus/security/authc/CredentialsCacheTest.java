@@ -0,0 +1,103 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.authc;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.security.UserPrincipalsExpired;
+
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link CredentialsCache}.
+ */
+public class CredentialsCacheTest
+    extends TestSupport
+{
+  private static final char[] PASSWORD = "secret".toCharArray();
+
+  private static final char[] API_KEY = "key".toCharArray();
+
+  private CredentialsCache underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new CredentialsCache(100, Time.minutes(1));
+  }
+
+  @Test
+  public void passwordMustMatchStoredHash() {
+    underTest.passwordVerified("alice", PASSWORD, "hash1");
+
+    assertThat(underTest.isPasswordVerified("alice", PASSWORD, "hash1"), is(true));
+    assertThat(underTest.isPasswordVerified("alice", PASSWORD, "hash2"), is(false));
+    assertThat(underTest.isPasswordVerified("alice", "other".toCharArray(), "hash1"), is(false));
+    assertThat(underTest.isPasswordVerified("bob", PASSWORD, "hash1"), is(false));
+    assertThat(underTest.getPasswordHitCount(), is(2L));
+    assertThat(underTest.getPasswordMissCount(), is(2L));
+  }
+
+  @Test
+  public void passwordChangeInvalidatesUser() {
+    underTest.passwordVerified("alice", PASSWORD, "hash");
+    underTest.passwordVerified("bob", PASSWORD, "hash");
+    underTest.apiKeyVerified("npm", API_KEY, principals("alice"));
+
+    underTest.on(new UserPasswordChanged("alice"));
+
+    assertThat(underTest.isPasswordVerified("alice", PASSWORD, "hash"), is(false));
+    assertThat(underTest.getApiKeyPrincipals("npm", API_KEY), nullValue());
+    assertThat(underTest.isPasswordVerified("bob", PASSWORD, "hash"), is(true));
+  }
+
+  @Test
+  public void expiredPrincipalsInvalidateEverything() {
+    underTest.passwordVerified("alice", PASSWORD, "hash");
+    underTest.apiKeyVerified("npm", API_KEY, principals("bob"));
+
+    underTest.on(new UserPrincipalsExpired());
+
+    assertThat(underTest.getPasswordCacheSize(), is(0L));
+    assertThat(underTest.getApiKeyCacheSize(), is(0L));
+  }
+
+  @Test
+  public void apiKeysAreInvalidatedByDomain() {
+    underTest.apiKeyVerified("npm", API_KEY, principals("alice"));
+    underTest.apiKeyVerified("nuget", API_KEY, principals("alice"));
+
+    underTest.invalidateApiKeys("npm", "alice");
+
+    assertThat(underTest.getApiKeyPrincipals("npm", API_KEY), nullValue());
+    assertThat(underTest.getApiKeyPrincipals("nuget", API_KEY), is(principals("alice")));
+  }
+
+  @Test
+  public void zeroSizeDisablesCaching() {
+    underTest = new CredentialsCache(0, Time.minutes(1));
+    underTest.passwordVerified("alice", PASSWORD, "hash");
+
+    assertThat(underTest.isPasswordVerified("alice", PASSWORD, "hash"), is(false));
+  }
+
+  private static PrincipalCollection principals(final String userId) {
+    return new SimplePrincipalCollection(userId, "test");
+  }
+}
@@ -12,11 +12,15 @@
  */
 package org.sonatype.nexus.security.internal;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.security.authc.CredentialsCache;
 import org.sonatype.nexus.security.config.CUser;
 import org.sonatype.nexus.security.config.SecurityConfigurationManager;
 
+import org.apache.shiro.authc.IncorrectCredentialsException;
 import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authc.credential.PasswordService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -24,8 +28,13 @@ import org.mockito.Mock;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AuthenticatingRealmImplTest
@@ -42,6 +51,10 @@ public class AuthenticatingRealmImplTest
 
   private CUser testUser = new CUser();
 
+  private PasswordService passwordService;
+
+  private CredentialsCache credentialsCache;
+
   private AuthenticatingRealmImpl underTest;
 
   @Before
@@ -61,8 +74,9 @@ public class AuthenticatingRealmImplTest
       return null;
     }).when(configuration).updateUser(any());
 
-    underTest = new AuthenticatingRealmImpl(configuration,
-        new DefaultSecurityPasswordService(new LegacyNexusPasswordService()));
+    passwordService = spy(new DefaultSecurityPasswordService(new LegacyNexusPasswordService()));
+    credentialsCache = new CredentialsCache(100, Time.minutes(1));
+    underTest = new AuthenticatingRealmImpl(configuration, passwordService, credentialsCache);
   }
 
   @Test
@@ -71,4 +85,37 @@ public class AuthenticatingRealmImplTest
     underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
     assertThat(testUser.getPassword(), startsWith("$shiro1$SHA-512$1024$"));
   }
+
+  @Test
+  public void testVerifiedPasswordIsCached() throws Exception {
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD)); // re-hashes legacy
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+
+    // once for the legacy hash, once for the re-hashed password, then served from cache
+    verify(passwordService, times(2)).passwordsMatch(any(), anyString());
+    assertThat(credentialsCache.getPasswordHitCount(), is(2L));
+  }
+
+  @Test(expected = IncorrectCredentialsException.class)
+  public void testWrongPasswordIsNotServedFromCache() throws Exception {
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, "wrong"));
+  }
+
+  @Test
+  public void testChangedPasswordIsCheckedAgain() throws Exception {
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+
+    testUser.setPassword(passwordService.encryptPassword("changed"));
+    try {
+      underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, TEST_PASSWORD));
+      fail("Old password should no longer be accepted");
+    }
+    catch (IncorrectCredentialsException e) {
+      // expected
+    }
+    underTest.getAuthenticationInfo(new UsernamePasswordToken(TEST_USERNAME, "changed"));
+  }
 }
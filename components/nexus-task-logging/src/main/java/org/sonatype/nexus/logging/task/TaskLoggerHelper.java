@@ -12,7 +12,10 @@
  */
 package org.sonatype.nexus.logging.task;
 
+import java.util.Map;
+
 import org.slf4j.Logger;
+import org.slf4j.MDC;
 
 /**
  * Each task is executed in its own thread and its {@link TaskLogger} is stored in it here.
@@ -55,6 +58,43 @@ public class TaskLoggerHelper
     progress(new TaskLoggingEvent(logger, message, args));
   }
 
+  /**
+   * Wraps work that a task hands to another thread, so it runs with the task's {@link TaskLogger} and MDC and its log
+   * output goes to the same task log. The worker thread's own context is restored afterwards.
+   *
+   * @since 3.next
+   */
+  public static Runnable wrap(final Runnable work) {
+    TaskLogger taskLogger = get();
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+    return () -> {
+      TaskLogger previousTaskLogger = get();
+      Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+      setContext(taskLogger, mdc);
+      try {
+        work.run();
+      }
+      finally {
+        setContext(previousTaskLogger, previousMdc);
+      }
+    };
+  }
+
+  private static void setContext(final TaskLogger taskLogger, final Map<String, String> mdc) {
+    if (taskLogger != null) {
+      context.set(taskLogger);
+    }
+    else {
+      context.remove();
+    }
+    if (mdc != null) {
+      MDC.setContextMap(mdc);
+    }
+    else {
+      MDC.clear();
+    }
+  }
+
   /**
    * @see TaskLogger#flush()
    */
@@ -12,12 +12,17 @@
  */
 package org.sonatype.nexus.logging.task;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.sonatype.goodies.testsupport.TestSupport;
 
 import org.junit.Test;
 import org.mockito.Mock;
 import org.slf4j.Logger;
+import org.slf4j.MDC;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.verify;
@@ -45,4 +50,36 @@ public class TaskLoggerHelperTest
     TaskLoggerHelper.finish();
     assertNull(TaskLoggerHelper.get());
   }
+
+  @Test
+  public void testWrap() throws Exception {
+    TaskLoggerHelper.start(taskLogger);
+    MDC.put("taskId", "test-task");
+    try {
+      Runnable work = TaskLoggerHelper.wrap(() -> {
+        assertThat(TaskLoggerHelper.get(), is(taskLogger));
+        assertThat(MDC.get("taskId"), is("test-task"));
+      });
+
+      AtomicReference<Throwable> failure = new AtomicReference<>();
+      Thread worker = new Thread(() -> {
+        try {
+          work.run();
+          assertNull(TaskLoggerHelper.get());
+          assertNull(MDC.get("taskId"));
+        }
+        catch (Throwable e) { // NOSONAR
+          failure.set(e);
+        }
+      });
+      worker.start();
+      worker.join();
+
+      assertNull(failure.get());
+    }
+    finally {
+      MDC.remove("taskId");
+      TaskLoggerHelper.finish();
+    }
+  }
 }
@@ -13,13 +13,25 @@
 package org.sonatype.nexus.transaction;
 
 import java.io.IOException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
 
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.goodies.common.Time;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -27,9 +39,14 @@ import static com.google.common.collect.Sets.difference;
 import static com.google.common.collect.Sets.union;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toMap;
 import static org.sonatype.goodies.common.Time.millis;
+import static org.sonatype.goodies.common.Time.seconds;
 import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getInteger;
 import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getString;
 import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getTime;
@@ -52,10 +69,37 @@ public class RetryController
 
   private static final Time DEFAULT_MAJOR_DELAY_MILLIS = millis(100);
 
+  private static final int DEFAULT_HOT_KEY_THRESHOLD = 3;
+
+  private static final Time DEFAULT_HOT_KEY_WAIT = millis(250);
+
+  private static final Time MAX_HOT_KEY_WAIT = seconds(2);
+
+  private static final int DEFAULT_TRACKED_KEYS = 1000;
+
   public static final RetryController INSTANCE = new RetryController();
 
   private final RollingStats excessiveRetriesHourlyStats = new RollingStats(60, MINUTES);
 
+  /**
+   * Conflicts in the last minute, per contended record/entity key.
+   */
+  private final Cache<Object, RollingStats> conflictStats = CacheBuilder.newBuilder()
+      .maximumSize(getInteger("nexus.tx.retry.trackedKeys", DEFAULT_TRACKED_KEYS))
+      .expireAfterAccess(1, HOURS)
+      .build();
+
+  /**
+   * One lock per hot key, so retries on unrelated keys never wait on each other; weak values let idle locks go.
+   */
+  private final Cache<Object, ReentrantLock> hotKeyLocks = CacheBuilder.newBuilder()
+      .weakValues()
+      .build();
+
+  private final ThreadLocal<ReentrantLock> heldHotKeyLock = new ThreadLocal<>();
+
+  private final LongAdder serializedRetries = new LongAdder();
+
   private int retryLimit = getInteger("nexus.tx.retry.limit", DEFAULT_RETRY_LIMIT);
 
   private int minSlots = getInteger("nexus.tx.retry.minSlots", DEFAULT_MIN_SLOTS);
@@ -66,6 +110,11 @@ public class RetryController
 
   private int majorDelayMillis = getTime("nexus.tx.retry.majorDelay", DEFAULT_MAJOR_DELAY_MILLIS).toMillisI();
 
+  private int hotKeyThreshold = getInteger("nexus.tx.retry.hotKeyThreshold", DEFAULT_HOT_KEY_THRESHOLD);
+
+  private int hotKeyWaitMillis = min(getTime("nexus.tx.retry.hotKeyWait", DEFAULT_HOT_KEY_WAIT).toMillisI(),
+      MAX_HOT_KEY_WAIT.toMillisI());
+
   private Set<String> majorExceptionFilter = parseFilter(
       getString("nexus.tx.retry.majorExceptionFilter", IOException.class.getName()));
 
@@ -181,6 +230,46 @@ public class RetryController
     this.majorExceptionFilter = difference(majorExceptionFilter, ImmutableSet.of(type.getName())).immutableCopy();
   }
 
+  /**
+   * Gets the number of conflicts on the same key in the last minute before retries on that key are serialized.
+   *
+   * @since 3.next
+   */
+  public int getHotKeyThreshold() {
+    return hotKeyThreshold;
+  }
+
+  /**
+   * Sets the number of conflicts on the same key in the last minute before retries on that key are serialized.
+   *
+   * @since 3.next
+   */
+  public void setHotKeyThreshold(final int hotKeyThreshold) {
+    checkArgument(hotKeyThreshold > 0);
+    this.hotKeyThreshold = hotKeyThreshold;
+  }
+
+  /**
+   * Gets the maximum time a retry waits behind other retries on the same hot key.
+   *
+   * @since 3.next
+   */
+  public int getHotKeyWaitMillis() {
+    return hotKeyWaitMillis;
+  }
+
+  /**
+   * Sets the maximum time a retry waits behind other retries on the same hot key; capped at a couple of seconds
+   * because waiters hold on to their database connection while they wait.
+   *
+   * @since 3.next
+   */
+  public void setHotKeyWaitMillis(final int hotKeyWaitMillis) {
+    checkArgument(hotKeyWaitMillis >= 0 && hotKeyWaitMillis <= MAX_HOT_KEY_WAIT.toMillisI(),
+        "Hot key wait must be between 0 and %s ms", MAX_HOT_KEY_WAIT.toMillisI());
+    this.hotKeyWaitMillis = hotKeyWaitMillis;
+  }
+
   /**
    * Immediately returns {@code false} if we've exceeded the maximum number of retries; otherwise waits,
    * using binary exponential backoff to hopefully avoid further collisions, before returning {@code true}.
@@ -189,6 +278,24 @@ public class RetryController
    * @param cause the exception that caused the retry
    */
   public boolean allowRetry(final int retriesSoFar, final Exception cause) {
+    return allowRetry(retriesSoFar, cause, null);
+  }
+
+  /**
+   * Like {@link #allowRetry(int, Exception)} but also records the conflict against the contended key. Once a key
+   * is hot, a retry that finds another retry already in flight on that key briefly waits its turn instead of
+   * backing off blindly. The per-key lock is never held while backing off, only during the retried attempt, and
+   * is released at the next retry or {@link #retriesComplete()}.
+   *
+   * @param retriesSoFar the number of retries so far
+   * @param cause the exception that caused the retry
+   * @param conflictKey identifies the contended record/entity; {@code null} if unknown
+   *
+   * @since 3.next
+   */
+  public boolean allowRetry(final int retriesSoFar, final Exception cause, @Nullable final Object conflictKey) {
+    retriesComplete(); // the previous attempt is over, so let others through
+
     int nextRetry = retriesSoFar + 1;
     if (nextRetry > retryLimit) {
       if (log.isTraceEnabled()) {
@@ -210,6 +317,16 @@ public class RetryController
       excessiveRetriesHourlyStats.mark();
     }
 
+    ReentrantLock keyLock = null;
+    if (conflictKey != null && markConflict(conflictKey) >= hotKeyThreshold) {
+      keyLock = hotKeyLock(conflictKey);
+      if (awaitTurn(keyLock, conflictKey)) {
+        log.debug("Allowing serialized retry: {}/{} on hot key {} ({})", nextRetry, retryLimit, conflictKey,
+            cause.toString());
+        return true;
+      }
+    }
+
     long delay = randomDelay(nextRetry, cause);
 
     if (log.isTraceEnabled()) {
@@ -220,6 +337,10 @@ public class RetryController
     }
 
     backoff(delay);
+
+    if (keyLock != null && keyLock.tryLock()) {
+      heldHotKeyLock.set(keyLock); // later retries on this key can queue behind our attempt
+    }
     return true;
   }
 
@@ -230,6 +351,106 @@ public class RetryController
     return excessiveRetriesHourlyStats.sum();
   }
 
+  /**
+   * Releases any hot-key lock held by the current thread for its retries; call once the retried work is over.
+   *
+   * @since 3.next
+   */
+  public void retriesComplete() {
+    ReentrantLock lock = heldHotKeyLock.get();
+    if (lock != null) {
+      heldHotKeyLock.remove();
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of conflicts on the given key in the last minute.
+   *
+   * @since 3.next
+   */
+  public int conflictsInLastMinute(final Object conflictKey) {
+    RollingStats stats = conflictStats.getIfPresent(conflictKey);
+    return stats != null ? stats.sum() : 0;
+  }
+
+  /**
+   * Returns the most contended keys with their conflicts in the last minute, most contended first.
+   *
+   * @since 3.next
+   */
+  public Map<String, Integer> hotKeys(final int limit) {
+    return conflictStats.asMap().entrySet().stream()
+        .map(e -> new SimpleEntry<>(String.valueOf(e.getKey()), e.getValue().sum()))
+        .filter(e -> e.getValue() > 0)
+        .sorted(Comparator.<Entry<String, Integer>>comparingInt(Entry::getValue).reversed())
+        .limit(limit)
+        .collect(toMap(Entry::getKey, Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+  }
+
+  /**
+   * Returns the number of retries that were serialized behind other retries on a hot key.
+   *
+   * @since 3.next
+   */
+  public long serializedRetries() {
+    return serializedRetries.sum();
+  }
+
+  /**
+   * Clears all per-key conflict statistics.
+   *
+   * @since 3.next
+   */
+  public void resetConflictStats() {
+    conflictStats.invalidateAll();
+    serializedRetries.reset();
+  }
+
+  /**
+   * Records a conflict on the given key, returning the number of conflicts on that key in the last minute.
+   */
+  private int markConflict(final Object conflictKey) {
+    RollingStats stats = conflictStats.asMap().computeIfAbsent(conflictKey, k -> new RollingStats(60, SECONDS));
+    stats.mark();
+    return stats.sum();
+  }
+
+  /**
+   * Returns the lock shared by all retries on the given key.
+   */
+  private ReentrantLock hotKeyLock(final Object conflictKey) {
+    try {
+      return hotKeyLocks.get(conflictKey, ReentrantLock::new);
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException(e); // not expected, the loader cannot fail
+    }
+  }
+
+  /**
+   * Waits behind another retry already in flight on the hot key; returns {@code true} if we took the key after it
+   * finished, meaning there's no need to back off. Returns {@code false} without waiting if no other retry holds
+   * the key, or after {@link #hotKeyWaitMillis} if it is still busy, so the caller falls back to backoff.
+   */
+  private boolean awaitTurn(final ReentrantLock lock, final Object conflictKey) {
+    if (!lock.isLocked()) {
+      return false; // the conflict was with a first attempt, so back off before taking the key
+    }
+    try {
+      if (lock.tryLock(hotKeyWaitMillis, MILLISECONDS)) {
+        heldHotKeyLock.set(lock);
+        serializedRetries.increment();
+        return true;
+      }
+      log.debug("Timed out waiting for hot key {}", conflictKey);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
   /**
    * Updates the excessive retries threshold to be just above the mid-point of the retry limit.
    */
@@ -32,6 +32,8 @@ final class TransactionalWrapper
 
   private final boolean tracing;
 
+  private boolean retried;
+
   public TransactionalWrapper(final Transactional spec, final Joinpoint aspect) {
     this.spec = spec;
     this.aspect = aspect;
@@ -43,6 +45,17 @@ final class TransactionalWrapper
    * Applies transactional behaviour around the method call, supports automatic retries.
    */
   public Object proceedWithTransaction(final Transaction tx) throws Throwable {
+    try {
+      return proceedWithRetries(tx);
+    }
+    finally {
+      if (retried) {
+        RetryController.INSTANCE.retriesComplete(); // let other retries on the same hot key proceed
+      }
+    }
+  }
+
+  private Object proceedWithRetries(final Transaction tx) throws Throwable {
     while (true) {
       boolean committed = false;
       Throwable throwing = null;
@@ -79,6 +92,7 @@ final class TransactionalWrapper
           }
           tx.rollback();
           if (instanceOf(e, spec.retryOn()) && tx.allowRetry(e)) {
+            retried = true;
             if (tracing) {
               log.trace("RETRY {} : {}", tx, aspect.getStaticPart(), e);
             }
@@ -13,6 +13,10 @@
 package org.sonatype.nexus.transaction;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 
@@ -21,13 +25,20 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Test retry controller behaviour.
@@ -240,6 +251,139 @@ public class RetryControllerTest
     assertThat(underTest.excessiveRetriesInLastHour(), is(4L));
   }
 
+  @Test
+  public void testConflictsAreTrackedPerKey() {
+    underTest.allowRetry(0, MINOR_CAUSE, "#1:1");
+    underTest.allowRetry(1, MINOR_CAUSE, "#1:1");
+    underTest.allowRetry(0, MINOR_CAUSE, "#1:2");
+    underTest.allowRetry(0, MINOR_CAUSE);
+    underTest.retriesComplete();
+
+    assertThat(underTest.conflictsInLastMinute("#1:1"), is(2));
+    assertThat(underTest.conflictsInLastMinute("#1:2"), is(1));
+    assertThat(underTest.conflictsInLastMinute("#1:3"), is(0));
+    assertThat(underTest.hotKeys(10).keySet(), contains("#1:1", "#1:2"));
+    assertThat(underTest.hotKeys(1), hasEntry("#1:1", 2));
+
+    underTest.resetConflictStats();
+    assertThat(underTest.hotKeys(10).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testRetriesOnHotKeyAreSerialized() throws Exception {
+    underTest.setHotKeyThreshold(2);
+    underTest.allowRetry(0, MINOR_CAUSE, "hot");
+
+    // second conflict makes the key hot, first retrier takes the key and still backs off
+    assertThat(underTest.allowRetry(0, MINOR_CAUSE, "hot"), is(true));
+    verify(underTest, times(2)).backoff(anyLong());
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Boolean> waiting = executor.submit(() -> underTest.allowRetry(0, MINOR_CAUSE, "hot"));
+      Thread.sleep(100);
+      assertThat(waiting.isDone(), is(false));
+
+      underTest.retriesComplete();
+      assertThat(waiting.get(5, SECONDS), is(true));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    // waited behind the first retrier, so no need for additional backoff
+    verify(underTest, times(2)).backoff(anyLong());
+    assertThat(underTest.serializedRetries(), is(1L));
+  }
+
+  @Test
+  public void testHotKeyWaitIsBounded() throws Exception {
+    underTest.setHotKeyThreshold(1);
+    underTest.setHotKeyWaitMillis(10);
+    assertThat(underTest.allowRetry(0, MINOR_CAUSE, "hot"), is(true));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertThat(executor.submit(() -> underTest.allowRetry(0, MINOR_CAUSE, "hot")).get(5, SECONDS), is(true));
+    }
+    finally {
+      executor.shutdownNow();
+      underTest.retriesComplete();
+    }
+
+    // timed out waiting, so fell back to backoff
+    verify(underTest, times(2)).backoff(anyLong());
+    assertThat(underTest.serializedRetries(), is(0L));
+  }
+
+  @Test
+  public void testHotKeyIsReleasedWhenRetriesRunOut() throws Exception {
+    underTest.setHotKeyThreshold(1);
+    underTest.setRetryLimit(1);
+    assertThat(underTest.allowRetry(0, MINOR_CAUSE, "hot"), is(true));
+    assertThat(underTest.allowRetry(1, MINOR_CAUSE, "hot"), is(false));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertThat(executor.submit(() -> underTest.allowRetry(0, MINOR_CAUSE, "hot")).get(5, SECONDS), is(true));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testHotKeyIsNotHeldDuringBackoff() throws Exception {
+    underTest.setHotKeyThreshold(1);
+    underTest.setHotKeyWaitMillis(2000);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicBoolean inBackoff = new AtomicBoolean();
+    try {
+      doAnswer(invocation -> {
+        if (inBackoff.compareAndSet(false, true)) {
+          // a concurrent retry on the same key must not queue behind us while we sleep
+          assertThat(executor.submit(() -> underTest.allowRetry(0, MINOR_CAUSE, "hot")).get(1, SECONDS), is(true));
+        }
+        return null;
+      }).when(underTest).backoff(anyLong());
+
+      assertThat(underTest.allowRetry(0, MINOR_CAUSE, "hot"), is(true));
+    }
+    finally {
+      executor.shutdownNow();
+      underTest.retriesComplete();
+    }
+
+    assertThat(underTest.serializedRetries(), is(0L));
+  }
+
+  @Test
+  public void testRetriesOnUnrelatedHotKeysDoNotWait() throws Exception {
+    underTest.setHotKeyThreshold(1);
+    underTest.setHotKeyWaitMillis(2000);
+    assertThat(underTest.allowRetry(0, MINOR_CAUSE, "hot"), is(true));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      for (int i = 0; i < 100; i++) {
+        String key = "other" + i;
+        assertThat(executor.submit(() -> underTest.allowRetry(0, MINOR_CAUSE, key)).get(1, SECONDS), is(true));
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      underTest.retriesComplete();
+    }
+
+    assertThat(underTest.serializedRetries(), is(0L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHotKeyWaitIsCapped() {
+    underTest.setHotKeyWaitMillis(10_000);
+  }
+
   private void verifyBackoff(final int retriesSoFar,
                              final Exception cause,
                              final long minBackoff,
@@ -40,4 +40,14 @@ public interface WebResourceService
    */
   @Nullable
   WebResource getResource(String path);
+
+  /**
+   * Get the content-hash fingerprint of a cacheable web-resource, suitable for versioning its URL.
+   *
+   * @return Fingerprint for path or null if not bound or not cacheable.
+   *
+   * @since 3.next
+   */
+  @Nullable
+  String getFingerprint(String path);
 }
@@ -302,6 +302,48 @@ public class S3BlobStore
     }, null);
   }
 
+  /**
+   * Rewrites just the attributes object, leaving the content object where it is. This avoids the server-side copy
+   * and delete otherwise needed to turn a temporary blob into a permanent one.
+   *
+   * @since 3.next
+   */
+  @Nullable
+  @Override
+  @Guarded(by = STARTED)
+  @Timed
+  public Blob replaceHeaders(final BlobId blobId, final Map<String, String> headers) {
+    checkNotNull(blobId);
+    checkArgument(!headers.containsKey(DIRECT_PATH_BLOB_HEADER), "Direct-path blobs cannot be replaced in place");
+
+    final S3Blob blob = liveBlobs.getUnchecked(blobId);
+
+    Lock lock = blob.lock();
+    try {
+      String attributePath = attributePath(blobId);
+      S3BlobAttributes existing = new S3BlobAttributes(s3, getConfiguredBucket(), attributePath);
+      if (!existing.load() || existing.isDeleted()) {
+        log.debug("Unable to replace headers of missing blob {}", blobId);
+        return null;
+      }
+
+      log.debug("Replacing headers of blob {}", blobId);
+
+      S3BlobAttributes blobAttributes = new S3BlobAttributes(s3, getConfiguredBucket(), attributePath, headers,
+          existing.getMetrics());
+      blobAttributes.store();
+      blob.refresh(headers, existing.getMetrics());
+
+      return blob;
+    }
+    catch (IOException e) {
+      throw new BlobStoreException(e, blobId);
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
   @Nullable
   @Override
   @Guarded(by = STARTED)
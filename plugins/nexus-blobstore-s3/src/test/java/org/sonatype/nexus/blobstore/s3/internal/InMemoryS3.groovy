@@ -0,0 +1,86 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal
+
+import java.util.concurrent.ConcurrentSkipListMap
+
+import com.amazonaws.services.s3.AmazonS3
+import com.amazonaws.services.s3.model.ListObjectsRequest
+import com.amazonaws.services.s3.model.ObjectListing
+import com.amazonaws.services.s3.model.S3Object
+import com.amazonaws.services.s3.model.S3ObjectInputStream
+import com.amazonaws.services.s3.model.S3ObjectSummary
+
+/**
+ * In-process stand-in for S3 which keeps objects in memory and counts the requests made against them.
+ */
+class InMemoryS3
+{
+  final Map<String, byte[]> objects = new ConcurrentSkipListMap<>()
+
+  final Map<String, Integer> requests = [:].withDefault { 0 }
+
+  final AmazonS3 client = [
+      doesObjectExist: { String bucket, String key ->
+        count('doesObjectExist')
+        objects.containsKey(key)
+      },
+      getObject      : { String bucket, String key ->
+        count('getObject')
+        byte[] bytes = objects[key]
+        if (bytes == null) {
+          return null
+        }
+        S3Object object = new S3Object(bucketName: bucket, key: key)
+        object.objectContent = new S3ObjectInputStream(new ByteArrayInputStream(bytes), null)
+        object
+      },
+      putObject      : { String bucket, String key, InputStream input, metadata ->
+        count('putObject')
+        objects[key] = input.bytes
+        null
+      },
+      deleteObject   : { String bucket, String key ->
+        count('deleteObject')
+        objects.remove(key)
+      },
+      listObjects    : { ListObjectsRequest request ->
+        count('listObjects')
+        ObjectListing listing = new ObjectListing(bucketName: request.bucketName, truncated: false)
+        objects.keySet().findAll { it.startsWith(request.prefix ?: '') }.each {
+          listing.objectSummaries << new S3ObjectSummary(bucketName: request.bucketName, key: it)
+        }
+        listing
+      }
+  ] as AmazonS3
+
+  /**
+   * Stores content as the uploader would.
+   */
+  void upload(final String key, final InputStream input) {
+    count('upload')
+    objects[key] = input.bytes
+  }
+
+  /**
+   * Copies content server-side as the copier would.
+   */
+  void copy(final String source, final String destination) {
+    count('copy')
+    objects[destination] = objects[source]
+  }
+
+  private void count(final String request) {
+    requests[request] = requests[request] + 1
+  }
+}
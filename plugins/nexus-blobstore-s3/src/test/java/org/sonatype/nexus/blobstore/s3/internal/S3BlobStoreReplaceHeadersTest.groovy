@@ -0,0 +1,124 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal
+
+import java.util.stream.Collectors
+
+import org.sonatype.nexus.blobstore.DefaultBlobIdLocationResolver
+import org.sonatype.nexus.blobstore.api.BlobId
+import org.sonatype.nexus.blobstore.api.BlobStore
+import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration
+import org.sonatype.nexus.common.log.DryRunPrefix
+
+import spock.lang.Specification
+
+/**
+ * {@link S3BlobStore} tests promoting temporary blobs in place, run against {@link InMemoryS3}.
+ */
+class S3BlobStoreReplaceHeadersTest
+    extends Specification
+{
+  InMemoryS3 inMemoryS3 = new InMemoryS3()
+
+  AmazonS3Factory amazonS3Factory = Mock() {
+    create(_) >> inMemoryS3.client
+  }
+
+  S3Uploader uploader = Mock() {
+    upload(_, _, _, _) >> { s3, bucket, key, input -> inMemoryS3.upload(key, input) }
+  }
+
+  S3Copier copier = Mock() {
+    copy(_, _, _, _) >> { s3, bucket, source, destination -> inMemoryS3.copy(source, destination) }
+  }
+
+  S3BlobStore blobStore = new S3BlobStore(amazonS3Factory, new DefaultBlobIdLocationResolver(), uploader, copier,
+      Mock(S3BlobStoreMetricsStore), Mock(DryRunPrefix), Mock(BucketManager))
+
+  Map<String, String> tempHeaders = [
+      (BlobStore.BLOB_NAME_HEADER)     : 'temp',
+      (BlobStore.CREATED_BY_HEADER)    : 'admin',
+      (BlobStore.TEMPORARY_BLOB_HEADER): ''
+  ]
+
+  Map<String, String> headers = [
+      (BlobStore.BLOB_NAME_HEADER)   : 'foo/bar.txt',
+      (BlobStore.CREATED_BY_HEADER)  : 'admin',
+      (BlobStore.CONTENT_TYPE_HEADER): 'text/plain'
+  ]
+
+  def setup() {
+    def config = new BlobStoreConfiguration()
+    config.attributes = [s3: [bucket: 'mybucket', prefix: 'myPrefix']]
+    blobStore.init(config)
+    blobStore.start()
+  }
+
+  def 'temporary blob is promoted by rewriting only its attributes'() {
+    given: 'a temporary blob'
+      def tempBlob = blobStore.create(new ByteArrayInputStream('hello world'.bytes), tempHeaders)
+      def objectsBefore = new HashMap(inMemoryS3.objects)
+      inMemoryS3.requests.clear()
+
+    when: 'it is promoted'
+      def blob = blobStore.replaceHeaders(tempBlob.id, headers)
+
+    then: 'the content stays where it is and only the attributes are written'
+      blob.id == tempBlob.id
+      blob.headers == headers
+      blob.inputStream.text == 'hello world'
+      inMemoryS3.objects.keySet() == objectsBefore.keySet()
+      inMemoryS3.requests.putObject == 1
+      inMemoryS3.requests.copy == 0
+      inMemoryS3.requests.deleteObject == 0
+
+    and: 'the promoted headers are persisted'
+      blobStore.getBlobAttributes(tempBlob.id).headers == headers
+
+    and: 'the promoted blob is still listed under its own id'
+      blobStore.blobIdStream.collect(Collectors.toList()) == [tempBlob.id]
+  }
+
+  def 'promotion can be reverted'() {
+    given: 'a promoted blob'
+      def tempBlob = blobStore.create(new ByteArrayInputStream('hello world'.bytes), tempHeaders)
+      blobStore.replaceHeaders(tempBlob.id, headers)
+
+    when: 'the original headers are restored'
+      def blob = blobStore.replaceHeaders(tempBlob.id, tempHeaders)
+
+    then: 'it is a temporary blob again'
+      blob.headers == tempHeaders
+      blobStore.getBlobAttributes(tempBlob.id).headers == tempHeaders
+  }
+
+  def 'missing blobs are not promoted'() {
+    expect:
+      blobStore.replaceHeaders(new BlobId('tmp$00000000-0000-0000-0000-000000000000'), headers) == null
+  }
+
+  def 'copying costs a server-side copy where promotion does not'() {
+    given: 'a temporary blob'
+      def tempBlob = blobStore.create(new ByteArrayInputStream('hello world'.bytes), tempHeaders)
+      inMemoryS3.requests.clear()
+
+    when: 'it is copied the traditional way'
+      def blob = blobStore.copy(tempBlob.id, headers)
+      blobStore.deleteHard(tempBlob.id)
+
+    then: 'content is copied and the temporary objects deleted'
+      blob.inputStream.text == 'hello world'
+      inMemoryS3.requests.copy == 1
+      inMemoryS3.requests.deleteObject == 2
+  }
+}
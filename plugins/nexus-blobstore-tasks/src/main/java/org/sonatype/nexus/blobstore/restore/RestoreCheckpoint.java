@@ -0,0 +1,152 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.restore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+/**
+ * Records the progress of a restore, so a restore which is stopped part way through can skip the blobs it has already
+ * processed when it is run again.
+ *
+ * Processed blobs are journaled as 64-bit hashes of their ids, which keeps the checkpoint of a store with millions of
+ * blobs small enough to hold in memory. Repositories touched by the restore are journaled by name, so they still get
+ * their post-restore updates after resuming.
+ *
+ * @since 3.next
+ */
+class RestoreCheckpoint
+    implements AutoCloseable
+{
+  private static final HashFunction BLOB_ID_HASH = Hashing.murmur3_128();
+
+  private static final int FLUSH_INTERVAL = 1000;
+
+  private final File blobsFile;
+
+  private final File repositoriesFile;
+
+  private final long[] processedBefore;
+
+  private final Set<String> touchedRepositories;
+
+  private final DataOutputStream blobsOut;
+
+  private int unflushed;
+
+  RestoreCheckpoint(final File directory, final String name) throws IOException {
+    checkNotNull(directory);
+    checkNotNull(name);
+    this.blobsFile = new File(directory, name + ".blobs");
+    this.repositoriesFile = new File(directory, name + ".repositories");
+    this.processedBefore = readHashes(blobsFile);
+    this.touchedRepositories = repositoriesFile.exists()
+        ? new LinkedHashSet<>(Files.readAllLines(repositoriesFile.toPath(), UTF_8))
+        : new LinkedHashSet<>();
+    if (blobsFile.length() % Long.BYTES != 0) {
+      // drop any partial entry left behind by an abrupt stop before appending to it
+      try (RandomAccessFile raf = new RandomAccessFile(blobsFile, "rw")) {
+        raf.setLength(processedBefore.length * (long) Long.BYTES);
+      }
+    }
+    this.blobsOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(blobsFile, true)));
+  }
+
+  /**
+   * Number of blobs processed by earlier runs.
+   */
+  long getResumedCount() {
+    return processedBefore.length;
+  }
+
+  /**
+   * Whether the blob was processed by an earlier run.
+   */
+  boolean isProcessed(final BlobId blobId) {
+    return processedBefore.length > 0 && Arrays.binarySearch(processedBefore, hash(blobId)) >= 0;
+  }
+
+  synchronized void processed(final BlobId blobId) throws IOException {
+    blobsOut.writeLong(hash(blobId));
+    if (++unflushed >= FLUSH_INTERVAL) {
+      blobsOut.flush();
+      unflushed = 0;
+    }
+  }
+
+  synchronized void touched(final String repositoryName) throws IOException {
+    if (touchedRepositories.add(repositoryName)) {
+      Files.write(repositoriesFile.toPath(), (repositoryName + '\n').getBytes(UTF_8), CREATE, APPEND);
+    }
+  }
+
+  /**
+   * Repositories touched by this run or by earlier runs.
+   */
+  synchronized Set<String> getTouchedRepositories() {
+    return new LinkedHashSet<>(touchedRepositories);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    blobsOut.close();
+  }
+
+  /**
+   * Closes and removes the checkpoint once the restore is complete.
+   */
+  synchronized void delete() throws IOException {
+    close();
+    Files.deleteIfExists(blobsFile.toPath());
+    Files.deleteIfExists(repositoriesFile.toPath());
+  }
+
+  private static long hash(final BlobId blobId) {
+    return BLOB_ID_HASH.hashString(blobId.asUniqueString(), UTF_8).asLong();
+  }
+
+  private static long[] readHashes(final File file) throws IOException {
+    if (!file.exists()) {
+      return new long[0];
+    }
+    long[] hashes = new long[(int) (file.length() / Long.BYTES)];
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      for (int i = 0; i < hashes.length; i++) {
+        hashes[i] = in.readLong();
+      }
+    }
+    Arrays.sort(hashes);
+    return hashes;
+  }
+}
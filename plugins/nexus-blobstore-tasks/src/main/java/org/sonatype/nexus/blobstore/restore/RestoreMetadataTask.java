@@ -12,13 +12,27 @@
  */
 package org.sonatype.nexus.blobstore.restore;
 
-import java.util.HashSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -28,17 +42,23 @@ import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreManager;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
 import org.sonatype.nexus.common.log.DryRunPrefix;
 import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
+import org.sonatype.nexus.logging.task.TaskLoggerHelper;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.types.GroupType;
 import org.sonatype.nexus.scheduling.Cancelable;
 import org.sonatype.nexus.scheduling.TaskSupport;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.google.common.base.Throwables;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Optional.ofNullable;
 import static org.sonatype.nexus.blobstore.api.BlobAttributesConstants.HEADER_PREFIX;
+import static org.sonatype.nexus.blobstore.api.BlobStore.BLOB_NAME_HEADER;
 import static org.sonatype.nexus.blobstore.restore.DefaultIntegrityCheckStrategy.DEFAULT_NAME;
 import static org.sonatype.nexus.blobstore.restore.RestoreMetadataTaskDescriptor.BLOB_STORE_NAME_FIELD_ID;
 import static org.sonatype.nexus.blobstore.restore.RestoreMetadataTaskDescriptor.DRY_RUN;
@@ -69,6 +89,17 @@ public class RestoreMetadataTask
 
   private final IntegrityCheckStrategy defaultIntegrityCheckStrategy;
 
+  private static final String CHECKPOINT_DIR = "restore-metadata";
+
+  private static final int QUEUE_CAPACITY = 1000;
+
+  @Nullable
+  private ApplicationDirectories applicationDirectories;
+
+  private int readThreads = 4;
+
+  private int writeThreads = 4;
+
   @Inject
   public RestoreMetadataTask(final BlobStoreManager blobStoreManager,
                              final RepositoryManager repositoryManager,
@@ -86,6 +117,25 @@ public class RestoreMetadataTask
     this.integrityCheckStrategies = checkNotNull(integrityCheckStrategies);
   }
 
+  /**
+   * Configures the restore pipeline.
+   *
+   * @param applicationDirectories where restore checkpoints are kept
+   * @param readThreads            number of threads loading blob attributes, also used for integrity checks
+   * @param writeThreads           number of threads restoring metadata
+   *
+   * @since 3.next
+   */
+  @Inject
+  public void configurePipeline(final ApplicationDirectories applicationDirectories,
+                                @Named("${nexus.restore.metadata.readThreads:-4}") final int readThreads,
+                                @Named("${nexus.restore.metadata.writeThreads:-4}") final int writeThreads)
+  {
+    this.applicationDirectories = checkNotNull(applicationDirectories);
+    this.readThreads = readThreads;
+    this.writeThreads = writeThreads;
+  }
+
   @Override
   public String getMessage() {
     return null;
@@ -107,6 +157,7 @@ public class RestoreMetadataTask
   }
 
   private void restore(final String blobStoreName, final boolean restore, final boolean undelete, final boolean dryRun) // NOSONAR
+      throws IOException, InterruptedException
   {
     if (!restore && !undelete) {
       log.warn("No repair/restore operations selected");
@@ -117,49 +168,147 @@ public class RestoreMetadataTask
     BlobStore store = blobStoreManager.get(blobStoreName);
 
     ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
-    long processed = 0;
-    long undeleted = 0;
     boolean updateAssets = !dryRun && restore;
-    Set<Repository> touchedRepositories = new HashSet<>();
+    RestoreProgress progress = new RestoreProgress(store, blobStoreName, restore, undelete, dryRun, updateAssets);
 
     if (dryRun) {
       log.info("{}Actions will be logged, but no changes will be made.", logPrefix);
     }
-    for (BlobId blobId : (Iterable<BlobId>)store.getBlobIdStream()::iterator) {
-      try {
-        Optional<Context> context = buildContext(blobStoreName, store, blobId);
-        if (context.isPresent()) {
-          Context c =  context.get();
-          if (restore && c.restoreBlobStrategy != null && !c.blobAttributes.isDeleted()) {
-            c.restoreBlobStrategy.restore(c.properties, c.blob, c.blobStoreName, dryRun);
+
+    // dry runs make no changes, so there's nothing to resume
+    RestoreCheckpoint checkpoint = dryRun ? null : openCheckpoint(blobStoreName, restore, undelete);
+    if (checkpoint != null && checkpoint.getResumedCount() > 0) {
+      log.info("Resuming restore of blob store {}, skipping {} blob(s) processed by earlier runs", blobStoreName,
+          checkpoint.getResumedCount());
+    }
+    progress.checkpoint = checkpoint;
+
+    boolean completed = false;
+    try {
+      long skipped = 0;
+      try (RestorePipeline pipeline = new RestorePipeline("restore-metadata", readThreads, writeThreads,
+          QUEUE_CAPACITY); Stream<BlobId> blobIds = store.getBlobIdStream())
+      {
+        for (BlobId blobId : (Iterable<BlobId>) blobIds::iterator) {
+          if (isCanceled()) {
+            break;
           }
-          if (undelete &&
-              store.undelete(blobStoreUsageChecker, c.blobId, c.blobAttributes, dryRun))
-          {
-            undeleted++;
+          if (checkpoint != null && checkpoint.isProcessed(blobId)) {
+            skipped++;
+            continue;
           }
+          pipeline.read(() -> readBlob(pipeline, progress, blobId));
 
-          if (updateAssets) {
-            touchedRepositories.add(c.repository);
-          }
+          progressLogger.info("{}Elapsed time: {}, processed: {}, un-deleted: {}, rate: {} blobs/s", logPrefix,
+              progressLogger.getElapsed(), progress.processed.get(), progress.undeleted.get(), progress.rate());
         }
+        pipeline.awaitCompletion();
+      }
+      finally {
+        progressLogger.flush();
+        log.info("{}Elapsed time: {}, processed: {}, un-deleted: {}, skipped: {}, rate: {} blobs/s", logPrefix,
+            progressLogger.getElapsed(), progress.processed.get(), progress.undeleted.get(), skipped, progress.rate());
+      }
 
-        processed++;
-
-        progressLogger.info("{}Elapsed time: {}, processed: {}, un-deleted: {}", logPrefix, progressLogger.getElapsed(),
-                            processed, undeleted);
+      Set<Repository> touchedRepositories = progress.touchedRepositories;
+      if (checkpoint != null) {
+        checkpoint.getTouchedRepositories().stream()
+            .map(repositoryManager::get)
+            .filter(Objects::nonNull)
+            .forEach(touchedRepositories::add);
+      }
+      updateAssets(touchedRepositories, updateAssets);
 
-        if (isCanceled()) {
-          break;
+      completed = !isCanceled();
+    }
+    finally {
+      // keep the checkpoint for the next run unless everything was restored, but always release it
+      if (checkpoint != null) {
+        if (completed) {
+          checkpoint.delete();
+        }
+        else {
+          checkpoint.close();
         }
-      } catch (Exception e) {
-        log.error("Error restoring blob {}", blobId, e);
       }
     }
+  }
+
+  /**
+   * Read stage: loads the blob's attributes and hands it to the writer lane for its repository and directory, so
+   * blobs which share a component are restored in order by the same thread.
+   */
+  private void readBlob(final RestorePipeline pipeline, final RestoreProgress progress, final BlobId blobId) {
+    if (isCanceled()) {
+      return;
+    }
+    try {
+      Optional<Context> context = buildContext(progress.blobStoreName, progress.store, blobId);
+      if (context.isPresent()) {
+        Context c = context.get();
+        pipeline.write(laneKey(c), () -> writeBlob(progress, c));
+      }
+      else {
+        progress.processed(blobId);
+      }
+    }
+    catch (Exception e) {
+      log.error("Error restoring blob {}", blobId, e);
+      progress.processed.incrementAndGet();
+    }
+  }
+
+  /**
+   * Write stage: restores the blob's metadata and un-deletes it when still referenced.
+   */
+  private void writeBlob(final RestoreProgress progress, final Context c) {
+    if (isCanceled()) {
+      return;
+    }
+    try {
+      if (progress.updateAssets) {
+        progress.touched(c.repository);
+      }
+      if (progress.restore && c.restoreBlobStrategy != null && !c.blobAttributes.isDeleted()) {
+        c.restoreBlobStrategy.restore(c.properties, c.blob, c.blobStoreName, progress.dryRun);
+      }
+      if (progress.undelete &&
+          progress.store.undelete(blobStoreUsageChecker, c.blobId, c.blobAttributes, progress.dryRun))
+      {
+        progress.undeleted.incrementAndGet();
+      }
+      progress.processed(c.blobId);
+    }
+    catch (Exception e) {
+      log.error("Error restoring blob {}", c.blobId, e);
+      progress.processed.incrementAndGet();
+    }
+  }
 
-    updateAssets(touchedRepositories, updateAssets);
+  private static String laneKey(final Context c) {
+    String blobName = c.properties.getProperty(HEADER_PREFIX + BLOB_NAME_HEADER);
+    if (blobName == null) {
+      return c.repositoryName + ':' + c.blobId.asUniqueString();
+    }
+    int lastSlash = blobName.lastIndexOf('/');
+    return c.repositoryName + ':' + (lastSlash < 0 ? "" : blobName.substring(0, lastSlash));
+  }
 
-    progressLogger.flush();
+  @Nullable
+  private RestoreCheckpoint openCheckpoint(final String blobStoreName, final boolean restore, final boolean undelete) {
+    if (applicationDirectories == null) {
+      return null;
+    }
+    String name = (getId() + '-' + blobStoreName + (restore ? "-restore" : "") + (undelete ? "-undelete" : ""))
+        .replaceAll("[^a-zA-Z0-9_.-]", "_");
+    File directory = applicationDirectories.getWorkDirectory(CHECKPOINT_DIR);
+    try {
+      return new RestoreCheckpoint(directory, name);
+    }
+    catch (IOException e) {
+      log.warn("Unable to open restore checkpoint {} in {}, restore will not be resumable", name, directory, e);
+      return null;
+    }
   }
 
   private void updateAssets(final Set<Repository> repositories, final boolean updateAssets) {
@@ -173,7 +322,9 @@ public class RestoreMetadataTask
     }
   }
 
-  private void blobStoreIntegrityCheck(final boolean integrityCheck, final String blobStoreId) {
+  private void blobStoreIntegrityCheck(final boolean integrityCheck, final String blobStoreId)
+      throws InterruptedException
+  {
     if (!integrityCheck) {
       log.warn("Integrity check operation not selected");
       return;
@@ -186,12 +337,35 @@ public class RestoreMetadataTask
       return;
     }
 
-    StreamSupport.stream(repositoryManager.browseForBlobStore(blobStoreId).spliterator(), false)
+    List<Repository> repositories = StreamSupport
+        .stream(repositoryManager.browseForBlobStore(blobStoreId).spliterator(), false)
         .filter(r -> !(r.getType() instanceof GroupType))
-        .forEach(repository -> integrityCheckStrategies
+        .collect(Collectors.toList());
+    if (repositories.isEmpty()) {
+      return;
+    }
+
+    // repositories are independent, so check several at once
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(readThreads, repositories.size())),
+        new NexusThreadFactory("restore-integrity", "restore-integrity"));
+    try {
+      List<Future<?>> checks = new ArrayList<>(repositories.size());
+      for (Repository repository : repositories) {
+        checks.add(executor.submit(TaskLoggerHelper.wrap(() -> integrityCheckStrategies
             .getOrDefault(repository.getFormat().getValue(), defaultIntegrityCheckStrategy)
-            .check(repository, blobStore, this::isCanceled)
-        );
+            .check(repository, blobStore, this::isCanceled))));
+      }
+      for (Future<?> check : checks) {
+        check.get();
+      }
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+    finally {
+      executor.shutdownNow();
+    }
   }
 
   private Optional<Context> buildContext(final String blobStoreName, final BlobStore blobStore, final BlobId blobId)
@@ -205,6 +379,69 @@ public class RestoreMetadataTask
         .map(c -> c.restoreBlobStrategy(restoreBlobStrategies.get(c.repository.getFormat().getValue())));
   }
 
+  /**
+   * Tracks a restore as its blobs flow through the pipeline.
+   */
+  private static class RestoreProgress
+  {
+    final BlobStore store;
+
+    final String blobStoreName;
+
+    final boolean restore;
+
+    final boolean undelete;
+
+    final boolean dryRun;
+
+    final boolean updateAssets;
+
+    final AtomicLong processed = new AtomicLong();
+
+    final AtomicLong undeleted = new AtomicLong();
+
+    final Set<Repository> touchedRepositories = ConcurrentHashMap.newKeySet();
+
+    final long startNanos = System.nanoTime();
+
+    @Nullable
+    RestoreCheckpoint checkpoint;
+
+    RestoreProgress(final BlobStore store,
+                    final String blobStoreName,
+                    final boolean restore,
+                    final boolean undelete,
+                    final boolean dryRun,
+                    final boolean updateAssets)
+    {
+      this.store = store;
+      this.blobStoreName = blobStoreName;
+      this.restore = restore;
+      this.undelete = undelete;
+      this.dryRun = dryRun;
+      this.updateAssets = updateAssets;
+    }
+
+    void touched(final Repository repository) throws IOException {
+      // journal before restoring, so a resumed restore still runs the post-restore updates
+      if (touchedRepositories.add(repository) && checkpoint != null) {
+        checkpoint.touched(repository.getName());
+      }
+    }
+
+    void processed(final BlobId blobId) throws IOException {
+      processed.incrementAndGet();
+      if (checkpoint != null) {
+        checkpoint.processed(blobId);
+      }
+    }
+
+    long rate() {
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      return elapsedMillis > 0 ? processed.get() * 1000 / elapsedMillis : processed.get();
+    }
+  }
+
   private static class Context {
     final String blobStoreName;
 
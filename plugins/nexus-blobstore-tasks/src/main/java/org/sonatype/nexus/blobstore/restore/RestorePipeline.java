@@ -0,0 +1,115 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.restore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.logging.task.TaskLoggerHelper;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Two stage pipeline used to restore blobs: a pool of readers loading blob attributes, feeding a fixed set of
+ * single-threaded writer lanes that restore metadata.
+ *
+ * Work is routed to writer lanes by key, so work with the same key is written in submission order by the same thread.
+ * Both stages have bounded queues and block their submitters when full, so a slow stage holds back the ones before it.
+ * Work runs with the submitter's task logging context, so its log output goes to the task log.
+ *
+ * @since 3.next
+ */
+class RestorePipeline
+    implements AutoCloseable
+{
+  private final ThreadPoolExecutor readers;
+
+  private final List<ThreadPoolExecutor> writers;
+
+  RestorePipeline(final String name, final int readThreads, final int writeLanes, final int queueCapacity) {
+    checkArgument(readThreads > 0, "Must have at least one reader");
+    checkArgument(writeLanes > 0, "Must have at least one writer");
+    this.readers = boundedExecutor(name + "-read", readThreads, queueCapacity);
+    this.writers = new ArrayList<>(writeLanes);
+    for (int i = 0; i < writeLanes; i++) {
+      writers.add(boundedExecutor(name + "-write", 1, queueCapacity));
+    }
+  }
+
+  /**
+   * Submits work to the read stage, blocking while its queue is full.
+   */
+  void read(final Runnable work) {
+    readers.execute(TaskLoggerHelper.wrap(work));
+  }
+
+  /**
+   * Submits work to the writer lane for the given key, blocking while that lane's queue is full.
+   */
+  void write(final Object key, final Runnable work) {
+    writers.get(Math.floorMod(key.hashCode(), writers.size())).execute(TaskLoggerHelper.wrap(work));
+  }
+
+  /**
+   * Waits for all submitted work to be read and then written.
+   */
+  void awaitCompletion() throws InterruptedException {
+    readers.shutdown();
+    readers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    for (ExecutorService writer : writers) {
+      writer.shutdown();
+    }
+    for (ExecutorService writer : writers) {
+      writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void close() {
+    readers.shutdownNow();
+    writers.forEach(ExecutorService::shutdownNow);
+  }
+
+  private static ThreadPoolExecutor boundedExecutor(final String poolId, final int threads, final int queueCapacity) {
+    return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+        new NexusThreadFactory(poolId, poolId), new BlockWhenFull());
+  }
+
+  /**
+   * Blocks the submitter until there is room in the queue, rather than rejecting or running the work itself.
+   */
+  private static class BlockWhenFull
+      implements RejectedExecutionHandler
+  {
+    @Override
+    public void rejectedExecution(final Runnable work, final ThreadPoolExecutor executor) {
+      if (executor.isShutdown()) {
+        throw new RejectedExecutionException("Restore pipeline is shut down");
+      }
+      try {
+        executor.getQueue().put(work);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException("Interrupted waiting for restore pipeline", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.restore;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link RestoreCheckpoint}.
+ */
+public class RestoreCheckpointTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File directory;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = temporaryFolder.newFolder();
+  }
+
+  @Test
+  public void processedBlobsAreSkippedAfterReopening() throws Exception {
+    try (RestoreCheckpoint checkpoint = new RestoreCheckpoint(directory, "task")) {
+      assertThat(checkpoint.getResumedCount(), is(0L));
+      checkpoint.processed(new BlobId("a"));
+      checkpoint.processed(new BlobId("b"));
+      checkpoint.touched("maven-releases");
+      checkpoint.touched("maven-releases");
+    }
+
+    try (RestoreCheckpoint checkpoint = new RestoreCheckpoint(directory, "task")) {
+      assertThat(checkpoint.getResumedCount(), is(2L));
+      assertThat(checkpoint.isProcessed(new BlobId("a")), is(true));
+      assertThat(checkpoint.isProcessed(new BlobId("b")), is(true));
+      assertThat(checkpoint.isProcessed(new BlobId("c")), is(false));
+      assertThat(checkpoint.getTouchedRepositories(), contains("maven-releases"));
+    }
+  }
+
+  @Test
+  public void partialEntryIsDropped() throws Exception {
+    try (RestoreCheckpoint checkpoint = new RestoreCheckpoint(directory, "task")) {
+      checkpoint.processed(new BlobId("a"));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(new File(directory, "task.blobs"), "rw")) {
+      raf.seek(raf.length());
+      raf.write(new byte[]{1, 2, 3});
+    }
+
+    try (RestoreCheckpoint checkpoint = new RestoreCheckpoint(directory, "task")) {
+      assertThat(checkpoint.getResumedCount(), is(1L));
+      checkpoint.processed(new BlobId("b"));
+    }
+
+    try (RestoreCheckpoint checkpoint = new RestoreCheckpoint(directory, "task")) {
+      assertThat(checkpoint.isProcessed(new BlobId("a")), is(true));
+      assertThat(checkpoint.isProcessed(new BlobId("b")), is(true));
+    }
+  }
+
+  @Test
+  public void deleteRemovesCheckpoint() throws Exception {
+    RestoreCheckpoint checkpoint = new RestoreCheckpoint(directory, "task");
+    checkpoint.processed(new BlobId("a"));
+    checkpoint.touched("maven-releases");
+    checkpoint.delete();
+
+    assertThat(directory.list().length, is(0));
+  }
+}
@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.blobstore.restore;
 
+import java.io.File;
 import java.net.URL;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -28,6 +29,7 @@ import org.sonatype.nexus.blobstore.api.BlobStoreManager;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
 import org.sonatype.nexus.blobstore.file.FileBlobAttributes;
 import org.sonatype.nexus.blobstore.file.FileBlobStore;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
 import org.sonatype.nexus.common.log.DryRunPrefix;
 import org.sonatype.nexus.repository.Format;
 import org.sonatype.nexus.repository.Repository;
@@ -40,13 +42,16 @@ import org.sonatype.nexus.scheduling.TaskConfiguration;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Resources;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
@@ -113,6 +118,12 @@ public class RestoreMetadataTaskTest
   @Mock
   IntegrityCheckStrategy testIntegrityCheckStrategy;
 
+  @Mock
+  ApplicationDirectories applicationDirectories;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   Map<String, IntegrityCheckStrategy> integrityCheckStrategies;
 
   BlobId blobId;
@@ -423,4 +434,56 @@ public class RestoreMetadataTaskTest
     verify(restoreBlobStrategy, times(0)).after(true, repository2);
     verify(restoreBlobStrategy).after(true, repository3);
   }
+
+  @Test
+  public void resumesFromCheckpoint() throws Exception {
+    File checkpointDir = temporaryFolder.newFolder("restore-metadata");
+    when(applicationDirectories.getWorkDirectory("restore-metadata")).thenReturn(checkpointDir);
+    underTest.configurePipeline(applicationDirectories, 2, 2);
+
+    // an earlier run restored the blob into maven-central before it was stopped
+    try (RestoreCheckpoint checkpoint = new RestoreCheckpoint(checkpointDir, "test-test-restore-undelete")) {
+      checkpoint.touched("maven-central");
+      checkpoint.processed(blobId);
+    }
+    when(repository.getName()).thenReturn("maven-central");
+
+    configuration.setBoolean(RESTORE_BLOBS, true);
+    configuration.setBoolean(UNDELETE_BLOBS, true);
+    configuration.setBoolean(INTEGRITY_CHECK, false);
+    underTest.configure(configuration);
+
+    underTest.execute();
+
+    verify(restoreBlobStrategy, never()).restore(any(), any(), any(), eq(false));
+    verify(restoreBlobStrategy).after(true, repository);
+    assertThat(checkpointDir.list().length, is(0));
+  }
+
+  @Test
+  public void checkpointIsKeptAndFlushedWhenRestoreFails() throws Exception {
+    File checkpointDir = temporaryFolder.newFolder("restore-metadata");
+    when(applicationDirectories.getWorkDirectory("restore-metadata")).thenReturn(checkpointDir);
+    underTest.configurePipeline(applicationDirectories, 2, 2);
+    when(repository.getName()).thenReturn("maven-central");
+    doThrow(new IllegalStateException("update failed")).when(restoreBlobStrategy).after(true, repository);
+
+    configuration.setBoolean(RESTORE_BLOBS, true);
+    configuration.setBoolean(UNDELETE_BLOBS, true);
+    configuration.setBoolean(INTEGRITY_CHECK, false);
+    underTest.configure(configuration);
+
+    try {
+      underTest.execute();
+      fail("Expected exception not thrown");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e.getMessage(), is("update failed"));
+    }
+
+    // checkpoint was closed, so the processed blob is on disk for the next run to skip
+    try (RestoreCheckpoint checkpoint = new RestoreCheckpoint(checkpointDir, "test-test-restore-undelete")) {
+      assertThat(checkpoint.isProcessed(blobId), is(true));
+    }
+  }
 }
@@ -13,7 +13,9 @@
 package org.sonatype.nexus.repository.apt;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -32,10 +34,12 @@ import org.sonatype.nexus.repository.security.VariableResolverAdapter;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.TempBlob;
+import org.sonatype.nexus.repository.transaction.TransactionalStoreBlob;
 import org.sonatype.nexus.repository.upload.ComponentUpload;
 import org.sonatype.nexus.repository.upload.UploadDefinition;
 import org.sonatype.nexus.repository.upload.UploadHandlerSupport;
 import org.sonatype.nexus.repository.upload.UploadResponse;
+import org.sonatype.nexus.repository.view.PartPayload;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
 /**
@@ -64,25 +68,84 @@ public class AptUploadHandler
 
   @Override
   public UploadResponse handle(final Repository repository, final ComponentUpload upload) throws IOException {
+    return doUpload(repository, upload, true);
+  }
+
+  /**
+   * Parses and checks every package of the batch up front, then ingests them all in one transaction without rebuilding
+   * the indexes, which is left to {@link #afterBulkUpload}.
+   *
+   * @since 3.next
+   */
+  @Override
+  public List<UploadResponse> handleBulk(final Repository repository, final List<ComponentUpload> uploads)
+      throws IOException
+  {
     AptHostedFacet hostedFacet = repository.facet(AptHostedFacet.class);
     StorageFacet storageFacet = repository.facet(StorageFacet.class);
 
-    try (TempBlob tempBlob = storageFacet
-        .createTempBlob(upload.getAssetUploads().get(0).getPayload(), FacetHelper.hashAlgorithms)) {
-      ControlFile controlFile = AptPackageParser.parsePackage(tempBlob);
-      if (controlFile == null) {
-        throw new IOException("Invalid debian package:  no control file");
+    List<TempBlob> tempBlobs = new ArrayList<>(uploads.size());
+    try {
+      List<ControlFile> controlFiles = new ArrayList<>(uploads.size());
+      for (ComponentUpload upload : uploads) {
+        TempBlob tempBlob = storageFacet.createTempBlob(payload(upload), FacetHelper.hashAlgorithms);
+        tempBlobs.add(tempBlob);
+        controlFiles.add(parseAndValidate(repository, tempBlob));
       }
-      String name = controlFile.getField("Package").map(f -> f.value).get();
-      String version = controlFile.getField("Version").map(f -> f.value).get();
-      String architecture = controlFile.getField("Architecture").map(f -> f.value).get();
-      String assetPath = FacetHelper.buildAssetPath(name, version, architecture);
 
-      doValidation(repository, assetPath);
+      UnitOfWork.begin(storageFacet.txSupplier());
+      try {
+        return TransactionalStoreBlob.operation.throwing(IOException.class).call(() -> {
+          List<UploadResponse> responses = new ArrayList<>(uploads.size());
+          for (int i = 0; i < uploads.size(); i++) {
+            PartPayload payload = payload(uploads.get(i));
+            responses.add(new UploadResponse(hostedFacet.ingestAsset(controlFiles.get(i), tempBlobs.get(i),
+                payload.getSize(), payload.getContentType(), false)));
+          }
+          return responses;
+        });
+      }
+      finally {
+        UnitOfWork.end();
+      }
+    }
+    finally {
+      for (TempBlob tempBlob : tempBlobs) {
+        tempBlob.close();
+      }
+    }
+  }
+
+  /**
+   * @since 3.next
+   */
+  @Override
+  public void afterBulkUpload(final Repository repository, final List<UploadResponse> responses) throws IOException {
+    if (responses.isEmpty()) {
+      return;
+    }
+    UnitOfWork.begin(repository.facet(StorageFacet.class).txSupplier());
+    try {
+      repository.facet(AptHostedFacet.class).rebuildIndexes();
+    }
+    finally {
+      UnitOfWork.end();
+    }
+  }
+
+  private UploadResponse doUpload(final Repository repository,
+                                  final ComponentUpload upload,
+                                  final boolean rebuildIndexes) throws IOException
+  {
+    AptHostedFacet hostedFacet = repository.facet(AptHostedFacet.class);
+    StorageFacet storageFacet = repository.facet(StorageFacet.class);
+
+    try (TempBlob tempBlob = storageFacet.createTempBlob(payload(upload), FacetHelper.hashAlgorithms)) {
+      parseAndValidate(repository, tempBlob);
 
       UnitOfWork.begin(storageFacet.txSupplier());
       try {
-        Asset asset = hostedFacet.ingestAsset(upload.getAssetUploads().get(0).getPayload());
+        Asset asset = hostedFacet.ingestAsset(payload(upload), rebuildIndexes);
         return new UploadResponse(asset);
       }
       finally {
@@ -91,6 +154,24 @@ public class AptUploadHandler
     }
   }
 
+  private ControlFile parseAndValidate(final Repository repository, final TempBlob tempBlob) throws IOException {
+    ControlFile controlFile = AptPackageParser.parsePackage(tempBlob);
+    if (controlFile == null) {
+      throw new IOException("Invalid debian package:  no control file");
+    }
+    String name = controlFile.getField("Package").map(f -> f.value).get();
+    String version = controlFile.getField("Version").map(f -> f.value).get();
+    String architecture = controlFile.getField("Architecture").map(f -> f.value).get();
+    String assetPath = FacetHelper.buildAssetPath(name, version, architecture);
+
+    doValidation(repository, assetPath);
+    return controlFile;
+  }
+
+  private static PartPayload payload(final ComponentUpload upload) {
+    return upload.getAssetUploads().get(0).getPayload();
+  }
+
   private void doValidation(final Repository repository,
                             final String assetPath)
   {
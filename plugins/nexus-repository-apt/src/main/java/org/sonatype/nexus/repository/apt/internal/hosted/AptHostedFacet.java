@@ -92,18 +92,43 @@ public class AptHostedFacet
       "AND attributes.apt.asset_kind=:asset_kind";
 
   public Asset ingestAsset(final Payload body) throws IOException {
+    return ingestAsset(body, true);
+  }
+
+  /**
+   * Ingests a package, optionally leaving the indexes to be rebuilt later on when ingesting many of them.
+   *
+   * @since 3.next
+   */
+  public Asset ingestAsset(final Payload body, final boolean rebuildIndexes) throws IOException {
     StorageFacet storageFacet = facet(StorageFacet.class);
     try (TempBlob tempBlob = storageFacet.createTempBlob(body, FacetHelper.hashAlgorithms)) {
       ControlFile control = AptPackageParser.parsePackage(tempBlob);
       if (control == null) {
         throw new IllegalOperationException("Invalid Debian package supplied");
       }
-      return ingestAsset(control, tempBlob, body.getSize(), body.getContentType());
+      return ingestAsset(control, tempBlob, body.getSize(), body.getContentType(), rebuildIndexes);
     }
   }
 
   @TransactionalStoreBlob
   protected Asset ingestAsset(final ControlFile control, final TempBlob body, final long size, final String contentType) throws IOException {
+    return ingestAsset(control, body, size, contentType, true);
+  }
+
+  /**
+   * Ingests an already parsed package; joins the current transaction when called within one, so a batch of packages
+   * can be stored together.
+   *
+   * @since 3.next
+   */
+  @TransactionalStoreBlob
+  public Asset ingestAsset(final ControlFile control,
+                           final TempBlob body,
+                           final long size,
+                           final String contentType,
+                           final boolean rebuildIndexes) throws IOException
+  {
     AptFacet aptFacet = getRepository().facet(AptFacet.class);
     StorageTx tx = UnitOfWork.currentTx();
     Bucket bucket = tx.findBucket(getRepository());
@@ -130,7 +155,9 @@ public class AptHostedFacet
     asset.formatAttributes().set(P_ASSET_KIND, "DEB");
     tx.saveAsset(asset);
 
-    rebuildIndexes(singletonList(new AssetChange(AssetAction.ADDED, asset)));
+    if (rebuildIndexes) {
+      rebuildIndexes(singletonList(new AssetChange(AssetAction.ADDED, asset)));
+    }
     return asset;
   }
 
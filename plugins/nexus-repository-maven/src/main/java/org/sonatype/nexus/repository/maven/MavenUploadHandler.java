@@ -14,11 +14,14 @@ package org.sonatype.nexus.repository.maven;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -41,6 +44,7 @@ import org.sonatype.nexus.repository.security.ContentPermissionChecker;
 import org.sonatype.nexus.repository.security.VariableResolverAdapter;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.TempBlob;
+import org.sonatype.nexus.repository.transaction.TransactionalStoreBlob;
 import org.sonatype.nexus.repository.upload.AssetUpload;
 import org.sonatype.nexus.repository.upload.ComponentUpload;
 import org.sonatype.nexus.repository.upload.UploadDefinition;
@@ -139,44 +143,91 @@ public class MavenUploadHandler
     return doUpload(repository, upload);
   }
 
-  private UploadResponse doUpload(final Repository repository, final ComponentUpload componentUpload) throws IOException {
-    MavenFacet facet = repository.facet(MavenFacet.class);
+  /**
+   * Stores each batch of a bulk upload in a single transaction, leaving metadata to {@link #afterBulkUpload}.
+   *
+   * @since 3.next
+   */
+  @Override
+  public List<UploadResponse> handleBulk(final Repository repository, final List<ComponentUpload> uploads)
+      throws IOException
+  {
+    checkNotNull(repository);
+    checkNotNull(uploads);
+
     StorageFacet storageFacet = repository.facet(StorageFacet.class);
+    checkVersionPolicy(repository);
 
-    if (VersionPolicy.SNAPSHOT.equals(facet.getVersionPolicy())) {
-      throw new ValidationErrorsException("Upload to snapshot repositories not supported, use the maven client.");
+    List<TempBlob> poms = new ArrayList<>();
+    try {
+      List<String> basePaths = new ArrayList<>(uploads.size());
+      for (ComponentUpload componentUpload : uploads) {
+        basePaths.add(prepareUpload(repository, componentUpload, poms));
+      }
+
+      UnitOfWork.begin(storageFacet.txSupplier());
+      try {
+        return TransactionalStoreBlob.operation.throwing(IOException.class).call(() -> {
+          List<UploadResponse> responses = new ArrayList<>(uploads.size());
+          for (int i = 0; i < uploads.size(); i++) {
+            responses.add(storeComponent(repository, basePaths.get(i), uploads.get(i)).uploadResponse());
+          }
+          return responses;
+        });
+      }
+      finally {
+        UnitOfWork.end();
+      }
     }
+    finally {
+      for (TempBlob pom : poms) {
+        pom.close();
+      }
+    }
+  }
 
-    ContentAndAssetPathResponseData responseData;
+  /**
+   * Rebuilds metadata once per artifact of a bulk upload; of all its versions when more than one was uploaded.
+   *
+   * @since 3.next
+   */
+  @Override
+  public void afterBulkUpload(final Repository repository, final List<UploadResponse> responses) {
+    Map<String, Set<String>> versionsByArtifact = new TreeMap<>();
+    for (UploadResponse response : responses) {
+      for (String assetPath : response.getAssetPaths()) {
+        Coordinates coordinates = parser.parsePath(assetPath).getCoordinates();
+        if (coordinates != null) {
+          versionsByArtifact
+              .computeIfAbsent(coordinates.getGroupId() + ':' + coordinates.getArtifactId(), ga -> new HashSet<>())
+              .add(coordinates.getVersion());
+        }
+      }
+    }
 
-    AssetUpload pomAsset = findPomAsset(componentUpload);
+    MavenHostedFacet hostedFacet = repository.facet(MavenHostedFacet.class);
+    versionsByArtifact.forEach((ga, versions) -> {
+      String[] parts = ga.split(":");
+      hostedFacet.rebuildMetadata(parts[0], parts[1], versions.size() == 1 ? versions.iterator().next() : null, false);
+    });
+  }
 
-    //purposefully not using a try with resources, as this will only be used in case of an included pom file, which
-    //isn't required
-    TempBlob pom = null;
+  private UploadResponse doUpload(final Repository repository, final ComponentUpload componentUpload) throws IOException {
+    StorageFacet storageFacet = repository.facet(StorageFacet.class);
+    checkVersionPolicy(repository);
 
-    try {
-      if (pomAsset != null) {
-        PartPayload payload = pomAsset.getPayload();
-        pom = storageFacet.createTempBlob(payload, HashType.ALGORITHMS);
-        pomAsset.setPayload(new TempBlobPartPayload(payload, pom));
-      }
+    ContentAndAssetPathResponseData responseData;
 
-      String basePath = getBasePath(componentUpload, pom);
+    //purposefully not using a try with resources, as a pom will only be held for an included pom file, which
+    //isn't required
+    List<TempBlob> poms = new ArrayList<>(1);
 
-      doValidation(repository, basePath, componentUpload.getAssetUploads());
+    try {
+      String basePath = prepareUpload(repository, componentUpload, poms);
 
       UnitOfWork.begin(storageFacet.txSupplier());
       try {
-        responseData = createAssets(repository, basePath, componentUpload.getAssetUploads());
-
-        if (isGeneratePom(componentUpload.getField(GENERATE_POM))) {
-          String pomPath = generatePom(repository, basePath, componentUpload.getFields().get(GROUP_ID),
-              componentUpload.getFields().get(ARTIFACT_ID), componentUpload.getFields().get(VERSION),
-              componentUpload.getFields().get(PACKAGING));
-
-          responseData.addAssetPath(pomPath);
-        }
+        responseData = storeComponent(repository, basePath, componentUpload);
 
         updateMetadata(repository, responseData.coordinates);
       }
@@ -184,15 +235,65 @@ public class MavenUploadHandler
         UnitOfWork.end();
       }
 
-      return new UploadResponse(responseData.getContent(), responseData.getAssetPaths());
+      return responseData.uploadResponse();
     }
     finally {
-      if (pom != null) {
+      for (TempBlob pom : poms) {
         pom.close();
       }
     }
   }
 
+  private void checkVersionPolicy(final Repository repository) {
+    if (VersionPolicy.SNAPSHOT.equals(repository.facet(MavenFacet.class).getVersionPolicy())) {
+      throw new ValidationErrorsException("Upload to snapshot repositories not supported, use the maven client.");
+    }
+  }
+
+  /**
+   * Validates the upload, returning the base path of its assets. Any included pom is kept as a temp blob in
+   * {@code poms}, which the caller must close.
+   */
+  private String prepareUpload(final Repository repository,
+                               final ComponentUpload componentUpload,
+                               final List<TempBlob> poms)
+      throws IOException
+  {
+    AssetUpload pomAsset = findPomAsset(componentUpload);
+
+    TempBlob pom = null;
+    if (pomAsset != null) {
+      PartPayload payload = pomAsset.getPayload();
+      pom = repository.facet(StorageFacet.class).createTempBlob(payload, HashType.ALGORITHMS);
+      poms.add(pom);
+      pomAsset.setPayload(new TempBlobPartPayload(payload, pom));
+    }
+
+    String basePath = getBasePath(componentUpload, pom);
+
+    doValidation(repository, basePath, componentUpload.getAssetUploads());
+
+    return basePath;
+  }
+
+  private ContentAndAssetPathResponseData storeComponent(final Repository repository,
+                                                         final String basePath,
+                                                         final ComponentUpload componentUpload)
+      throws IOException
+  {
+    ContentAndAssetPathResponseData responseData =
+        createAssets(repository, basePath, componentUpload.getAssetUploads());
+
+    if (isGeneratePom(componentUpload.getField(GENERATE_POM))) {
+      String pomPath = generatePom(repository, basePath, componentUpload.getFields().get(GROUP_ID),
+          componentUpload.getFields().get(ARTIFACT_ID), componentUpload.getFields().get(VERSION),
+          componentUpload.getFields().get(PACKAGING));
+
+      responseData.addAssetPath(pomPath);
+    }
+    return responseData;
+  }
+
   private String getBasePath(final ComponentUpload componentUpload, final TempBlob pom) throws IOException
   {
     if (pom != null) {
@@ -20,15 +20,23 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Properties;
+import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.UUID;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.sonatype.nexus.common.text.Strings2;
 import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
@@ -55,14 +63,15 @@ import com.google.common.base.Predicate;
 import com.google.common.io.Closer;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.apache.maven.index.reader.ChunkReader;
+import org.apache.maven.index.reader.ChunkWriter;
 import org.apache.maven.index.reader.IndexReader;
-import org.apache.maven.index.reader.IndexWriter;
 import org.apache.maven.index.reader.Record;
 import org.apache.maven.index.reader.Record.EntryKey;
 import org.apache.maven.index.reader.Record.Type;
 import org.apache.maven.index.reader.RecordCompactor;
 import org.apache.maven.index.reader.RecordExpander;
 import org.apache.maven.index.reader.ResourceHandler;
+import org.apache.maven.index.reader.Utils;
 import org.apache.maven.index.reader.WritableResourceHandler;
 import org.apache.maven.index.reader.WritableResourceHandler.WritableResource;
 import org.joda.time.DateTime;
@@ -75,11 +84,13 @@ import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static java.util.Collections.singletonList;
+import static org.apache.maven.index.reader.Utils.INDEX_FILE_PREFIX;
 import static org.apache.maven.index.reader.Utils.allGroups;
 import static org.apache.maven.index.reader.Utils.descriptor;
 import static org.apache.maven.index.reader.Utils.rootGroup;
 import static org.apache.maven.index.reader.Utils.rootGroups;
 import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_FILE_BASE_PATH;
 import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_MAIN_CHUNK_FILE_PATH;
 import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_PROPERTY_FILE_PATH;
 import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
@@ -98,7 +109,49 @@ public final class MavenIndexPublisher
 
   private static final String INDEX_MAIN_CHUNK_FILE = "/" + INDEX_MAIN_CHUNK_FILE_PATH;
 
-  private static final String SELECT_HOSTED_ARTIFACTS =
+  private static final String INDEX_PROPERTY_FILE_NAME = INDEX_FILE_PREFIX + ".properties";
+
+  private static final String INDEX_MAIN_CHUNK_FILE_NAME = INDEX_FILE_PREFIX + ".gz";
+
+  private static final String INDEX_ID = "nexus.index.id";
+
+  private static final String INDEX_CHAIN_ID = "nexus.index.chain-id";
+
+  private static final String INDEX_TIMESTAMP = "nexus.index.timestamp";
+
+  private static final String INDEX_LAST_INCREMENTAL = "nexus.index.last-incremental";
+
+  private static final String INDEX_INCREMENTAL_PREFIX = "nexus.index.incremental-";
+
+  /**
+   * Not part of the MI format: count of artifacts covered by the published chain, used to detect removed artifacts.
+   */
+  private static final String INDEX_PUBLISHED_ARTIFACTS = "nexus.index.published-artifacts";
+
+  /**
+   * Not part of the MI format: names of the members merged into a group index, used to detect membership changes.
+   */
+  private static final String INDEX_MERGED_MEMBERS = "nexus.index.merged-members";
+
+  private static final String INDEX_DATE_PATTERN = "yyyyMMddHHmmss.SSS Z";
+
+  private static final int INDEX_V1 = 1;
+
+  private static final String P_SINCE = "since";
+
+  private static final String P_UNTIL = "until";
+
+  private static final String HOSTED_ARTIFACTS_WHERE =
+      "attributes.maven2.asset_kind=:asset_kind " +
+          "AND component IS NOT NULL " +
+          "AND (blob_updated IS NULL OR blob_updated <= :until)";
+
+  private static final String CHANGED_ARTIFACTS_WHERE =
+      "attributes.maven2.asset_kind=:asset_kind " +
+          "AND component IS NOT NULL " +
+          "AND blob_updated > :since AND blob_updated <= :until";
+
+  private static final String SELECT_ARTIFACTS =
       "SELECT " +
           "last_updated AS lastModified, " +
           "component.group AS groupId, " +
@@ -113,9 +166,11 @@ public final class MavenIndexPublisher
           "size AS contentSize, " +
           "attributes.checksum.sha1 AS sha1 " +
           "FROM asset " +
-          "WHERE bucket=:bucket " +
-          "AND attributes.maven2.asset_kind=:asset_kind " +
-          "AND component IS NOT NULL";
+          "WHERE bucket=:bucket AND ";
+
+  private static final String SELECT_HOSTED_ARTIFACTS = SELECT_ARTIFACTS + HOSTED_ARTIFACTS_WHERE;
+
+  private static final String SELECT_CHANGED_ARTIFACTS = SELECT_ARTIFACTS + CHANGED_ARTIFACTS_WHERE;
 
   private static final RecordExpander RECORD_EXPANDER = new RecordExpander();
 
@@ -157,11 +212,19 @@ public final class MavenIndexPublisher
    */
   public static boolean unpublishIndexFiles(final Repository repository) throws IOException {
     checkNotNull(repository);
+    Properties properties;
+    try (Maven2WritableResourceHandler resourceHandler = new Maven2WritableResourceHandler(repository)) {
+      properties = loadProperties(resourceHandler);
+    }
+    if (properties != null) {
+      deleteIncrementalChunks(repository, properties);
+    }
     return delete(repository, INDEX_PROPERTY_FILE) && delete(repository, INDEX_MAIN_CHUNK_FILE);
   }
 
   /**
-   * Publishes MI index into {@code target}, sourced from {@code repositories} repositories.
+   * Publishes MI index into {@code target}, sourced from {@code repositories} repositories. Publishing is skipped when
+   * the members are the same as last time and none of their indexes were published since.
    */
   public static void publishMergedIndex(final Repository target,
                                         final List<Repository> repositories,
@@ -170,18 +233,26 @@ public final class MavenIndexPublisher
   {
     checkNotNull(target);
     checkNotNull(repositories);
+    Date timestamp = new Date();
+    String members = memberNames(repositories);
     Closer closer = Closer.create();
-    try (Maven2WritableResourceHandler resourceHandler = new Maven2WritableResourceHandler(target);
-         IndexWriter indexWriter = new IndexWriter(resourceHandler, target.getName(), false)) {
-      indexWriter.writeChunk(
-          transform(
-              decorate(
-                  filter(concat(getGroupRecords(repositories, closer)), duplicateDetectionStrategy),
-                  target.getName()
-              ),
-              RECORD_COMPACTOR::apply
-          ).iterator()
+    try (Maven2WritableResourceHandler resourceHandler = new Maven2WritableResourceHandler(target)) {
+      Properties previous = loadProperties(resourceHandler);
+      if (previous != null && members.equals(previous.getProperty(INDEX_MERGED_MEMBERS))) {
+        Date published = publishedTimestamp(previous);
+        if (published != null && !publishedSince(repositories, published)) {
+          log.debug("Member indexes of {} unchanged since {}, skipping merge", target, published);
+          return;
+        }
+      }
+      Properties properties = writeFullIndex(
+          resourceHandler,
+          target.getName(),
+          timestamp,
+          filter(concat(getGroupRecords(repositories, closer)), duplicateDetectionStrategy)
       );
+      properties.setProperty(INDEX_MERGED_MEMBERS, members);
+      Utils.storeProperties(resourceHandler.locate(INDEX_PROPERTY_FILE_NAME), properties);
     }
     catch (Throwable t) {
       throw closer.rethrow(t);
@@ -197,22 +268,70 @@ public final class MavenIndexPublisher
   public static void publishHostedIndex(final Repository repository,
                                         final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy)
       throws IOException
+  {
+    publishHostedIndex(repository, duplicateDetectionStrategy, 0);
+  }
+
+  /**
+   * Publishes MI index into {@code target}, sourced from repository's own CMA structures. When an index was already
+   * published and the only changes since are newly deployed artifacts, these are published as the next incremental
+   * chunk and appended to the main chunk, rather than recreating records for every artifact. A new chain with a
+   * full index is started when artifacts were removed or replaced, or the chain already has
+   * {@code maxIncrementalChunks} chunks, which also refreshes records of existing artifacts.
+   *
+   * @param maxIncrementalChunks the maximum number of incremental chunks to publish, 0 to always publish a full index
+   * @since 3.next
+   */
+  public static void publishHostedIndex(final Repository repository,
+                                        final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy,
+                                        final int maxIncrementalChunks)
+      throws IOException
   {
     checkNotNull(repository);
+    checkArgument(maxIncrementalChunks >= 0);
     Transactional.operation.throwing(IOException.class).call(
         () -> {
           final StorageTx tx = UnitOfWork.currentTx();
+          final Date timestamp = new Date();
           try (Maven2WritableResourceHandler resourceHandler = new Maven2WritableResourceHandler(repository)) {
-            try (IndexWriter indexWriter = new IndexWriter(resourceHandler, repository.getName(), false)) {
-              indexWriter.writeChunk(
-                  transform(
-                      decorate(
-                          filter(getHostedRecords(tx, repository), duplicateDetectionStrategy),
-                          repository.getName()
-                      ),
-                      RECORD_COMPACTOR::apply
-                  ).iterator()
-              );
+            Properties previous = loadProperties(resourceHandler);
+
+            Map<String, Object> sqlParams = new HashMap<>();
+            sqlParams.put(P_ASSET_KIND, AssetKind.ARTIFACT.name());
+            sqlParams.put(P_UNTIL, timestamp);
+            long artifactCount = tx.countAssets(HOSTED_ARTIFACTS_WHERE, sqlParams, singletonList(repository), null);
+
+            if (previous != null && isAppendable(previous, repository.getName(), maxIncrementalChunks)) {
+              sqlParams.put(P_SINCE, publishedTimestamp(previous));
+              long changedCount = tx.countAssets(CHANGED_ARTIFACTS_WHERE, sqlParams, singletonList(repository), null);
+              // anything other than new artifacts means some records in the chain are stale
+              if (Long.parseLong(previous.getProperty(INDEX_PUBLISHED_ARTIFACTS)) + changedCount == artifactCount) {
+                if (changedCount > 0) {
+                  appendHostedIndex(tx, repository, resourceHandler, previous, timestamp, sqlParams,
+                      duplicateDetectionStrategy);
+                  previous.setProperty(INDEX_PUBLISHED_ARTIFACTS, Long.toString(artifactCount));
+                  Utils.storeProperties(resourceHandler.locate(INDEX_PROPERTY_FILE_NAME), previous);
+                }
+                else {
+                  log.debug("No artifacts deployed to {} since index was last published", repository);
+                }
+                return null;
+              }
+              log.debug("Artifacts removed or replaced in {} since index was last published, starting new chain",
+                  repository);
+            }
+
+            Properties properties = writeFullIndex(
+                resourceHandler,
+                repository.getName(),
+                timestamp,
+                filter(getHostedRecords(tx, repository, SELECT_HOSTED_ARTIFACTS, sqlParams),
+                    duplicateDetectionStrategy)
+            );
+            properties.setProperty(INDEX_PUBLISHED_ARTIFACTS, Long.toString(artifactCount));
+            Utils.storeProperties(resourceHandler.locate(INDEX_PROPERTY_FILE_NAME), properties);
+            if (previous != null) {
+              deleteIncrementalChunks(repository, previous);
             }
           }
           return null;
@@ -220,6 +339,66 @@ public final class MavenIndexPublisher
     );
   }
 
+  /**
+   * Publishes artifacts deployed since the last publish as the next incremental chunk, and appends them to the main
+   * chunk by streaming the previously published records. Updates the chain in {@code properties}.
+   */
+  private static void appendHostedIndex(final StorageTx tx,
+                                        final Repository repository,
+                                        final Maven2WritableResourceHandler resourceHandler,
+                                        final Properties properties,
+                                        final Date timestamp,
+                                        final Map<String, Object> sqlParams,
+                                        final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy)
+      throws IOException
+  {
+    List<String> chunks = incrementalChunks(properties);
+    String counter = Integer.toString(Integer.parseInt(properties.getProperty(INDEX_LAST_INCREMENTAL, "0")) + 1);
+    String chunkName = INDEX_FILE_PREFIX + "." + counter + ".gz";
+
+    int changed = writeChunk(
+        resourceHandler,
+        chunkName,
+        timestamp,
+        decorate(
+            filter(getHostedRecords(tx, repository, SELECT_CHANGED_ARTIFACTS, sqlParams), duplicateDetectionStrategy),
+            repository.getName()
+        )
+    );
+
+    // main chunk must stay complete for clients without an index, the new records are read back from the new chunk
+    Closer closer = Closer.create();
+    try {
+      writeChunk(
+          resourceHandler,
+          INDEX_MAIN_CHUNK_FILE_NAME,
+          timestamp,
+          decorate(
+              concat(
+                  readArtifacts(resourceHandler, INDEX_MAIN_CHUNK_FILE_NAME, closer),
+                  readArtifacts(resourceHandler, chunkName, closer)
+              ),
+              repository.getName()
+          )
+      );
+    }
+    catch (Throwable t) {
+      throw closer.rethrow(t);
+    }
+    finally {
+      closer.close();
+    }
+
+    // newest chunk first, as expected by MI clients
+    chunks.add(0, counter);
+    for (int i = 0; i < chunks.size(); i++) {
+      properties.setProperty(INDEX_INCREMENTAL_PREFIX + i, chunks.get(i));
+    }
+    properties.setProperty(INDEX_LAST_INCREMENTAL, counter);
+    properties.setProperty(INDEX_TIMESTAMP, indexDateFormat().format(timestamp));
+    log.debug("Published {} records of {} as incremental chunk {}", changed, repository, chunkName);
+  }
+
   /**
    * Primes proxy cache with given path and return {@code true} if succeeds. Accepts only maven proxy type.
    */
@@ -247,12 +426,15 @@ public final class MavenIndexPublisher
    * Returns the records to publish of a hosted repository, the SELECT result count will be in parity with published
    * records count!
    */
-  private static Iterable<Record> getHostedRecords(final StorageTx tx, final Repository repository) throws IOException {
-    Map<String, Object> sqlParams = new HashMap<>();
+  private static Iterable<Record> getHostedRecords(final StorageTx tx,
+                                                   final Repository repository,
+                                                   final String selectSql,
+                                                   final Map<String, Object> params)
+  {
+    Map<String, Object> sqlParams = new HashMap<>(params);
     sqlParams.put(P_BUCKET, AttachedEntityHelper.id(tx.findBucket(repository)));
-    sqlParams.put(P_ASSET_KIND, AssetKind.ARTIFACT.name());
     return transform(
-        tx.browse(SELECT_HOSTED_ARTIFACTS, sqlParams),
+        tx.browse(selectSql, sqlParams),
         (ODocument document) -> toRecord(repository.facet(MavenFacet.class), document)
     );
   }
@@ -285,6 +467,147 @@ public final class MavenIndexPublisher
     }
   }
 
+  /**
+   * Returns {@code true} if any of the repositories published its index after {@code timestamp}.
+   */
+  private static boolean publishedSince(final List<Repository> repositories, final Date timestamp) throws IOException {
+    UnitOfWork paused = UnitOfWork.pause();
+    try {
+      for (Repository repository : repositories) {
+        UnitOfWork.begin(repository.facet(StorageFacet.class).txSupplier());
+        try {
+          DateTime published = lastPublished(repository);
+          if (published == null || published.isAfter(timestamp.getTime())) {
+            return true;
+          }
+        }
+        finally {
+          UnitOfWork.end();
+        }
+      }
+      return false;
+    }
+    finally {
+      UnitOfWork.resume(paused);
+    }
+  }
+
+  private static String memberNames(final List<Repository> repositories) {
+    List<String> names = new ArrayList<>(repositories.size());
+    for (Repository repository : repositories) {
+      names.add(repository.getName());
+    }
+    return String.join(",", names);
+  }
+
+  /**
+   * Writes the main chunk of a new index chain, returning the chain properties which are left to the caller to store.
+   */
+  private static Properties writeFullIndex(final WritableResourceHandler resourceHandler,
+                                           final String indexId,
+                                           final Date timestamp,
+                                           final Iterable<Record> records)
+      throws IOException
+  {
+    writeChunk(resourceHandler, INDEX_MAIN_CHUNK_FILE_NAME, timestamp, decorate(records, indexId));
+    Properties properties = new Properties();
+    properties.setProperty(INDEX_ID, indexId);
+    properties.setProperty(INDEX_CHAIN_ID, UUID.randomUUID().toString());
+    properties.setProperty(INDEX_TIMESTAMP, indexDateFormat().format(timestamp));
+    return properties;
+  }
+
+  private static int writeChunk(final WritableResourceHandler resourceHandler,
+                                final String chunkName,
+                                final Date timestamp,
+                                final Iterable<Record> records)
+      throws IOException
+  {
+    try (WritableResource resource = resourceHandler.locate(chunkName);
+         ChunkWriter chunkWriter = new ChunkWriter(chunkName, resource.write(), INDEX_V1, timestamp)) {
+      return chunkWriter.writeChunk(transform(records, RECORD_COMPACTOR::apply).iterator());
+    }
+  }
+
+  /**
+   * Streams the artifact records of a published chunk.
+   */
+  private static Iterable<Record> readArtifacts(final WritableResourceHandler resourceHandler,
+                                                final String chunkName,
+                                                final Closer closer)
+      throws IOException
+  {
+    InputStream inputStream = resourceHandler.locate(chunkName).read();
+    if (inputStream == null) {
+      throw new IOException("Missing MI index chunk: " + chunkName);
+    }
+    ChunkReader chunkReader = closer.register(new ChunkReader(chunkName, inputStream));
+    return filter(transform(chunkReader, RECORD_EXPANDER::apply), new RecordTypeFilter(Type.ARTIFACT_ADD));
+  }
+
+  /**
+   * Returns the published index properties, or {@code null} if there is no index.
+   */
+  @Nullable
+  private static Properties loadProperties(final WritableResourceHandler resourceHandler) throws IOException {
+    try (InputStream inputStream = resourceHandler.locate(INDEX_PROPERTY_FILE_NAME).read()) {
+      return inputStream != null ? Utils.loadProperties(inputStream) : null;
+    }
+  }
+
+  /**
+   * Returns {@code true} if another incremental chunk can be added to the published chain.
+   */
+  private static boolean isAppendable(final Properties properties, final String indexId, final int maxChunks) {
+    return indexId.equals(properties.getProperty(INDEX_ID))
+        && properties.getProperty(INDEX_CHAIN_ID) != null
+        && properties.getProperty(INDEX_PUBLISHED_ARTIFACTS) != null
+        && publishedTimestamp(properties) != null
+        && incrementalChunks(properties).size() < maxChunks;
+  }
+
+  @Nullable
+  private static Date publishedTimestamp(final Properties properties) {
+    String timestamp = properties.getProperty(INDEX_TIMESTAMP);
+    if (timestamp != null) {
+      try {
+        return indexDateFormat().parse(timestamp);
+      }
+      catch (ParseException e) {
+        log.debug("Invalid index timestamp {}", timestamp, e);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the counters of the incremental chunks of the chain, newest first.
+   */
+  private static List<String> incrementalChunks(final Properties properties) {
+    List<String> chunks = new ArrayList<>();
+    for (String counter; (counter = properties.getProperty(INDEX_INCREMENTAL_PREFIX + chunks.size())) != null; ) {
+      chunks.add(counter);
+    }
+    return chunks;
+  }
+
+  private static void deleteIncrementalChunks(final Repository repository, final Properties properties)
+      throws IOException
+  {
+    for (String counter : incrementalChunks(properties)) {
+      delete(repository, "/" + INDEX_FILE_BASE_PATH + "." + counter + ".gz");
+    }
+  }
+
+  /**
+   * Date format of index properties, same as MI uses; a new instance each time as formats are not thread safe.
+   */
+  private static DateFormat indexDateFormat() {
+    DateFormat format = new SimpleDateFormat(INDEX_DATE_PATTERN, Locale.ENGLISH);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format;
+  }
+
   /**
    * Converts orient SQL query result into Maven Indexer Reader {@link Record}. Should be invoked only with documents
    * belonging to components, but not checksums or signatures.
@@ -400,7 +723,7 @@ public final class MavenIndexPublisher
   }
 
   /**
-   * NX3 {@link MavenFacet} backed {@link WritableResourceHandler} to be used by {@link IndexWriter}.
+   * NX3 {@link MavenFacet} backed {@link WritableResourceHandler} to read and write MI index files.
    */
   static class Maven2WritableResourceHandler
       implements WritableResourceHandler
@@ -12,8 +12,13 @@
  */
 package org.sonatype.nexus.repository.maven.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -21,12 +26,14 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.common.entity.EntityHelper;
+import org.sonatype.nexus.common.entity.EntityId;
 import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
-import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.Type;
@@ -44,24 +51,18 @@ import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
 import org.sonatype.nexus.repository.transaction.TransactionalDeleteBlob;
 import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.scheduling.CancelableHelper;
+import org.sonatype.nexus.transaction.Transactional;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
-import com.google.common.collect.Sets;
-import com.orientechnologies.orient.core.command.script.OCommandScript;
-import com.orientechnologies.orient.core.id.ORID;
-import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.sql.query.OResultSet;
-import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
-import static org.sonatype.nexus.logging.task.TaskLoggingMarkers.PROGRESS;
+import static org.sonatype.nexus.repository.maven.internal.Attributes.P_BASE_VERSION;
 import static org.sonatype.nexus.repository.maven.internal.MavenFacetUtils.COMPONENT_VERSION_COMPARATOR;
-import static org.sonatype.nexus.repository.storage.ComponentEntityAdapter.P_GROUP;
-import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
 
 /**
  * @since 3.0
@@ -71,26 +72,7 @@ public class RemoveSnapshotsFacetImpl
     extends FacetSupport
     implements RemoveSnapshotsFacet
 {
-  /**
-   * Load all GAVs that contain a snapshot in a repository
-   */
-  private static final String GAVS_WITH_SNAPSHOTS =
-      "SELECT group, name, attributes.maven2.baseVersion AS baseVersion, " +
-          "count(*) AS cnt " +
-      "FROM component WHERE bucket=:bucket " +
-      "AND attributes.maven2.baseVersion LIKE '%-SNAPSHOT' " +
-      "GROUP BY group, name, attributes.maven2.baseVersion";
-
-  /**
-   * Load components for a GAV which are either snapshots that exist in the repository/bucket being processed,
-   * or a release across all repositories/buckets
-   */
-  private static final String COMPONENTS_FOR_GABV =
-      "LET $records = (SELECT FROM component WHERE group = ? AND name=?);" +
-      "SELECT FROM $records WHERE ( " +
-      "   (bucket=? AND attributes.maven2.baseVersion = ?) " +
-      "   OR (attributes.maven2.baseVersion = ?)" +
-      ");";
+  private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
 
   private final long batchSize;
 
@@ -115,18 +97,12 @@ public class RemoveSnapshotsFacetImpl
     Repository repository = getRepository();
     String repositoryName = repository.getName();
     log.info("Beginning snapshot removal on repository '{}' with configuration: {}", repositoryName, config);
-    UnitOfWork.beginBatch(facet(StorageFacet.class).txSupplier());
     Set<GAV> metadataUpdateRequired = new HashSet<>();
-    try {
-      if (groupType.equals(repository.getType())) {
-        processGroup(repository.facet(MavenGroupFacet.class), config);
-      }
-      else {
-        metadataUpdateRequired.addAll(processRepository(repository, config));
-      }
+    if (groupType.equals(repository.getType())) {
+      processGroup(repository.facet(MavenGroupFacet.class), config);
     }
-    finally {
-      UnitOfWork.end();
+    else {
+      metadataUpdateRequired.addAll(processRepository(repository, config));
     }
 
     //only update metadata for non-proxy repos
@@ -171,52 +147,72 @@ public class RemoveSnapshotsFacetImpl
   /**
    * Examine all snapshots in the given repo, delete those that match our configuration criteria and flag which GAVs
    * require a metadata update.
+   *
+   * Components are walked once in group, name and version order, a page per transaction. Each group/name window is
+   * evaluated in memory as soon as it is complete and deletions are committed in batches between pages, so the cost
+   * grows linearly with the number of components.
    */
-  @TransactionalDeleteBlob
   protected Collection<GAV> processRepository(final Repository repository, final RemoveSnapshotsConfig config) {
-    StorageTx tx = UnitOfWork.currentTx();
-
     log.info("Begin processing snapshots in repository '{}'", repository.getName());
 
-    Set<GAV> snapshotCandidates = Sets.newHashSet(findSnapshotCandidates(tx, repository));
-    log.info("Found {} snapshot GAVs to analyze", snapshotCandidates.size());
-
     // only interested in the ones where we actually delete something, otherwise we would needlessly regenerate metadata
     Set<GAV> gavsWithDeletions = new HashSet<>();
+    List<EntityId> pendingDeletions = new ArrayList<>();
 
     ProgressLogIntervalHelper intervalLogger = new ProgressLogIntervalHelper(log, 60);
     long deleted = 0;
     long processed = 0;
-    for (GAV snapshotCandidate : snapshotCandidates) {
-      log.debug("Processing GAV = {}", snapshotCandidate);
-      Set<Component> components = Sets.newHashSet(findComponentsForGav(tx, repository, snapshotCandidate));
-
-      if (components.isEmpty()) {
-        continue;
-      }
 
-      Set<Component> toDelete = getSnapshotsToDelete(config, components);
-
-      if (!toDelete.isEmpty()) {
-        log.debug("Found {} components to remove for GAV = {}", toDelete.size(), snapshotCandidate);
+    UnitOfWork.begin(repository.facet(StorageFacet.class).txSupplier());
+    try {
+      List<Component> window = new ArrayList<>();
+      List<Component> page;
+      Component last = null;
+      do {
+        CancelableHelper.checkCancellation();
+
+        page = browseComponents(repository, last);
+        List<SnapshotWindow> snapshotWindows = new ArrayList<>();
+        for (Component component : page) {
+          if (!window.isEmpty() && !sameGroupAndName(window.get(0), component)) {
+            snapshotWindows.addAll(snapshotWindows(window));
+            window = new ArrayList<>();
+          }
+          window.add(component);
+        }
+        if (page.size() < batchSize) {
+          snapshotWindows.addAll(snapshotWindows(window)); // end of the repository
+        }
+        else {
+          last = page.get(page.size() - 1);
+        }
 
-        gavsWithDeletions.add(snapshotCandidate);
-        for (Component component : toDelete) {
-          log.debug("Deleting component: {}", component);
-          tx.deleteComponent(component);
+        if (config.getRemoveIfReleased()) {
+          findReleases(snapshotWindows);
+        }
 
-          if (maybeCommit(tx, ++deleted)) {
-            intervalLogger.info("Elapsed time: {}, GAVs processed: {}, snapshots deleted: {}",
-                intervalLogger.getElapsed(), processed, deleted);
+        for (SnapshotWindow snapshotWindow : snapshotWindows) {
+          log.debug("Processing GAV = {}", snapshotWindow.gav);
+          Set<Component> toDelete = getSnapshotsToDelete(config, snapshotWindow.components);
+          if (!toDelete.isEmpty()) {
+            log.debug("Found {} components to remove for GAV = {}", toDelete.size(), snapshotWindow.gav);
+            gavsWithDeletions.add(snapshotWindow.gav);
+            toDelete.forEach(component -> pendingDeletions.add(EntityHelper.id(component)));
           }
+          processed++;
         }
-      }
 
-      processed++;
+        if (pendingDeletions.size() >= batchSize || page.size() < batchSize) {
+          deleted += deleteComponents(repository, pendingDeletions);
+          intervalLogger.info("Elapsed time: {}, GAVs processed: {}, snapshots deleted: {}",
+              intervalLogger.getElapsed(), processed, deleted);
+        }
+      }
+      while (page.size() == batchSize);
+    }
+    finally {
+      UnitOfWork.end();
     }
-    log.debug("Committing final batch delete");
-    tx.commit();
-    tx.begin();
     intervalLogger.flush();
 
     DateTime olderThan = DateTime.now().minusDays(Math.max(config.getSnapshotRetentionDays(), 0));
@@ -227,6 +223,119 @@ public class RemoveSnapshotsFacetImpl
     return gavsWithDeletions;
   }
 
+  private long deleteComponents(final Repository repository, final List<EntityId> componentIds) {
+    if (componentIds.isEmpty()) {
+      return 0;
+    }
+    CancelableHelper.checkCancellation();
+    log.debug("Deleting batch of {} components", componentIds.size());
+    long deleted = deleteComponentBatch(repository, componentIds);
+    componentIds.clear();
+    return deleted;
+  }
+
+  /**
+   * Deletes a batch of components in one transaction, so their blobs are soft-deleted together when it commits.
+   */
+  @TransactionalDeleteBlob
+  protected long deleteComponentBatch(final Repository repository, final List<EntityId> componentIds) {
+    StorageTx tx = UnitOfWork.currentTx();
+    Bucket bucket = tx.findBucket(repository);
+    long deleted = 0;
+    for (EntityId componentId : componentIds) {
+      Component component = tx.findComponentInBucket(componentId, bucket);
+      if (component != null) {
+        log.debug("Deleting component: {}", component);
+        tx.deleteComponent(component);
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+
+  private static boolean sameGroupAndName(final Component a, final Component b) {
+    return Objects.equal(a.group(), b.group()) && Objects.equal(a.name(), b.name());
+  }
+
+  /**
+   * Splits the components sharing a group and name into snapshot windows, one per base version. Releases in the same
+   * window are attached to the matching snapshot base version.
+   */
+  @VisibleForTesting
+  static List<SnapshotWindow> snapshotWindows(final List<Component> components) {
+    Map<String, List<Component>> snapshotsByBaseVersion = new LinkedHashMap<>();
+    Map<String, Component> releasesByBaseVersion = new HashMap<>();
+    for (Component component : components) {
+      String baseVersion = baseVersion(component);
+      if (baseVersion == null) {
+        continue;
+      }
+      if (baseVersion.endsWith(SNAPSHOT_SUFFIX)) {
+        snapshotsByBaseVersion.computeIfAbsent(baseVersion, k -> new ArrayList<>()).add(component);
+      }
+      else if (MavenFacetUtils.isRelease(component)) {
+        releasesByBaseVersion.putIfAbsent(baseVersion, component);
+      }
+    }
+
+    List<SnapshotWindow> windows = new ArrayList<>(snapshotsByBaseVersion.size());
+    snapshotsByBaseVersion.forEach((baseVersion, snapshots) -> {
+      Component first = snapshots.get(0);
+      SnapshotWindow window =
+          new SnapshotWindow(new GAV(first.group(), first.name(), baseVersion, snapshots.size()), snapshots);
+      Component release = releasesByBaseVersion.get(releaseVersion(baseVersion));
+      if (release != null) {
+        window.components.add(release);
+        window.released = true;
+      }
+      windows.add(window);
+    });
+    return windows;
+  }
+
+  @Nullable
+  private static String baseVersion(final Component component) {
+    return (String) component.attributes().child(Maven2Format.NAME).get(P_BASE_VERSION);
+  }
+
+  /**
+   * The version to use for a release version search. E.g. base version is 1.1-SNAPSHOT, we need to search for 1.1
+   */
+  private static String releaseVersion(final String baseVersion) {
+    return baseVersion.replace(SNAPSHOT_SUFFIX, "");
+  }
+
+  /**
+   * Browse the next page of components in the repository, following the given component.
+   */
+  @Transactional
+  protected List<Component> browseComponents(final Repository repository, @Nullable final Component after) {
+    StorageTx tx = UnitOfWork.currentTx();
+    Bucket bucket = tx.findBucket(repository);
+    return componentEntityAdapter.browseBucketPage(tx.getDb(), bucket, after, (int) batchSize);
+  }
+
+  /**
+   * Looks for releases of snapshots not already released in this repository. Releases from any repository count.
+   */
+  @Transactional
+  protected void findReleases(final List<SnapshotWindow> windows) {
+    StorageTx tx = UnitOfWork.currentTx();
+    for (SnapshotWindow window : windows) {
+      if (!window.released) {
+        GAV gav = window.gav;
+        String releaseVersion = releaseVersion(gav.baseVersion);
+        componentEntityAdapter.findByGroupNameVersion(tx.getDb(), gav.group, gav.name, releaseVersion).stream()
+            .filter(component -> releaseVersion.equals(baseVersion(component)) && MavenFacetUtils.isRelease(component))
+            .findFirst()
+            .ifPresent(release -> {
+              window.components.add(release);
+              window.released = true;
+            });
+      }
+    }
+  }
+
   /**
    * Given a list of all components (snapshot & release) for a GAV, determine which ones to delete based on the config
    */
@@ -261,59 +370,28 @@ public class RemoveSnapshotsFacetImpl
     return snapshotsToDelete;
   }
 
-  private boolean maybeCommit(StorageTx tx, long deleted) {
-    if (deleted % batchSize == 0) {
-      tx.commit();
-      tx.begin();
-      return true;
-    }
-
-    return false;
-  }
-
   /**
-   * Find all components (snapshot *OR* release) for a given GAV
+   * Determine whether or not the given repo could contain snapshots.
    */
-  @VisibleForTesting
-  Iterable<Component> findComponentsForGav(final StorageTx tx, final Repository repository, final GAV gav)
-  {
-    final Bucket bucket = tx.findBucket(repository);
-    final ORID bucketId = AttachedEntityHelper.id(bucket);
-
-    // the version to use for a release version search. E.g. gav.baseVersion is 1.1-SNAPSHOT, we need to search for 1.1
-    String releaseVersion = gav.baseVersion.replace("-SNAPSHOT", "");
-
-    final OResultSet<ODocument> result = tx.getDb().command(new OCommandScript("sql", COMPONENTS_FOR_GABV))
-        .execute(gav.group, gav.name, bucketId, gav.baseVersion, releaseVersion);
-    return result.stream().map(componentEntityAdapter::readEntity).collect(Collectors.toList());
+  private static boolean isSnapshotRepo(final Repository member) {
+    return member.facet(MavenFacet.class).getVersionPolicy() != VersionPolicy.RELEASE;
   }
 
   /**
-   * Find all GAVs that qualify for deletion.
+   * Snapshot components of a GAV in this repository, along with a release of it if one exists.
    */
-  @VisibleForTesting
-  Set<GAV> findSnapshotCandidates(final StorageTx tx, final Repository repository)
+  static final class SnapshotWindow
   {
-    log.info(PROGRESS, "Searching for GAVS with snapshots that qualify for deletion on repository '{}'",
-        repository.getName());
-
-    final Bucket bucket = tx.findBucket(repository);
-    final OResultSet<ODocument> result = tx.getDb().command(new OSQLSynchQuery<>(GAVS_WITH_SNAPSHOTS))
-        .execute(AttachedEntityHelper.id(bucket));
-    return result.stream().map((doc) -> {
-      String group = doc.field(P_GROUP, String.class);
-      String name = doc.field(P_NAME, String.class);
-      String baseVersion = doc.field("baseVersion", String.class);
-      Integer count = doc.field("cnt", Integer.class);
-      return new GAV(group, name, baseVersion, count);
-    }).collect(Collectors.toSet());
-  }
+    final GAV gav;
 
-  /**
-   * Determine whether or not the given repo could contain snapshots.
-   */
-  private static boolean isSnapshotRepo(final Repository member) {
-    return member.facet(MavenFacet.class).getVersionPolicy() != VersionPolicy.RELEASE;
+    final Set<Component> components;
+
+    boolean released;
+
+    SnapshotWindow(final GAV gav, final Collection<Component> snapshots) {
+      this.gav = gav;
+      this.components = new HashSet<>(snapshots);
+    }
   }
 
   /**
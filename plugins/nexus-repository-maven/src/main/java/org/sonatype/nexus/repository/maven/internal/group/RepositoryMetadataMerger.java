@@ -12,15 +12,12 @@
  */
 package org.sonatype.nexus.repository.maven.internal.group;
 
-import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.stream.IntStream;
 
@@ -32,7 +29,6 @@ import org.sonatype.nexus.common.app.VersionComparator;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.maven.MavenPath;
 import org.sonatype.nexus.repository.maven.internal.Constants;
-import org.sonatype.nexus.repository.maven.internal.MavenModels;
 import org.sonatype.nexus.repository.view.Content;
 
 import com.google.common.base.Strings;
@@ -54,48 +50,18 @@ import static org.sonatype.nexus.common.app.VersionComparator.version;
 public class RepositoryMetadataMerger
     extends ComponentSupport
 {
+  private final StreamingRepositoryMetadataMerger streamingMerger = new StreamingRepositoryMetadataMerger();
+
   /**
-   * Merges the contents of passed in metadata.
+   * Merges the contents of passed in metadata, streaming the result to the output.
+   *
+   * @see StreamingRepositoryMetadataMerger
    */
   public void merge(final OutputStream outputStream,
                     final MavenPath mavenPath,
                     final Map<Repository, Content> contents)
   {
-    log.debug("Merge metadata for {}", mavenPath.getPath());
-    List<Envelope> metadatas = new ArrayList<>(contents.size());
-    try {
-      for (Map.Entry<Repository, Content> entry : contents.entrySet()) {
-        addReadMetadata(mavenPath, metadatas, entry);
-      }
-
-      final Metadata mergedMetadata = merge(metadatas);
-      if (mergedMetadata == null) {
-        return;
-      }
-      MavenModels.writeMetadata(outputStream, mergedMetadata);
-    }
-    catch (IOException e) {
-      log.error("Unable to merge {}", mavenPath, e);
-    }
-  }
-
-  private void addReadMetadata(final MavenPath mavenPath,
-                               final List<Envelope> metadatas,
-                               final Entry<Repository, Content> entry) throws IOException
-  {
-    final String origin = entry.getKey().getName() + " @ " + mavenPath.getPath();
-    try {
-      final Metadata metadata = MavenModels.readMetadata(entry.getValue().openInputStream());
-      if (metadata == null) {
-        log.debug("Corrupted repository metadata: {}, source: {}", origin, entry.getValue());
-        return;
-      }
-      metadatas.add(new Envelope(origin, metadata));
-    }
-    catch (IOException e) {
-      log.debug("Error downloading repository metadata: {}, source: {}", origin, entry.getValue());
-      throw new IOException("Error downloading repository metadata for " + origin + ": " + e.getMessage(), e);
-    }
+    streamingMerger.merge(outputStream, mavenPath, contents);
   }
 
   /**
@@ -156,7 +122,7 @@ public class RepositoryMetadataMerger
    * If string Null-Or-Empty returns empty string, otherwise the string.
    */
   @Nonnull
-  private static String nullOrEmptyStringFilter(final String str) {
+  static String nullOrEmptyStringFilter(final String str) {
     if (Strings.isNullOrEmpty(str)) {
       return "";
     }
@@ -458,7 +424,7 @@ public class RepositoryMetadataMerger
    * Parses string into a long (accepts strings with dots too, like maven timestamp is, where dot is between date and
    * time). If fails or is null, returns -1.
    */
-  private long ts(final String ts) {
+  static long ts(final String ts) {
     try {
       if (ts != null) {
         return Long.parseLong(ts.replace(".", ""));
@@ -0,0 +1,729 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.group;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.app.VersionComparator;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.Constants;
+import org.sonatype.nexus.repository.view.Content;
+
+import com.google.common.base.Strings;
+import org.apache.maven.artifact.repository.metadata.Plugin;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Arrays.asList;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.sonatype.nexus.common.app.VersionComparator.version;
+import static org.sonatype.nexus.repository.maven.internal.group.RepositoryMetadataMerger.nullOrEmptyStringFilter;
+import static org.sonatype.nexus.repository.maven.internal.group.RepositoryMetadataMerger.ts;
+
+/**
+ * Streaming Maven 2 repository metadata merger, used to merge member metadata of groups.
+ *
+ * Members are read with StAX into plain lists instead of full metadata models, their version lists are combined with
+ * a k-way merge, and the result is written straight to the output stream. The merge rules are the same as
+ * {@link RepositoryMetadataMerger#merge(Iterable)}, but without cloning models or repeated scans of the merged lists.
+ *
+ * @since 3.next
+ */
+class StreamingRepositoryMetadataMerger
+    extends ComponentSupport
+{
+  private static final String MODEL_VERSION = "1.1.0";
+
+  private static final String INDENT = "  ";
+
+  private final XMLInputFactory inputFactory;
+
+  private final XMLOutputFactory outputFactory;
+
+  StreamingRepositoryMetadataMerger() {
+    inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    outputFactory = XMLOutputFactory.newInstance();
+  }
+
+  /**
+   * Merges the contents of passed in metadata, writing the result to the output stream. Nothing is written if none of
+   * the members could be parsed.
+   */
+  public void merge(final OutputStream outputStream,
+                    final MavenPath mavenPath,
+                    final Map<Repository, Content> contents)
+  {
+    log.debug("Merge metadata for {}", mavenPath.getPath());
+    try {
+      MergedMetadata merged = null;
+      for (Entry<Repository, Content> entry : contents.entrySet()) {
+        final String origin = entry.getKey().getName() + " @ " + mavenPath.getPath();
+        final MemberMetadata member = read(origin, entry.getValue());
+        if (member == null) {
+          continue;
+        }
+        if (merged == null) {
+          merged = new MergedMetadata(member);
+        }
+        else {
+          try {
+            merged.merge(member);
+          }
+          catch (IllegalArgumentException e) {
+            // leave out, log it
+            log.warn("Bad data {}", origin, e);
+          }
+        }
+      }
+      if (merged != null) {
+        write(outputStream, merged);
+      }
+    }
+    catch (IOException | XMLStreamException e) {
+      log.error("Unable to merge {}", mavenPath, e);
+    }
+  }
+
+  /**
+   * Reads member metadata, returns {@code null} if it could not be parsed.
+   */
+  @Nullable
+  private MemberMetadata read(final String origin, final Content content) throws IOException {
+    try (InputStream in = content.openInputStream()) {
+      XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+      try {
+        return parseMetadata(reader);
+      }
+      finally {
+        reader.close();
+      }
+    }
+    catch (XMLStreamException e) {
+      if (e.getNestedException() instanceof IOException) {
+        throw downloadFailed(origin, content, (IOException) e.getNestedException());
+      }
+      log.debug("Corrupted repository metadata: {}, source: {}", origin, content);
+      return null;
+    }
+    catch (IOException e) {
+      throw downloadFailed(origin, content, e);
+    }
+  }
+
+  private IOException downloadFailed(final String origin, final Content content, final IOException e) {
+    log.debug("Error downloading repository metadata: {}, source: {}", origin, content);
+    return new IOException("Error downloading repository metadata for " + origin + ": " + e.getMessage(), e);
+  }
+
+  // Parsing follows the lenient (non-strict) Maven metadata reader: values are trimmed, unknown elements are skipped
+  // and unparsable numbers read as zero.
+
+  private static MemberMetadata parseMetadata(final XMLStreamReader reader) throws XMLStreamException {
+    while (reader.hasNext() && reader.next() != START_ELEMENT) {
+      // skip prolog
+    }
+    if (!reader.isStartElement()) {
+      throw new XMLStreamException("Missing root element");
+    }
+    final MemberMetadata member = new MemberMetadata();
+    forEachChild(reader, name -> {
+      switch (name) {
+        case "groupId":
+          member.groupId = text(reader);
+          break;
+        case "artifactId":
+          member.artifactId = text(reader);
+          break;
+        case "version":
+          member.version = text(reader);
+          break;
+        case "versioning":
+          parseVersioning(reader, member);
+          break;
+        case "plugins":
+          member.plugins = new ArrayList<>();
+          forEachChild(reader, child -> {
+            if ("plugin".equals(child)) {
+              member.plugins.add(parsePlugin(reader));
+            }
+            else {
+              skip(reader);
+            }
+          });
+          break;
+        default:
+          skip(reader);
+      }
+    });
+    return member;
+  }
+
+  private static void parseVersioning(final XMLStreamReader reader, final MemberMetadata member)
+      throws XMLStreamException
+  {
+    member.versioning = true;
+    forEachChild(reader, name -> {
+      switch (name) {
+        case "latest":
+          member.latest = text(reader);
+          break;
+        case "release":
+          member.release = text(reader);
+          break;
+        case "lastUpdated":
+          member.lastUpdated = text(reader);
+          break;
+        case "snapshot":
+          member.snapshot = parseSnapshot(reader);
+          break;
+        case "versions":
+          member.versions = new ArrayList<>();
+          forEachChild(reader, child -> {
+            if ("version".equals(child)) {
+              member.versions.add(text(reader));
+            }
+            else {
+              skip(reader);
+            }
+          });
+          break;
+        case "snapshotVersions":
+          member.snapshotVersions = new ArrayList<>();
+          forEachChild(reader, child -> {
+            if ("snapshotVersion".equals(child)) {
+              member.snapshotVersions.add(parseSnapshotVersion(reader));
+            }
+            else {
+              skip(reader);
+            }
+          });
+          break;
+        default:
+          skip(reader);
+      }
+    });
+  }
+
+  private static Snapshot parseSnapshot(final XMLStreamReader reader) throws XMLStreamException {
+    final Snapshot snapshot = new Snapshot();
+    forEachChild(reader, name -> {
+      switch (name) {
+        case "timestamp":
+          snapshot.setTimestamp(text(reader));
+          break;
+        case "buildNumber":
+          snapshot.setBuildNumber(intValue(text(reader)));
+          break;
+        case "localCopy":
+          snapshot.setLocalCopy(Boolean.parseBoolean(text(reader)));
+          break;
+        default:
+          skip(reader);
+      }
+    });
+    return snapshot;
+  }
+
+  private static SnapshotVersion parseSnapshotVersion(final XMLStreamReader reader) throws XMLStreamException {
+    final SnapshotVersion snapshotVersion = new SnapshotVersion();
+    forEachChild(reader, name -> {
+      switch (name) {
+        case "classifier":
+          snapshotVersion.setClassifier(text(reader));
+          break;
+        case "extension":
+          snapshotVersion.setExtension(text(reader));
+          break;
+        case "value":
+          snapshotVersion.setVersion(text(reader));
+          break;
+        case "updated":
+          snapshotVersion.setUpdated(text(reader));
+          break;
+        default:
+          skip(reader);
+      }
+    });
+    return snapshotVersion;
+  }
+
+  private static Plugin parsePlugin(final XMLStreamReader reader) throws XMLStreamException {
+    final Plugin plugin = new Plugin();
+    forEachChild(reader, name -> {
+      switch (name) {
+        case "name":
+          plugin.setName(text(reader));
+          break;
+        case "prefix":
+          plugin.setPrefix(text(reader));
+          break;
+        case "artifactId":
+          plugin.setArtifactId(text(reader));
+          break;
+        default:
+          skip(reader);
+      }
+    });
+    return plugin;
+  }
+
+  /**
+   * Handles a child element, consuming everything up to and including its end tag.
+   */
+  private interface ChildHandler
+  {
+    void handle(String name) throws XMLStreamException;
+  }
+
+  /**
+   * Calls the handler for each child element of the current element, returning on its end tag.
+   */
+  private static void forEachChild(final XMLStreamReader reader, final ChildHandler handler)
+      throws XMLStreamException
+  {
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == START_ELEMENT) {
+        handler.handle(reader.getLocalName());
+      }
+      else if (event == END_ELEMENT) {
+        return;
+      }
+    }
+    throw new XMLStreamException("Unexpected end of document");
+  }
+
+  private static void skip(final XMLStreamReader reader) throws XMLStreamException {
+    forEachChild(reader, name -> skip(reader));
+  }
+
+  private static String text(final XMLStreamReader reader) throws XMLStreamException {
+    return reader.getElementText().trim();
+  }
+
+  private static int intValue(final String value) {
+    try {
+      return Integer.parseInt(value);
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Metadata as read from a single member.
+   */
+  private static class MemberMetadata
+  {
+    private String groupId;
+
+    private String artifactId;
+
+    private String version;
+
+    private boolean versioning;
+
+    private String latest;
+
+    private String release;
+
+    private String lastUpdated;
+
+    private Snapshot snapshot;
+
+    private List<String> versions = new ArrayList<>();
+
+    private List<SnapshotVersion> snapshotVersions = new ArrayList<>();
+
+    private List<Plugin> plugins = new ArrayList<>();
+  }
+
+  /**
+   * Metadata merged so far. Versions are kept as one run per member, each holding only the versions not seen before,
+   * and are only combined when writing.
+   */
+  private class MergedMetadata
+  {
+    private final String groupId;
+
+    private final String artifactId;
+
+    private String version;
+
+    private boolean versioning;
+
+    private final String latest;
+
+    private final String release;
+
+    private String lastUpdated;
+
+    private Snapshot snapshot;
+
+    private final List<List<String>> versionRuns = new ArrayList<>();
+
+    private final Set<String> seenVersions;
+
+    private boolean filterNullVersions;
+
+    private final List<SnapshotVersion> snapshotVersions;
+
+    private final Map<List<String>, SnapshotVersion> snapshotVersionsByKey = new HashMap<>();
+
+    private final List<Plugin> plugins;
+
+    private final Map<List<String>, Plugin> pluginsByKey = new HashMap<>();
+
+    MergedMetadata(final MemberMetadata first) {
+      groupId = first.groupId;
+      artifactId = first.artifactId;
+      version = first.version;
+      versioning = first.versioning;
+      latest = first.latest;
+      release = first.release;
+      lastUpdated = first.lastUpdated;
+      snapshot = first.snapshot;
+      versionRuns.add(first.versions);
+      seenVersions = new HashSet<>(first.versions);
+      snapshotVersions = first.snapshotVersions;
+      for (SnapshotVersion snapshotVersion : snapshotVersions) {
+        snapshotVersionsByKey.putIfAbsent(snapshotVersionKey(snapshotVersion), snapshotVersion);
+      }
+      plugins = first.plugins;
+      for (Plugin plugin : plugins) {
+        pluginsByKey.putIfAbsent(pluginKey(plugin), plugin);
+      }
+    }
+
+    /**
+     * Merges the member on top of the metadata merged so far.
+     */
+    void merge(final MemberMetadata member) {
+      String sourceGroupId = Strings.isNullOrEmpty(member.groupId) ? groupId : member.groupId;
+      String sourceArtifactId = Strings.isNullOrEmpty(member.artifactId) ? artifactId : member.artifactId;
+
+      // version differs: we do it "both ways" if set at all
+      if (Strings.isNullOrEmpty(version)) {
+        version = member.version;
+      }
+      String sourceVersion = Strings.isNullOrEmpty(member.version) ? version : member.version;
+
+      checkArgument(Objects.equals(nullOrEmptyStringFilter(groupId), nullOrEmptyStringFilter(sourceGroupId)),
+          "GroupId mismatch: %s vs %s", groupId, sourceGroupId);
+      checkArgument(Objects.equals(nullOrEmptyStringFilter(artifactId), nullOrEmptyStringFilter(sourceArtifactId)),
+          "ArtifactId mismatch: %s vs %s", artifactId, sourceArtifactId);
+
+      if (!Objects.equals(nullOrEmptyStringFilter(version), nullOrEmptyStringFilter(sourceVersion))) {
+        log.warn("Merging with version mismatch for GA={}:{}, {} vs {}", groupId, artifactId,
+            nullOrEmptyStringFilter(version), nullOrEmptyStringFilter(sourceVersion));
+      }
+
+      mergePlugins(member.plugins);
+      mergeVersioning(member);
+    }
+
+    private void mergePlugins(final List<Plugin> memberPlugins) {
+      for (Plugin plugin : memberPlugins) {
+        Plugin preExisting = pluginsByKey.get(pluginKey(plugin));
+        if (preExisting != null) {
+          preExisting.setName(plugin.getName());
+        }
+        else {
+          plugins.add(plugin);
+          pluginsByKey.put(pluginKey(plugin), plugin);
+        }
+      }
+    }
+
+    private void mergeVersioning(final MemberMetadata member) {
+      if (!member.versioning) {
+        return; // nothing to do
+      }
+      versioning = true;
+
+      // lastUpdated: if not set, set from member, otherwise newer
+      if (member.lastUpdated != null && (lastUpdated == null || ts(member.lastUpdated) > ts(lastUpdated))) {
+        lastUpdated = member.lastUpdated;
+      }
+
+      // versions: keep those not seen before, ordering happens when written
+      filterNullVersions = true;
+      List<String> run = new ArrayList<>();
+      for (String memberVersion : member.versions) {
+        if (!"null".equals(memberVersion) && seenVersions.add(memberVersion)) {
+          run.add(memberVersion);
+        }
+      }
+      versionRuns.add(run);
+
+      // snapshot: take member's if not set, or it is newer
+      if (member.snapshot != null
+          && (snapshot == null || ts(member.snapshot.getTimestamp()) > ts(snapshot.getTimestamp()))) {
+        snapshot = member.snapshot;
+      }
+
+      // snapshotVersions: add ext+classifier combos, if not exist, or are older version
+      for (SnapshotVersion snapshotVersion : member.snapshotVersions) {
+        List<String> key = snapshotVersionKey(snapshotVersion);
+        SnapshotVersion preExisting = snapshotVersionsByKey.get(key);
+        if (preExisting == null) {
+          snapshotVersions.add(snapshotVersion);
+          snapshotVersionsByKey.put(key, snapshotVersion);
+        }
+        else if (version(snapshotVersion.getVersion()).compareTo(version(preExisting.getVersion())) > 0) {
+          preExisting.setClassifier(nullOrEmptyStringFilter(snapshotVersion.getClassifier()));
+          preExisting.setVersion(snapshotVersion.getVersion());
+          preExisting.setUpdated(snapshotVersion.getUpdated());
+        }
+      }
+    }
+
+    /**
+     * Returns the merged versions, ordered by {@link VersionComparator}. Each run is sorted on its own (most already
+     * are) and then merged, with ties going to earlier members just like a stable sort of all versions would.
+     */
+    List<String> versions() {
+      List<List<String>> sortedRuns = new ArrayList<>(versionRuns.size());
+      int total = 0;
+      for (int i = 0; i < versionRuns.size(); i++) {
+        List<String> run = versionRuns.get(i);
+        if (i == 0 && filterNullVersions && run.contains("null")) {
+          run = new ArrayList<>(run);
+          run.removeIf("null"::equals);
+        }
+        if (!isSorted(run)) {
+          run = new ArrayList<>(run);
+          Collections.sort(run, VersionComparator.INSTANCE);
+        }
+        sortedRuns.add(run);
+        total += run.size();
+      }
+
+      PriorityQueue<RunCursor> heads = new PriorityQueue<>(Math.max(1, sortedRuns.size()));
+      for (int i = 0; i < sortedRuns.size(); i++) {
+        if (!sortedRuns.get(i).isEmpty()) {
+          heads.add(new RunCursor(sortedRuns.get(i), i));
+        }
+      }
+      List<String> merged = new ArrayList<>(total);
+      while (!heads.isEmpty()) {
+        RunCursor cursor = heads.poll();
+        merged.add(cursor.head());
+        if (cursor.advance()) {
+          heads.add(cursor);
+        }
+      }
+      return merged;
+    }
+  }
+
+  private static boolean isSorted(final List<String> versions) {
+    for (int i = 1; i < versions.size(); i++) {
+      if (VersionComparator.INSTANCE.compare(versions.get(i - 1), versions.get(i)) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<String> snapshotVersionKey(final SnapshotVersion snapshotVersion) {
+    return asList(snapshotVersion.getExtension(), nullOrEmptyStringFilter(snapshotVersion.getClassifier()));
+  }
+
+  private static List<String> pluginKey(final Plugin plugin) {
+    return asList(plugin.getArtifactId(), plugin.getPrefix());
+  }
+
+  /**
+   * Position in a sorted run of versions, ordered by its current version and then by member.
+   */
+  private static class RunCursor
+      implements Comparable<RunCursor>
+  {
+    private final List<String> run;
+
+    private final int member;
+
+    private int index;
+
+    RunCursor(final List<String> run, final int member) {
+      this.run = run;
+      this.member = member;
+    }
+
+    String head() {
+      return run.get(index);
+    }
+
+    boolean advance() {
+      return ++index < run.size();
+    }
+
+    @Override
+    public int compareTo(final RunCursor other) {
+      int result = VersionComparator.INSTANCE.compare(head(), other.head());
+      return result != 0 ? result : Integer.compare(member, other.member);
+    }
+  }
+
+  // Writing follows the layout of the Maven metadata writer: two space indent and optional elements left out.
+
+  private void write(final OutputStream outputStream, final MergedMetadata merged) throws XMLStreamException {
+    XMLStreamWriter writer = outputFactory.createXMLStreamWriter(outputStream, "UTF-8");
+    try {
+      writer.writeStartDocument("UTF-8", "1.0");
+      writer.writeCharacters("\n");
+      writer.writeStartElement("metadata");
+      writer.writeAttribute("modelVersion", MODEL_VERSION);
+      writeElement(writer, 1, "groupId", merged.groupId);
+      writeElement(writer, 1, "artifactId", merged.artifactId);
+      writeElement(writer, 1, "version", merged.version);
+      if (merged.versioning) {
+        writeVersioning(writer, merged);
+      }
+      if (!merged.plugins.isEmpty()) {
+        List<Plugin> plugins = new ArrayList<>(merged.plugins);
+        plugins.sort((p1, p2) -> p1.getArtifactId().compareTo(p2.getArtifactId()));
+        startElement(writer, 1, "plugins");
+        for (Plugin plugin : plugins) {
+          startElement(writer, 2, "plugin");
+          writeElement(writer, 3, "name", plugin.getName());
+          writeElement(writer, 3, "prefix", plugin.getPrefix());
+          writeElement(writer, 3, "artifactId", plugin.getArtifactId());
+          endElement(writer, 2);
+        }
+        endElement(writer, 1);
+      }
+      endElement(writer, 0);
+      writer.writeCharacters("\n");
+      writer.writeEndDocument();
+      writer.flush();
+    }
+    finally {
+      writer.close(); // does not close the underlying stream
+    }
+  }
+
+  private void writeVersioning(final XMLStreamWriter writer, final MergedMetadata merged) throws XMLStreamException {
+    List<String> versions = merged.versions();
+    String latest = merged.latest;
+    String release = merged.release;
+    if (!versions.isEmpty()) {
+      // the last in ordered list, and the last non-snapshot in ordered list (may be null)
+      latest = versions.get(versions.size() - 1);
+      release = null;
+      for (int i = versions.size() - 1; i >= 0; i--) {
+        if (!versions.get(i).endsWith(Constants.SNAPSHOT_VERSION_SUFFIX)) {
+          release = versions.get(i);
+          break;
+        }
+      }
+    }
+
+    startElement(writer, 1, "versioning");
+    writeElement(writer, 2, "latest", latest);
+    writeElement(writer, 2, "release", release);
+    if (merged.snapshot != null) {
+      Snapshot snapshot = merged.snapshot;
+      startElement(writer, 2, "snapshot");
+      writeElement(writer, 3, "timestamp", snapshot.getTimestamp());
+      if (snapshot.getBuildNumber() != 0) {
+        writeElement(writer, 3, "buildNumber", String.valueOf(snapshot.getBuildNumber()));
+      }
+      if (snapshot.isLocalCopy()) {
+        writeElement(writer, 3, "localCopy", String.valueOf(true));
+      }
+      endElement(writer, 2);
+    }
+    if (!versions.isEmpty()) {
+      startElement(writer, 2, "versions");
+      for (String version : versions) {
+        writeElement(writer, 3, "version", version);
+      }
+      endElement(writer, 2);
+    }
+    writeElement(writer, 2, "lastUpdated", merged.lastUpdated);
+    if (!merged.snapshotVersions.isEmpty()) {
+      startElement(writer, 2, "snapshotVersions");
+      for (SnapshotVersion snapshotVersion : merged.snapshotVersions) {
+        startElement(writer, 3, "snapshotVersion");
+        if (!Strings.isNullOrEmpty(snapshotVersion.getClassifier())) {
+          writeElement(writer, 4, "classifier", snapshotVersion.getClassifier());
+        }
+        writeElement(writer, 4, "extension", snapshotVersion.getExtension());
+        writeElement(writer, 4, "value", snapshotVersion.getVersion());
+        writeElement(writer, 4, "updated", snapshotVersion.getUpdated());
+        endElement(writer, 3);
+      }
+      endElement(writer, 2);
+    }
+    endElement(writer, 1);
+  }
+
+  private static void startElement(final XMLStreamWriter writer, final int depth, final String name)
+      throws XMLStreamException
+  {
+    indent(writer, depth);
+    writer.writeStartElement(name);
+  }
+
+  private static void endElement(final XMLStreamWriter writer, final int depth) throws XMLStreamException {
+    indent(writer, depth);
+    writer.writeEndElement();
+  }
+
+  private static void writeElement(final XMLStreamWriter writer,
+                                   final int depth,
+                                   final String name,
+                                   @Nullable final String value) throws XMLStreamException
+  {
+    if (value != null) {
+      startElement(writer, depth, name);
+      writer.writeCharacters(value);
+      writer.writeEndElement();
+    }
+  }
+
+  private static void indent(final XMLStreamWriter writer, final int depth) throws XMLStreamException {
+    StringBuilder indent = new StringBuilder("\n");
+    for (int i = 0; i < depth; i++) {
+      indent.append(INDENT);
+    }
+    writer.writeCharacters(indent.toString());
+  }
+}
@@ -27,6 +27,7 @@ import org.sonatype.nexus.transaction.UnitOfWork;
 
 import org.apache.maven.index.reader.Record;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -40,16 +41,23 @@ public class MavenHostedIndexFacet
 {
   private final DuplicateDetectionStrategyProvider duplicateDetectionStrategyProvider;
 
+  private final int maxIncrementalChunks;
+
   @Inject
-  public MavenHostedIndexFacet(final DuplicateDetectionStrategyProvider duplicateDetectionStrategyProvider) {
+  public MavenHostedIndexFacet(
+      final DuplicateDetectionStrategyProvider duplicateDetectionStrategyProvider,
+      @Named("${nexus.maven.index.maxIncrementalChunks:-30}") final int maxIncrementalChunks)
+  {
     this.duplicateDetectionStrategyProvider = checkNotNull(duplicateDetectionStrategyProvider);
+    checkArgument(maxIncrementalChunks >= 0, "Max incremental chunks must not be negative");
+    this.maxIncrementalChunks = maxIncrementalChunks;
   }
 
   @Override
   public void publishIndex() throws IOException {
     UnitOfWork.begin(getRepository().facet(StorageFacet.class).txSupplier());
     try (DuplicateDetectionStrategy<Record> strategy = duplicateDetectionStrategyProvider.get()) {
-      MavenIndexPublisher.publishHostedIndex(getRepository(), strategy);
+      MavenIndexPublisher.publishHostedIndex(getRepository(), strategy, maxIncrementalChunks);
     }
     finally {
       UnitOfWork.end();
@@ -13,6 +13,7 @@
 package org.sonatype.nexus.repository.maven;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -73,10 +74,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.upload.UploadFieldDefinition.Type.BOOLEAN;
 import static org.sonatype.nexus.repository.upload.UploadFieldDefinition.Type.STRING;
@@ -274,6 +278,43 @@ public class MavenUploadHandlerTest
     verify(mavenHostedFacet).rebuildMetadata("org.apache.maven", "tomcat", "5.0.28", false);
   }
 
+  @Test
+  public void testHandleBulk() throws IOException {
+    List<UploadResponse> responses = underTest.handleBulk(repository,
+        Arrays.asList(jarUpload("tomcat", "5.0.28"), jarUpload("tomcat", "5.0.30"), jarUpload("jasper", "5.0.28")));
+
+    assertThat(responses, hasSize(3));
+    assertThat(responses.get(1).getAssetPaths(), contains("org/apache/maven/tomcat/5.0.30/tomcat-5.0.30.jar"));
+    verify(mavenFacet, times(6)).put(any(), any());
+    verify(mavenHostedFacet, never()).rebuildMetadata(any(), any(), any(), anyBoolean());
+
+    underTest.afterBulkUpload(repository, responses);
+
+    verify(mavenHostedFacet).rebuildMetadata("org.apache.maven", "tomcat", null, false);
+    verify(mavenHostedFacet).rebuildMetadata("org.apache.maven", "jasper", "5.0.28", false);
+    verifyNoMoreInteractions(mavenHostedFacet);
+  }
+
+  @Test(expected = ValidationErrorsException.class)
+  public void testHandleBulk_snapshot_not_supported() throws IOException {
+    when(mavenFacet.getVersionPolicy()).thenReturn(VersionPolicy.SNAPSHOT);
+
+    underTest.handleBulk(repository, Collections.singletonList(jarUpload("tomcat", "5.0.28")));
+  }
+
+  private ComponentUpload jarUpload(final String artifactId, final String version) {
+    ComponentUpload componentUpload = new ComponentUpload();
+    componentUpload.getFields().put("groupId", "org.apache.maven");
+    componentUpload.getFields().put("artifactId", artifactId);
+    componentUpload.getFields().put("version", version);
+
+    AssetUpload assetUpload = new AssetUpload();
+    assetUpload.getFields().put("extension", "jar");
+    assetUpload.setPayload(jarPayload);
+    componentUpload.getAssetUploads().add(assetUpload);
+    return componentUpload;
+  }
+
   @Test
   public void testHandle_generatePom() throws IOException {
     ComponentUpload componentUpload = new ComponentUpload();
@@ -0,0 +1,322 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.orient.entity.AttachedEntityMetadata;
+import org.sonatype.nexus.orient.entity.EntityAdapter;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.MavenFacet;
+import org.sonatype.nexus.repository.maven.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.filter.HashBasedDuplicateDetectionStrategy;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.nexus.transaction.UnitOfWork;
+
+import com.google.common.io.ByteStreams;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.apache.maven.index.reader.ChunkReader;
+import org.apache.maven.index.reader.Record;
+import org.apache.maven.index.reader.Record.Type;
+import org.apache.maven.index.reader.RecordExpander;
+import org.apache.maven.index.reader.Utils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.endsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link MavenIndexPublisher}.
+ */
+public class MavenIndexPublisherTest
+    extends TestSupport
+{
+  private static final String PROPERTIES = ".index/nexus-maven-repository-index.properties";
+
+  private static final String MAIN_CHUNK = ".index/nexus-maven-repository-index.gz";
+
+  private static final String FIRST_CHUNK = ".index/nexus-maven-repository-index.1.gz";
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private MavenFacet mavenFacet;
+
+  @Mock
+  private StorageFacet storageFacet;
+
+  @Mock
+  private StorageTx tx;
+
+  private final Map<String, byte[]> files = new HashMap<>();
+
+  private final List<ODocument> artifacts = new ArrayList<>();
+
+  private final List<ODocument> changed = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.getName()).thenReturn("maven-releases");
+    when(repository.facet(MavenFacet.class)).thenReturn(mavenFacet);
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    when(storageFacet.txSupplier()).thenReturn(() -> tx);
+    mockStorage(mavenFacet, files);
+
+    EntityAdapter owner = mock(EntityAdapter.class);
+    ODocument bucketDocument = mock(ODocument.class);
+    when(bucketDocument.getIdentity()).thenReturn(new ORecordId(1, 1));
+    Bucket bucket = new Bucket();
+    bucket.setEntityMetadata(new AttachedEntityMetadata(owner, bucketDocument));
+    when(tx.findBucket(repository)).thenReturn(bucket);
+
+    when(tx.browse(anyString(), anyMapOf(String.class, Object.class))).thenAnswer(
+        invocation -> ((String) invocation.getArguments()[0]).contains(":since") ? changed : artifacts);
+    when(tx.countAssets(anyString(), anyMapOf(String.class, Object.class), any(), any())).thenAnswer(
+        invocation -> (long) (((String) invocation.getArguments()[0]).contains(":since") ? changed : artifacts).size());
+
+    UnitOfWork.beginBatch(tx);
+  }
+
+  @After
+  public void tearDown() {
+    UnitOfWork.end();
+  }
+
+  @Test
+  public void firstPublishWritesFullIndex() throws Exception {
+    deploy("foo", "1.0");
+    deploy("bar", "1.0");
+
+    publish(30);
+
+    assertThat(artifactIds(MAIN_CHUNK), containsInAnyOrder("foo", "bar"));
+    Properties properties = properties();
+    assertThat(properties.getProperty("nexus.index.id"), is("maven-releases"));
+    assertThat(properties.getProperty("nexus.index.chain-id"), notNullValue());
+    assertThat(properties.getProperty("nexus.index.last-incremental"), nullValue());
+  }
+
+  @Test
+  public void newArtifactsArePublishedAsIncrementalChunk() throws Exception {
+    deploy("foo", "1.0");
+    deploy("bar", "1.0");
+    publish(30);
+    String chainId = properties().getProperty("nexus.index.chain-id");
+
+    changed.add(deploy("baz", "1.0"));
+    publish(30);
+
+    assertThat(artifactIds(FIRST_CHUNK), is(singletonList("baz")));
+    assertThat(artifactIds(MAIN_CHUNK), containsInAnyOrder("foo", "bar", "baz"));
+    Properties properties = properties();
+    assertThat(properties.getProperty("nexus.index.chain-id"), is(chainId));
+    assertThat(properties.getProperty("nexus.index.last-incremental"), is("1"));
+    assertThat(properties.getProperty("nexus.index.incremental-0"), is("1"));
+    // only the first publish went through every artifact
+    verify(tx).browse(endsWith("blob_updated <= :until)"), anyMapOf(String.class, Object.class));
+  }
+
+  @Test
+  public void incrementalChunksAreListedNewestFirst() throws Exception {
+    deploy("foo", "1.0");
+    publish(30);
+    changed.add(deploy("bar", "1.0"));
+    publish(30);
+    changed.clear();
+    changed.add(deploy("baz", "1.0"));
+    publish(30);
+
+    assertThat(artifactIds(".index/nexus-maven-repository-index.2.gz"), is(singletonList("baz")));
+    assertThat(artifactIds(MAIN_CHUNK), containsInAnyOrder("foo", "bar", "baz"));
+    Properties properties = properties();
+    assertThat(properties.getProperty("nexus.index.last-incremental"), is("2"));
+    assertThat(properties.getProperty("nexus.index.incremental-0"), is("2"));
+    assertThat(properties.getProperty("nexus.index.incremental-1"), is("1"));
+  }
+
+  @Test
+  public void unchangedRepositoryIsNotPublishedAgain() throws Exception {
+    deploy("foo", "1.0");
+    publish(30);
+    publish(30);
+
+    // main chunk and properties of the first publish only
+    verify(mavenFacet, times(2)).put(any(MavenPath.class), any(Payload.class));
+  }
+
+  @Test
+  public void removedArtifactsStartNewChain() throws Exception {
+    ODocument foo = deploy("foo", "1.0");
+    deploy("bar", "1.0");
+    publish(30);
+    changed.add(deploy("baz", "1.0"));
+    publish(30);
+    String chainId = properties().getProperty("nexus.index.chain-id");
+
+    artifacts.remove(foo);
+    changed.clear();
+    publish(30);
+
+    assertThat(artifactIds(MAIN_CHUNK), containsInAnyOrder("bar", "baz"));
+    assertThat(files, not(hasKey(FIRST_CHUNK)));
+    Properties properties = properties();
+    assertThat(properties.getProperty("nexus.index.chain-id"), not(chainId));
+    assertThat(properties.getProperty("nexus.index.last-incremental"), nullValue());
+  }
+
+  @Test
+  public void fullChainStartsNewChain() throws Exception {
+    deploy("foo", "1.0");
+    publish(1);
+    changed.add(deploy("bar", "1.0"));
+    publish(1);
+    changed.clear();
+    changed.add(deploy("baz", "1.0"));
+    publish(1);
+
+    assertThat(artifactIds(MAIN_CHUNK), containsInAnyOrder("foo", "bar", "baz"));
+    assertThat(files, not(hasKey(FIRST_CHUNK)));
+    assertThat(properties().getProperty("nexus.index.last-incremental"), nullValue());
+  }
+
+  @Test
+  public void incrementalPublishingCanBeDisabled() throws Exception {
+    deploy("foo", "1.0");
+    publish(0);
+    changed.add(deploy("bar", "1.0"));
+    publish(0);
+
+    assertThat(artifactIds(MAIN_CHUNK), containsInAnyOrder("foo", "bar"));
+    assertThat(files, not(hasKey(FIRST_CHUNK)));
+    verify(tx, never()).countAssets(contains(":since"), anyMapOf(String.class, Object.class), any(), any());
+  }
+
+  @Test
+  public void unpublishRemovesIncrementalChunks() throws Exception {
+    deploy("foo", "1.0");
+    publish(30);
+    changed.add(deploy("bar", "1.0"));
+    publish(30);
+
+    MavenIndexPublisher.unpublishIndexFiles(repository);
+
+    assertThat(files.isEmpty(), is(true));
+  }
+
+  @Test
+  public void unchangedMembersAreNotMergedAgain() throws Exception {
+    deploy("foo", "1.0");
+    publish(30);
+    Repository group = mock(Repository.class);
+    MavenFacet groupMavenFacet = mock(MavenFacet.class);
+    Map<String, byte[]> groupFiles = new HashMap<>();
+    when(group.getName()).thenReturn("maven-public");
+    when(group.facet(MavenFacet.class)).thenReturn(groupMavenFacet);
+    mockStorage(groupMavenFacet, groupFiles);
+
+    MavenIndexPublisher.publishMergedIndex(group, singletonList(repository), new HashBasedDuplicateDetectionStrategy());
+    MavenIndexPublisher.publishMergedIndex(group, singletonList(repository), new HashBasedDuplicateDetectionStrategy());
+
+    verify(groupMavenFacet, times(2)).put(any(MavenPath.class), any(Payload.class));
+    files.putAll(groupFiles);
+    assertThat(artifactIds(MAIN_CHUNK), is(singletonList("foo")));
+  }
+
+  private static void mockStorage(final MavenFacet mavenFacet, final Map<String, byte[]> files) throws IOException {
+    when(mavenFacet.getMavenPathParser()).thenReturn(new Maven2MavenPathParser());
+    when(mavenFacet.get(any(MavenPath.class))).thenAnswer(invocation -> {
+      byte[] bytes = files.get(((MavenPath) invocation.getArguments()[0]).getPath());
+      return bytes != null ? new Content(new BytesPayload(bytes, null)) : null;
+    });
+    when(mavenFacet.put(any(MavenPath.class), any(Payload.class))).thenAnswer(invocation -> {
+      try (InputStream in = ((Payload) invocation.getArguments()[1]).openInputStream()) {
+        files.put(((MavenPath) invocation.getArguments()[0]).getPath(), ByteStreams.toByteArray(in));
+      }
+      return null;
+    });
+    when(mavenFacet.delete(any(MavenPath.class))).thenAnswer(
+        invocation -> files.remove(((MavenPath) invocation.getArguments()[0]).getPath()) != null);
+  }
+
+  private void publish(final int maxIncrementalChunks) throws IOException {
+    MavenIndexPublisher.publishHostedIndex(repository, new HashBasedDuplicateDetectionStrategy(), maxIncrementalChunks);
+  }
+
+  private ODocument deploy(final String artifactId, final String version) {
+    ODocument document = new ODocument();
+    document.field("lastModified", System.currentTimeMillis());
+    document.field("groupId", "org.example");
+    document.field("artifactId", artifactId);
+    document.field("version", version);
+    document.field("packaging", "jar");
+    document.field("path", String.format("org/example/%s/%s/%s-%s.jar", artifactId, version, artifactId, version));
+    document.field("contentLastModified", System.currentTimeMillis());
+    document.field("contentSize", 42L);
+    document.field("sha1", "da39a3ee5e6b4b0d3255bfef95601890afd80709");
+    artifacts.add(document);
+    return document;
+  }
+
+  private Properties properties() throws IOException {
+    return Utils.loadProperties(new ByteArrayInputStream(files.get(PROPERTIES)));
+  }
+
+  private List<String> artifactIds(final String path) throws IOException {
+    assertThat(path, files.get(path), notNullValue());
+    RecordExpander expander = new RecordExpander();
+    List<String> artifactIds = new ArrayList<>();
+    try (ChunkReader reader = new ChunkReader(path, new ByteArrayInputStream(files.get(path)))) {
+      for (Map<String, String> data : reader) {
+        Record record = expander.apply(data);
+        if (record.getType() == Type.ARTIFACT_ADD) {
+          artifactIds.add(record.get(Record.ARTIFACT_ID));
+        }
+      }
+    }
+    return artifactIds;
+  }
+}
@@ -12,7 +12,13 @@
  */
 package org.sonatype.nexus.repository.maven.internal
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 import org.sonatype.nexus.common.collect.NestedAttributesMap
+import org.sonatype.nexus.common.entity.DetachedEntityId
+import org.sonatype.nexus.common.entity.DetachedEntityMetadata
+import org.sonatype.nexus.common.entity.DetachedEntityVersion
+import org.sonatype.nexus.common.entity.EntityId
 import org.sonatype.nexus.common.entity.EntityMetadata
 import org.sonatype.nexus.orient.entity.AttachedEntityMetadata
 import org.sonatype.nexus.orient.entity.EntityAdapter
@@ -22,10 +28,14 @@ import org.sonatype.nexus.repository.storage.Bucket
 import org.sonatype.nexus.repository.storage.Component
 import org.sonatype.nexus.repository.storage.ComponentEntityAdapter
 import org.sonatype.nexus.repository.storage.DefaultComponent
+import org.sonatype.nexus.repository.storage.StorageFacet
 import org.sonatype.nexus.repository.storage.StorageTx
 import org.sonatype.nexus.repository.types.GroupType
+import org.sonatype.nexus.scheduling.CancelableHelper
+import org.sonatype.nexus.scheduling.TaskInterruptedException
 import org.sonatype.nexus.transaction.UnitOfWork
 
+import com.google.common.base.Supplier
 import com.google.common.collect.Maps
 import com.orientechnologies.orient.core.id.ORID
 import com.orientechnologies.orient.core.id.ORecordId
@@ -60,13 +70,14 @@ class RemoveSnapshotsFacetImplTest
   RemoveSnapshotsFacetImpl removeSnapshotsFacet =
       Spy(RemoveSnapshotsFacetImpl, constructorArgs: [componentEntityAdapter, new GroupType(), 500])
 
+  StorageFacet storageFacet = Stub()
+
+  List<List<EntityId>> deletedBatches = []
+
   def setup() {
-    UnitOfWork.beginBatch(tx)
     repository.getName() >> "test"
-  }
-
-  def cleanup() {
-    UnitOfWork.end()
+    repository.facet(StorageFacet) >> storageFacet
+    storageFacet.txSupplier() >> ({ -> tx } as Supplier)
   }
 
   /**
@@ -79,26 +90,125 @@ class RemoveSnapshotsFacetImplTest
 
     then: 'Only affected GAVs are returned for further processing'
       // stubbing out Spy internal methods here to avoid need to overly mock data layer
-      removeSnapshotsFacet.findSnapshotCandidates(_, _) >> candidates
-      candidates.size() * removeSnapshotsFacet.findComponentsForGav(_, _, _) >> comps
-      removeSnapshotsFacet.getSnapshotsToDelete(_, _) >>
-          comps // return the same set of components for this test. getSnapshotsToDelete is another test.
+      1 * removeSnapshotsFacet.browseComponents(repository, null) >> comps
+      removeSnapshotsFacet.getSnapshotsToDelete(_, _) >> { cfg, found -> found } // getSnapshotsToDelete is another test
       gavs == expected
-      1 * removeSnapshotsFacet.processRepository(_, _)
-      dels * tx.deleteComponent(_)
-      commits * tx.commit()
-      commits * tx.begin()
-      0 * _  // no other interactions on Mocks/Spies
+      batches * removeSnapshotsFacet.deleteComponentBatch(repository, _) >> { repo, ids -> deleted(ids) }
+      deletedBatches.flatten().size() == dels
 
     where:
       // @formatter:off
-      desc                                                        | config   | candidates | comps                                           | expected              | dels | commits
-      'No candidates results in no deletions'                     | config() | []         | []                                              | [] as HashSet         | 0    | 1
-      'A candidate with no components results in no deletions'    | config() | [gav()]    | []                                              | [] as HashSet         | 0    | 1
-      'A candidate with 1 component results in 1 deletion'        | config() | [gav()]    | [component()]                                   | [gav(1)] as HashSet   | 1    | 1
-      'A candidate with 2 component results in 2 deletions'       | config() | [gav(2)]   | [component(), component('1.0-20161110.233023')] | [gav(2)] as HashSet   | 2    | 1
-      'More than 500 results should require more than one commit' | config() | [gav(501)] | components(501)                                 | [gav(501)] as HashSet | 501  | 2
-      // @formatter:on 
+      desc                                                     | config   | comps                                                     | expected                               | dels | batches
+      'No components results in no deletions'                  | config() | []                                                        | [] as HashSet                          | 0    | 0
+      'Releases alone result in no deletions'                  | config() | [component('1.0', 0, '1.0')]                              | [] as HashSet                          | 0    | 0
+      'A GAV with 1 component results in 1 deletion'          | config() | [component()]                                             | [gav(1)] as HashSet                    | 1    | 1
+      'A GAV with 2 components results in 2 deletions'        | config() | [component(), component('1.0-20161110.233023')]           | [gav(2)] as HashSet                    | 2    | 1
+      'Components are grouped by base version'                 | config() | [component(), component('1.1-20161110.233023', 0, '1.1-SNAPSHOT')] | [gav(1), gav(1, '1.1-SNAPSHOT')] as HashSet | 2 | 1
+      'Components are grouped by group and name'               | config() | [component(), component('1.0-20161110.233023', 0, '1.0-SNAPSHOT', 'a', 'c')] | [gav(1), gav(1, '1.0-SNAPSHOT', 'a', 'c')] as HashSet | 2 | 1
+      // @formatter:on
+  }
+
+  def 'Components are walked a page at a time and deleted in batches'() {
+    given: 'A facet configured with a specific batch size'
+      RemoveSnapshotsFacetImpl facet =
+          Spy(RemoveSnapshotsFacetImpl, constructorArgs: [componentEntityAdapter, new GroupType(), 2])
+      // the a:b GAV spans the first two pages
+      def pages = [
+          [component('1.0-20160101.000001'), component('1.0-20160101.000002')],
+          [component('1.0-20160101.000003'), component('1.0-20160101.000001', 0, '1.0-SNAPSHOT', 'a', 'c')],
+          [component('1.0-20160101.000002', 0, '1.0-SNAPSHOT', 'a', 'c')]
+      ]
+
+    when: 'Processing snapshots'
+      def gavs = facet.processRepository(repository, config())
+
+    then: 'Each page follows the last component of the one before'
+      1 * facet.browseComponents(repository, null) >> pages[0]
+      1 * facet.browseComponents(repository, pages[0][1]) >> pages[1]
+      1 * facet.browseComponents(repository, pages[1][1]) >> pages[2]
+      0 * facet.findReleases(_)
+
+    and: 'GAVs are only evaluated once complete, and deletions are batched between pages'
+      gavs == [gav(3), gav(2, '1.0-SNAPSHOT', 'a', 'c')] as HashSet
+      2 * facet.deleteComponentBatch(repository, _) >> { repo, ids -> deleted(ids) }
+      deletedBatches*.size() == [2, 1]
+  }
+
+  def 'Releases are looked up when removing released snapshots'() {
+    given: 'Snapshots of a GAV released in this repository, and snapshots of a GAV released elsewhere'
+      def localRelease = component('1.0', 0, '1.0')
+      def remoteRelease = component('2.0', 0, '2.0')
+      def comps = [localRelease, component('1.0-20160101.000001', 10), component('2.0-20160101.000001', 10, '2.0-SNAPSHOT'),
+                   component('3.0-20160101.000001', 10, '3.0-SNAPSHOT')]
+
+    when: 'Processing snapshots with remove if released'
+      def gavs = removeSnapshotsFacet.processRepository(repository, config(-1, 0, true, 0))
+
+    then: 'Only releases not found in this repository are looked up'
+      1 * removeSnapshotsFacet.browseComponents(repository, null) >> comps
+      1 * removeSnapshotsFacet.findReleases(_) >> { List<List<RemoveSnapshotsFacetImpl.SnapshotWindow>> args ->
+        def windows = args[0]
+        assert windows*.released == [true, false, false]
+        windows[1].components << remoteRelease
+        windows[1].released = true
+      }
+      gavs == [gav(1), gav(1, '2.0-SNAPSHOT')] as HashSet
+      1 * removeSnapshotsFacet.deleteComponentBatch(repository, _) >> { repo, ids -> deleted(ids) }
+      deletedBatches.flatten().size() == 2
+  }
+
+  def 'Cancelling stops snapshot removal before deleting'() {
+    given: 'A cancelled task'
+      CancelableHelper.set(new AtomicBoolean(true))
+
+    when: 'Processing snapshots'
+      removeSnapshotsFacet.processRepository(repository, config())
+
+    then: 'Nothing is deleted'
+      thrown(TaskInterruptedException)
+      0 * removeSnapshotsFacet.browseComponents(_, _)
+      0 * removeSnapshotsFacet.deleteComponentBatch(_, _)
+
+    cleanup:
+      CancelableHelper.remove()
+  }
+
+  def 'Component batches are deleted in the current transaction'() {
+    given: 'Two component ids, one of which was already deleted'
+      def component = component()
+      def componentId = new DetachedEntityId('a')
+      def missingId = new DetachedEntityId('b')
+      UnitOfWork.beginBatch(tx)
+
+    when: 'Deleting the batch'
+      def deleted = removeSnapshotsFacet.deleteComponentBatch(repository, [componentId, missingId])
+
+    then: 'Only the existing component is deleted'
+      tx.findBucket(repository) >> bucket
+      tx.findComponentInBucket(componentId, bucket) >> component
+      tx.findComponentInBucket(missingId, bucket) >> null
+      1 * tx.deleteComponent(component)
+      deleted == 1
+
+    cleanup:
+      UnitOfWork.end()
+  }
+
+  def 'Snapshot windows collect the snapshots and release of each base version'() {
+    given:
+      def release = component('1.0', 0, '1.0')
+      def snapshots = [component('1.0-20160101.000001'), component('1.0-20160101.000002'),
+                       component('1.1-20160101.000001', 0, '1.1-SNAPSHOT')]
+
+    when:
+      def windows = RemoveSnapshotsFacetImpl.snapshotWindows([snapshots[0], release, snapshots[1], snapshots[2]])
+
+    then:
+      windows*.gav == [gav(2), gav(1, '1.1-SNAPSHOT')]
+      windows[0].components == [snapshots[0], snapshots[1], release] as HashSet
+      windows[0].released
+      windows[1].components == [snapshots[2]] as HashSet
+      !windows[1].released
   }
 
   @Shared
@@ -146,42 +256,6 @@ class RemoveSnapshotsFacetImplTest
       // @formatter:on
   }
 
-  def 'Number of commits are based on batch size and number of GAVs'() {
-    given: 'A facet configured with a specific batch size'
-      RemoveSnapshotsFacetImpl facet =
-          Spy(RemoveSnapshotsFacetImpl, constructorArgs: [componentEntityAdapter, new GroupType(), 2])
-      def candidates = [gav(3), gav(4), gav(5)]
-      def components = [components(3), components(4), components(5)]
-      def expectedDeleteCount = candidates.sum { it.count - 1 }
-      def expectedCommitCount = Math.floor(expectedDeleteCount) / 2 + 1
-    
-    when: 'When triggered with multiple GAVs'
-      def gavs = facet.processRepository(repository, config())
-
-    then: 'We expect a commit per GAV and 1 commit each time "batchSize" records are deleted'
-      // stubbing out Spy internal methods here to avoid need to overly mock data layer
-      facet.findSnapshotCandidates(_, _) >> candidates
-      facet.findComponentsForGav(_, _, _) >> components[0] >> components[1] >> components[2]
-      // for components to delete, return components found minus 1
-      facet.getSnapshotsToDelete(_, _) >> components[0].subList(1, 3) >> components[1].subList(1, 4) >>
-          components[2].subList(1, 5)
-
-      1 * facet.processRepository(_, _)
-      gavs == candidates as HashSet
-      candidates.sum { it.count - 1 } * tx.deleteComponent(_) // leave one per GAV
-      expectedCommitCount * tx.commit() // 1 commit/begin per involved GAV + 1 for every 2 deletions 
-      expectedCommitCount * tx.begin()
-      0 * _  // no other interactions on Mocks/Spies
-  }
-
-  def components(final int i) {
-    def results = []
-    i.times {
-      results << component()
-    }
-    results
-  }
-
   GAV gav(int count = 1, String baseVersion = '1.0-SNAPSHOT', String group = 'a', String name = 'b') {
     new GAV(group, name, baseVersion, count)
   }
@@ -194,8 +268,16 @@ class RemoveSnapshotsFacetImplTest
     attributes.child(NAME).set(P_BASE_VERSION, baseVersion)
 
     // add five minutes to avoid timing issues with fast test executions where the timestamp might end up being the same
-    new DefaultComponent(group: group, version: version).name(name).attributes(attributes).
+    Component component = new DefaultComponent(group: group, version: version).name(name).attributes(attributes).
         lastUpdated(DateTime.now().minusDays(lastUpdatedAge).minusMinutes(5))
+    component.setEntityMetadata(new DetachedEntityMetadata(new DetachedEntityId(UUID.randomUUID().toString()),
+        new DetachedEntityVersion('1')))
+    component
+  }
+
+  long deleted(final List<EntityId> ids) {
+    deletedBatches << new ArrayList<>(ids)
+    ids.size()
   }
 
   RemoveSnapshotsConfig config(int minimumRetained = 1, int snapshotRetentionDays = 0, boolean removeIfReleased = false,
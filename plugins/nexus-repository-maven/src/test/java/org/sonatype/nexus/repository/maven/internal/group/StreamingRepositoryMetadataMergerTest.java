@@ -0,0 +1,256 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.group;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.app.VersionComparator;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.MavenModels;
+import org.sonatype.nexus.repository.maven.internal.group.RepositoryMetadataMerger.Envelope;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Plugin;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that {@link StreamingRepositoryMetadataMerger} writes the same metadata as merging models with
+ * {@link RepositoryMetadataMerger}.
+ */
+public class StreamingRepositoryMetadataMergerTest
+    extends TestSupport
+{
+  @Mock
+  private MavenPath mavenPath;
+
+  private final RepositoryMetadataMerger modelMerger = new RepositoryMetadataMerger();
+
+  private final StreamingRepositoryMetadataMerger underTest = new StreamingRepositoryMetadataMerger();
+
+  @Test
+  public void groupLevelMetadata() throws Exception {
+    assertEquivalent(
+        g("foo", "bar"),
+        g("bar", "baz"),
+        g("qux"));
+  }
+
+  @Test
+  public void artifactLevelMetadata() throws Exception {
+    Metadata m1 = a("org.foo", "some-project", "20150324121500", "1.0.1", "1.0.1", "1.0.0", "1.0.1", "1.0.1");
+    Metadata m2 = a("org.foo", "some-project", "20150324121700", "1.0.2", "1.0.2", "1.0.2", "0.9", "null", "1.0.0");
+    Metadata m3 = a("org.foo", "some-project", "20150324121600", "1.1.0-SNAPSHOT", null, "1.1.0-SNAPSHOT", "latest");
+    Metadata m4 = new Metadata();
+    m4.setGroupId("org.foo");
+    m4.setArtifactId("some-project");
+
+    Metadata merged = assertEquivalent(m4, m1, m2, m3);
+    assertThat(merged.getVersioning().getVersions(),
+        contains("latest", "0.9", "1.0.0", "1.0.1", "1.0.2", "1.1.0-SNAPSHOT"));
+    assertThat(merged.getVersioning().getRelease(), is("1.0.2"));
+  }
+
+  @Test
+  public void versionLevelMetadata() throws Exception {
+    Metadata m1 = v("org.foo", "some-project", "1.0.0", "20150324.121500", 3);
+    Metadata m2 = v("org.foo", "some-project", "1.0.0", "20150325.121500", 4);
+    Metadata m3 = v("org.foo", "some-project", "1.0.0", "20150323.121500", 2);
+    SnapshotVersion javadoc = new SnapshotVersion();
+    javadoc.setExtension("jar");
+    javadoc.setClassifier("javadoc");
+    javadoc.setVersion("1.0.0-20150323.121500-2");
+    javadoc.setUpdated("20150323.121500");
+    m3.getVersioning().getSnapshotVersions().add(javadoc);
+    m3.getVersioning().getSnapshot().setLocalCopy(true);
+
+    Metadata merged = assertEquivalent(m1, m2, m3);
+    assertThat(merged.getVersioning().getSnapshot().getBuildNumber(), is(4));
+  }
+
+  @Test
+  public void mismatchedMembersAreLeftOut() throws Exception {
+    Metadata m1 = a("org.foo", "some-project", "20150324121500", "1.0.1", "1.0.1", "1.0.1");
+    Metadata m2 = a("org.bar", "some-project", "20150324121700", "2.0", "2.0", "2.0");
+    Metadata m3 = a("org.foo", "other-project", "20150324121700", "3.0", "3.0", "3.0");
+    Metadata m4 = a(null, null, "20150324121600", "1.0.2", "1.0.2", "1.0.2");
+
+    Metadata merged = assertEquivalent(m1, m2, m3, m4);
+    assertThat(merged.getVersioning().getVersions(), contains("1.0.1", "1.0.2"));
+  }
+
+  @Test
+  public void corruptMembersAreSkipped() throws Exception {
+    LinkedHashMap<Repository, Content> contents = new LinkedHashMap<>();
+    contents.put(repository("broken"), content("<metadata><groupId>".getBytes(StandardCharsets.UTF_8)));
+    contents.put(repository("member"), content(write(a("org.foo", "some-project", null, null, null, "1.0"))));
+
+    Metadata merged = MavenModels.readMetadata(new ByteArrayInputStream(streamingMerge(contents)));
+    assertThat(merged.getVersioning().getVersions(), contains("1.0"));
+    assertThat(streamingMerge(new LinkedHashMap<>()).length, is(0));
+  }
+
+  @Test
+  public void randomMetadata() throws Exception {
+    Random random = new Random(42);
+    for (int round = 0; round < 20; round++) {
+      List<Metadata> members = new ArrayList<>();
+      int memberCount = 1 + random.nextInt(5);
+      for (int m = 0; m < memberCount; m++) {
+        String[] versions = new String[random.nextInt(200)];
+        for (int i = 0; i < versions.length; i++) {
+          versions[i] = randomVersion(random);
+        }
+        if (random.nextBoolean()) {
+          Arrays.sort(versions, VersionComparator.INSTANCE);
+        }
+        members.add(a("org.foo", "some-project", "2015032412" + (1000 + random.nextInt(9000)), null, null, versions));
+      }
+      assertEquivalent(members.toArray(new Metadata[0]));
+    }
+  }
+
+  private static String randomVersion(final Random random) {
+    String version = random.nextInt(3) + "." + random.nextInt(10);
+    switch (random.nextInt(6)) {
+      case 0:
+        return version + "-SNAPSHOT";
+      case 1:
+        return version + ".0";
+      case 2:
+        return version + "-beta" + random.nextInt(3);
+      default:
+        return version;
+    }
+  }
+
+  /**
+   * Asserts the streaming merge writes exactly what the model merge writes, returning the merged metadata.
+   */
+  private Metadata assertEquivalent(final Metadata... members) throws IOException {
+    List<Envelope> envelopes = new ArrayList<>();
+    LinkedHashMap<Repository, Content> contents = new LinkedHashMap<>();
+    for (int i = 0; i < members.length; i++) {
+      envelopes.add(new Envelope("member-" + i, members[i]));
+      contents.put(repository("member-" + i), content(write(members[i])));
+    }
+
+    Metadata expected = modelMerger.merge(envelopes);
+    String actual = new String(streamingMerge(contents), StandardCharsets.UTF_8);
+
+    assertThat(actual, is(new String(write(expected), StandardCharsets.UTF_8)));
+    return expected;
+  }
+
+  private byte[] streamingMerge(final LinkedHashMap<Repository, Content> contents) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    underTest.merge(out, mavenPath, contents);
+    return out.toByteArray();
+  }
+
+  private static byte[] write(final Metadata metadata) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MavenModels.writeMetadata(out, metadata);
+    return out.toByteArray();
+  }
+
+  private static Repository repository(final String name) {
+    Repository repository = mock(Repository.class);
+    when(repository.getName()).thenReturn(name);
+    return repository;
+  }
+
+  private static Content content(final byte[] bytes) {
+    return new Content(new BytesPayload(bytes, "application/xml"));
+  }
+
+  private static Metadata g(final String... pluginNames) {
+    Metadata m = new Metadata();
+    for (String pluginName : pluginNames) {
+      Plugin p = new Plugin();
+      p.setPrefix(pluginName);
+      p.setArtifactId(pluginName + "-maven-plugin");
+      p.setName("The " + pluginName + " plugin");
+      m.addPlugin(p);
+    }
+    return m;
+  }
+
+  private static Metadata a(final String groupId,
+                            final String artifactId,
+                            final String lastUpdated,
+                            final String latest,
+                            final String release,
+                            final String... versions)
+  {
+    Metadata m = new Metadata();
+    m.setGroupId(groupId);
+    m.setArtifactId(artifactId);
+    m.setVersioning(new Versioning());
+    m.getVersioning().setLastUpdated(lastUpdated);
+    m.getVersioning().setLatest(latest);
+    m.getVersioning().setRelease(release);
+    for (String version : versions) {
+      m.getVersioning().addVersion(version);
+    }
+    return m;
+  }
+
+  private static Metadata v(final String groupId,
+                            final String artifactId,
+                            final String versionPrefix,
+                            final String timestamp,
+                            final int buildNumber)
+  {
+    Metadata m = new Metadata();
+    m.setGroupId(groupId);
+    m.setArtifactId(artifactId);
+    m.setVersion(versionPrefix + "-SNAPSHOT");
+    m.setVersioning(new Versioning());
+    m.getVersioning().setLastUpdated(timestamp.replace(".", ""));
+    Snapshot snapshot = new Snapshot();
+    snapshot.setTimestamp(timestamp);
+    snapshot.setBuildNumber(buildNumber);
+    m.getVersioning().setSnapshot(snapshot);
+    for (String[] extensionAndClassifier : new String[][]{{"pom", ""}, {"jar", ""}, {"jar", "sources"}}) {
+      SnapshotVersion snapshotVersion = new SnapshotVersion();
+      snapshotVersion.setExtension(extensionAndClassifier[0]);
+      snapshotVersion.setClassifier(extensionAndClassifier[1]);
+      snapshotVersion.setVersion(versionPrefix + "-" + timestamp + "-" + buildNumber);
+      snapshotVersion.setUpdated(timestamp);
+      m.getVersioning().getSnapshotVersions().add(snapshotVersion);
+    }
+    return m;
+  }
+}
@@ -32,6 +32,7 @@ import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.Type;
 import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.group.GroupFacetImpl;
+import org.sonatype.nexus.repository.group.GroupMergedAssetIndex;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
@@ -94,6 +95,8 @@ public class NpmGroupFacet
 {
   private final boolean mergeMetadata;
 
+  private final GroupMergedAssetIndex mergedAssetIndex;
+
   @Nullable
   private CooperationFactory.Builder cooperationBuilder;
 
@@ -105,10 +108,12 @@ public class NpmGroupFacet
       @Named("${nexus.npm.mergeGroupMetadata:-true}") final boolean mergeMetadata,
       final RepositoryManager repositoryManager,
       final ConstraintViolationFactory constraintViolationFactory,
-      @Named(GroupType.NAME) final Type groupType)
+      @Named(GroupType.NAME) final Type groupType,
+      final GroupMergedAssetIndex mergedAssetIndex)
   {
     super(repositoryManager, constraintViolationFactory, groupType);
     this.mergeMetadata = mergeMetadata;
+    this.mergedAssetIndex = checkNotNull(mergedAssetIndex);
   }
 
   @Inject
@@ -203,7 +208,7 @@ public class NpmGroupFacet
     npmContent.missingBlobInputStreamSupplier(
         (missingBlobException) -> buildMergedPackageRootOnMissingBlob(responses, context, missingBlobException));
 
-    return !isStale(npmContent) ? npmContent : null;
+    return !isStale(npmContent) && isIndexed(packageRootAsset) ? npmContent : null;
   }
 
   /**
@@ -219,7 +224,7 @@ public class NpmGroupFacet
 
     NpmContent npmContent = toContent(getRepository(), packageRootAsset);
     npmContent.fieldMatchers(rewriteTarballUrlMatcher(getRepository(), packageRootAsset.name()));
-    return !isStale(npmContent) ? npmContent : null;
+    return !isStale(npmContent) && isIndexed(packageRootAsset) ? npmContent : null;
   }
 
   @Nullable
@@ -271,6 +276,7 @@ public class NpmGroupFacet
 
   protected Content saveToCache(final NpmPackageId packageId, final NestedAttributesMap result) throws IOException {
     Asset packageRootAsset = savePackageRootToCache(packageId, result);
+    mergedAssetIndex.recordMergedAsset(getRepository().getName(), packageId.id());
     return toContent(getRepository(), packageRootAsset).fieldMatchers(REMOVE_DEFAULT_FIELDS_MATCHERS);
   }
 
@@ -319,13 +325,17 @@ public class NpmGroupFacet
 
     // Don't delete the blob because we already know it is missing
     tx.deleteAsset(packageRootAsset, false);
+    mergedAssetIndex.removeMergedAsset(getRepository().getName(), packageRootAsset.name());
   }
 
   @Subscribe
   @Guarded(by = STARTED)
   @AllowConcurrentEvents
   public void on(final AssetDeletedEvent deleted) {
-    if (matchingEvent(deleted)) {
+    if (getRepository().getName().equals(deleted.getRepositoryName())) {
+      mergedAssetIndex.removeMergedAsset(deleted.getRepositoryName(), deleted.getAsset().name());
+    }
+    else if (matchingEvent(deleted)) {
       invalidatePackageRoot(deleted);
     }
   }
@@ -376,6 +386,14 @@ public class NpmGroupFacet
     return nonNull(payload) ? ((Content) payload).getAttributes().get(NestedAttributesMap.class) : null;
   }
 
+  /**
+   * Package roots cached before this node started, or since dropped from the bounded merged asset index, would miss
+   * invalidation when a member changes, so they are merged again.
+   */
+  private boolean isIndexed(final Asset packageRootAsset) {
+    return mergedAssetIndex.isMergedAsset(getRepository().getName(), packageRootAsset.name());
+  }
+
   private static TokenMatcher.State matcherState(final Context context) {
     return context.getAttributes().require(TokenMatcher.State.class);
   }
@@ -389,8 +407,9 @@ public class NpmGroupFacet
   }
 
   private boolean matchesRepository(final AssetEvent event) {
-    // only make DB changes on the originating node, as orient will also replicate those for us
-    return event.isLocal() && member(event.getRepositoryName());
+    // the merged asset index is held per node, so remote events must also be checked against this node's index
+    return mergedAssetIndex.findMergedGroups(event.getRepositoryName(), event.getAsset().name())
+        .contains(getRepository().getName());
   }
 
   private void invalidatePackageRoot(final AssetEvent event) {
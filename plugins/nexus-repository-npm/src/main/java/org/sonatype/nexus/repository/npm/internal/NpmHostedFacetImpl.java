@@ -14,21 +14,29 @@ package org.sonatype.nexus.repository.npm.internal;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.entity.EntityHelper;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.common.io.Cooperation;
+import org.sonatype.nexus.common.io.CooperationException;
+import org.sonatype.nexus.common.io.CooperationFactory;
 import org.sonatype.nexus.common.text.Strings2;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.npm.NpmFacet;
+import org.sonatype.nexus.repository.npm.internal.NpmPackageRootWriteQueue.PackageRootWrite;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.AssetBlob;
 import org.sonatype.nexus.repository.storage.Bucket;
@@ -43,12 +51,15 @@ import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.transaction.UnitOfWork;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.Subscribe;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Arrays.asList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static org.sonatype.nexus.repository.npm.internal.NpmFacetUtils.findPackageRootAsset;
 import static org.sonatype.nexus.repository.npm.internal.NpmFacetUtils.savePackageRoot;
 import static org.sonatype.nexus.repository.npm.internal.NpmFacetUtils.toContent;
@@ -72,22 +83,100 @@ public class NpmHostedFacetImpl
 {
   private final NpmRequestParser npmRequestParser;
 
+  @Nullable
+  private CooperationFactory.Builder cooperationBuilder;
+
+  @Nullable
+  private Cooperation packageRootCooperation;
+
+  @Nullable
+  private NpmPackageRootWriteQueue packageRootWriteQueue;
+
   @Inject
   public NpmHostedFacetImpl(final NpmRequestParser npmRequestParser) {
     this.npmRequestParser = checkNotNull(npmRequestParser);
   }
 
+  /**
+   * @since 3.next
+   */
+  @Inject
+  protected void configureCooperation(
+      final CooperationFactory cooperationFactory,
+      @Named("${nexus.npm.packageRoot.cooperation.enabled:-true}") final boolean cooperationEnabled,
+      @Named("${nexus.npm.packageRoot.cooperation.majorTimeout:-0s}") final Time majorTimeout,
+      @Named("${nexus.npm.packageRoot.cooperation.minorTimeout:-30s}") final Time minorTimeout,
+      @Named("${nexus.npm.packageRoot.cooperation.threadsPerKey:-100}") final int threadsPerKey)
+  {
+    if (cooperationEnabled) {
+      this.cooperationBuilder = cooperationFactory.configure()
+          .majorTimeout(majorTimeout)
+          .minorTimeout(minorTimeout)
+          .threadsPerKey(threadsPerKey);
+    }
+  }
+
+  /**
+   * Concurrent publishes to the same package are queued and applied as one package root rewrite per batch, rather
+   * than each publish rewriting the package root and colliding with the others.
+   *
+   * @param coalesceEnabled whether publishes to the same package should be coalesced
+   * @param coalesceWindow how long the first publish waits for others to join its batch
+   * @param coalesceTimeout how long a publish waits for its batch before failing
+   *
+   * @since 3.next
+   */
+  @Inject
+  protected void configureWriteCoalescing(
+      @Named("${nexus.npm.packageRoot.coalesceWrites.enabled:-true}") final boolean coalesceEnabled,
+      @Named("${nexus.npm.packageRoot.coalesceWrites.window:-10ms}") final Time coalesceWindow,
+      @Named("${nexus.npm.packageRoot.coalesceWrites.timeout:-60s}") final Time coalesceTimeout)
+  {
+    this.packageRootWriteQueue = coalesceEnabled
+        ? new NpmPackageRootWriteQueue(coalesceWindow, coalesceTimeout, this::putPackageRoot)
+        : null;
+  }
+
+  @VisibleForTesting
+  void buildCooperation() {
+    if (nonNull(cooperationBuilder)) {
+      this.packageRootCooperation = cooperationBuilder.build(getRepository().getName() + ":packageRoot");
+    }
+  }
+
   @Override
   protected void doInit(final Configuration configuration) throws Exception {
     super.doInit(configuration);
     getRepository().facet(StorageFacet.class).registerWritePolicySelector(new NpmWritePolicySelector());
+    buildCooperation();
   }
 
+  /**
+   * Concurrent requests for the same package root cooperate, so a package being hammered by installs (for example
+   * while a release pipeline is publishing to it) is only looked up once per wave of requests.
+   */
   @Nullable
   @Override
-  @TransactionalTouchBlob
   public Content getPackage(final NpmPackageId packageId) throws IOException {
     checkNotNull(packageId);
+    if (isNull(packageRootCooperation)) {
+      return doGetPackage(packageId);
+    }
+    try {
+      return packageRootCooperation.cooperate(packageId.id(), failover -> doGetPackage(packageId));
+    }
+    catch (CooperationException e) { // NOSONAR
+      log.debug("Cannot cooperate on package root {}: {}", packageId, e.getMessage());
+      return doGetPackage(packageId);
+    }
+  }
+
+  /**
+   * Note: transactional method cannot be private, must be protected (as CGLIB will extend it).
+   */
+  @Nullable
+  @TransactionalTouchBlob
+  protected Content doGetPackage(final NpmPackageId packageId) throws IOException {
     log.debug("Getting package: {}", packageId);
     StorageTx tx = UnitOfWork.currentTx();
     Asset packageRootAsset = findPackageRootAsset(tx, tx.findBucket(getRepository()), packageId);
@@ -160,7 +249,14 @@ public class NpmHostedFacetImpl
     checkNotNull(packageId);
     checkNotNull(payload);
     try (NpmPublishRequest request = npmRequestParser.parsePublish(getRepository(), payload)) {
-      putPublishRequest(packageId, revision, request);
+      if (nonNull(packageRootWriteQueue) && revision == null && !request.getPackageRoot().contains(META_REV)) {
+        // snippet publish of new versions or dist-tags, can be coalesced with other publishes of this package
+        log.debug("Queueing package: {}", packageId);
+        packageRootWriteQueue.submit(packageId, () -> putAttachments(packageId, request));
+      }
+      else {
+        putPublishRequest(packageId, revision, request);
+      }
     }
   }
 
@@ -182,7 +278,17 @@ public class NpmHostedFacetImpl
 
     NpmPackageId packageId = NpmPackageId.parse((String) metadata.get(NpmAttributes.P_NAME));
 
-    return putPackage(packageId, metadata, tempBlob);
+    if (isNull(packageRootWriteQueue)) {
+      return putPackage(packageId, metadata, tempBlob);
+    }
+
+    log.debug("Queueing package: {}", packageId);
+    AtomicReference<Asset> tarballAsset = new AtomicReference<>();
+    packageRootWriteQueue.submit(packageId, () -> {
+      tarballAsset.set(putTarball(packageId, metadata, tempBlob));
+      return metadata;
+    });
+    return tarballAsset.get();
   }
 
   @TransactionalStoreBlob
@@ -197,17 +303,25 @@ public class NpmHostedFacetImpl
 
     log.debug("Storing package: {}", packageId);
 
+    Asset asset = putTarball(packageId, requestPackageRoot, tarballTempBlob);
+
+    putPackageRoot(packageId, null, requestPackageRoot);
+
+    return asset;
+  }
+
+  private Asset putTarball(final NpmPackageId packageId,
+                           final NestedAttributesMap requestPackageRoot,
+                           final TempBlob tarballTempBlob)
+      throws IOException
+  {
     StorageTx tx = UnitOfWork.currentTx();
 
     String tarballName = NpmMetadataUtils.extractTarballName(requestPackageRoot);
     AssetBlob assetBlob = NpmFacetUtils.createTarballAssetBlob(tx, packageId, tarballName, tarballTempBlob);
 
     NpmFacet npmFacet = facet(NpmFacet.class);
-    Asset asset = npmFacet.putTarball(packageId.id(), tarballName, assetBlob, new AttributesMap());
-
-    putPackageRoot(packageId, null, requestPackageRoot);
-
-    return asset;
+    return npmFacet.putTarball(packageId.id(), tarballName, assetBlob, new AttributesMap());
   }
 
   @TransactionalStoreBlob
@@ -217,6 +331,17 @@ public class NpmHostedFacetImpl
       throws IOException
   {
     log.debug("Storing package: {}", packageId);
+    putPackageRoot(packageId, revision, putAttachments(packageId, request));
+  }
+
+  /**
+   * Stores the tarballs attached to the publish request.
+   *
+   * @return the package root sent with the publish request
+   */
+  private NestedAttributesMap putAttachments(final NpmPackageId packageId, final NpmPublishRequest request)
+      throws IOException
+  {
     StorageTx tx = UnitOfWork.currentTx();
 
     NestedAttributesMap packageRoot = request.getPackageRoot();
@@ -231,7 +356,29 @@ public class NpmHostedFacetImpl
       }
     }
 
-    putPackageRoot(packageId, revision, packageRoot);
+    return packageRoot;
+  }
+
+  /**
+   * Applies writes coalesced by the {@link NpmPackageRootWriteQueue}, storing their tarballs and overlaying their
+   * package root snippets in arrival order, so the package root is only rewritten once for the whole batch and each
+   * publish's tarballs are only stored together with its package root.
+   *
+   * Note: transactional method cannot be private, must be protected (as CGLIB will extend it).
+   *
+   * @since 3.next
+   */
+  @TransactionalStoreBlob
+  protected void putPackageRoot(final NpmPackageId packageId, final List<PackageRootWrite> writes) throws IOException {
+    log.debug("Storing {} coalesced write(s) to package root: {}", writes.size(), packageId);
+
+    // overlay onto a fresh document, saving strips '_attachments' and retries need the originals
+    NestedAttributesMap packageRoot = new NestedAttributesMap("metadata", new HashMap<>());
+    for (PackageRootWrite write : writes) {
+      NpmMetadataUtils.overlay(packageRoot, write.apply());
+    }
+
+    putPackageRoot(packageId, null, packageRoot);
   }
 
   /**
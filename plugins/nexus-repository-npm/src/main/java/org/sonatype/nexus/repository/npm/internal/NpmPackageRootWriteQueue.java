@@ -0,0 +1,291 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Coalesces concurrent writes to the same package root, so a burst of publishes against one package results in a
+ * single package root rewrite per batch instead of colliding transactions that have to be retried.
+ *
+ * The first writer for a package leads: it drains every write queued for that package and hands them to the
+ * {@link BatchWriter} in arrival order, which applies them in one transaction so a publish's tarballs are only stored
+ * together with its package root. If other writes are already waiting it first pauses for the coalescing window to
+ * let more join, an uncontended write is applied straight away. Other writers wait for the batch containing their
+ * write to complete. When the lead writer is done, leadership passes to the oldest write still queued so no thread is
+ * kept busy writing on behalf of others indefinitely.
+ *
+ * If a batch of several writes fails then each write is replayed on its own, so one bad publish doesn't fail the
+ * other publishes that happened to share its batch.
+ *
+ * Writers wait at most the given timeout, or until interrupted. A write that is still queued at that point is
+ * withdrawn; a write that is already part of a batch being applied may still complete after its writer gave up.
+ *
+ * @since 3.next
+ */
+class NpmPackageRootWriteQueue
+    extends ComponentSupport
+{
+  /**
+   * A pending write against a package root.
+   */
+  @FunctionalInterface
+  interface PackageRootWrite
+  {
+    /**
+     * Stores anything this write needs in the current transaction, such as tarballs.
+     *
+     * @return package root snippet to overlay onto the stored package root
+     */
+    NestedAttributesMap apply() throws IOException;
+  }
+
+  /**
+   * Applies a batch of writes to a package root in a single transaction.
+   */
+  @FunctionalInterface
+  interface BatchWriter
+  {
+    void write(NpmPackageId packageId, List<PackageRootWrite> writes) throws IOException;
+  }
+
+  private final Time window;
+
+  private final Time timeout;
+
+  private final BatchWriter batchWriter;
+
+  private final Map<NpmPackageId, Deque<PendingWrite>> queues = new HashMap<>();
+
+  NpmPackageRootWriteQueue(final Time window, final Time timeout, final BatchWriter batchWriter) {
+    this.window = checkNotNull(window);
+    this.timeout = checkNotNull(timeout);
+    this.batchWriter = checkNotNull(batchWriter);
+  }
+
+  /**
+   * Queues the write against the given package root and waits for it to be applied.
+   */
+  void submit(final NpmPackageId packageId, final PackageRootWrite write) throws IOException {
+    checkNotNull(packageId);
+    checkNotNull(write);
+
+    PendingWrite pending = new PendingWrite(write);
+
+    boolean leader;
+    synchronized (queues) {
+      Deque<PendingWrite> queue = queues.get(packageId);
+      leader = queue == null;
+      if (leader) {
+        queue = new ArrayDeque<>();
+        queues.put(packageId, queue);
+      }
+      queue.add(pending);
+    }
+
+    if (!leader && !await(packageId, pending, System.nanoTime() + timeout.toNanos())) {
+      return; // applied by another writer
+    }
+
+    lead(packageId);
+    await(packageId, pending, System.nanoTime()); // already applied by the batch we just led
+  }
+
+  /**
+   * Drains and applies the writes currently queued for the package, then passes leadership on.
+   */
+  private void lead(final NpmPackageId packageId) {
+    boolean contended;
+    synchronized (queues) {
+      contended = queues.get(packageId).size() > 1;
+    }
+    if (contended) {
+      pause(); // others are publishing to this package, give them a chance to join the batch
+    }
+
+    List<PendingWrite> batch;
+    synchronized (queues) {
+      Deque<PendingWrite> queue = queues.get(packageId);
+      batch = new ArrayList<>(queue);
+      queue.clear();
+    }
+
+    try {
+      apply(packageId, batch);
+    }
+    finally {
+      synchronized (queues) {
+        Deque<PendingWrite> queue = queues.get(packageId);
+        if (queue.isEmpty()) {
+          queues.remove(packageId);
+        }
+        else {
+          queue.peek().promote();
+        }
+      }
+    }
+  }
+
+  private void apply(final NpmPackageId packageId, final List<PendingWrite> batch) {
+    log.debug("Writing package root {} with {} coalesced write(s)", packageId, batch.size());
+    try {
+      batchWriter.write(packageId, batch.stream().map(p -> p.write).collect(toList()));
+      batch.forEach(PendingWrite::complete);
+    }
+    catch (Exception | Error e) { // NOSONAR
+      if (batch.size() == 1) {
+        batch.get(0).fail(e);
+      }
+      else {
+        log.debug("Coalesced write of package root {} failed, replaying writes individually", packageId, e);
+        for (PendingWrite pending : batch) {
+          try {
+            batchWriter.write(packageId, singletonList(pending.write));
+            pending.complete();
+          }
+          catch (Exception | Error individual) { // NOSONAR
+            pending.fail(individual);
+          }
+        }
+      }
+    }
+  }
+
+  private void pause() {
+    long millis = window.toMillis();
+    if (millis > 0) {
+      try {
+        Thread.sleep(millis);
+      }
+      catch (InterruptedException e) { // NOSONAR
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Waits for the write to be applied or for this thread to be asked to lead the next batch.
+   *
+   * @param deadline {@link System#nanoTime()} after which to give up waiting
+   * @return {@code true} if this thread should lead; {@code false} if the write has been applied
+   */
+  private boolean await(final NpmPackageId packageId, final PendingWrite pending, final long deadline)
+      throws IOException
+  {
+    CompletableFuture<Boolean> outcome = pending.outcome;
+    try {
+      return outcome.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+    catch (InterruptedException | TimeoutException e) { // NOSONAR
+      boolean interrupted = e instanceof InterruptedException;
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (queues) {
+        if (!outcome.isDone()) {
+          // withdraw the write if no batch has picked it up yet, otherwise it may still be applied without us
+          Deque<PendingWrite> queue = queues.get(packageId);
+          if (queue == null || !queue.remove(pending)) {
+            log.debug("Gave up waiting for write to package root {} already being applied", packageId);
+          }
+          throw interrupted
+              ? new InterruptedIOException("Interrupted waiting to write package root " + packageId)
+              : new IOException("Timed out after " + timeout + " waiting to write package root " + packageId);
+        }
+      }
+      // handled while we were giving up, so honour the outcome
+      return outcome(outcome);
+    }
+    catch (ExecutionException e) {
+      throw propagate(e);
+    }
+  }
+
+  private static boolean outcome(final CompletableFuture<Boolean> outcome) throws IOException {
+    try {
+      return outcome.join();
+    }
+    catch (CompletionException e) {
+      throw propagate(e);
+    }
+  }
+
+  private static IOException propagate(final Exception e) throws IOException {
+    Throwables.propagateIfPossible(e.getCause(), IOException.class);
+    throw new IOException(e.getCause());
+  }
+
+  @VisibleForTesting
+  int pendingPackages() {
+    synchronized (queues) {
+      return queues.size();
+    }
+  }
+
+  @VisibleForTesting
+  int queuedWrites(final NpmPackageId packageId) {
+    synchronized (queues) {
+      Deque<PendingWrite> queue = queues.get(packageId);
+      return queue != null ? queue.size() : 0;
+    }
+  }
+
+  private static class PendingWrite
+  {
+    final PackageRootWrite write;
+
+    volatile CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+
+    PendingWrite(final PackageRootWrite write) {
+      this.write = write;
+    }
+
+    void promote() {
+      // fresh outcome for the batch this write is about to lead
+      CompletableFuture<Boolean> promotion = outcome;
+      outcome = new CompletableFuture<>();
+      promotion.complete(true);
+    }
+
+    void complete() {
+      outcome.complete(false);
+    }
+
+    void fail(final Throwable cause) {
+      outcome.completeExceptionally(cause);
+    }
+  }
+}
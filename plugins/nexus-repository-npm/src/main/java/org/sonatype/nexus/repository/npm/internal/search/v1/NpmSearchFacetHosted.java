@@ -17,13 +17,22 @@ import java.io.IOException;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.search.SearchService;
+import org.sonatype.nexus.repository.storage.AssetCreatedEvent;
+import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
+import org.sonatype.nexus.repository.storage.AssetEvent;
+import org.sonatype.nexus.repository.storage.AssetUpdatedEvent;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.ContentTypes;
 import org.sonatype.nexus.repository.view.Parameters;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.security.UserIdHelper;
 
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.QueryStringQueryBuilder;
@@ -36,6 +45,7 @@ import org.elasticsearch.search.sort.SortOrder;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.singletonList;
+import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
 
 /**
  * Implementation of {@code NpmSearchFacet} for proxy repositories.
@@ -57,18 +67,28 @@ public class NpmSearchFacetHosted
 
   private final int v1SearchMaxResults;
 
+  private final NpmSearchResponseCache responseCache;
+
   @Inject
   public NpmSearchFacetHosted(final SearchService searchService,
                               final NpmSearchParameterExtractor npmSearchParameterExtractor,
                               final NpmSearchResponseFactory npmSearchResponseFactory,
                               final NpmSearchResponseMapper npmSearchResponseMapper,
-                              @Named("${nexus.npm.v1SearchMaxResults:-250}") final int v1SearchMaxResults)
+                              @Named("${nexus.npm.v1SearchMaxResults:-250}") final int v1SearchMaxResults,
+                              @Named("${nexus.npm.v1SearchCache.maxEntries:-500}") final int cacheMaxEntries,
+                              @Named("${nexus.npm.v1SearchCache.hostedTtl:-60s}") final Time cacheTtl)
   {
     this.searchService = checkNotNull(searchService);
     this.npmSearchParameterExtractor = checkNotNull(npmSearchParameterExtractor);
     this.npmSearchResponseFactory = checkNotNull(npmSearchResponseFactory);
     this.npmSearchResponseMapper = checkNotNull(npmSearchResponseMapper);
     this.v1SearchMaxResults = v1SearchMaxResults;
+    this.responseCache = new NpmSearchResponseCache(cacheMaxEntries, cacheTtl);
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    responseCache.invalidateAll();
   }
 
   public Content searchV1(final Parameters parameters) throws IOException {
@@ -76,6 +96,13 @@ public class NpmSearchFacetHosted
     int size = npmSearchParameterExtractor.extractSize(parameters);
     int from = npmSearchParameterExtractor.extractFrom(parameters);
 
+    // key on the extracted values, so equivalent requests share the cached response; results are filtered by the
+    // caller's permissions and content selectors, so responses must only be shared between requests by the same user
+    String key = UserIdHelper.get() + '\n' + text + '\n' + size + '\n' + from;
+    return responseCache.get(key, () -> search(text, size, from));
+  }
+
+  private Content search(final String text, final int size, final int from) throws IOException {
     // npm search V1 endpoint currently returns an empty result set if no text is provided in the request
     NpmSearchResponse response;
     if (text.isEmpty()) {
@@ -105,4 +132,34 @@ public class NpmSearchFacetHosted
     String content = npmSearchResponseMapper.writeString(response);
     return new Content(new StringPayload(content, ContentTypes.APPLICATION_JSON));
   }
+
+  @Subscribe
+  @Guarded(by = STARTED)
+  @AllowConcurrentEvents
+  public void on(final AssetCreatedEvent created) {
+    maybeInvalidate(created);
+  }
+
+  @Subscribe
+  @Guarded(by = STARTED)
+  @AllowConcurrentEvents
+  public void on(final AssetUpdatedEvent updated) {
+    maybeInvalidate(updated);
+  }
+
+  @Subscribe
+  @Guarded(by = STARTED)
+  @AllowConcurrentEvents
+  public void on(final AssetDeletedEvent deleted) {
+    maybeInvalidate(deleted);
+  }
+
+  /**
+   * Any change to the content of this repository may change search results, so drop all cached responses.
+   */
+  private void maybeInvalidate(final AssetEvent event) {
+    if (getRepository().getName().equals(event.getRepositoryName())) {
+      responseCache.invalidateAll();
+    }
+  }
 }
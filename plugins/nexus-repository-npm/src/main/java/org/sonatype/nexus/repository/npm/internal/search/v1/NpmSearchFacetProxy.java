@@ -14,11 +14,13 @@ package org.sonatype.nexus.repository.npm.internal.search.v1;
 
 import java.io.IOException;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.sonatype.nexus.repository.npm.internal.NpmFacetUtils;
 import org.sonatype.nexus.repository.npm.internal.NpmProxyFacetImpl.ProxyTarget;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.proxy.ProxyFacet;
 import org.sonatype.nexus.repository.view.Content;
@@ -38,8 +40,27 @@ public class NpmSearchFacetProxy
     extends FacetSupport
     implements NpmSearchFacet
 {
+  private final NpmSearchResponseCache responseCache;
+
+  @Inject
+  public NpmSearchFacetProxy(@Named("${nexus.npm.v1SearchCache.maxEntries:-500}") final int cacheMaxEntries,
+                             @Named("${nexus.npm.v1SearchCache.proxyTtl:-300s}") final Time cacheTtl)
+  {
+    // remote search results can't be invalidated by events, so they're only kept for a bounded time
+    this.responseCache = new NpmSearchResponseCache(cacheMaxEntries, cacheTtl);
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    responseCache.invalidateAll();
+  }
+
   @Override
   public Content searchV1(final Parameters parameters) throws IOException {
+    return responseCache.get(NpmSearchResponseCache.keyOf(parameters), () -> fetch(parameters));
+  }
+
+  private Content fetch(final Parameters parameters) throws IOException {
     try {
       final Request getRequest = new Request.Builder()
           .action(GET)
@@ -20,6 +20,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -39,7 +44,9 @@ import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Comparator.comparingDouble;
 import static java.util.stream.Collectors.toList;
@@ -62,16 +69,30 @@ class NpmSearchGroupHandler
 
   private final int v1SearchMaxResults;
 
+  private final ExecutorService memberSearchExecutor;
+
   @Inject
   public NpmSearchGroupHandler(final NpmSearchParameterExtractor npmSearchParameterExtractor,
                                final NpmSearchResponseFactory npmSearchResponseFactory,
                                final NpmSearchResponseMapper npmSearchResponseMapper,
-                               @Named("${nexus.npm.v1SearchMaxResults:-250}") final int v1SearchMaxResults)
+                               @Named("${nexus.npm.v1SearchMaxResults:-250}") final int v1SearchMaxResults,
+                               @Named("${nexus.npm.v1SearchGroupThreads:-8}") final int memberSearchThreads)
   {
     this.npmSearchParameterExtractor = checkNotNull(npmSearchParameterExtractor);
     this.npmSearchResponseFactory = checkNotNull(npmSearchResponseFactory);
     this.npmSearchResponseMapper = checkNotNull(npmSearchResponseMapper);
     this.v1SearchMaxResults = v1SearchMaxResults;
+
+    // when all threads are busy (e.g. nested groups) the searching thread queries the member itself
+    checkArgument(memberSearchThreads >= 0, "Member search threads must not be negative");
+    if (memberSearchThreads > 0) {
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(0, memberSearchThreads, 60L, TimeUnit.SECONDS,
+          new SynchronousQueue<>(), new NexusThreadFactory("npm-search", "npm-group-search"), new CallerRunsPolicy());
+      this.memberSearchExecutor = pool;
+    }
+    else {
+      this.memberSearchExecutor = null;
+    }
   }
 
   @Override
@@ -117,7 +138,8 @@ class NpmSearchGroupHandler
 
     // sort all the merged results by normalized search score, then build the result responses to send back
     GroupFacet groupFacet = context.getRepository().facet(GroupFacet.class);
-    Set<Entry<Repository, Response>> entries = getAll(context, groupFacet.members(), dispatched).entrySet();
+    Set<Entry<Repository, Response>> entries =
+        getAll(context, groupFacet.members(), dispatched, memberSearchExecutor).entrySet();
     List<NpmSearchResponseObject> mergedResponses = mergeAndNormalizeResponses(entries);
     mergedResponses.sort(comparingDouble(NpmSearchResponseObject::getSearchScore).reversed());
     List<NpmSearchResponseObject> mergedResponseObjects = mergedResponses.stream()
@@ -0,0 +1,121 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.search.v1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Parameters;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Bounded, short-lived cache of the npm V1 search responses of a single repository, keyed by normalized search
+ * parameters. Concurrent requests for the same uncached key share a single search.
+ *
+ * @since 3.next
+ */
+class NpmSearchResponseCache
+{
+  /**
+   * Performs the search when the response isn't cached.
+   */
+  interface Loader
+  {
+    Content load() throws IOException;
+  }
+
+  private final Cache<String, CachedResponse> cache;
+
+  NpmSearchResponseCache(final int maxEntries, final Time ttl) {
+    checkArgument(maxEntries >= 0, "Max entries must not be negative");
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(checkNotNull(ttl).toMillis(), MILLISECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns the cached response for the given key, performing the search when it isn't cached yet.
+   */
+  Content get(final String key, final Loader loader) throws IOException {
+    try {
+      return cache.get(key, () -> CachedResponse.read(loader.load())).toContent();
+    }
+    catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * Builds a cache key from all search parameters, ignoring their order and surrounding or repeated whitespace.
+   */
+  static String keyOf(final Parameters parameters) {
+    return parameters.entries().stream()
+        .map(entry -> entry.getKey() + '=' + normalize(entry.getValue()))
+        .sorted()
+        .collect(joining("&"));
+  }
+
+  static String normalize(final String value) {
+    return Strings.nullToEmpty(value).trim().replaceAll("\\s+", " ");
+  }
+
+  private static class CachedResponse
+  {
+    private final byte[] bytes;
+
+    private final String contentType;
+
+    private CachedResponse(final byte[] bytes, final String contentType) {
+      this.bytes = bytes;
+      this.contentType = contentType;
+    }
+
+    static CachedResponse read(final Content content) throws IOException {
+      try (InputStream in = content.openInputStream()) {
+        return new CachedResponse(ByteStreams.toByteArray(in), content.getContentType());
+      }
+    }
+
+    Content toContent() {
+      return new Content(new BytesPayload(bytes, contentType));
+    }
+  }
+}
@@ -31,11 +31,16 @@ import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.io.CooperationFactory;
 import org.sonatype.nexus.common.io.LocalCooperationFactory;
 import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.cache.CacheInfo;
 import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.config.ConfigurationFacet;
+import org.sonatype.nexus.repository.group.GroupMergedAssetIndex;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.AssetBlob;
+import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
+import org.sonatype.nexus.repository.storage.AssetEvent;
+import org.sonatype.nexus.repository.storage.AssetUpdatedEvent;
 import org.sonatype.nexus.repository.storage.MissingAssetBlobException;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
@@ -62,16 +67,22 @@ import org.mockito.Mock;
 
 import static com.google.common.collect.Maps.newHashMap;
 import static java.lang.String.format;
+import static java.util.Collections.singleton;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.joda.time.DateTime.now;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -147,6 +158,9 @@ public class NpmGroupFacetTest
   @Mock
   private ConfigurationFacet configurationFacet;
 
+  @Mock
+  private GroupMergedAssetIndex mergedAssetIndex;
+
   private CooperationFactory cooperationFactory = new LocalCooperationFactory();
 
   private NpmGroupFacet underTest;
@@ -223,6 +237,7 @@ public class NpmGroupFacetTest
     buildMergedPackageRoot(ImmutableMap.of(proxyRepository, proxyResponse));
 
     assertMergedSimplePackageRoot(captureGroupStoredBlobInputStream(), "1.0");
+    verify(mergedAssetIndex).recordMergedAsset(groupRepository.getName(), "test");
   }
 
   @Test
@@ -308,12 +323,87 @@ public class NpmGroupFacetTest
     verify(blob, never()).getInputStream();
   }
 
+  @Test
+  public void whenMemberPackageRootUpdatedInvalidateOnlyIndexedGroups() {
+    doNothing().when(underTest).doInvalidate(any());
+    String groupName = groupRepository.getName();
+    when(mergedAssetIndex.findMergedGroups("hosted", "test")).thenReturn(singleton(groupName));
+
+    UnitOfWork work = UnitOfWork.pause();
+    try {
+      underTest.on(memberEvent(AssetUpdatedEvent.class, "hosted", "test"));
+      underTest.on(memberEvent(AssetUpdatedEvent.class, "hosted", "other"));
+      underTest.on(memberEvent(AssetDeletedEvent.class, "hosted", "test"));
+    }
+    finally {
+      UnitOfWork.resume(work);
+    }
+
+    verify(underTest, times(2)).doInvalidate(any());
+  }
+
+  @Test
+  public void whenRemoteMemberPackageRootUpdatedInvalidateIndexedGroups() {
+    doNothing().when(underTest).doInvalidate(any());
+    String groupName = groupRepository.getName();
+    when(mergedAssetIndex.findMergedGroups("hosted", "test")).thenReturn(singleton(groupName));
+
+    AssetUpdatedEvent event = memberEvent(AssetUpdatedEvent.class, "hosted", "test");
+    when(event.isLocal()).thenReturn(false);
+
+    UnitOfWork work = UnitOfWork.pause();
+    try {
+      underTest.on(event);
+    }
+    finally {
+      UnitOfWork.resume(work);
+    }
+
+    verify(underTest).doInvalidate(any());
+  }
+
+  @Test
+  public void whenGroupPackageRootDeletedRemoveFromIndex() {
+    underTest.on(memberEvent(AssetDeletedEvent.class, groupRepository.getName(), "test"));
+
+    verify(mergedAssetIndex).removeMergedAsset(groupRepository.getName(), "test");
+    verify(underTest, never()).doInvalidate(any());
+  }
+
+  @Test
+  public void whenCachedPackageRootIsNotIndexedMergeAgain() throws IOException {
+    doReturn(packageRootAsset).when(underTest).getPackageRootAssetFromCache(context);
+    when(packageRootAsset.name()).thenReturn("test");
+    CacheInfo.applyToAsset(packageRootAsset, new CacheInfo(now(), null));
+
+    assertThat(underTest.getFromCache(context), nullValue());
+
+    when(mergedAssetIndex.isMergedAsset(groupRepository.getName(), "test")).thenReturn(true);
+
+    assertThat(underTest.getFromCache(context), notNullValue());
+  }
+
+  private <E extends AssetEvent> E memberEvent(final Class<E> eventType, final String repositoryName,
+                                               final String assetName)
+  {
+    Asset memberAsset = mock(Asset.class);
+    when(memberAsset.name()).thenReturn(assetName);
+
+    E event = mock(eventType);
+    when(event.isLocal()).thenReturn(true);
+    when(event.getRepositoryName()).thenReturn(repositoryName);
+    when(event.getAsset()).thenReturn(memberAsset);
+    return event;
+  }
+
   private void setupNpmGroupFacet() {
-    underTest = spy(new NpmGroupFacet(true, repositoryManager, constraintViolationFactory, new GroupType()));
+    underTest = spy(new NpmGroupFacet(true, repositoryManager, constraintViolationFactory, new GroupType(),
+        mergedAssetIndex));
   }
 
   private void setupMergeDisabledNpmGroupFacet() {
-    underTest = spy(new NpmGroupFacet(false, repositoryManager, constraintViolationFactory, new GroupType()));
+    underTest = spy(new NpmGroupFacet(false, repositoryManager, constraintViolationFactory, new GroupType(),
+        mergedAssetIndex));
   }
 
   private int concurrentlyBuildPackageRoot(final boolean cooperationEnabled) throws Exception
@@ -24,6 +24,7 @@ import java.util.Map;
 import org.sonatype.nexus.repository.npm.NpmFacet;
 import org.sonatype.nexus.repository.npm.NpmUploadHandlerTest;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobRef;
@@ -171,6 +172,24 @@ public class NpmHostedFacetImplTest extends TestSupport
 
   }
 
+  @Test
+  public void putPackage_payload_overlayPackage_coalesced() throws IOException, URISyntaxException {
+    underTest.configureWriteCoalescing(true, Time.millis(0), Time.seconds(60));
+    mockPackageMetadata();
+    try (InputStream is = ArchiveUtils.pack(tempFolderRule.newFile(),
+        new File(NpmUploadHandlerTest.class.getResource("internal/package.json").toURI()), "package/package.json")) {
+      Map<String, Object> packageJson = new NpmPackageParser().parsePackageJson(() -> is);
+      Asset asset = underTest.putPackage(packageJson, tempBlob);
+      assertThat(asset, is(mockAsset));
+
+      verify(storageTx, times(1)).createBlob(eq("@foo/bar"), captor.capture(), any(), any(), any(), eq(true));
+
+      String packageMetadata = IOUtils.toString(captor.getValue().get());
+      assertTrue(packageMetadata.contains("0.1")); // existing
+      assertTrue(packageMetadata.contains("1.0")); // added
+    }
+  }
+
   @Test
   public void putPackage_payload_notNpm() throws IOException, URISyntaxException {
     try {
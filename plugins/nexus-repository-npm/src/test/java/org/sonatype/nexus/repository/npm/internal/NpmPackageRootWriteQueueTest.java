@@ -0,0 +1,259 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.repository.npm.internal.NpmPackageRootWriteQueue.BatchWriter;
+import org.sonatype.nexus.repository.npm.internal.NpmPackageRootWriteQueue.PackageRootWrite;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.fail;
+
+public class NpmPackageRootWriteQueueTest
+    extends TestSupport
+{
+  private static final NpmPackageId PACKAGE_ID = NpmPackageId.parse("@foo/bar");
+
+  private static final Time TIMEOUT = Time.seconds(30);
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void writesQueuedBehindABatchAreCoalesced() throws Exception {
+    CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+    NpmPackageRootWriteQueue underTest = new NpmPackageRootWriteQueue(Time.millis(0), TIMEOUT, (packageId, writes) -> {
+      if (batches.isEmpty()) {
+        firstBatchStarted.countDown();
+        await(releaseFirstBatch);
+      }
+      record(writes);
+    });
+
+    List<Future<?>> publishes = new ArrayList<>();
+    publishes.add(executor.submit(() -> submit(underTest, PACKAGE_ID, "1.0.0")));
+    await(firstBatchStarted);
+    for (int i = 1; i <= 5; i++) {
+      String version = "1.0." + i;
+      publishes.add(executor.submit(() -> submit(underTest, PACKAGE_ID, version)));
+    }
+    waitForQueued(underTest, 5);
+    releaseFirstBatch.countDown();
+
+    for (Future<?> publish : publishes) {
+      publish.get(5, TimeUnit.SECONDS);
+    }
+
+    assertThat(batches.size(), is(2));
+    assertThat(batches.get(0), contains("1.0.0"));
+    assertThat(batches.get(1), containsInAnyOrder("1.0.1", "1.0.2", "1.0.3", "1.0.4", "1.0.5"));
+    assertThat(underTest.pendingPackages(), is(0));
+  }
+
+  @Test
+  public void differentPackagesAreWrittenSeparately() throws Exception {
+    NpmPackageRootWriteQueue underTest = new NpmPackageRootWriteQueue(Time.millis(0), TIMEOUT,
+        (packageId, writes) -> record(writes));
+
+    submit(underTest, PACKAGE_ID, "1.0.0");
+    submit(underTest, NpmPackageId.parse("other"), "2.0.0");
+
+    assertThat(batches.size(), is(2));
+    assertThat(underTest.pendingPackages(), is(0));
+  }
+
+  @Test(timeout = 5000)
+  public void uncontendedWriteIsNotHeldBackByWindow() throws Exception {
+    NpmPackageRootWriteQueue underTest = new NpmPackageRootWriteQueue(Time.minutes(1), TIMEOUT,
+        (packageId, writes) -> record(writes));
+
+    submit(underTest, PACKAGE_ID, "1.0.0");
+
+    assertThat(batches.size(), is(1));
+    assertThat(underTest.pendingPackages(), is(0));
+  }
+
+  @Test
+  public void failedBatchIsReplayedWriteByWrite() throws Exception {
+    CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+    BatchWriter batchWriter = (packageId, writes) -> {
+      if (batches.isEmpty()) {
+        firstBatchStarted.countDown();
+        await(releaseFirstBatch);
+      }
+      List<String> versions = versions(writes);
+      if (versions.contains("bad")) {
+        throw new IOException("Invalid version");
+      }
+      batches.add(versions);
+    };
+    NpmPackageRootWriteQueue underTest = new NpmPackageRootWriteQueue(Time.millis(0), TIMEOUT, batchWriter);
+
+    Future<?> first = executor.submit(() -> submit(underTest, PACKAGE_ID, "1.0.0"));
+    await(firstBatchStarted);
+    Future<?> good = executor.submit(() -> submit(underTest, PACKAGE_ID, "1.0.1"));
+    Future<?> bad = executor.submit(() -> submit(underTest, PACKAGE_ID, "bad"));
+    waitForQueued(underTest, 2);
+    releaseFirstBatch.countDown();
+
+    first.get(5, TimeUnit.SECONDS);
+    good.get(5, TimeUnit.SECONDS);
+    try {
+      bad.get(5, TimeUnit.SECONDS);
+      fail("Expected exception not thrown");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause().getMessage(), is("Invalid version"));
+    }
+
+    assertThat(batches.size(), is(2));
+    assertThat(batches.get(1), contains("1.0.1"));
+    assertThat(underTest.pendingPackages(), is(0));
+  }
+
+  @Test
+  public void writerStuckBehindABatchGivesUpAfterTimeout() throws Exception {
+    CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+    NpmPackageRootWriteQueue underTest = new NpmPackageRootWriteQueue(Time.millis(0), Time.millis(100),
+        (packageId, writes) -> {
+          if (batches.isEmpty()) {
+            firstBatchStarted.countDown();
+            await(releaseFirstBatch);
+          }
+          record(writes);
+        });
+
+    Future<?> first = executor.submit(() -> submit(underTest, PACKAGE_ID, "1.0.0"));
+    await(firstBatchStarted);
+    try {
+      submit(underTest, PACKAGE_ID, "1.0.1");
+      fail("Expected exception not thrown");
+    }
+    catch (IOException e) {
+      assertThat(e.getMessage(), startsWith("Timed out"));
+    }
+    assertThat(underTest.queuedWrites(PACKAGE_ID), is(0));
+
+    releaseFirstBatch.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThat(batches, contains(singletonList("1.0.0")));
+    assertThat(underTest.pendingPackages(), is(0));
+  }
+
+  @Test
+  public void interruptedWriterIsWithdrawn() throws Exception {
+    CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+    NpmPackageRootWriteQueue underTest = new NpmPackageRootWriteQueue(Time.millis(0), TIMEOUT,
+        (packageId, writes) -> {
+          if (batches.isEmpty()) {
+            firstBatchStarted.countDown();
+            await(releaseFirstBatch);
+          }
+          record(writes);
+        });
+
+    Future<?> first = executor.submit(() -> submit(underTest, PACKAGE_ID, "1.0.0"));
+    await(firstBatchStarted);
+    Future<?> second = executor.submit(() -> submit(underTest, PACKAGE_ID, "1.0.1"));
+    waitForQueued(underTest, 1);
+    second.cancel(true);
+    waitForQueued(underTest, 0);
+
+    releaseFirstBatch.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThat(batches, contains(singletonList("1.0.0")));
+    assertThat(underTest.pendingPackages(), is(0));
+  }
+
+  private void record(final List<PackageRootWrite> writes) throws IOException {
+    batches.add(versions(writes));
+  }
+
+  private static List<String> versions(final List<PackageRootWrite> writes) throws IOException {
+    List<String> versions = new ArrayList<>();
+    for (PackageRootWrite write : writes) {
+      versions.add(version(write.apply()));
+    }
+    return versions;
+  }
+
+  private static Void submit(final NpmPackageRootWriteQueue queue, final NpmPackageId packageId, final String version)
+      throws IOException
+  {
+    queue.submit(packageId, () -> {
+      NestedAttributesMap snippet = new NestedAttributesMap("metadata", new HashMap<>());
+      snippet.child(NpmMetadataUtils.VERSIONS).child(version);
+      return snippet;
+    });
+    return null;
+  }
+
+  private static String version(final NestedAttributesMap snippet) {
+    return snippet.child(NpmMetadataUtils.VERSIONS).keys().iterator().next();
+  }
+
+  private static void waitForQueued(final NpmPackageRootWriteQueue queue, final int count) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (queue.queuedWrites(PACKAGE_ID) != count) {
+      assertThat("Timed out waiting for queued writes", System.currentTimeMillis() < deadline, is(true));
+      Thread.sleep(10);
+    }
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+    }
+    catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.search.v1;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.search.SearchService;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Parameters;
+import org.sonatype.nexus.security.UserIdHelper;
+import org.sonatype.nexus.security.subject.FakeAlmightySubject;
+
+import com.google.common.io.CharStreams;
+import org.apache.shiro.util.ThreadContext;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NpmSearchFacetHostedTest
+    extends TestSupport
+{
+  @Mock
+  SearchService searchService;
+
+  @Mock
+  NpmSearchParameterExtractor npmSearchParameterExtractor;
+
+  @Mock
+  NpmSearchResponseFactory npmSearchResponseFactory;
+
+  @Mock
+  NpmSearchResponseMapper npmSearchResponseMapper;
+
+  @Mock
+  Repository repository;
+
+  @Mock
+  Parameters parameters;
+
+  @Mock
+  SearchResponse searchResponse;
+
+  @Mock
+  Aggregations aggregations;
+
+  @Mock
+  Terms terms;
+
+  NpmSearchResponse npmSearchResponse = new NpmSearchResponse();
+
+  NpmSearchFacetHosted underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.getName()).thenReturn("npm-hosted");
+
+    when(npmSearchParameterExtractor.extractText(parameters)).thenReturn("jquery");
+    when(npmSearchParameterExtractor.extractSize(parameters)).thenReturn(20);
+    when(npmSearchParameterExtractor.extractFrom(parameters)).thenReturn(0);
+
+    when(searchService.searchInReposWithAggregations(any(), any(), any())).thenReturn(searchResponse);
+    when(searchResponse.getAggregations()).thenReturn(aggregations);
+    when(aggregations.get("name")).thenReturn(terms);
+    when(terms.getBuckets()).thenReturn(emptyList());
+
+    when(npmSearchResponseFactory.buildResponseForResults(anyListOf(Terms.Bucket.class), anyInt(), anyInt()))
+        .thenReturn(npmSearchResponse);
+
+    // search hits are filtered by the permissions of whoever is searching at the time
+    when(npmSearchResponseMapper.writeString(npmSearchResponse))
+        .thenAnswer(invocation -> "results-for-" + UserIdHelper.get());
+
+    underTest = new NpmSearchFacetHosted(searchService, npmSearchParameterExtractor, npmSearchResponseFactory,
+        npmSearchResponseMapper, 250, 10, Time.minutes(1));
+    underTest.attach(repository);
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
+  }
+
+  @Test
+  public void cachedResponsesAreNotSharedBetweenUsers() throws Exception {
+    ThreadContext.bind(FakeAlmightySubject.forUserId("alice"));
+    assertThat(read(underTest.searchV1(parameters)), is("results-for-alice"));
+
+    ThreadContext.bind(FakeAlmightySubject.forUserId("bob"));
+    assertThat(read(underTest.searchV1(parameters)), is("results-for-bob"));
+
+    ThreadContext.bind(FakeAlmightySubject.forUserId("alice"));
+    assertThat(read(underTest.searchV1(parameters)), is("results-for-alice"));
+
+    verify(npmSearchResponseMapper, times(2)).writeString(npmSearchResponse);
+  }
+
+  private static String read(final Content content) throws Exception {
+    try (InputStream in = content.openInputStream()) {
+      return CharStreams.toString(new InputStreamReader(in, UTF_8));
+    }
+  }
+}
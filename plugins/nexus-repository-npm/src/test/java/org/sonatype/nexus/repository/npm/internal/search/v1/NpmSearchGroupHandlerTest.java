@@ -152,7 +152,7 @@ public class NpmSearchGroupHandlerTest
   @Before
   public void setUp() throws Exception {
     underTest = new NpmSearchGroupHandler(npmSearchParameterExtractor, npmSearchResponseFactory,
-        npmSearchResponseMapper, MAX_SEARCH_RESULTS);
+        npmSearchResponseMapper, MAX_SEARCH_RESULTS, 2);
 
     when(context.getRepository()).thenReturn(repository);
     when(context.getRequest()).thenReturn(request);
@@ -0,0 +1,87 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.npm.internal.search.v1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.ContentTypes;
+import org.sonatype.nexus.repository.view.Parameters;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+
+import com.google.common.io.CharStreams;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class NpmSearchResponseCacheTest
+    extends TestSupport
+{
+  private final AtomicInteger searches = new AtomicInteger();
+
+  private NpmSearchResponseCache underTest = new NpmSearchResponseCache(10, Time.minutes(1));
+
+  @Test
+  public void responsesAreCachedByKey() throws Exception {
+    assertThat(read(underTest.get("a", this::search)), is("result-1"));
+    assertThat(read(underTest.get("a", this::search)), is("result-1"));
+    assertThat(read(underTest.get("b", this::search)), is("result-2"));
+    assertThat(searches.get(), is(2));
+    assertThat(underTest.stats().hitCount(), is(1L));
+
+    underTest.invalidateAll();
+
+    assertThat(read(underTest.get("a", this::search)), is("result-3"));
+  }
+
+  @Test(expected = IOException.class)
+  public void failedSearchesAreNotCached() throws Exception {
+    try {
+      underTest.get("a", () -> {
+        throw new IOException("remote unavailable");
+      });
+    }
+    finally {
+      assertThat(read(underTest.get("a", this::search)), is("result-1"));
+    }
+  }
+
+  @Test
+  public void keyIgnoresParameterOrderAndWhitespace() {
+    Parameters first = new Parameters();
+    first.set("text", "  left  pad ");
+    first.set("size", "20");
+    Parameters second = new Parameters();
+    second.set("size", "20");
+    second.set("text", "left pad");
+
+    assertThat(NpmSearchResponseCache.keyOf(first), is(NpmSearchResponseCache.keyOf(second)));
+  }
+
+  private Content search() {
+    return new Content(new StringPayload("result-" + searches.incrementAndGet(), ContentTypes.APPLICATION_JSON));
+  }
+
+  private static String read(final Content content) throws IOException {
+    try (InputStream in = content.openInputStream()) {
+      return CharStreams.toString(new InputStreamReader(in, UTF_8));
+    }
+  }
+}
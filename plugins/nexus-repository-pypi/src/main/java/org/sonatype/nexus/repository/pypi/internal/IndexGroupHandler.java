@@ -16,6 +16,11 @@ import java.io.InputStream;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
@@ -34,7 +39,9 @@ import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.repository.pypi.internal.AssetKind.INDEX;
 import static org.sonatype.nexus.repository.pypi.internal.AssetKind.ROOT_INDEX;
@@ -53,9 +60,23 @@ class IndexGroupHandler
 {
   private final TemplateHelper templateHelper;
 
+  private final ExecutorService memberIndexExecutor;
+
   @Inject
-  public IndexGroupHandler(final TemplateHelper templateHelper) {
+  public IndexGroupHandler(final TemplateHelper templateHelper,
+                           @Named("${nexus.pypi.indexGroupThreads:-8}") final int memberIndexThreads)
+  {
     this.templateHelper = checkNotNull(templateHelper);
+
+    // when all threads are busy (e.g. nested groups) the requesting thread fetches from the member itself
+    checkArgument(memberIndexThreads >= 0, "Member index threads must not be negative");
+    if (memberIndexThreads > 0) {
+      this.memberIndexExecutor = new ThreadPoolExecutor(0, memberIndexThreads, 60L, TimeUnit.SECONDS,
+          new SynchronousQueue<>(), new NexusThreadFactory("pypi-index", "pypi-group-index"), new CallerRunsPolicy());
+    }
+    else {
+      this.memberIndexExecutor = null;
+    }
   }
 
   @Override
@@ -78,14 +99,23 @@ class IndexGroupHandler
     PyPiGroupFacet groupFacet = context.getRepository().facet(PyPiGroupFacet.class);
     Content content = groupFacet.getFromCache(name, assetKind);
 
-    Map<Repository, Response> memberResponses = getAll(context, groupFacet.members(), dispatched);
+    // serve warm hits without touching the members, as long as none of their indexes changed
+    if (groupFacet.isFresh(name, content)) {
+      return HttpResponses.ok(content);
+    }
+
+    long version = groupFacet.currentVersion();
+    Map<Repository, Response> memberResponses = getAll(context, groupFacet.members(), dispatched, memberIndexExecutor);
 
     if (groupFacet.isStale(name, content, memberResponses)) {
       String html = mergeResponses(name, assetKind, memberResponses);
       Content newContent = new Content(new StringPayload(html, ContentTypes.TEXT_HTML));
-      return HttpResponses.ok(groupFacet.saveToCache(name, newContent));
+      Payload payload = groupFacet.saveToCache(name, newContent);
+      groupFacet.markValidated(name, version);
+      return HttpResponses.ok(payload);
     }
 
+    groupFacet.markValidated(name, version);
     return HttpResponses.ok(content);
   }
 
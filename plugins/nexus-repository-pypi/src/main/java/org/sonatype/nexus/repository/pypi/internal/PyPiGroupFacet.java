@@ -16,7 +16,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -26,14 +28,17 @@ import org.sonatype.nexus.repository.Facet;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.Type;
 import org.sonatype.nexus.repository.cache.CacheInfo;
+import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.group.GroupFacetImpl;
 import org.sonatype.nexus.repository.http.HttpStatus;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.manager.RepositoryUpdatedEvent;
 import org.sonatype.nexus.repository.storage.Asset;
 import org.sonatype.nexus.repository.storage.AssetBlob;
 import org.sonatype.nexus.repository.storage.AssetCreatedEvent;
 import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
 import org.sonatype.nexus.repository.storage.AssetEvent;
+import org.sonatype.nexus.repository.storage.AssetUpdatedEvent;
 import org.sonatype.nexus.repository.storage.Bucket;
 import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
@@ -41,6 +46,8 @@ import org.sonatype.nexus.repository.transaction.TransactionalDeleteBlob;
 import org.sonatype.nexus.repository.transaction.TransactionalStoreBlob;
 import org.sonatype.nexus.repository.transaction.TransactionalTouchBlob;
 import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.repository.types.ProxyType;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.ContentTypes;
 import org.sonatype.nexus.repository.view.Payload;
@@ -49,18 +56,24 @@ import org.sonatype.nexus.repository.view.payloads.BlobPayload;
 import org.sonatype.nexus.transaction.UnitOfWork;
 import org.sonatype.nexus.validation.ConstraintViolationFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
 import static org.sonatype.nexus.repository.pypi.internal.AssetKind.INDEX;
+import static org.sonatype.nexus.repository.pypi.internal.AssetKind.PACKAGE;
 import static org.sonatype.nexus.repository.pypi.internal.AssetKind.ROOT_INDEX;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiDataUtils.HASH_ALGORITHMS;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiDataUtils.findAsset;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiDataUtils.toContent;
 import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.INDEX_PATH_PREFIX;
+import static org.sonatype.nexus.repository.pypi.internal.PyPiPathUtils.normalizeName;
 import static org.sonatype.nexus.repository.storage.AssetEntityAdapter.P_ASSET_KIND;
 import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
 import static org.sonatype.nexus.repository.view.Content.CONTENT_LAST_MODIFIED;
@@ -75,12 +88,68 @@ import static org.sonatype.nexus.repository.view.Content.CONTENT_LAST_MODIFIED;
 public class PyPiGroupFacet
     extends GroupFacetImpl
 {
+  private final RepositoryManager repositoryManager;
+
+  /**
+   * Source of the version stamps recording when member indexes changed and when cached indexes were validated.
+   */
+  private final AtomicLong memberIndexVersion = new AtomicLong();
+
+  /**
+   * Highest version stamp evicted from {@link #memberIndexChanges}; indexes without a recorded change are treated as
+   * having changed at this stamp, so evicting a change never makes a cached index look fresh.
+   */
+  private final AtomicLong evictedIndexVersion = new AtomicLong();
+
+  /**
+   * Version stamp of the latest change to the index in any member, keyed by normalized package name.
+   */
+  private final Cache<String, Long> memberIndexChanges;
+
+  /**
+   * Version stamp and time at which the cached index was last known to match the members, keyed like
+   * {@link #memberIndexChanges}.
+   */
+  private final Cache<String, Validation> validations;
+
   @Inject
   public PyPiGroupFacet(final RepositoryManager repositoryManager,
                         final ConstraintViolationFactory constraintViolationFactory,
-                        @Named(GroupType.NAME) final Type groupType)
+                        @Named(GroupType.NAME) final Type groupType,
+                        @Named("${nexus.pypi.group.trackedIndexes:-10000}") final int trackedIndexes)
   {
     super(repositoryManager, constraintViolationFactory, groupType);
+    this.repositoryManager = checkNotNull(repositoryManager);
+    this.memberIndexChanges = CacheBuilder.newBuilder()
+        .maximumSize(trackedIndexes)
+        .removalListener((RemovalNotification<String, Long> notification) -> {
+          if (notification.wasEvicted()) {
+            evictedIndexVersion.accumulateAndGet(notification.getValue(), Math::max);
+          }
+        })
+        .build();
+    this.validations = CacheBuilder.newBuilder()
+        .maximumSize(trackedIndexes)
+        .build();
+  }
+
+  @Override
+  protected void doUpdate(final Configuration configuration) throws Exception {
+    super.doUpdate(configuration);
+    validations.invalidateAll(); // members may have changed
+  }
+
+  /**
+   * Forgets all validations when a member, including a member of a nested group, is reconfigured; a nested group may
+   * have changed its members, and a proxy its remote or metadata max age.
+   */
+  @Subscribe
+  @Guarded(by = STARTED)
+  @AllowConcurrentEvents
+  public void on(final RepositoryUpdatedEvent event) {
+    if (repositoryManager.findContainingGroups(event.getRepository().getName()).contains(getRepository().getName())) {
+      validations.invalidateAll();
+    }
   }
 
   @Subscribe
@@ -88,6 +157,7 @@ public class PyPiGroupFacet
   @AllowConcurrentEvents
   public void on(final AssetCreatedEvent event) {
     maybeDeleteFromCache(event);
+    maybeRecordMemberIndexChange(event);
   }
 
   @Subscribe
@@ -95,6 +165,120 @@ public class PyPiGroupFacet
   @AllowConcurrentEvents
   public void on(final AssetDeletedEvent event) {
     maybeDeleteFromCache(event);
+    maybeRecordMemberIndexChange(event);
+  }
+
+  @Subscribe
+  @Guarded(by = STARTED)
+  @AllowConcurrentEvents
+  public void on(final AssetUpdatedEvent event) {
+    DateTime blobUpdated = event.getAsset().blobUpdated();
+    if (blobUpdated == null || blobUpdated.isAfter(DateTime.now().minusMinutes(1))) {
+      maybeRecordMemberIndexChange(event);
+    }
+  }
+
+  /**
+   * Records a new version stamp for the index affected by a change to an index or package of any member, including
+   * members of nested groups. Applies to events from all nodes, as the stamps are held in memory.
+   */
+  private void maybeRecordMemberIndexChange(final AssetEvent event) {
+    if (!repositoryManager.findContainingGroups(event.getRepositoryName()).contains(getRepository().getName())) {
+      return;
+    }
+
+    Asset asset = event.getAsset();
+    String assetKind = asset.formatAttributes().get(P_ASSET_KIND, String.class);
+    if (ROOT_INDEX.name().equals(assetKind)) {
+      recordMemberIndexChange(INDEX_PATH_PREFIX);
+    }
+    else if (INDEX.name().equals(assetKind) && asset.name().startsWith(INDEX_PATH_PREFIX)) {
+      recordMemberIndexChange(asset.name().substring(INDEX_PATH_PREFIX.length()).replace("/", ""));
+    }
+    else if (PACKAGE.name().equals(assetKind) && isHosted(event.getRepositoryName())) {
+      // hosted indexes are generated from the packages, so they may change without any cached index being deleted
+      String packageName = asset.formatAttributes().get(PyPiAttributes.P_NAME, String.class);
+      if (packageName != null) {
+        recordMemberIndexChange(packageName);
+      }
+      if (!(event instanceof AssetUpdatedEvent)) {
+        recordMemberIndexChange(INDEX_PATH_PREFIX); // package may have been added to or removed from the root index
+      }
+    }
+  }
+
+  private boolean isHosted(final String repositoryName) {
+    Repository repository = repositoryManager.get(repositoryName);
+    return repository != null && HostedType.NAME.equals(repository.getType().getValue());
+  }
+
+  private void recordMemberIndexChange(final String name) {
+    if (!name.isEmpty()) {
+      memberIndexChanges.put(indexKey(name), memberIndexVersion.incrementAndGet());
+    }
+  }
+
+  /**
+   * Returns the current version stamp, to be taken before fetching member indexes so changes made meanwhile are
+   * noticed by {@link #isFresh}.
+   *
+   * @since 3.next
+   */
+  public long currentVersion() {
+    return memberIndexVersion.get();
+  }
+
+  /**
+   * Records that the cached index matched the member indexes as of the given version stamp.
+   *
+   * @since 3.next
+   */
+  public void markValidated(final String name, final long version) {
+    validations.put(indexKey(name), new Validation(version, System.currentTimeMillis()));
+  }
+
+  /**
+   * Determines if the cached {@link Content} can be served without fetching the member indexes, because none of them
+   * changed since it was last validated. Proxy members only learn about remote changes when asked, so validations
+   * expire after the shortest metadata max age of any proxy member.
+   *
+   * @since 3.next
+   */
+  public boolean isFresh(final String name, @Nullable final Content content) {
+    if (extractLastModified(content) == null || isStale(content)) {
+      return false;
+    }
+
+    String key = indexKey(name);
+    Validation validation = validations.getIfPresent(key);
+    Long changed = memberIndexChanges.getIfPresent(key);
+    if (validation == null || (changed != null ? changed : evictedIndexVersion.get()) > validation.version) {
+      return false;
+    }
+
+    long maxAgeMillis = proxyMetadataMaxAgeMillis();
+    return maxAgeMillis < 0 || System.currentTimeMillis() - validation.timestamp < maxAgeMillis;
+  }
+
+  /**
+   * Returns the shortest metadata max age of the proxy members in milliseconds; negative if it never expires.
+   */
+  private long proxyMetadataMaxAgeMillis() {
+    long maxAgeMillis = -1;
+    for (Repository member : leafMembers()) {
+      if (ProxyType.NAME.equals(member.getType().getValue())) {
+        Number maxAge = member.getConfiguration().attributes("proxy").get("metadataMaxAge", Number.class);
+        if (maxAge != null && maxAge.longValue() >= 0) {
+          long memberMaxAgeMillis = maxAge.longValue() * 60_000L;
+          maxAgeMillis = maxAgeMillis < 0 ? memberMaxAgeMillis : Math.min(maxAgeMillis, memberMaxAgeMillis);
+        }
+      }
+    }
+    return maxAgeMillis;
+  }
+
+  private static String indexKey(final String name) {
+    return INDEX_PATH_PREFIX.equals(name) ? name : normalizeName(name);
   }
 
   private void maybeDeleteFromCache(final AssetEvent event) {
@@ -190,7 +374,7 @@ public class PyPiGroupFacet
     return response;
   }
 
-  private DateTime extractLastModified(final Content content) {
+  private DateTime extractLastModified(@Nullable final Content content) {
     DateTime lastModified;
     if (content != null && content.getAttributes().contains(CONTENT_LAST_MODIFIED)) {
       lastModified = content.getAttributes().get(CONTENT_LAST_MODIFIED, DateTime.class);
@@ -229,4 +413,16 @@ public class PyPiGroupFacet
     }
     return assets;
   }
+
+  private static class Validation
+  {
+    private final long version;
+
+    private final long timestamp;
+
+    private Validation(final long version, final long timestamp) {
+      this.version = version;
+      this.timestamp = timestamp;
+    }
+  }
 }
@@ -12,15 +12,22 @@
  */
 package org.sonatype.nexus.repository.pypi.internal;
 
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nullable;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.manager.RepositoryUpdatedEvent;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.AssetUpdatedEvent;
 import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.repository.types.ProxyType;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.Status;
@@ -32,8 +39,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import static com.google.common.collect.Maps.newHashMap;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.view.Content.CONTENT_LAST_MODIFIED;
 
@@ -69,7 +80,7 @@ public class PyPiGroupFacetTest
 
     when(originalContent.getAttributes()).thenReturn(attributesMap);
 
-    underTest = new PyPiGroupFacet(repositoryManager, constraintViolationFactory, new GroupType()) {
+    underTest = new PyPiGroupFacet(repositoryManager, constraintViolationFactory, new GroupType(), 100) {
       @Override
       public boolean isStale(@Nullable final Content content) {
         return false;
@@ -79,6 +90,127 @@ public class PyPiGroupFacetTest
     responses = ImmutableMap.of(repository, response);
   }
 
+  @Test
+  public void whenValidatedAndNoMemberIndexChangedShouldBeFresh() throws Exception {
+    PyPiGroupFacet underTest = freshnessTestFacet(proxyMember(60));
+
+    assertFalse(underTest.isFresh("foo", originalContent));
+
+    underTest.markValidated("Foo_Bar", underTest.currentVersion());
+    assertTrue(underTest.isFresh("foo-bar", originalContent));
+    assertFalse(underTest.isFresh("foo", originalContent));
+    assertFalse(underTest.isFresh("foo-bar", null));
+  }
+
+  @Test
+  public void whenMemberIndexChangedAfterValidationShouldNotBeFresh() throws Exception {
+    PyPiGroupFacet underTest = freshnessTestFacet(proxyMember(60));
+    long version = underTest.currentVersion();
+
+    underTest.on(memberIndexEvent("proxy", "simple/foo/"));
+    underTest.markValidated("foo", version);
+    assertFalse(underTest.isFresh("foo", originalContent));
+
+    underTest.markValidated("foo", underTest.currentVersion());
+    assertTrue(underTest.isFresh("foo", originalContent));
+
+    // changes in repositories outside of the group are ignored
+    underTest.on(memberIndexEvent("other", "simple/foo/"));
+    assertTrue(underTest.isFresh("foo", originalContent));
+  }
+
+  @Test
+  public void whenValidationIsOlderThanProxyMetadataMaxAgeShouldNotBeFresh() throws Exception {
+    PyPiGroupFacet underTest = freshnessTestFacet(proxyMember(0));
+
+    underTest.markValidated("foo", underTest.currentVersion());
+    Thread.sleep(5);
+
+    assertFalse(underTest.isFresh("foo", originalContent));
+  }
+
+  @Test
+  public void whenMemberIndexChangeIsEvictedShouldNotBeFresh() throws Exception {
+    PyPiGroupFacet underTest = freshnessTestFacet(proxyMember(60), 10);
+    long version = underTest.currentVersion();
+
+    underTest.on(memberIndexEvent("proxy", "simple/foo/"));
+    for (int i = 0; i < 100; i++) {
+      underTest.on(memberIndexEvent("proxy", "simple/other" + i + "/"));
+    }
+    underTest.markValidated("foo", version);
+
+    assertFalse(underTest.isFresh("foo", originalContent));
+  }
+
+  @Test
+  public void whenNestedMemberIsUpdatedShouldNotBeFresh() throws Exception {
+    PyPiGroupFacet underTest = freshnessTestFacet(proxyMember(60));
+    when(repositoryManager.findContainingGroups("nested")).thenReturn(asList("nested-parent", "group"));
+
+    underTest.markValidated("foo", underTest.currentVersion());
+    underTest.on(new RepositoryUpdatedEvent(namedRepository("other")));
+    assertTrue(underTest.isFresh("foo", originalContent));
+
+    underTest.on(new RepositoryUpdatedEvent(namedRepository("nested")));
+    assertFalse(underTest.isFresh("foo", originalContent));
+  }
+
+  private PyPiGroupFacet freshnessTestFacet(final Repository member) throws Exception {
+    return freshnessTestFacet(member, 100);
+  }
+
+  private PyPiGroupFacet freshnessTestFacet(final Repository member, final int trackedIndexes) throws Exception {
+    Repository groupRepository = mock(Repository.class);
+    when(groupRepository.getName()).thenReturn("group");
+    when(repositoryManager.findContainingGroups("proxy")).thenReturn(singletonList("group"));
+
+    PyPiGroupFacet groupFacet = new PyPiGroupFacet(repositoryManager, constraintViolationFactory, new GroupType(),
+        trackedIndexes)
+    {
+      @Override
+      public boolean isStale(@Nullable final Content content) {
+        return false;
+      }
+
+      @Override
+      public List<Repository> leafMembers() {
+        return singletonList(member);
+      }
+    };
+    groupFacet.attach(groupRepository);
+    return groupFacet;
+  }
+
+  private static Repository proxyMember(final int metadataMaxAge) {
+    Configuration configuration = new Configuration();
+    configuration.setAttributes(
+        ImmutableMap.of("proxy", ImmutableMap.<String, Object>of("metadataMaxAge", metadataMaxAge)));
+
+    Repository member = mock(Repository.class);
+    when(member.getType()).thenReturn(new ProxyType());
+    when(member.getConfiguration()).thenReturn(configuration);
+    return member;
+  }
+
+  private static Repository namedRepository(final String name) {
+    Repository repository = mock(Repository.class);
+    when(repository.getName()).thenReturn(name);
+    return repository;
+  }
+
+  private static AssetUpdatedEvent memberIndexEvent(final String repositoryName, final String indexPath) {
+    Asset asset = mock(Asset.class);
+    when(asset.name()).thenReturn(indexPath);
+    when(asset.formatAttributes())
+        .thenReturn(new NestedAttributesMap("formatAttributes", newHashMap(ImmutableMap.of("asset_kind", "INDEX"))));
+
+    AssetUpdatedEvent event = mock(AssetUpdatedEvent.class);
+    when(event.getRepositoryName()).thenReturn(repositoryName);
+    when(event.getAsset()).thenReturn(asset);
+    return event;
+  }
+
   @Test
   public void whenNoDataModifiedToCompareShouldBeStale() {
     assertTrue(underTest.isStale(null, null, null));
@@ -112,7 +244,7 @@ public class PyPiGroupFacetTest
 
   @Test
   public void whenCacheTokenOsInvalidShouldBeStale() {
-    underTest = new PyPiGroupFacet(repositoryManager, constraintViolationFactory, new GroupType()) {
+    underTest = new PyPiGroupFacet(repositoryManager, constraintViolationFactory, new GroupType(), 100) {
       @Override
       protected boolean isStale(@Nullable final Content content) {
         return true;